@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2005-2020 ManyDesigns srl.  All rights reserved.
+ * http://www.manydesigns.com/
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package com.manydesigns.elements.options;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the label search of {@link DefaultSelectionProvider} scanning all the options with the one using a
+ * {@link LabelIndex}, as done on every keystroke in an autocomplete field.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LabelSearchBenchmark {
+    public static final String copyright =
+            "Copyright (C) 2005-2020 ManyDesigns srl";
+
+    private static final String[] WORDS = {
+            "mario", "maria", "rossi", "rossini", "verdi", "bianchi", "giuseppe", "anna", "luca", "ferrari",
+            "esposito", "romano", "colombo", "ricci", "marino", "greco", "bruno", "gallo", "conti", "costa"
+    };
+
+    @Param({"1000", "100000"})
+    public int optionCount;
+
+    @Param({"ma", "rossi ma", "zz"})
+    public String labelSearch;
+
+    protected DefaultSelectionProvider selectionProvider;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        selectionProvider = new DefaultSelectionProvider("benchmark");
+        for (int i = 0; i < optionCount; i++) {
+            String label = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i;
+            selectionProvider.appendOption(i, label, true);
+        }
+        //Build the index outside of the measurement, like it's shared by all the requests
+        search(selectionProvider.createIndexedSelectionModel());
+    }
+
+    @Benchmark
+    public Map<Object, SelectionModel.Option> scan() {
+        return search(selectionProvider.createSelectionModel());
+    }
+
+    @Benchmark
+    public Map<Object, SelectionModel.Option> index() {
+        return search(selectionProvider.createIndexedSelectionModel());
+    }
+
+    protected Map<Object, SelectionModel.Option> search(SelectionModel selectionModel) {
+        selectionModel.setLabelSearch(0, labelSearch);
+        return selectionModel.getOptions(0);
+    }
+}
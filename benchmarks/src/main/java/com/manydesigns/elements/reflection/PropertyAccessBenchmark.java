@@ -0,0 +1,571 @@
+/*
+ * Copyright (C) 2005-2020 ManyDesigns srl.  All rights reserved.
+ * http://www.manydesigns.com/
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package com.manydesigns.elements.reflection;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.beans.BeanInfo;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads and writes all the properties of an entity with 50 columns, as done for each row of a table form or a CRUD
+ * search, comparing the generated accessors of {@link JavaPropertyAccessor} with reflective ones; also measures
+ * looking up and iterating over the properties of the {@link JavaClassAccessor}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PropertyAccessBenchmark {
+    public static final String copyright =
+            "Copyright (C) 2005-2020 ManyDesigns srl";
+
+    @Param({"true", "false"})
+    public boolean generated;
+
+    protected ClassAccessor classAccessor;
+    protected List<PropertyAccessor> properties;
+    protected Object[] values;
+    protected String[] names;
+    protected WideEntity entity;
+
+    @Setup
+    public void setup() throws Exception {
+        classAccessor = JavaClassAccessor.getClassAccessor(WideEntity.class);
+        properties = new ArrayList<>();
+        BeanInfo beanInfo = Introspector.getBeanInfo(WideEntity.class, Object.class);
+        for(PropertyDescriptor descriptor : beanInfo.getPropertyDescriptors()) {
+            properties.add(new JavaPropertyAccessor(descriptor, generated));
+        }
+        entity = new WideEntity();
+        values = new Object[properties.size()];
+        names = new String[properties.size()];
+        for(int i = 0; i < properties.size(); i++) {
+            PropertyAccessor property = properties.get(i);
+            values[i] = sampleValue(property.getType(), i);
+            names[i] = property.getName();
+            property.set(entity, values[i]);
+        }
+    }
+
+    protected static Object sampleValue(Class<?> type, int i) {
+        if(type == Integer.class) {
+            return i;
+        } else if(type == Long.class) {
+            return (long) i;
+        } else if(type == BigDecimal.class) {
+            return BigDecimal.valueOf(i);
+        } else if(type == Boolean.class) {
+            return i % 2 == 0;
+        } else {
+            return "value " + i;
+        }
+    }
+
+    @Benchmark
+    public void readRow(Blackhole blackhole) {
+        for(int i = 0; i < properties.size(); i++) {
+            blackhole.consume(properties.get(i).get(entity));
+        }
+    }
+
+    @Benchmark
+    public void writeRow() {
+        for(int i = 0; i < properties.size(); i++) {
+            properties.get(i).set(entity, values[i]);
+        }
+    }
+
+    @Benchmark
+    public void lookupByName(Blackhole blackhole) throws NoSuchFieldException {
+        for(String name : names) {
+            blackhole.consume(classAccessor.getProperty(name));
+        }
+    }
+
+    @Benchmark
+    public void iterateProperties(Blackhole blackhole) {
+        for(PropertyAccessor property : classAccessor.getPropertyList()) {
+            blackhole.consume(property);
+        }
+    }
+
+    public static class WideEntity {
+        private String column00;
+        private Integer column01;
+        private Long column02;
+        private BigDecimal column03;
+        private Boolean column04;
+        private String column05;
+        private Integer column06;
+        private Long column07;
+        private BigDecimal column08;
+        private Boolean column09;
+        private String column10;
+        private Integer column11;
+        private Long column12;
+        private BigDecimal column13;
+        private Boolean column14;
+        private String column15;
+        private Integer column16;
+        private Long column17;
+        private BigDecimal column18;
+        private Boolean column19;
+        private String column20;
+        private Integer column21;
+        private Long column22;
+        private BigDecimal column23;
+        private Boolean column24;
+        private String column25;
+        private Integer column26;
+        private Long column27;
+        private BigDecimal column28;
+        private Boolean column29;
+        private String column30;
+        private Integer column31;
+        private Long column32;
+        private BigDecimal column33;
+        private Boolean column34;
+        private String column35;
+        private Integer column36;
+        private Long column37;
+        private BigDecimal column38;
+        private Boolean column39;
+        private String column40;
+        private Integer column41;
+        private Long column42;
+        private BigDecimal column43;
+        private Boolean column44;
+        private String column45;
+        private Integer column46;
+        private Long column47;
+        private BigDecimal column48;
+        private Boolean column49;
+
+        public String getColumn00() {
+            return column00;
+        }
+
+        public void setColumn00(String column00) {
+            this.column00 = column00;
+        }
+
+        public Integer getColumn01() {
+            return column01;
+        }
+
+        public void setColumn01(Integer column01) {
+            this.column01 = column01;
+        }
+
+        public Long getColumn02() {
+            return column02;
+        }
+
+        public void setColumn02(Long column02) {
+            this.column02 = column02;
+        }
+
+        public BigDecimal getColumn03() {
+            return column03;
+        }
+
+        public void setColumn03(BigDecimal column03) {
+            this.column03 = column03;
+        }
+
+        public Boolean getColumn04() {
+            return column04;
+        }
+
+        public void setColumn04(Boolean column04) {
+            this.column04 = column04;
+        }
+
+        public String getColumn05() {
+            return column05;
+        }
+
+        public void setColumn05(String column05) {
+            this.column05 = column05;
+        }
+
+        public Integer getColumn06() {
+            return column06;
+        }
+
+        public void setColumn06(Integer column06) {
+            this.column06 = column06;
+        }
+
+        public Long getColumn07() {
+            return column07;
+        }
+
+        public void setColumn07(Long column07) {
+            this.column07 = column07;
+        }
+
+        public BigDecimal getColumn08() {
+            return column08;
+        }
+
+        public void setColumn08(BigDecimal column08) {
+            this.column08 = column08;
+        }
+
+        public Boolean getColumn09() {
+            return column09;
+        }
+
+        public void setColumn09(Boolean column09) {
+            this.column09 = column09;
+        }
+
+        public String getColumn10() {
+            return column10;
+        }
+
+        public void setColumn10(String column10) {
+            this.column10 = column10;
+        }
+
+        public Integer getColumn11() {
+            return column11;
+        }
+
+        public void setColumn11(Integer column11) {
+            this.column11 = column11;
+        }
+
+        public Long getColumn12() {
+            return column12;
+        }
+
+        public void setColumn12(Long column12) {
+            this.column12 = column12;
+        }
+
+        public BigDecimal getColumn13() {
+            return column13;
+        }
+
+        public void setColumn13(BigDecimal column13) {
+            this.column13 = column13;
+        }
+
+        public Boolean getColumn14() {
+            return column14;
+        }
+
+        public void setColumn14(Boolean column14) {
+            this.column14 = column14;
+        }
+
+        public String getColumn15() {
+            return column15;
+        }
+
+        public void setColumn15(String column15) {
+            this.column15 = column15;
+        }
+
+        public Integer getColumn16() {
+            return column16;
+        }
+
+        public void setColumn16(Integer column16) {
+            this.column16 = column16;
+        }
+
+        public Long getColumn17() {
+            return column17;
+        }
+
+        public void setColumn17(Long column17) {
+            this.column17 = column17;
+        }
+
+        public BigDecimal getColumn18() {
+            return column18;
+        }
+
+        public void setColumn18(BigDecimal column18) {
+            this.column18 = column18;
+        }
+
+        public Boolean getColumn19() {
+            return column19;
+        }
+
+        public void setColumn19(Boolean column19) {
+            this.column19 = column19;
+        }
+
+        public String getColumn20() {
+            return column20;
+        }
+
+        public void setColumn20(String column20) {
+            this.column20 = column20;
+        }
+
+        public Integer getColumn21() {
+            return column21;
+        }
+
+        public void setColumn21(Integer column21) {
+            this.column21 = column21;
+        }
+
+        public Long getColumn22() {
+            return column22;
+        }
+
+        public void setColumn22(Long column22) {
+            this.column22 = column22;
+        }
+
+        public BigDecimal getColumn23() {
+            return column23;
+        }
+
+        public void setColumn23(BigDecimal column23) {
+            this.column23 = column23;
+        }
+
+        public Boolean getColumn24() {
+            return column24;
+        }
+
+        public void setColumn24(Boolean column24) {
+            this.column24 = column24;
+        }
+
+        public String getColumn25() {
+            return column25;
+        }
+
+        public void setColumn25(String column25) {
+            this.column25 = column25;
+        }
+
+        public Integer getColumn26() {
+            return column26;
+        }
+
+        public void setColumn26(Integer column26) {
+            this.column26 = column26;
+        }
+
+        public Long getColumn27() {
+            return column27;
+        }
+
+        public void setColumn27(Long column27) {
+            this.column27 = column27;
+        }
+
+        public BigDecimal getColumn28() {
+            return column28;
+        }
+
+        public void setColumn28(BigDecimal column28) {
+            this.column28 = column28;
+        }
+
+        public Boolean getColumn29() {
+            return column29;
+        }
+
+        public void setColumn29(Boolean column29) {
+            this.column29 = column29;
+        }
+
+        public String getColumn30() {
+            return column30;
+        }
+
+        public void setColumn30(String column30) {
+            this.column30 = column30;
+        }
+
+        public Integer getColumn31() {
+            return column31;
+        }
+
+        public void setColumn31(Integer column31) {
+            this.column31 = column31;
+        }
+
+        public Long getColumn32() {
+            return column32;
+        }
+
+        public void setColumn32(Long column32) {
+            this.column32 = column32;
+        }
+
+        public BigDecimal getColumn33() {
+            return column33;
+        }
+
+        public void setColumn33(BigDecimal column33) {
+            this.column33 = column33;
+        }
+
+        public Boolean getColumn34() {
+            return column34;
+        }
+
+        public void setColumn34(Boolean column34) {
+            this.column34 = column34;
+        }
+
+        public String getColumn35() {
+            return column35;
+        }
+
+        public void setColumn35(String column35) {
+            this.column35 = column35;
+        }
+
+        public Integer getColumn36() {
+            return column36;
+        }
+
+        public void setColumn36(Integer column36) {
+            this.column36 = column36;
+        }
+
+        public Long getColumn37() {
+            return column37;
+        }
+
+        public void setColumn37(Long column37) {
+            this.column37 = column37;
+        }
+
+        public BigDecimal getColumn38() {
+            return column38;
+        }
+
+        public void setColumn38(BigDecimal column38) {
+            this.column38 = column38;
+        }
+
+        public Boolean getColumn39() {
+            return column39;
+        }
+
+        public void setColumn39(Boolean column39) {
+            this.column39 = column39;
+        }
+
+        public String getColumn40() {
+            return column40;
+        }
+
+        public void setColumn40(String column40) {
+            this.column40 = column40;
+        }
+
+        public Integer getColumn41() {
+            return column41;
+        }
+
+        public void setColumn41(Integer column41) {
+            this.column41 = column41;
+        }
+
+        public Long getColumn42() {
+            return column42;
+        }
+
+        public void setColumn42(Long column42) {
+            this.column42 = column42;
+        }
+
+        public BigDecimal getColumn43() {
+            return column43;
+        }
+
+        public void setColumn43(BigDecimal column43) {
+            this.column43 = column43;
+        }
+
+        public Boolean getColumn44() {
+            return column44;
+        }
+
+        public void setColumn44(Boolean column44) {
+            this.column44 = column44;
+        }
+
+        public String getColumn45() {
+            return column45;
+        }
+
+        public void setColumn45(String column45) {
+            this.column45 = column45;
+        }
+
+        public Integer getColumn46() {
+            return column46;
+        }
+
+        public void setColumn46(Integer column46) {
+            this.column46 = column46;
+        }
+
+        public Long getColumn47() {
+            return column47;
+        }
+
+        public void setColumn47(Long column47) {
+            this.column47 = column47;
+        }
+
+        public BigDecimal getColumn48() {
+            return column48;
+        }
+
+        public void setColumn48(BigDecimal column48) {
+            this.column48 = column48;
+        }
+
+        public Boolean getColumn49() {
+            return column49;
+        }
+
+        public void setColumn49(Boolean column49) {
+            this.column49 = column49;
+        }
+    }
+}
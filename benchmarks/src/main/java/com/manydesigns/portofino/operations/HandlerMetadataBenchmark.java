@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2005-2020 ManyDesigns srl.  All rights reserved.
+ * http://www.manydesigns.com/
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package com.manydesigns.portofino.operations;
+
+import com.manydesigns.portofino.cache.ControlsCache;
+import com.manydesigns.portofino.operations.annotations.Guard;
+import com.manydesigns.portofino.resourceactions.log.LogAccesses;
+import com.manydesigns.portofino.security.AccessLevel;
+import com.manydesigns.portofino.security.RequiresAdministrator;
+import com.manydesigns.portofino.security.RequiresPermissions;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares resolving the annotations of a request handler by reflection, as done by the request filter on every
+ * request, with reading them from {@link HandlerMetadata}. Run with <code>-prof gc</code> to compare allocations too.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HandlerMetadataBenchmark {
+    public static final String copyright =
+            "Copyright (C) 2005-2020 ManyDesigns srl";
+
+    @LogAccesses
+    @RequiresPermissions(level = AccessLevel.VIEW)
+    public static class Resource {
+        @Guard(test = "isEditEnabled()", type = GuardType.VISIBLE)
+        @ControlsCache
+        public void handler() {}
+
+        public boolean isEditEnabled() {
+            return true;
+        }
+    }
+
+    protected Class<?> resourceClass;
+    protected Method method;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        resourceClass = Resource.class;
+        method = resourceClass.getMethod("handler");
+        HandlerMetadata.get(resourceClass, method);
+    }
+
+    @Benchmark
+    public void reflection(Blackhole blackhole) {
+        LogAccesses logAccesses = method.getAnnotation(LogAccesses.class);
+        if(logAccesses == null) {
+            logAccesses = resourceClass.getAnnotation(LogAccesses.class);
+        }
+        blackhole.consume(logAccesses != null && logAccesses.value());
+        blackhole.consume(method.isAnnotationPresent(ControlsCache.class));
+        RequiresPermissions requiresPermissions = method.getAnnotation(RequiresPermissions.class);
+        if(requiresPermissions == null) {
+            requiresPermissions = resourceClass.getAnnotation(RequiresPermissions.class);
+        }
+        blackhole.consume(requiresPermissions);
+        boolean requiresAdministrator = method.isAnnotationPresent(RequiresAdministrator.class);
+        Class<?> actionClass = resourceClass;
+        while (!requiresAdministrator && actionClass != null) {
+            requiresAdministrator = actionClass.isAnnotationPresent(RequiresAdministrator.class);
+            actionClass = actionClass.getSuperclass();
+        }
+        blackhole.consume(requiresAdministrator);
+        blackhole.consume(Operations.getGuards(method, GuardType.VISIBLE));
+    }
+
+    @Benchmark
+    public void metadata(Blackhole blackhole) {
+        HandlerMetadata metadata = HandlerMetadata.get(resourceClass, method);
+        blackhole.consume(metadata.isAccessToBeLogged());
+        blackhole.consume(metadata.isControllingCache());
+        blackhole.consume(metadata.getRequiresPermissions());
+        blackhole.consume(metadata.isRequiringAdministrator());
+        blackhole.consume(metadata.getGuards(GuardType.VISIBLE));
+    }
+}
@@ -65,4 +65,14 @@ public class IbmDb2DatabasePlatform extends AbstractDatabasePlatform {
     public boolean isApplicable(ConnectionProvider connectionProvider) {
         return connectionProvider.getDatabaseProductName().startsWith("DB2/");
     }
+
+    @Override
+    public boolean isWindowedCountSupported(ConnectionProvider connectionProvider) {
+        return true;
+    }
+
+    @Override
+    public String getRowCountEstimateQuery() {
+        return "select card from syscat.tables where tabschema = ? and tabname = ?";
+    }
 }
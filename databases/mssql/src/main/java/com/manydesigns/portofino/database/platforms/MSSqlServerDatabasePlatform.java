@@ -64,4 +64,17 @@ public class MSSqlServerDatabasePlatform extends AbstractDatabasePlatform {
                 .startsWith("Microsoft SQL Server") &&
 	       !connectionProvider.getDriverName().contains("jTDS");
     }
+
+    @Override
+    public boolean isWindowedCountSupported(ConnectionProvider connectionProvider) {
+        return true;
+    }
+
+    @Override
+    public String getRowCountEstimateQuery() {
+        return "select sum(p.rows) from sys.partitions p " +
+               "join sys.tables t on t.object_id = p.object_id " +
+               "join sys.schemas s on s.schema_id = t.schema_id " +
+               "where s.name = ? and t.name = ? and p.index_id in (0, 1)";
+    }
 }
@@ -64,5 +64,14 @@ public class MariaDBDatabasePlatform extends MySql5DatabasePlatform {
         return false;
     }
 
+    @Override
+    public boolean isWindowedCountSupported(ConnectionProvider connectionProvider) {
+        //Window functions are available since MariaDB 10.2
+        Integer majorVersion = connectionProvider.getDatabaseMajorVersion();
+        Integer minorVersion = connectionProvider.getDatabaseMinorVersion();
+        return majorVersion != null &&
+               (majorVersion > 10 || (majorVersion == 10 && minorVersion != null && minorVersion >= 2));
+    }
+
 }
 
@@ -78,5 +78,16 @@ public class MySql5DatabasePlatform extends AbstractDatabasePlatform {
         }
         return schemaNames;
     }
+
+    @Override
+    public boolean isWindowedCountSupported(ConnectionProvider connectionProvider) {
+        Integer majorVersion = connectionProvider.getDatabaseMajorVersion();
+        return majorVersion != null && majorVersion >= 8;
+    }
+
+    @Override
+    public String getRowCountEstimateQuery() {
+        return "select table_rows from information_schema.tables where table_schema = ? and table_name = ?";
+    }
 }
 
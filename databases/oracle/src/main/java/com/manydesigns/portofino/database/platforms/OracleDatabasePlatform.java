@@ -73,4 +73,14 @@ public class OracleDatabasePlatform extends AbstractDatabasePlatform {
         schemaNames.removeIf(schemaName -> "SYS".equals(schemaName[1]) || "SYSTEM".equals(schemaName[1]));
         return schemaNames;
     }
+
+    @Override
+    public boolean isWindowedCountSupported(ConnectionProvider connectionProvider) {
+        return true;
+    }
+
+    @Override
+    public String getRowCountEstimateQuery() {
+        return "select num_rows from all_tables where owner = ? and table_name = ?";
+    }
 }
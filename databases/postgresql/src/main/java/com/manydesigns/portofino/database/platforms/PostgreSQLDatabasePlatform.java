@@ -95,4 +95,15 @@ public class PostgreSQLDatabasePlatform extends AbstractDatabasePlatform {
         schemaNames.removeIf(schema -> "information_schema".equalsIgnoreCase(schema[1]) || schema[1].startsWith("pg_"));
         return schemaNames;
     }
+
+    @Override
+    public boolean isWindowedCountSupported(ConnectionProvider connectionProvider) {
+        return true;
+    }
+
+    @Override
+    public String getRowCountEstimateQuery() {
+        return "select c.reltuples from pg_class c join pg_namespace n on n.oid = c.relnamespace " +
+               "where n.nspname = ? and c.relname = ?";
+    }
 }
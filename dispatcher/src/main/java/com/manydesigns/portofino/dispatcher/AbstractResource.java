@@ -46,10 +46,38 @@ import java.util.*;
 public abstract class AbstractResource implements SecureResource {
     public static final String COPYRIGHT = "Copyright (C) 2005-2020 ManyDesigns srl";
     protected static final Logger logger = LoggerFactory.getLogger(AbstractResource.class);
+
+    /**
+     * Whether a class of resources customizes how its sub resources are resolved or created, by overriding
+     * {@link #getSubResource(FileObject, String, ResourceResolver)} or
+     * {@link #createSubResource(Class, FileObject, String)}.
+     */
+    protected static final ClassValue<Boolean> CUSTOM_SUB_RESOURCES = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            for(Class<?> c = type; c != null && c != AbstractResource.class; c = c.getSuperclass()) {
+                if(declares(c, "getSubResource", FileObject.class, String.class, ResourceResolver.class) ||
+                   declares(c, "createSubResource", Class.class, FileObject.class, String.class)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean declares(Class<?> c, String name, Class<?>... parameterTypes) {
+            try {
+                c.getDeclaredMethod(name, parameterTypes);
+                return true;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+    };
     
     protected FileObject location;
     protected Resource parent;
     protected String segment;
+    protected RouteTable.Route route;
 
     @Context
     protected ResourceContext resourceContext;
@@ -94,6 +122,9 @@ public abstract class AbstractResource implements SecureResource {
      */
     @Path("{pathSegment}")
     public Object consumePathSegment(@PathParam("pathSegment") String pathSegment) {
+        if(route != null) {
+            return followRoute(pathSegment);
+        }
         try {
             FileObject child = getChildLocation(pathSegment);
             return consumePathSegment(pathSegment, child, getResourceResolver());
@@ -110,7 +141,7 @@ public abstract class AbstractResource implements SecureResource {
     }
 
     protected void checkChildLocation(String pathSegment, FileObject child) throws FileSystemException {
-        if(child == null) {
+        if(child == null || isPlainName(pathSegment)) {
             return;
         }
         if(!child.getParent().equals(getChildrenLocation())) {
@@ -120,6 +151,17 @@ public abstract class AbstractResource implements SecureResource {
         }
     }
 
+    /**
+     * @return whether the path segment is certainly resolved to a direct child, so that checking its parent is
+     * not necessary. Segments with separators, schemes, relative references or escapes are checked by resolving the
+     * parent.
+     */
+    protected static boolean isPlainName(String pathSegment) {
+        return !pathSegment.isEmpty() && !pathSegment.equals(".") && !pathSegment.equals("..") &&
+               pathSegment.indexOf('/') < 0 && pathSegment.indexOf('\\') < 0 && pathSegment.indexOf('%') < 0 &&
+               pathSegment.indexOf('~') < 0 && pathSegment.indexOf(':') < 0;
+    }
+
     protected Object consumePathSegment(String pathSegment, FileObject resourceLocation, ResourceResolver resourceResolver) {
         if(resourceLocation != null) {
             Object subResource;
@@ -139,7 +181,105 @@ public abstract class AbstractResource implements SecureResource {
         }
     }
     
+    /**
+     * Visits a path segment following the route table rather than resolving the child resource.
+     * @param pathSegment the path segment
+     * @return a sub resource (which can possibly continue dispatch if it is itself an Resource) or null.
+     */
+    protected Object followRoute(String pathSegment) {
+        RouteTable.Route childRoute;
+        try {
+            childRoute = getChildRoute(pathSegment);
+        } catch (FileSystemException e) {
+            logger.error("Could not access child: " + pathSegment, e);
+            throw new WebApplicationException(404);
+        } catch (Exception e) {
+            logger.error("Could not resolve sub resource " + pathSegment + " of " + location, e);
+            throw new WebApplicationException(500);
+        }
+        if(childRoute == null) {
+            logger.debug("No route to {} from {}", pathSegment, location);
+            throw new WebApplicationException(404);
+        }
+        Object subResource;
+        try {
+            subResource = createSubResource(childRoute);
+        } catch (Exception e) {
+            logger.error("Could not create sub resource " + pathSegment + " at " + childRoute.getLocation(), e);
+            throw new WebApplicationException(500);
+        }
+        if(subResource == null) {
+            throw new WebApplicationException(404);
+        }
+        return subResource;
+    }
+
+    /**
+     * @param pathSegment the segment naming the child.
+     * @return the route to a child of this resource, or null if the segment does not name a child.
+     * @throws Exception if the child cannot be resolved.
+     */
+    protected RouteTable.Route getChildRoute(String pathSegment) throws Exception {
+        return route.getChild(pathSegment, isDetail(), this);
+    }
+
+    /**
+     * @return whether this resource has consumed path parameters, so that its children may be defined in another
+     * location (see {@link #getChildrenLocation()}).
+     */
+    protected boolean isDetail() {
+        return false;
+    }
+
+    /**
+     * Returns the segments that can name a child of this resource, in its current state. It's used to build the
+     * route table, so it must include every segment that {@link #getChildLocation(String)} can resolve to a child.
+     * By default, these are the names of the files in the children's directory plus the sub resources.
+     * @return the segments.
+     * @throws FileSystemException if the children's directory cannot be read.
+     */
+    protected Set<String> getChildSegments() throws FileSystemException {
+        Set<String> segments = new HashSet<>(getSubResources());
+        FileObject childrenLocation = getChildrenLocation();
+        if(childrenLocation != null && childrenLocation.exists() && childrenLocation.getType() == FileType.FOLDER) {
+            for(FileObject child : childrenLocation.getChildren()) {
+                segments.add(child.getName().getBaseName());
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * Creates the sub resource a route leads to. If the class of this resource overrides
+     * {@link #getSubResource(FileObject, String, ResourceResolver)} or
+     * {@link #createSubResource(Class, FileObject, String)}, the sub resource is created with them, like when there's
+     * no route table; otherwise, it's instantiated with the constructor cached on the route.
+     * @param route the route to the sub resource.
+     * @return the sub resource, or null if it cannot be resolved.
+     * @throws Exception if the sub resource cannot be created.
+     */
+    protected Object createSubResource(RouteTable.Route route) throws Exception {
+        if(CUSTOM_SUB_RESOURCES.get(getClass())) {
+            Object resource = getSubResource(route.getLocation(), route.getSegment(), getResourceResolver());
+            //The route only describes the resource if it's defined where the route leads
+            if(resource instanceof AbstractResource && ((AbstractResource) resource).getRoute() == null &&
+               route.getLocation().equals(((AbstractResource) resource).getLocation())) {
+                ((AbstractResource) resource).setRoute(route);
+            }
+            return resource;
+        }
+        Object resource = route.newInstance();
+        if(resource instanceof AbstractResource) {
+            ((AbstractResource) resource).setRoute(route);
+        }
+        return initSubResource(resource, route.getLocation(), route.getSegment());
+    }
+
     public Object getSubResource(String subResourceName) throws Exception {
+        if(route != null) {
+            RouteTable.Route childRoute = getChildRoute(subResourceName);
+            return childRoute != null ? createSubResource(childRoute) : null;
+        }
         FileObject subResourceLocation = getChildLocation(subResourceName);
         return getSubResource(subResourceLocation, subResourceName, getResourceResolver());
     }
@@ -241,6 +381,17 @@ public abstract class AbstractResource implements SecureResource {
         this.segment = segment;
     }
 
+    /**
+     * @return the route to this resource in the route table, or null if the dispatcher doesn't use a route table.
+     */
+    public RouteTable.Route getRoute() {
+        return route;
+    }
+
+    public void setRoute(RouteTable.Route route) {
+        this.route = route;
+    }
+
     @Override
     public ResourcePermissions getPermissions() {
         try {
@@ -66,6 +66,11 @@ public abstract class AbstractResourceWithParameters extends AbstractResource im
         }
     }
 
+    @Override
+    protected boolean isDetail() {
+        return !parameters.isEmpty();
+    }
+
     public void consumeParameter(String pathSegment) {
         parameters.add(pathSegment);
     }
@@ -25,7 +25,9 @@ import com.manydesigns.portofino.code.JavaCodeBase;
 import com.manydesigns.portofino.dispatcher.resolvers.CachingResourceResolver;
 import com.manydesigns.portofino.dispatcher.resolvers.JavaResourceResolver;
 import com.manydesigns.portofino.dispatcher.resolvers.ResourceResolvers;
+import com.manydesigns.portofino.dispatcher.resolvers.ResourceWatcher;
 import com.manydesigns.portofino.dispatcher.swagger.DocumentedApiRoot;
+import io.reactivex.disposables.Disposable;
 import org.apache.commons.configuration2.CombinedConfiguration;
 import org.apache.commons.configuration2.Configuration;
 import org.apache.commons.configuration2.PropertiesConfiguration;
@@ -40,11 +42,27 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.List;
 
 public abstract class DispatcherInitializer {
+
+    /**
+     * How cached resources detect changes to the actions: timestamp (the default), watch, or none. See
+     * {@link CachingResourceResolver.ChangeDetection}.
+     */
+    public static final String RESOURCES_CHANGE_DETECTION = "portofino.resources.change.detection";
+    /**
+     * How often (in milliseconds) actions on non-local file systems are checked for changes, in watch mode.
+     */
+    public static final String RESOURCES_POLLING_INTERVAL = "portofino.resources.polling.interval";
+
     protected FileObject applicationRoot;
     protected Configuration configuration;
     protected CodeBase codeBase;
+    protected ResourceWatcher resourceWatcher;
+    protected RouteTable routeTable;
+    protected Disposable codeReloads;
 
     private static final Logger logger = LoggerFactory.getLogger(DispatcherInitializer.class);
 
@@ -126,7 +144,13 @@ public abstract class DispatcherInitializer {
             CodeBase codeBase = createCodeBase();
             ResourceResolvers resourceResolver = new ResourceResolvers();
             configureResourceResolvers(resourceResolver, codeBase);
-            DocumentedApiRoot.setRootFactory(() -> getRoot(actionsDirectory, resourceResolver));
+            CachingResourceResolver.ChangeDetection changeDetection =
+                    configureChangeDetection(resourceResolver, actionsDirectory);
+            if(changeDetection != CachingResourceResolver.ChangeDetection.TIMESTAMP) {
+                //The route table is only kept up to date when changes are notified
+                initRouteTable(actionsDirectory, codeBase);
+            }
+            DocumentedApiRoot.setRootFactory(() -> createRoot(actionsDirectory, resourceResolver));
             return codeBase;
         } catch (Exception e) {
             initializationFailed(e);
@@ -134,6 +158,17 @@ public abstract class DispatcherInitializer {
         }
     }
 
+    /**
+     * Creates the route table and subscribes to the changes that invalidate it. Subclasses that know about other
+     * sources of changes (e.g. files written by the application) should subscribe to them, too.
+     * @param actionsDirectory the root of the resource tree.
+     * @param codeBase the code base, whose reloads clear the table.
+     */
+    protected void initRouteTable(FileObject actionsDirectory, CodeBase codeBase) {
+        routeTable = new RouteTable(actionsDirectory);
+        codeReloads = codeBase.getReloads().subscribe(c -> routeTable.clear());
+    }
+
     protected CodeBase createCodeBase() throws IOException {
         //TODO auto discovery?
         FileObject codeBaseRoot = getCodeBaseRoot();
@@ -160,6 +195,70 @@ public abstract class DispatcherInitializer {
         addResourceResolver(resourceResolver, "com.manydesigns.portofino.dispatcher.resolvers.JacksonResourceResolver", codeBase, true);
     }
 
+    protected CachingResourceResolver.ChangeDetection configureChangeDetection(
+            ResourceResolvers resourceResolver, FileObject actionsDirectory)
+            throws IOException {
+        String mode = getConfiguration().getString(
+                RESOURCES_CHANGE_DETECTION, CachingResourceResolver.ChangeDetection.TIMESTAMP.name());
+        CachingResourceResolver.ChangeDetection changeDetection;
+        try {
+            changeDetection = CachingResourceResolver.ChangeDetection.valueOf(mode.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            changeDetection = CachingResourceResolver.ChangeDetection.TIMESTAMP;
+            logger.warn("Invalid value of {}: {}, using {}", RESOURCES_CHANGE_DETECTION, mode, changeDetection);
+        }
+        List<CachingResourceResolver> cachingResolvers = new ArrayList<>();
+        for(ResourceResolver resolver : resourceResolver.resourceResolvers) {
+            if(resolver instanceof CachingResourceResolver) {
+                ((CachingResourceResolver) resolver).setChangeDetection(changeDetection);
+                cachingResolvers.add((CachingResourceResolver) resolver);
+            }
+        }
+        logger.info("Change detection for actions: {}", changeDetection);
+        if(changeDetection == CachingResourceResolver.ChangeDetection.WATCH) {
+            long pollingInterval =
+                    getConfiguration().getLong(RESOURCES_POLLING_INTERVAL, ResourceWatcher.DEFAULT_POLLING_INTERVAL);
+            resourceWatcher = ResourceWatcher.watch(actionsDirectory, changed -> {
+                for(CachingResourceResolver resolver : cachingResolvers) {
+                    resolver.invalidate(changed);
+                }
+                if(routeTable != null) {
+                    routeTable.invalidate(changed);
+                }
+            }, pollingInterval);
+        }
+        return changeDetection;
+    }
+
+    /**
+     * Releases the resources held by the dispatcher, i.e. stops watching the actions and the code base for changes.
+     */
+    public void destroy() {
+        if(codeReloads != null) {
+            codeReloads.dispose();
+            codeReloads = null;
+        }
+        if(resourceWatcher != null) {
+            resourceWatcher.close();
+            resourceWatcher = null;
+        }
+    }
+
+    /**
+     * Creates the root resource for a request, on the route table if it's in use.
+     */
+    protected Resource createRoot(FileObject actionsDirectory, ResourceResolvers resourceResolver) throws Exception {
+        Resource root = getRoot(actionsDirectory, resourceResolver);
+        if(routeTable != null && root instanceof AbstractResource) {
+            ((AbstractResource) root).setRoute(routeTable.getRoot());
+        }
+        return root;
+    }
+
+    public RouteTable getRouteTable() {
+        return routeTable;
+    }
+
     protected Resource getRoot(FileObject actionsDirectory, ResourceResolvers resourceResolver) throws Exception {
         return Root.get(actionsDirectory, resourceResolver);
     }
@@ -0,0 +1,384 @@
+/*
+ * Copyright (C) 2005-2020 ManyDesigns srl.  All rights reserved.
+ * http://www.manydesigns.com/
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package com.manydesigns.portofino.dispatcher;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.NameScope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * A trie of the routes from the root to the resources in the tree. Each node caches what the dispatcher would
+ * otherwise resolve on every request: the location of the resource, its class, a handle to its constructor, and
+ * the segments that its children can have, so that path segments which don't name a child (e.g. path parameters)
+ * are rejected without accessing the file system.
+ * <p>Nodes are compiled the first time a request descends through them. Since the table doesn't check the file
+ * system again, it must be told about changes, with {@link #invalidate(FileObject)} when a file changes and
+ * {@link #clear()} when classes are reloaded.</p>
+ * <p>Only the file system under the root location is expected to be watched, so routes to locations outside of it
+ * (e.g. mounted with an AdditionalChild) are resolved again every time.</p>
+ */
+public class RouteTable {
+    public static final String COPYRIGHT = "Copyright (C) 2005-2020 ManyDesigns srl";
+    protected static final Logger logger = LoggerFactory.getLogger(RouteTable.class);
+
+    protected final FileObject rootLocation;
+    protected final AtomicLong invalidations = new AtomicLong();
+    protected volatile Route root;
+
+    public RouteTable(FileObject rootLocation) {
+        this.rootLocation = rootLocation;
+    }
+
+    public Route getRoot() {
+        Route root = this.root;
+        if(root == null) {
+            root = new Route(this, null, "", rootLocation, null, null);
+            this.root = root;
+        }
+        return root;
+    }
+
+    /**
+     * Discards all the routes, e.g. because classes have been reloaded.
+     */
+    public void clear() {
+        invalidations.incrementAndGet();
+        root = null;
+        logger.debug("Route table cleared");
+    }
+
+    /**
+     * Discards the routes that may depend on a file that has been created, modified or deleted: the routes to the
+     * file and to its descendants, and the route whose resource is defined in the directory containing the file.
+     * Also, the file or its directory may have just been created (e.g. the action.xml file of a new action): the
+     * routes whose children are defined in the directory containing it read their segments again if the new name
+     * is missing.
+     * @param changed the file or directory that has changed.
+     */
+    public void invalidate(FileObject changed) {
+        invalidations.incrementAndGet();
+        Route root = this.root;
+        if(root == null) {
+            return;
+        }
+        String path = changed.getName().getURI();
+        FileObject parent;
+        FileObject grandparent;
+        try {
+            parent = changed.getParent();
+            grandparent = parent != null ? parent.getParent() : null;
+        } catch (Exception e) {
+            logger.debug("Could not determine the parent of " + changed, e);
+            clear();
+            return;
+        }
+        String parentPath = parent != null ? parent.getName().getURI() : null;
+        if(root.isAffectedBy(path, parentPath)) {
+            clear();
+            return;
+        }
+        root.invalidate(path, parentPath);
+        if(parent != null) {
+            root.addSegment(parentPath, changed.getName().getBaseName());
+        }
+        if(grandparent != null) {
+            root.addSegment(grandparent.getName().getURI(), parent.getName().getBaseName());
+        }
+    }
+
+    /**
+     * @param location a location.
+     * @return whether the location is the root location or one of its descendants, so that changes to it are
+     * notified to the table.
+     */
+    public boolean contains(FileObject location) {
+        return location != null &&
+               rootLocation.getName().isDescendent(location.getName(), NameScope.DESCENDENT_OR_SELF);
+    }
+
+    public Map<String, Object> describe() {
+        Route root = this.root;
+        if(root == null) {
+            return Collections.emptyMap();
+        }
+        return root.describe();
+    }
+
+    /**
+     * A node in the route table, i.e. the route to a resource.
+     */
+    public static class Route {
+        protected final RouteTable table;
+        protected final Route parent;
+        protected final String segment;
+        protected final FileObject location;
+        protected final Class<?> resourceClass;
+        protected final MethodHandle constructor;
+        protected final ConcurrentMap<Class<?>, Object> attributes = new ConcurrentHashMap<>();
+        protected final boolean cacheable;
+        protected volatile Children children;
+        protected volatile Children detailChildren;
+
+        protected Route(
+                RouteTable table, Route parent, String segment, FileObject location, Class<?> resourceClass,
+                MethodHandle constructor) {
+            this.table = table;
+            this.parent = parent;
+            this.segment = segment;
+            this.location = location;
+            this.resourceClass = resourceClass;
+            this.constructor = constructor;
+            this.cacheable = (parent == null || parent.cacheable) && (location == null || table.contains(location));
+        }
+
+        public RouteTable getTable() {
+            return table;
+        }
+
+        public Route getParent() {
+            return parent;
+        }
+
+        public String getSegment() {
+            return segment;
+        }
+
+        public FileObject getLocation() {
+            return location;
+        }
+
+        /**
+         * @return the class of the resource, or null if the segment names a child of the parent that does not
+         * define a resource (e.g. a directory without an action class).
+         */
+        public Class<?> getResourceClass() {
+            return resourceClass;
+        }
+
+        public Object newInstance() throws Exception {
+            try {
+                return (Object) constructor.invokeExact();
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new UndeclaredThrowableException(e);
+            }
+        }
+
+        /**
+         * @return whether what's read from the location of this route can be cached, i.e. whether the location is
+         * in the part of the file system whose changes are notified to the table.
+         */
+        public boolean isCacheable() {
+            return cacheable;
+        }
+
+        /**
+         * Returns a value cached on this route, computing it if it's not present, e.g. a descriptor of the resource
+         * read from its location. The value is discarded with the route. If the route is not
+         * {@link #isCacheable() cacheable}, the value is computed every time.
+         * @param type the type of the value, used as the key.
+         * @param supplier computes the value.
+         * @param <T> the type of the value.
+         * @return the value.
+         */
+        public <T> T getAttribute(Class<T> type, Supplier<T> supplier) {
+            Object value = attributes.get(type);
+            if(value == null) {
+                long invalidationCount = table.invalidations.get();
+                value = supplier.get();
+                if(cacheable && table.invalidations.get() == invalidationCount) {
+                    attributes.put(type, value);
+                }
+            }
+            return type.cast(value);
+        }
+
+        /**
+         * Returns the route to a child of the resource, compiling it if necessary.
+         * @param pathSegment the segment naming the child.
+         * @param detail whether the resource has consumed path parameters, so that its children may be different.
+         * @param resource the resource, which is used to compile the route.
+         * @return the route to the child, or null if the segment does not name a child.
+         * @throws Exception if the child cannot be resolved.
+         */
+        public Route getChild(String pathSegment, boolean detail, AbstractResource resource) throws Exception {
+            Children children = detail ? detailChildren : this.children;
+            if(children == null) {
+                long invalidationCount = table.invalidations.get();
+                children = new Children(resource.getChildrenLocation(), resource.getChildSegments());
+                if(cacheable && table.invalidations.get() == invalidationCount) {
+                    if (detail) {
+                        detailChildren = children;
+                    } else {
+                        this.children = children;
+                    }
+                }
+            }
+            if(!children.segments.contains(pathSegment)) {
+                return null;
+            }
+            Route child = children.routes.get(pathSegment);
+            if(child == null) {
+                long invalidationCount = table.invalidations.get();
+                child = compile(pathSegment, resource);
+                if(!child.cacheable) {
+                    return child.resourceClass != null ? child : null;
+                }
+                children.routes.put(pathSegment, child);
+                if(table.invalidations.get() != invalidationCount) {
+                    //Something changed while compiling, the route may be stale
+                    children.routes.remove(pathSegment);
+                }
+            }
+            return child.resourceClass != null ? child : null;
+        }
+
+        protected Route compile(String pathSegment, AbstractResource resource) throws Exception {
+            FileObject childLocation = resource.getChildLocation(pathSegment);
+            Class<?> childClass = null;
+            if(childLocation != null) {
+                childClass = resource.getResourceResolver().resolve(childLocation, Class.class);
+            }
+            if(childClass == null) {
+                logger.debug("No resource at {} {}", childLocation, pathSegment);
+                return new Route(table, this, pathSegment, childLocation, null, null);
+            }
+            MethodHandle constructor = MethodHandles.publicLookup()
+                    .unreflectConstructor(childClass.getConstructor())
+                    .asType(MethodType.methodType(Object.class));
+            logger.debug("Compiled route to {} at {}", childClass, childLocation);
+            return new Route(table, this, pathSegment, childLocation, childClass, constructor);
+        }
+
+        protected boolean isAffectedBy(String path, String parentPath) {
+            if(location == null) {
+                return false;
+            }
+            String uri = location.getName().getURI();
+            return uri.equals(path) || uri.startsWith(path + "/") || uri.equals(parentPath) ||
+                   isAffectedBy(children, parentPath) || isAffectedBy(detailChildren, parentPath);
+        }
+
+        protected static boolean isAffectedBy(Children children, String parentPath) {
+            return children != null && children.location != null &&
+                   children.location.getName().getURI().equals(parentPath);
+        }
+
+        protected void invalidate(String path, String parentPath) {
+            invalidate(children, path, parentPath);
+            invalidate(detailChildren, path, parentPath);
+        }
+
+        protected static void invalidate(Children children, String path, String parentPath) {
+            if(children == null) {
+                return;
+            }
+            for(Map.Entry<String, Route> entry : children.routes.entrySet()) {
+                Route child = entry.getValue();
+                if(child.isAffectedBy(path, parentPath)) {
+                    children.routes.remove(entry.getKey(), child);
+                    logger.debug("Invalidated route to {}", child.location);
+                } else {
+                    child.invalidate(path, parentPath);
+                }
+            }
+        }
+
+        /**
+         * Makes sure that the children of this route and of its descendants, that are defined in the given
+         * directory, include the given segment: if they don't, they're discarded, to be read again.
+         */
+        protected void addSegment(String directoryPath, String segment) {
+            Children children = this.children;
+            if(isMissing(children, directoryPath, segment)) {
+                this.children = null;
+                logger.debug("New child {} of {}", segment, location);
+            } else if(children != null) {
+                children.routes.values().forEach(child -> child.addSegment(directoryPath, segment));
+            }
+            Children detailChildren = this.detailChildren;
+            if(isMissing(detailChildren, directoryPath, segment)) {
+                this.detailChildren = null;
+                logger.debug("New detail child {} of {}", segment, location);
+            } else if(detailChildren != null) {
+                detailChildren.routes.values().forEach(child -> child.addSegment(directoryPath, segment));
+            }
+        }
+
+        protected static boolean isMissing(Children children, String directoryPath, String segment) {
+            return children != null && children.location != null &&
+                   children.location.getName().getURI().equals(directoryPath) &&
+                   !children.segments.contains(segment);
+        }
+
+        public Map<String, Object> describe() {
+            Map<String, Object> description = new LinkedHashMap<>();
+            description.put("location", location != null ? location.getName().getURI() : null);
+            description.put("class", resourceClass != null ? resourceClass.getName() : null);
+            description.put("children", describe(children));
+            description.put("detailChildren", describe(detailChildren));
+            return description;
+        }
+
+        protected static Map<String, Object> describe(Children children) {
+            if(children == null) {
+                return null;
+            }
+            Map<String, Object> description = new TreeMap<>();
+            for(String segment : children.segments) {
+                Route child = children.routes.get(segment);
+                description.put(segment, child != null ? child.describe() : null);
+            }
+            return description;
+        }
+
+        @Override
+        public String toString() {
+            return "Route{" + "segment='" + segment + "', location=" + location + ", class=" + resourceClass + "}";
+        }
+    }
+
+    /**
+     * The children of a route, in a given location.
+     */
+    protected static class Children {
+        protected final FileObject location;
+        protected final Set<String> segments;
+        protected final ConcurrentMap<String, Route> routes = new ConcurrentHashMap<>();
+
+        protected Children(FileObject location, Set<String> segments) {
+            this.location = location;
+            this.segments = segments;
+        }
+    }
+}
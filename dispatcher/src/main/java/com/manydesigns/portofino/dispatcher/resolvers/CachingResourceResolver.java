@@ -27,8 +27,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
 
 /**
  * @author Angelo Lupo          - angelo.lupo@manydesigns.com
@@ -39,8 +42,24 @@ import java.util.concurrent.ConcurrentMap;
 public class CachingResourceResolver implements ResourceResolver {
     
     private final ConcurrentMap<String, Cached> cache = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Optional<FileObject>> locationCache = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
     protected static final Logger logger = LoggerFactory.getLogger(CachingResourceResolver.class);
     protected ResourceResolver delegate;
+    protected ChangeDetection changeDetection = ChangeDetection.TIMESTAMP;
+
+    /**
+     * How a resolver detects that a cached resource has changed.
+     */
+    public enum ChangeDetection {
+        /** Compare the last-modified time of the resource on every hit (the default, suited to development). */
+        TIMESTAMP,
+        /** Rely on {@link #invalidate(FileObject)} being called when files change, e.g. by a {@link ResourceWatcher}.
+         * Hits, including the resolution of locations, don't access the file system. */
+        WATCH,
+        /** Never detect changes, for deployments where resources are immutable. */
+        NONE
+    }
     
     protected CachingResourceResolver() {}
     
@@ -71,7 +90,7 @@ public class CachingResourceResolver implements ResourceResolver {
         Cached<T> cached = cache.get(key);
         if(cached == null) {
             return cache(key, location, type).value;
-        } else {
+        } else if(changeDetection == ChangeDetection.TIMESTAMP) {
             long lastModifiedTime = getLastModifiedTime(location);
             if(lastModifiedTime > cached.timestamp) {
                 logger.debug("Timestamp for {} is {}, was cached with last-modified time {}", location, lastModifiedTime, cached.timestamp);
@@ -79,19 +98,38 @@ public class CachingResourceResolver implements ResourceResolver {
             } else {
                 return type.cast(cached.value);
             }
+        } else {
+            return type.cast(cached.value);
         }
     }
 
     @Override
     public FileObject resolve(FileObject location) throws FileSystemException {
-        //TODO cache this too?
-        return delegate.resolve(location);
+        return resolve(location, (String) null);
     }
 
     @Override
     public FileObject resolve(FileObject location, String name) throws FileSystemException {
-        //TODO cache this too?
-        return delegate.resolve(location, name);
+        //Without change notifications, a new or deleted file can only be detected by listing the directory again
+        if(location == null || changeDetection == ChangeDetection.TIMESTAMP) {
+            return doResolveLocation(location, name);
+        }
+        String key = location.getName().getURI() + " " + name;
+        Optional<FileObject> cached = locationCache.get(key);
+        if(cached == null) {
+            long invalidationCount = invalidations.get();
+            cached = Optional.ofNullable(doResolveLocation(location, name));
+            locationCache.put(key, cached);
+            if(invalidations.get() != invalidationCount) {
+                //Something changed while resolving, the result may be stale
+                locationCache.remove(key);
+            }
+        }
+        return cached.orElse(null);
+    }
+
+    protected FileObject doResolveLocation(FileObject location, String name) throws FileSystemException {
+        return name != null ? delegate.resolve(location, name) : delegate.resolve(location);
     }
 
     @Override
@@ -104,19 +142,52 @@ public class CachingResourceResolver implements ResourceResolver {
     }
 
     protected <T> Cached<T> cache(String key, FileObject location, Class<T> type) throws Exception {
+        long invalidationCount = invalidations.get();
         Cached<T> value = resolveForCache(location, type);
         cache.put(key, value);
+        if(invalidations.get() != invalidationCount) {
+            cache.remove(key);
+        }
         return value;
     }
 
     protected <T> Cached<T> resolveForCache(FileObject location, Class<T> type) throws Exception {
-        return new Cached<T>(doResolve(location, type), location.getContent().getLastModifiedTime());
+        long timestamp = changeDetection == ChangeDetection.TIMESTAMP ?
+                location.getContent().getLastModifiedTime() :
+                System.currentTimeMillis();
+        return new Cached<T>(doResolve(location, type), timestamp);
     }
 
     protected <T> T doResolve(FileObject location, Class<T> type) throws Exception {
         return delegate.resolve(location, type);
     }
 
+    /**
+     * Removes from the cache everything that may depend on a file that has been created, modified or deleted: the
+     * resources resolved from the file or from its descendants, and the locations resolved in its parent directory.
+     * @param changed the file or directory that has changed.
+     */
+    public void invalidate(FileObject changed) {
+        invalidations.incrementAndGet();
+        String uri = changed.getName().getURI();
+        FileObject parent = null;
+        try {
+            parent = changed.getParent();
+            //VFS caches the type and the children of files, which may be stale now
+            changed.refresh();
+            if(parent != null) {
+                parent.refresh();
+            }
+        } catch (FileSystemException e) {
+            logger.debug("Could not refresh " + changed, e);
+        }
+        String parentPrefix = parent != null ? parent.getName().getURI() + " " : null;
+        Predicate<String> affected = key -> key.startsWith(uri) || (parentPrefix != null && key.startsWith(parentPrefix));
+        cache.keySet().removeIf(affected);
+        locationCache.keySet().removeIf(affected);
+        logger.debug("Invalidated cached resources for {}", changed);
+    }
+
     public void clearCache(long maxAge) {
         long now = System.currentTimeMillis();
         for(Map.Entry<String, Cached> entry : cache.entrySet()) {
@@ -124,12 +195,21 @@ public class CachingResourceResolver implements ResourceResolver {
                 removeCacheEntry(entry);
             }
         }
+        locationCache.clear();
     }
 
     protected Cached removeCacheEntry(Map.Entry<String, Cached> entry) {
         return cache.remove(entry.getKey());
     }
 
+    public ChangeDetection getChangeDetection() {
+        return changeDetection;
+    }
+
+    public void setChangeDetection(ChangeDetection changeDetection) {
+        this.changeDetection = changeDetection;
+    }
+
     public static class Cached<T> {
         public final T value;
         public final long timestamp;
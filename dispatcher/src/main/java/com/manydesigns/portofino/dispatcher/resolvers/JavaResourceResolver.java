@@ -59,12 +59,8 @@ public class JavaResourceResolver extends CachingResourceResolver {
         return null;
     }
     
-    public FileObject resolve(FileObject location) throws FileSystemException {
-        return AbstractResourceResolver.resolve(this, location);
-    }
-    
     @Override
-    public FileObject resolve(FileObject location, String name) throws FileSystemException {
+    protected FileObject doResolveLocation(FileObject location, String name) throws FileSystemException {
         return AbstractResourceResolver.resolve(this, location, name);
     }
     
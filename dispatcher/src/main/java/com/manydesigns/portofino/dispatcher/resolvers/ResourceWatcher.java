@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2005-2021 ManyDesigns srl.  All rights reserved.
+ * http://www.manydesigns.com/
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package com.manydesigns.portofino.dispatcher.resolvers;
+
+import org.apache.commons.vfs2.FileChangeEvent;
+import org.apache.commons.vfs2.FileListener;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.VFS;
+import org.apache.commons.vfs2.impl.DefaultFileMonitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches a tree of resources (typically, the actions directory) and notifies a listener of every file or directory
+ * that is created, modified or deleted. Local directories are watched with a NIO {@link WatchService}; other VFS
+ * file systems are polled with a {@link DefaultFileMonitor}.
+ */
+public abstract class ResourceWatcher implements AutoCloseable {
+
+    public static final long DEFAULT_POLLING_INTERVAL = 2000;
+
+    protected static final Logger logger = LoggerFactory.getLogger(ResourceWatcher.class);
+
+    protected final FileObject root;
+    protected final Consumer<FileObject> listener;
+
+    protected ResourceWatcher(FileObject root, Consumer<FileObject> listener) {
+        this.root = root;
+        this.listener = listener;
+    }
+
+    /**
+     * Starts watching a tree of resources.
+     * @param root the root of the tree.
+     * @param listener invoked, from a background thread, with each changed file.
+     * @param pollingInterval how often (in milliseconds) non-local file systems are checked for changes.
+     * @return the watcher, that must be closed to stop watching.
+     */
+    public static ResourceWatcher watch(FileObject root, Consumer<FileObject> listener, long pollingInterval)
+            throws IOException {
+        ResourceWatcher watcher;
+        if("file".equals(root.getName().getScheme())) {
+            watcher = new NioResourceWatcher(root, listener);
+        } else {
+            watcher = new PollingResourceWatcher(root, listener, pollingInterval);
+        }
+        watcher.start();
+        logger.info("Watching {} for changes with {}", root, watcher.getClass().getSimpleName());
+        return watcher;
+    }
+
+    protected abstract void start() throws IOException;
+
+    protected void fireChange(FileObject file) {
+        try {
+            listener.accept(file);
+        } catch (Exception e) {
+            logger.error("Could not handle change of " + file, e);
+        }
+    }
+
+    @Override
+    public abstract void close();
+
+    /**
+     * Watches a local directory and all its subdirectories with a {@link WatchService}. Newly created directories
+     * are registered as they appear. If events are lost (overflow), the whole tree is reported as changed.
+     */
+    public static class NioResourceWatcher extends ResourceWatcher {
+        protected final Map<WatchKey, Path> directories = new ConcurrentHashMap<>();
+        protected WatchService watchService;
+        protected Thread thread;
+
+        public NioResourceWatcher(FileObject root, Consumer<FileObject> listener) {
+            super(root, listener);
+        }
+
+        @Override
+        protected void start() throws IOException {
+            Path rootPath = new File(root.getName().getPath()).toPath();
+            watchService = rootPath.getFileSystem().newWatchService();
+            registerTree(rootPath);
+            thread = new Thread(this::run, "Resource watcher " + rootPath);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        protected void registerTree(Path start) throws IOException {
+            Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    directories.put(dir.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), dir);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+
+        protected void run() {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key;
+                try {
+                    key = watchService.take();
+                } catch (InterruptedException | ClosedWatchServiceException e) {
+                    return;
+                }
+                Path directory = directories.get(key);
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == OVERFLOW || directory == null) {
+                        fireChange(root);
+                        continue;
+                    }
+                    Path path = directory.resolve((Path) event.context());
+                    if (event.kind() == ENTRY_CREATE && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                        try {
+                            registerTree(path);
+                        } catch (IOException e) {
+                            logger.warn("Could not watch new directory " + path, e);
+                        }
+                    }
+                    try {
+                        fireChange(VFS.getManager().resolveFile(path.toUri()));
+                    } catch (FileSystemException e) {
+                        logger.warn("Could not resolve changed file " + path, e);
+                        fireChange(root);
+                    }
+                }
+                if (!key.reset()) {
+                    directories.remove(key);
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            if (thread != null) {
+                thread.interrupt();
+            }
+            try {
+                if (watchService != null) {
+                    watchService.close();
+                }
+            } catch (IOException e) {
+                logger.warn("Could not close watch service", e);
+            }
+        }
+    }
+
+    /**
+     * Polls a tree of resources on any VFS file system for changes.
+     */
+    public static class PollingResourceWatcher extends ResourceWatcher implements FileListener {
+        protected final DefaultFileMonitor monitor;
+
+        public PollingResourceWatcher(FileObject root, Consumer<FileObject> listener, long pollingInterval) {
+            super(root, listener);
+            monitor = new DefaultFileMonitor(this);
+            monitor.setRecursive(true);
+            monitor.setDelay(pollingInterval);
+        }
+
+        @Override
+        protected void start() {
+            monitor.addFile(root);
+            monitor.start();
+        }
+
+        @Override
+        public void fileCreated(FileChangeEvent event) {
+            fireChange(event.getFileObject());
+        }
+
+        @Override
+        public void fileDeleted(FileChangeEvent event) {
+            fireChange(event.getFileObject());
+        }
+
+        @Override
+        public void fileChanged(FileChangeEvent event) {
+            fireChange(event.getFileObject());
+        }
+
+        @Override
+        public void close() {
+            monitor.stop();
+        }
+    }
+}
@@ -68,6 +68,7 @@ public class WebDispatcherInitializer extends DispatcherInitializer implements S
 
     @Override
     public void contextDestroyed(ServletContextEvent sce) {
+        destroy();
         logger.info("Application destroyed.");
     }
 
@@ -0,0 +1,100 @@
+package com.manydesigns.portofino.dispatcher;
+
+import com.manydesigns.portofino.dispatcher.resolvers.CachingResourceResolver;
+import com.manydesigns.portofino.dispatcher.resolvers.JacksonResourceResolver;
+import com.manydesigns.portofino.dispatcher.resolvers.ResourceWatcher;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.VFS;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+
+import static org.testng.AssertJUnit.*;
+
+public class TestCachingResourceResolver {
+
+    protected File directory;
+    protected FileObject root;
+
+    @BeforeMethod
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("actions").toFile();
+        new File(directory, "test").mkdir();
+        writeTitle("person");
+        root = VFS.getManager().resolveFile(directory.toURI());
+    }
+
+    @AfterMethod
+    public void teardown() throws IOException {
+        FileUtils.deleteDirectory(directory);
+    }
+
+    protected void writeTitle(String title) throws IOException {
+        File file = new File(directory, "test/person.json");
+        long lastModified = file.lastModified();
+        FileUtils.write(file, "{ \"title\": \"" + title + "\" }", StandardCharsets.UTF_8);
+        //Make sure the change is visible even with a coarse-grained file system clock
+        file.setLastModified(Math.max(lastModified, System.currentTimeMillis()) + 10000);
+    }
+
+    protected String resolveTitle(CachingResourceResolver resolver) throws Exception {
+        Map map = resolver.resolve(root.resolveFile("test"), "person", Map.class);
+        return map != null ? (String) map.get("title") : null;
+    }
+
+    @Test
+    public void timestampChangeDetection() throws Exception {
+        CachingResourceResolver resolver = new CachingResourceResolver(new JacksonResourceResolver());
+        assertEquals("person", resolveTitle(resolver));
+        writeTitle("changed");
+        assertEquals("changed", resolveTitle(resolver));
+    }
+
+    @Test
+    public void noChangeDetection() throws Exception {
+        CachingResourceResolver resolver = new CachingResourceResolver(new JacksonResourceResolver());
+        resolver.setChangeDetection(CachingResourceResolver.ChangeDetection.NONE);
+        assertEquals("person", resolveTitle(resolver));
+        writeTitle("changed");
+        assertEquals("person", resolveTitle(resolver));
+    }
+
+    @Test
+    public void invalidation() throws Exception {
+        CachingResourceResolver resolver = new CachingResourceResolver(new JacksonResourceResolver());
+        resolver.setChangeDetection(CachingResourceResolver.ChangeDetection.WATCH);
+        assertEquals("person", resolveTitle(resolver));
+        writeTitle("changed");
+        assertEquals("person", resolveTitle(resolver));
+        resolver.invalidate(root.resolveFile("test/person.json"));
+        assertEquals("changed", resolveTitle(resolver));
+
+        //Deleting the file also invalidates the location resolved in its directory
+        assertTrue(new File(directory, "test/person.json").delete());
+        resolver.invalidate(root.resolveFile("test/person.json"));
+        assertNull(resolveTitle(resolver));
+    }
+
+    @Test
+    public void watcher() throws Exception {
+        CachingResourceResolver resolver = new CachingResourceResolver(new JacksonResourceResolver());
+        resolver.setChangeDetection(CachingResourceResolver.ChangeDetection.WATCH);
+        try(ResourceWatcher ignored = ResourceWatcher.watch(root, resolver::invalidate, 100)) {
+            assertEquals("person", resolveTitle(resolver));
+            writeTitle("changed");
+            long deadline = System.currentTimeMillis() + 30000;
+            while(!"changed".equals(resolveTitle(resolver)) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(100);
+            }
+            assertEquals("changed", resolveTitle(resolver));
+        }
+    }
+
+}
@@ -0,0 +1,158 @@
+package com.manydesigns.portofino.dispatcher;
+
+import com.manydesigns.portofino.dispatcher.security.ShiroResourceFilter;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.VFS;
+import org.glassfish.jersey.jackson.JacksonFeature;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.testng.annotations.Test;
+
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.Path;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+
+/**
+ * Runs the same tests as {@link TestRESTInMemory}, dispatching on a route table.
+ */
+public class TestRouteTable extends TestRESTInMemory {
+
+    protected static final RouteTable routeTable;
+
+    static {
+        try {
+            routeTable = new RouteTable(VFS.getManager().resolveFile("res:java-sources"));
+        } catch (FileSystemException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @Override
+    protected ResourceConfig configure() {
+        return new ResourceConfig(RoutedTestResource.class).register(JacksonFeature.class).register(ShiroResourceFilter.class);
+    }
+
+    @Path("test")
+    public static class RoutedTestResource extends TestResource {
+        public RoutedTestResource() throws Exception {
+            ((AbstractResource) root).setRoute(routeTable.getRoot());
+        }
+    }
+
+    @Test
+    public void routesAreCompiled() throws Exception {
+        assertEquals(target("test/b/1").request().get(String.class), "GET");
+        Map<String, Object> b = getChildRoute(routeTable.describe(), "b");
+        assertNotNull(b);
+        assertEquals(b.get("class"), "B");
+        assertEquals(getChildRoute(b, "1").get("class"), "REST");
+
+        //Segments that don't name a child are rejected without compiling a route
+        try {
+            target("test/nonexistent").request().get(String.class);
+            fail("Should have thrown");
+        } catch (NotFoundException e) {
+            //Ok
+        }
+        assertFalse(((Map) routeTable.describe().get("children")).containsKey("nonexistent"));
+    }
+
+    @Test
+    public void invalidation() throws Exception {
+        assertEquals(target("test/b/1").request().get(String.class), "GET");
+        FileObject b = VFS.getManager().resolveFile("res:java-sources/b");
+        assertNotNull(getChildRoute(routeTable.describe(), "b"));
+
+        routeTable.invalidate(b.resolveFile("1/REST.java"));
+        Map<String, Object> bRoute = getChildRoute(routeTable.describe(), "b");
+        assertNotNull(bRoute);
+        assertNull(getChildRoute(bRoute, "1"));
+
+        routeTable.invalidate(b);
+        assertNull(getChildRoute(routeTable.describe(), "b"));
+        assertEquals(target("test/b/1").request().get(String.class), "GET");
+        assertNotNull(getChildRoute(routeTable.describe(), "b"));
+
+        routeTable.clear();
+        assertTrue(routeTable.describe().isEmpty());
+    }
+
+    @Test
+    public void attributes() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        RouteTable table = new RouteTable(VFS.getManager().resolveFile("res:java-sources"));
+        RouteTable.Route root = table.getRoot();
+        assertTrue(root.isCacheable());
+        assertEquals(root.getAttribute(String.class, () -> "a" + loads.incrementAndGet()), "a1");
+        assertEquals(root.getAttribute(String.class, () -> "a" + loads.incrementAndGet()), "a1");
+
+        //Changes outside of the root location are not notified, so nothing is cached there
+        FileObject outside = VFS.getManager().resolveFile("res:groovy-sources");
+        assertFalse(table.contains(outside));
+        RouteTable.Route mounted = new RouteTable.Route(table, root, "mounted", outside, null, null);
+        assertFalse(mounted.isCacheable());
+        assertEquals(mounted.getAttribute(String.class, () -> "m" + loads.incrementAndGet()), "m2");
+        assertEquals(mounted.getAttribute(String.class, () -> "m" + loads.incrementAndGet()), "m3");
+    }
+
+    @Test
+    public void newDirectories() throws Exception {
+        FileObject dir = VFS.getManager().resolveFile(Files.createTempDirectory("routes").toUri().toString());
+        try {
+            RouteTable table = new RouteTable(dir);
+            RouteTable.Route root = table.getRoot();
+            root.children = new RouteTable.Children(dir, new HashSet<>(Collections.singleton("a")));
+
+            //A new action: only its action.xml file is notified, not its directory
+            FileObject b = dir.resolveFile("b");
+            b.createFolder();
+            FileObject descriptor = b.resolveFile("action.xml");
+            descriptor.createFile();
+            table.invalidate(descriptor);
+            assertNull(root.children);
+
+            //Changes to existing children keep the segments
+            root.children = new RouteTable.Children(dir, new HashSet<>(Arrays.asList("a", "b")));
+            table.invalidate(descriptor);
+            assertNotNull(root.children);
+        } finally {
+            dir.deleteAll();
+        }
+    }
+
+    @Test
+    public void customSubResources() throws Exception {
+        assertFalse(AbstractResource.CUSTOM_SUB_RESOURCES.get(AbstractResourceWithParameters.class));
+        assertTrue(AbstractResource.CUSTOM_SUB_RESOURCES.get(CustomSubResources.class));
+        RouteTable table = new RouteTable(VFS.getManager().resolveFile("res:java-sources"));
+        FileObject b = VFS.getManager().resolveFile("res:java-sources/b");
+        RouteTable.Route route = new RouteTable.Route(table, table.getRoot(), "b", b, Object.class, null);
+        //The override is used rather than the constructor of the route
+        assertEquals(new CustomSubResources().createSubResource(route), "custom b");
+    }
+
+    public static class CustomSubResources extends AbstractResource {
+        @Override
+        public ResourceResolver getResourceResolver() {
+            return null;
+        }
+
+        @Override
+        public Object getSubResource(FileObject resourceLocation, String segment, ResourceResolver resourceResolver) {
+            return "custom " + segment;
+        }
+    }
+
+    protected Map<String, Object> getChildRoute(Map<String, Object> route, String segment) {
+        Map<String, Map<String, Object>> children = (Map) route.get("children");
+        return children != null ? children.get(segment) : null;
+    }
+
+}
@@ -73,6 +73,9 @@ public final class ElementsProperties {
     public static final String FIELDS_DECIMAL_FORMAT =
             "elements.fields.format.decimal";
 
+    public static final String REFLECTION_ACCESSORS_GENERATED =
+            "reflection.accessors.generated";
+
     //**************************************************************************
     // Static fields, singleton initialization and retrieval
     //**************************************************************************
@@ -0,0 +1,128 @@
+/*
+* Copyright (C) 2005-2020 ManyDesigns srl.  All rights reserved.
+* http://www.manydesigns.com/
+*
+* Unless you have purchased a commercial license agreement from ManyDesigns srl,
+* the following license terms apply:
+*
+* This program is free software; you can redistribute it and/or modify
+* it under the terms of the GNU General Public License version 3 as published by
+* the Free Software Foundation.
+*
+* There are special exceptions to the terms and conditions of the GPL
+* as it is applied to this software. View the full text of the
+* exception in file OPEN-SOURCE-LICENSE.txt in the directory of this
+* software distribution.
+*
+* This program is distributed WITHOUT ANY WARRANTY; and without the
+* implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program; if not, see http://www.gnu.org/licenses/gpl.txt
+* or write to:
+* Free Software Foundation, Inc.,
+* 59 Temple Place - Suite 330,
+* Boston, MA  02111-1307  USA
+*
+*/
+
+package com.manydesigns.elements.export;
+
+import com.manydesigns.elements.fields.Field;
+import com.manydesigns.elements.fields.PasswordField;
+import com.manydesigns.elements.forms.TableForm;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes table form rows as CSV (RFC 4180), using the string value of each field.
+ * <p>By default, values that a spreadsheet would interpret as a formula (those starting with =, +, -, @, a tab or a
+ * carriage return) are prefixed with a single quote, so that opening an export cannot run formulas injected in the
+ * data (CSV injection).</p>
+ */
+public class CsvRowWriter implements TableFormRowWriter {
+    public static final String copyright =
+            "Copyright (C) 2005-2020 ManyDesigns srl";
+
+    protected final Writer writer;
+    protected final char separator;
+    protected final boolean escapeFormulas;
+
+    public CsvRowWriter(OutputStream outputStream) {
+        this(outputStream, ',');
+    }
+
+    public CsvRowWriter(OutputStream outputStream, char separator) {
+        this(outputStream, separator, true);
+    }
+
+    public CsvRowWriter(OutputStream outputStream, char separator, boolean escapeFormulas) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        this.separator = separator;
+        this.escapeFormulas = escapeFormulas;
+    }
+
+    @Override
+    public void writeHeader(TableForm.Column[] columns) throws IOException {
+        for (int i = 0; i < columns.length; i++) {
+            if(i > 0) {
+                writer.write(separator);
+            }
+            writeValue(columns[i].getActualLabel());
+        }
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void writeRow(TableForm.Row row) throws IOException {
+        boolean first = true;
+        for (Field field : row) {
+            if(!first) {
+                writer.write(separator);
+            }
+            first = false;
+            if(field instanceof PasswordField) {
+                writeValue(PasswordField.PASSWORD_PLACEHOLDER);
+            } else {
+                writeValue(field.getStringValue());
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    protected void writeValue(String value) throws IOException {
+        if(value == null) {
+            return;
+        }
+        if(escapeFormulas && isFormula(value)) {
+            value = "'" + value;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == separator || c == '"' || c == '\n' || c == '\r';
+        }
+        if(quote) {
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        } else {
+            writer.write(value);
+        }
+    }
+
+    protected boolean isFormula(String value) {
+        if(value.isEmpty()) {
+            return false;
+        }
+        char c = value.charAt(0);
+        return c == '=' || c == '+' || c == '-' || c == '@' || c == '\t' || c == '\r';
+    }
+
+    @Override
+    public void finish() throws IOException {
+        writer.flush();
+    }
+}
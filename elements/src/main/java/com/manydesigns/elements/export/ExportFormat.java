@@ -0,0 +1,67 @@
+/*
+* Copyright (C) 2005-2020 ManyDesigns srl.  All rights reserved.
+* http://www.manydesigns.com/
+*
+* Unless you have purchased a commercial license agreement from ManyDesigns srl,
+* the following license terms apply:
+*
+* This program is free software; you can redistribute it and/or modify
+* it under the terms of the GNU General Public License version 3 as published by
+* the Free Software Foundation.
+*
+* There are special exceptions to the terms and conditions of the GPL
+* as it is applied to this software. View the full text of the
+* exception in file OPEN-SOURCE-LICENSE.txt in the directory of this
+* software distribution.
+*
+* This program is distributed WITHOUT ANY WARRANTY; and without the
+* implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program; if not, see http://www.gnu.org/licenses/gpl.txt
+* or write to:
+* Free Software Foundation, Inc.,
+* 59 Temple Place - Suite 330,
+* Boston, MA  02111-1307  USA
+*
+*/
+
+package com.manydesigns.elements.export;
+
+import java.io.OutputStream;
+import java.util.function.Function;
+
+/**
+ * The formats supported by streaming exports, with the corresponding {@link TableFormRowWriter}.
+ */
+public enum ExportFormat {
+    CSV("text/csv;charset=UTF-8", "csv", CsvRowWriter::new),
+    NDJSON("application/x-ndjson;charset=UTF-8", "ndjson", NdjsonRowWriter::new),
+    XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx", XlsxRowWriter::new);
+
+    public static final String copyright =
+            "Copyright (C) 2005-2020 ManyDesigns srl";
+
+    private final String mimeType;
+    private final String extension;
+    private final Function<OutputStream, TableFormRowWriter> writerFactory;
+
+    ExportFormat(String mimeType, String extension, Function<OutputStream, TableFormRowWriter> writerFactory) {
+        this.mimeType = mimeType;
+        this.extension = extension;
+        this.writerFactory = writerFactory;
+    }
+
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public TableFormRowWriter createWriter(OutputStream outputStream) {
+        return writerFactory.apply(outputStream);
+    }
+}
@@ -0,0 +1,71 @@
+/*
+* Copyright (C) 2005-2020 ManyDesigns srl.  All rights reserved.
+* http://www.manydesigns.com/
+*
+* Unless you have purchased a commercial license agreement from ManyDesigns srl,
+* the following license terms apply:
+*
+* This program is free software; you can redistribute it and/or modify
+* it under the terms of the GNU General Public License version 3 as published by
+* the Free Software Foundation.
+*
+* There are special exceptions to the terms and conditions of the GPL
+* as it is applied to this software. View the full text of the
+* exception in file OPEN-SOURCE-LICENSE.txt in the directory of this
+* software distribution.
+*
+* This program is distributed WITHOUT ANY WARRANTY; and without the
+* implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program; if not, see http://www.gnu.org/licenses/gpl.txt
+* or write to:
+* Free Software Foundation, Inc.,
+* 59 Temple Place - Suite 330,
+* Boston, MA  02111-1307  USA
+*
+*/
+
+package com.manydesigns.elements.export;
+
+import com.manydesigns.elements.forms.TableForm;
+import com.manydesigns.elements.util.FormUtil;
+import org.json.JSONWriter;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes table form rows as newline-delimited JSON: one object per line, in the same format as the records of a
+ * JSON search (see {@link FormUtil#fieldsToJson(JSONWriter, java.util.Collection)}).
+ */
+public class NdjsonRowWriter implements TableFormRowWriter {
+    public static final String copyright =
+            "Copyright (C) 2005-2020 ManyDesigns srl";
+
+    protected final Writer writer;
+
+    public NdjsonRowWriter(OutputStream outputStream) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void writeHeader(TableForm.Column[] columns) {
+        //No header: every line is self-describing
+    }
+
+    @Override
+    public void writeRow(TableForm.Row row) throws IOException {
+        JSONWriter js = new JSONWriter(writer);
+        js.object().key("__rowKey").value(row.getKey());
+        FormUtil.fieldsToJson(js, row);
+        js.endObject();
+        writer.write('\n');
+    }
+
+    @Override
+    public void finish() throws IOException {
+        writer.flush();
+    }
+}
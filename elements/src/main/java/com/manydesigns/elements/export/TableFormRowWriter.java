@@ -0,0 +1,63 @@
+/*
+* Copyright (C) 2005-2020 ManyDesigns srl.  All rights reserved.
+* http://www.manydesigns.com/
+*
+* Unless you have purchased a commercial license agreement from ManyDesigns srl,
+* the following license terms apply:
+*
+* This program is free software; you can redistribute it and/or modify
+* it under the terms of the GNU General Public License version 3 as published by
+* the Free Software Foundation.
+*
+* There are special exceptions to the terms and conditions of the GPL
+* as it is applied to this software. View the full text of the
+* exception in file OPEN-SOURCE-LICENSE.txt in the directory of this
+* software distribution.
+*
+* This program is distributed WITHOUT ANY WARRANTY; and without the
+* implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program; if not, see http://www.gnu.org/licenses/gpl.txt
+* or write to:
+* Free Software Foundation, Inc.,
+* 59 Temple Place - Suite 330,
+* Boston, MA  02111-1307  USA
+*
+*/
+
+package com.manydesigns.elements.export;
+
+import com.manydesigns.elements.forms.TableForm;
+
+import java.io.IOException;
+
+/**
+ * Writes the rows of a table form to an output stream one at a time, so that an arbitrary number of objects can
+ * be exported reusing the same row of fields, without keeping them all in memory.
+ */
+public interface TableFormRowWriter {
+    String copyright =
+            "Copyright (C) 2005-2020 ManyDesigns srl";
+
+    /**
+     * Writes the column headers. Must be called once, before any row is written.
+     * @param columns the columns of the table form.
+     * @throws IOException if the output cannot be written.
+     */
+    void writeHeader(TableForm.Column[] columns) throws IOException;
+
+    /**
+     * Writes a row, that has already been read from an object.
+     * @param row the row.
+     * @throws IOException if the output cannot be written.
+     */
+    void writeRow(TableForm.Row row) throws IOException;
+
+    /**
+     * Completes the document and flushes it to the output stream, without closing it.
+     * @throws IOException if the output cannot be written.
+     */
+    void finish() throws IOException;
+}
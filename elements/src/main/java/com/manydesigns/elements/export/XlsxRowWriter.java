@@ -0,0 +1,258 @@
+/*
+* Copyright (C) 2005-2020 ManyDesigns srl.  All rights reserved.
+* http://www.manydesigns.com/
+*
+* Unless you have purchased a commercial license agreement from ManyDesigns srl,
+* the following license terms apply:
+*
+* This program is free software; you can redistribute it and/or modify
+* it under the terms of the GNU General Public License version 3 as published by
+* the Free Software Foundation.
+*
+* There are special exceptions to the terms and conditions of the GPL
+* as it is applied to this software. View the full text of the
+* exception in file OPEN-SOURCE-LICENSE.txt in the directory of this
+* software distribution.
+*
+* This program is distributed WITHOUT ANY WARRANTY; and without the
+* implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program; if not, see http://www.gnu.org/licenses/gpl.txt
+* or write to:
+* Free Software Foundation, Inc.,
+* 59 Temple Place - Suite 330,
+* Boston, MA  02111-1307  USA
+*
+*/
+
+package com.manydesigns.elements.export;
+
+import com.manydesigns.elements.fields.Field;
+import com.manydesigns.elements.fields.PasswordField;
+import com.manydesigns.elements.forms.TableForm;
+import org.joda.time.DateTime;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes table form rows as an Office Open XML spreadsheet (xlsx). Rows are written to the output as they come,
+ * using inline strings, so memory usage doesn't depend on the number of rows. When a sheet is full (Excel supports
+ * at most {@value #MAX_ROWS_PER_SHEET} rows per sheet), the export continues on a new sheet.
+ */
+public class XlsxRowWriter implements TableFormRowWriter {
+    public static final String copyright =
+            "Copyright (C) 2005-2020 ManyDesigns srl";
+
+    public static final int MAX_ROWS_PER_SHEET = 1048576;
+
+    protected static final int DATE_STYLE = 1;
+    protected static final int HEADER_STYLE = 2;
+    protected static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000;
+    protected static final int EXCEL_EPOCH_OFFSET = 25569; //Days from 1900-01-00 to 1970-01-01
+
+    protected final ZipOutputStream zip;
+    protected final Writer writer;
+    protected final int maxRowsPerSheet;
+    protected TableForm.Column[] columns;
+    protected int sheets = 0;
+    protected int rowsInSheet = 0;
+
+    public XlsxRowWriter(OutputStream outputStream) {
+        this(outputStream, MAX_ROWS_PER_SHEET);
+    }
+
+    public XlsxRowWriter(OutputStream outputStream, int maxRowsPerSheet) {
+        zip = new ZipOutputStream(outputStream, StandardCharsets.UTF_8);
+        writer = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8));
+        this.maxRowsPerSheet = maxRowsPerSheet;
+    }
+
+    @Override
+    public void writeHeader(TableForm.Column[] columns) throws IOException {
+        this.columns = columns;
+        startSheet();
+    }
+
+    protected void startSheet() throws IOException {
+        if(sheets > 0) {
+            endSheet();
+        }
+        sheets++;
+        rowsInSheet = 0;
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + sheets + ".xml"));
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+        writer.write("<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>");
+        startRow();
+        for (TableForm.Column column : columns) {
+            writeStringCell(column.getActualLabel(), HEADER_STYLE);
+        }
+        endRow();
+    }
+
+    protected void endSheet() throws IOException {
+        writer.write("</sheetData></worksheet>");
+        writer.flush();
+        zip.closeEntry();
+    }
+
+    @Override
+    public void writeRow(TableForm.Row row) throws IOException {
+        if(rowsInSheet >= maxRowsPerSheet) {
+            startSheet();
+        }
+        startRow();
+        for (Field field : row) {
+            if(field instanceof PasswordField) {
+                writeStringCell(PasswordField.PASSWORD_PLACEHOLDER, 0);
+                continue;
+            }
+            Object value = field.getValue();
+            if(value instanceof DateTime) {
+                value = ((DateTime) value).toDate();
+            }
+            if(value == null) {
+                writer.write("<c/>");
+            } else if(value instanceof Number && isFinite((Number) value)) {
+                writer.write("<c><v>");
+                writer.write(value.toString());
+                writer.write("</v></c>");
+            } else if(value instanceof Date) {
+                long millis = ((Date) value).getTime();
+                double serial =
+                        (double) (millis + TimeZone.getDefault().getOffset(millis)) / MILLIS_PER_DAY +
+                        EXCEL_EPOCH_OFFSET;
+                writer.write("<c s=\"" + DATE_STYLE + "\"><v>");
+                writer.write(Double.toString(serial));
+                writer.write("</v></c>");
+            } else {
+                writeStringCell(field.getStringValue(), 0);
+            }
+        }
+        endRow();
+    }
+
+    /**
+     * NaN and infinite values cannot be stored in a numeric cell, Excel would refuse to open the file; they're written
+     * as text instead.
+     */
+    protected static boolean isFinite(Number value) {
+        if(value instanceof Double || value instanceof Float) {
+            double d = value.doubleValue();
+            return !Double.isNaN(d) && !Double.isInfinite(d);
+        }
+        return true;
+    }
+
+    protected void startRow() throws IOException {
+        rowsInSheet++;
+        writer.write("<row r=\"" + rowsInSheet + "\">");
+    }
+
+    protected void endRow() throws IOException {
+        writer.write("</row>");
+    }
+
+    protected void writeStringCell(String value, int style) throws IOException {
+        writer.write("<c t=\"inlineStr\"");
+        if(style != 0) {
+            writer.write(" s=\"" + style + "\"");
+        }
+        writer.write("><is><t xml:space=\"preserve\">");
+        writeEscaped(value);
+        writer.write("</t></is></c>");
+    }
+
+    protected void writeEscaped(String value) throws IOException {
+        if(value == null) {
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&': writer.write("&amp;"); break;
+                case '<': writer.write("&lt;"); break;
+                case '>': writer.write("&gt;"); break;
+                case '"': writer.write("&quot;"); break;
+                default:
+                    if(c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+                        writer.write(c);
+                    } //else, not allowed in XML
+            }
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if(sheets == 0) {
+            writeHeader(new TableForm.Column[0]);
+        }
+        endSheet();
+
+        StringBuilder contentTypes = new StringBuilder(
+                "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n" +
+                "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">" +
+                "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>" +
+                "<Default Extension=\"xml\" ContentType=\"application/xml\"/>" +
+                "<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>" +
+                "<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+        StringBuilder workbook = new StringBuilder(
+                "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n" +
+                "<workbook xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" " +
+                "xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\"><sheets>");
+        StringBuilder workbookRels = new StringBuilder(
+                "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n" +
+                "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">" +
+                "<Relationship Id=\"styles\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/styles\" Target=\"styles.xml\"/>");
+        for (int i = 1; i <= sheets; i++) {
+            contentTypes.append("<Override PartName=\"/xl/worksheets/sheet").append(i).append(".xml\" ")
+                    .append("ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+            workbook.append("<sheet name=\"Sheet").append(i).append("\" sheetId=\"").append(i)
+                    .append("\" r:id=\"sheet").append(i).append("\"/>");
+            workbookRels.append("<Relationship Id=\"sheet").append(i)
+                    .append("\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\"")
+                    .append(" Target=\"worksheets/sheet").append(i).append(".xml\"/>");
+        }
+        contentTypes.append("</Types>");
+        workbook.append("</sheets></workbook>");
+        workbookRels.append("</Relationships>");
+
+        writeEntry("[Content_Types].xml", contentTypes.toString());
+        writeEntry("_rels/.rels",
+                "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n" +
+                "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">" +
+                "<Relationship Id=\"workbook\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" Target=\"xl/workbook.xml\"/>" +
+                "</Relationships>");
+        writeEntry("xl/workbook.xml", workbook.toString());
+        writeEntry("xl/_rels/workbook.xml.rels", workbookRels.toString());
+        //Styles: 0 default, 1 date and time (built-in format 22), 2 bold header
+        writeEntry("xl/styles.xml",
+                "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n" +
+                "<styleSheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">" +
+                "<fonts count=\"2\"><font><sz val=\"11\"/><name val=\"Calibri\"/></font>" +
+                "<font><b/><sz val=\"11\"/><name val=\"Calibri\"/></font></fonts>" +
+                "<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill>" +
+                "<fill><patternFill patternType=\"gray125\"/></fill></fills>" +
+                "<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>" +
+                "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>" +
+                "<cellXfs count=\"3\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>" +
+                "<xf numFmtId=\"22\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/>" +
+                "<xf numFmtId=\"0\" fontId=\"1\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyFont=\"1\"/></cellXfs>" +
+                "</styleSheet>");
+        zip.finish();
+        zip.flush();
+    }
+
+    protected void writeEntry(String name, String contents) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        writer.write(contents);
+        writer.flush();
+        zip.closeEntry();
+    }
+}
@@ -20,11 +20,14 @@
 
 package com.manydesigns.elements.fields.helpers;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.manydesigns.elements.ElementsProperties;
 import com.manydesigns.elements.Mode;
 import com.manydesigns.elements.fields.Field;
 import com.manydesigns.elements.fields.search.SearchField;
 import com.manydesigns.elements.reflection.ClassAccessor;
+import com.manydesigns.elements.reflection.MutablePropertyAccessor;
 import com.manydesigns.elements.reflection.PropertyAccessor;
 import com.manydesigns.elements.util.InstanceBuilder;
 import com.manydesigns.elements.util.ReflectionUtil;
@@ -64,6 +67,15 @@ public class FieldsManager implements FieldHelper {
 
     protected final ArrayList<FieldHelper> helperList;
 
+    /**
+     * For each property, the position in {@link #helperList} of the helpers that last instantiated its fields, by
+     * mode, and its search field. Properties are compared by identity and, as with
+     * {@link com.manydesigns.elements.reflection.JavaClassAccessor}, weakly referenced. So, a property accessor must
+     * not change its type or annotations once it's been used to build fields; those that can are never remembered
+     * (see {@link #canRememberHelpers(PropertyAccessor)}).
+     */
+    protected final Cache<PropertyAccessor, ResolvedHelpers> resolvedHelpers =
+            CacheBuilder.newBuilder().weakKeys().build();
 
     //**************************************************************************
     // Static initialization and methods
@@ -114,6 +126,7 @@ public class FieldsManager implements FieldHelper {
             logger.debug("Failed to add field helper: {}", helperClassName);
         } else {
             helperList.add(helper);
+            invalidateResolvedHelpers();
             logger.debug("Added field helper: {}", helper);
         }
     }
@@ -122,14 +135,32 @@ public class FieldsManager implements FieldHelper {
     // FieldHelper implementation
     //**************************************************************************
 
+    /**
+     * Asks each helper in turn to instantiate a field for the property, and returns the first one. The helper that
+     * succeeds is remembered, so the next time a field is requested for the same property in the same mode it's asked
+     * first; if it no longer succeeds, or the list of helpers has changed, all the helpers are tried again.
+     */
     public Field tryToInstantiateField(ClassAccessor classAccessor,
                                   PropertyAccessor propertyAccessor,
                                   Mode mode,
                                   String prefix) {
-        for (FieldHelper current : helperList) {
+        ResolvedHelpers resolved = getResolvedHelpers(propertyAccessor);
+        int index = resolved.fieldHelpers[mode.ordinal()];
+        FieldHelper helper = getHelper(index, resolved.fieldHelperInstances[mode.ordinal()]);
+        if (helper != null) {
+            Field result = helper.tryToInstantiateField(classAccessor,
+                    propertyAccessor, mode, prefix);
+            if (result != null) {
+                return result;
+            }
+        }
+        for (int i = 0; i < helperList.size(); i++) {
+            FieldHelper current = helperList.get(i);
             Field result = current.tryToInstantiateField(classAccessor,
                     propertyAccessor, mode, prefix);
             if (result != null) {
+                resolved.fieldHelperInstances[mode.ordinal()] = current;
+                resolved.fieldHelpers[mode.ordinal()] = i;
                 return result;
             }
         }
@@ -140,17 +171,80 @@ public class FieldsManager implements FieldHelper {
             ClassAccessor classAccessor,
             PropertyAccessor propertyAccessor,
             String prefix) {
-        for (FieldHelper current : helperList) {
+        ResolvedHelpers resolved = getResolvedHelpers(propertyAccessor);
+        FieldHelper helper = getHelper(resolved.searchFieldHelper, resolved.searchFieldHelperInstance);
+        if (helper != null) {
+            SearchField result =
+                    helper.tryToInstantiateSearchField(
+                            classAccessor, propertyAccessor, prefix);
+            if (result != null) {
+                return result;
+            }
+        }
+        for (int i = 0; i < helperList.size(); i++) {
+            FieldHelper current = helperList.get(i);
             SearchField result =
                     current.tryToInstantiateSearchField(
                             classAccessor, propertyAccessor, prefix);
             if (result != null) {
+                resolved.searchFieldHelperInstance = current;
+                resolved.searchFieldHelper = i;
                 return result;
             }
         }
         return null;
     }
 
+    protected ResolvedHelpers getResolvedHelpers(PropertyAccessor propertyAccessor) {
+        if (!canRememberHelpers(propertyAccessor)) {
+            return new ResolvedHelpers();
+        }
+        ResolvedHelpers resolved = resolvedHelpers.getIfPresent(propertyAccessor);
+        if (resolved == null) {
+            resolved = new ResolvedHelpers();
+            resolvedHelpers.put(propertyAccessor, resolved);
+        }
+        return resolved;
+    }
+
+    /**
+     * @return whether the helpers resolved for the property can be remembered. They can't if the property is a
+     * {@link MutablePropertyAccessor}, whose annotations can change after it's been used, so that a different helper
+     * would match.
+     */
+    protected boolean canRememberHelpers(PropertyAccessor propertyAccessor) {
+        return !(propertyAccessor instanceof MutablePropertyAccessor);
+    }
+
+    /**
+     * @return the helper at the given position, if it's still there, otherwise null.
+     */
+    protected FieldHelper getHelper(int index, FieldHelper helper) {
+        if (helper != null && index < helperList.size() && helperList.get(index) == helper) {
+            return helper;
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Forgets the helpers that have been resolved for each property, for example after the list of helpers has
+     * been changed.
+     */
+    public void invalidateResolvedHelpers() {
+        resolvedHelpers.invalidateAll();
+    }
+
+    /**
+     * The helpers resolved for a property. Concurrent updates are harmless: at worst, a helper is resolved again.
+     */
+    protected static class ResolvedHelpers {
+        protected final int[] fieldHelpers = new int[Mode.values().length];
+        protected final FieldHelper[] fieldHelperInstances = new FieldHelper[Mode.values().length];
+        protected int searchFieldHelper;
+        protected FieldHelper searchFieldHelperInstance;
+    }
+
     //**************************************************************************
     // FieldHelper implementation
     //**************************************************************************
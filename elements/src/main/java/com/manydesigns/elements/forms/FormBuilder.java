@@ -145,7 +145,7 @@ public class FormBuilder extends AbstractFormBuilder {
 
         ArrayList<PropertyAccessor> currentGroup = null;
         String currentGroupName = null;
-        for (PropertyAccessor current : classAccessor.getProperties()) {
+        for (PropertyAccessor current : classAccessor.getPropertyList()) {
             // check if field is enabled
             Enabled enabled = current.getAnnotation(Enabled.class);
             if(enabled != null && !enabled.value()) {
@@ -105,7 +105,7 @@ public class SearchFormBuilder extends AbstractFormBuilder {
 
         propertyAccessors = new ArrayList<>();
 
-        for (PropertyAccessor current : classAccessor.getProperties()) {
+        for (PropertyAccessor current : classAccessor.getPropertyList()) {
             if(!isPropertyEnabled(current)) {
                 continue;
             }
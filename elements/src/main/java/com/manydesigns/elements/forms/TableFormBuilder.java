@@ -133,7 +133,7 @@ public class TableFormBuilder extends AbstractFormBuilder {
 
     public void configReflectiveFields() {
         propertyAccessors = new ArrayList<PropertyAccessor>();
-        for (PropertyAccessor current : classAccessor.getProperties()) {
+        for (PropertyAccessor current : classAccessor.getPropertyList()) {
             if (!isPropertyVisible(current)) {
                 continue;
             }
@@ -61,11 +61,15 @@ public class DefaultSelectionProvider implements SelectionProvider {
 
     protected String createNewValueHref;
     protected String createNewValueText;
+    protected int maxSearchResults = DEFAULT_MAX_SEARCH_RESULTS;
+    protected boolean labelIndexEnabled;
+    protected volatile LabelIndex[] labelIndexes;
 
     public final static Logger logger =
             LoggerFactory.getLogger(DefaultSelectionProvider.class);
     public static final String NON_WORD_CHARACTERS =
             " \t\n\f\r\\||!\"\u00ac\u00a3$\u201a\u00c7\u00a8%&/()='?^[]+*@#<>,;.:-_";
+    public static final int DEFAULT_MAX_SEARCH_RESULTS = 100;
 
     //**************************************************************************
     // Constructor
@@ -105,6 +109,46 @@ public class DefaultSelectionProvider implements SelectionProvider {
         return optionProvider.getOptions();
     }
 
+    /**
+     * Returns the options matching a label search, if the option provider is a {@link SearchableOptionProvider}.
+     * At most {@link #getMaxSearchResults()} options are returned and they must be filtered by the caller.
+     * @return the options, or null if the option provider cannot perform the search.
+     */
+    protected List<OptionProvider.Option> searchOptions(String labelSearch) {
+        if(optionProvider instanceof SearchableOptionProvider && !StringUtils.isBlank(labelSearch)) {
+            return ((SearchableOptionProvider) optionProvider).searchOptions(labelSearch, maxSearchResults);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the label index of a field, building it if the options have changed since it was last built. Copies
+     * of a shared {@link OptionList} use its index instead.
+     */
+    protected LabelIndex getLabelIndex(List<OptionProvider.Option> options, int fieldIndex) {
+        if(options instanceof OptionList) {
+            LabelIndex shared = ((OptionList) options).getLabelIndex(fieldIndex);
+            if(shared != null) {
+                return shared;
+            }
+        }
+        LabelIndex[] indexes = labelIndexes;
+        if(indexes == null) {
+            indexes = new LabelIndex[fieldCount];
+            labelIndexes = indexes;
+        }
+        LabelIndex index = indexes[fieldIndex];
+        if(index == null || !index.isSnapshotOf(options)) {
+            index = new LabelIndex(options, fieldIndex);
+            indexes[fieldIndex] = index;
+        }
+        return index;
+    }
+
+    public OptionProvider getOptionProvider() {
+        return optionProvider;
+    }
+
     //**************************************************************************
     // SelectionProvider implementation
     //**************************************************************************
@@ -118,7 +162,15 @@ public class DefaultSelectionProvider implements SelectionProvider {
     }
 
     public SelectionModel createSelectionModel() {
-        return new DefaultSelectionModel();
+        return labelIndexEnabled ? createIndexedSelectionModel() : new DefaultSelectionModel();
+    }
+
+    /**
+     * Creates a selection model that searches labels using a {@link LabelIndex}, that is built when the options
+     * are first searched and reused as long as they don't change.
+     */
+    public SelectionModel createIndexedSelectionModel() {
+        return new IndexedSelectionModel();
     }
 
     @Deprecated
@@ -182,6 +234,7 @@ public class DefaultSelectionProvider implements SelectionProvider {
 
     public void sortByLabel() {
         getOptions().sort(OPTION_COMPARATOR_BY_LABEL);
+        labelIndexes = null;
     }
 
     private static class StaticOptionProvider implements OptionProvider {
@@ -205,11 +258,11 @@ public class DefaultSelectionProvider implements SelectionProvider {
         public static final String copyright =
                 "Copyright (C) 2005-2020 ManyDesigns srl";
 
-        private final Object[] values;
-        private final String[] labelSearches;
-        private final Map<Object, Option>[] optionsArray;
+        protected final Object[] values;
+        protected final String[] labelSearches;
+        protected final Map<Object, Option>[] optionsArray;
 
-        private boolean needsValidation;
+        protected boolean needsValidation;
 
         public DefaultSelectionModel() {
             values = new Object[fieldCount];
@@ -268,7 +321,7 @@ public class DefaultSelectionProvider implements SelectionProvider {
             return null;
         }
 
-        private void validate() {
+        protected void validate() {
             if (!needsValidation) {
                 return;
             }
@@ -286,22 +339,40 @@ public class DefaultSelectionProvider implements SelectionProvider {
                 optionsArray[j].clear();
             }
 
+            //Single-field autocomplete can be delegated to the option provider; cascades are filtered in memory
+            List<OptionProvider.Option> options = fieldCount == 1 ? searchOptions(labelSearches[0]) : null;
+            int maxMatchingIndex = options != null ?
+                    collectOptions(options) :
+                    collectAllOptions(DefaultSelectionProvider.this.getOptions());
+
+            for (int i = maxMatchingIndex + 1; i < fieldCount; i++) {
+                values[i] = null;
+            }
+        }
+
+        protected int collectAllOptions(List<OptionProvider.Option> options) {
+            return collectOptions(options);
+        }
+
+        /**
+         * Fills the options of each field with those matching the label search and the values of the preceding
+         * fields.
+         * @return the index of the last field whose value is among the options.
+         */
+        protected int collectOptions(List<OptionProvider.Option> options) {
             int maxMatchingIndex = -1;
-            for (OptionProvider.Option option : DefaultSelectionProvider.this.getOptions()) {
+            for (int i = 0; i < options.size(); i++) {
+                OptionProvider.Option option = options.get(i);
                 Object[] currentValueRow = option.getValues();
                 String[] currentLabelRow = option.getLabels();
                 for (int j = 0; j < fieldCount; j++) {
                     Object cellValue = currentValueRow[j];
                     String cellLabel = currentLabelRow[j];
                     Object value = values[j];
-                    String labelSearch = labelSearches[j];
 
                     //#163 cellLabel != null
-                    if (cellLabel != null && matchLabel(cellLabel, labelSearch)) {
-                        Option currentOption = optionsArray[j].get(cellValue);
-                        if(currentOption == null || !currentOption.active) {
-                            optionsArray[j].put(cellValue, new Option(cellValue, cellLabel, option.isActive()));
-                        }
+                    if (cellLabel != null && matchLabel(i, j, cellLabel)) {
+                        putOption(j, option, cellValue, cellLabel);
                     }
 
                     if (value != null && value.equals(cellValue)) {
@@ -318,14 +389,85 @@ public class DefaultSelectionProvider implements SelectionProvider {
                     }
                 }
             }
+            return maxMatchingIndex;
+        }
 
-            for (int i = maxMatchingIndex + 1; i < fieldCount; i++) {
-                values[i] = null;
+        protected boolean matchLabel(int optionIndex, int fieldIndex, String cellLabel) {
+            return matchesLabelSearch(cellLabel, labelSearches[fieldIndex]);
+        }
+
+        protected void putOption(int fieldIndex, OptionProvider.Option option, Object cellValue, String cellLabel) {
+            Option currentOption = optionsArray[fieldIndex].get(cellValue);
+            if(currentOption == null || !currentOption.active) {
+                optionsArray[fieldIndex].put(cellValue, new Option(cellValue, cellLabel, option.isActive()));
             }
         }
     }
 
-    private boolean matchLabel(String cellLabel, String labelSearch2) {
+    /**
+     * A selection model that searches labels with a {@link LabelIndex}. With a single field, only the matching
+     * options are visited; with multiple fields, all the options are visited, but labels are not split again.
+     */
+    class IndexedSelectionModel extends DefaultSelectionModel {
+        public static final String copyright =
+                "Copyright (C) 2005-2020 ManyDesigns srl";
+
+        protected int[][] matchingOptions;
+
+        @Override
+        protected void validate() {
+            matchingOptions = null;
+            super.validate();
+        }
+
+        @Override
+        protected int collectAllOptions(List<OptionProvider.Option> options) {
+            matchingOptions = new int[fieldCount][];
+            for (int j = 0; j < fieldCount; j++) {
+                if (!StringUtils.isEmpty(labelSearches[j])) {
+                    matchingOptions[j] = getLabelIndex(options, j).search(labelSearches[j]);
+                }
+            }
+            if (fieldCount > 1 || matchingOptions[0] == null) {
+                return collectOptions(options);
+            }
+
+            for (int i : matchingOptions[0]) {
+                OptionProvider.Option option = options.get(i);
+                putOption(0, option, option.getValues()[0], option.getLabels()[0]);
+            }
+            Object value = values[0];
+            LabelIndex index = getLabelIndex(options, 0);
+            if (value instanceof Object[]) {
+                for (Object current : (Object[]) value) {
+                    if (index.containsValue(current)) {
+                        return 0;
+                    }
+                }
+                return -1;
+            } else {
+                return value != null && index.containsValue(value) ? 0 : -1;
+            }
+        }
+
+        @Override
+        protected boolean matchLabel(int optionIndex, int fieldIndex, String cellLabel) {
+            int[] matching = matchingOptions != null ? matchingOptions[fieldIndex] : null;
+            if (matching == null) {
+                return super.matchLabel(optionIndex, fieldIndex, cellLabel);
+            }
+            return Arrays.binarySearch(matching, optionIndex) >= 0;
+        }
+    }
+
+    /**
+     * Whether a label matches the text entered in an autocomplete field: the words of the text must be the
+     * beginnings of consecutive words of the label, ignoring case.
+     * @param cellLabel the label of an option.
+     * @param labelSearch2 the text to search.
+     * @return true if the label matches, or the text is empty.
+     */
+    public static boolean matchesLabelSearch(String cellLabel, String labelSearch2) {
         if (labelSearch2 == null || labelSearch2.length() == 0) {
             return true;
         }
@@ -363,6 +505,29 @@ public class DefaultSelectionProvider implements SelectionProvider {
         this.searchDisplayMode = searchDisplayMode;
     }
 
+    public boolean isLabelIndexEnabled() {
+        return labelIndexEnabled;
+    }
+
+    /**
+     * @param labelIndexEnabled whether {@link #createSelectionModel()} creates selection models that search labels
+     *                          using an index (see {@link #createIndexedSelectionModel()}).
+     */
+    public void setLabelIndexEnabled(boolean labelIndexEnabled) {
+        this.labelIndexEnabled = labelIndexEnabled;
+    }
+
+    /**
+     * @return the maximum number of options returned by a label search, when the option provider supports it.
+     */
+    public int getMaxSearchResults() {
+        return maxSearchResults;
+    }
+
+    public void setMaxSearchResults(int maxSearchResults) {
+        this.maxSearchResults = maxSearchResults;
+    }
+
     public String getCreateNewValueHref() {
         return createNewValueHref;
     }
@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2005-2020 ManyDesigns srl.  All rights reserved.
+ * http://www.manydesigns.com/
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package com.manydesigns.elements.options;
+
+import org.apache.commons.lang.ArrayUtils;
+import org.apache.commons.lang.StringUtils;
+
+import java.util.*;
+
+/**
+ * Index of the words in the labels of a list of options, for a single field of a selection provider. It finds the
+ * options whose label contains a sequence of words starting with the words in a search text (the same matching
+ * rule as {@link DefaultSelectionProvider}) with a binary search on the sorted words, instead of splitting and
+ * comparing every label. The index refers to a snapshot of the options: it must be rebuilt if they change.
+ */
+public class LabelIndex {
+    public static final String copyright =
+            "Copyright (C) 2005-2020 ManyDesigns srl";
+
+    protected final List<OptionProvider.Option> options;
+    protected final int size;
+    protected final String[][] optionWords;
+    protected final String[] words;
+    protected final int[] wordOptions;
+    protected final int[] wordPositions;
+    protected final Set<Object> values;
+
+    public LabelIndex(List<OptionProvider.Option> options, int fieldIndex) {
+        this.options = options;
+        this.size = options.size();
+        optionWords = new String[size][];
+        values = new HashSet<>();
+        int wordCount = 0;
+        for (int i = 0; i < size; i++) {
+            OptionProvider.Option option = options.get(i);
+            String label = option.getLabels()[fieldIndex];
+            //#163 options without a label never match
+            optionWords[i] = label != null ? split(label) : null;
+            if (optionWords[i] != null) {
+                wordCount += optionWords[i].length;
+            }
+            values.add(option.getValues()[fieldIndex]);
+        }
+
+        Integer[] order = new Integer[wordCount];
+        int[] unsortedOptions = new int[wordCount];
+        int[] unsortedPositions = new int[wordCount];
+        int k = 0;
+        for (int i = 0; i < size; i++) {
+            if (optionWords[i] == null) {
+                continue;
+            }
+            for (int j = 0; j < optionWords[i].length; j++) {
+                order[k] = k;
+                unsortedOptions[k] = i;
+                unsortedPositions[k] = j;
+                k++;
+            }
+        }
+        Arrays.sort(order, Comparator.comparing(e -> optionWords[unsortedOptions[e]][unsortedPositions[e]]));
+        words = new String[wordCount];
+        wordOptions = new int[wordCount];
+        wordPositions = new int[wordCount];
+        for (k = 0; k < wordCount; k++) {
+            int e = order[k];
+            wordOptions[k] = unsortedOptions[e];
+            wordPositions[k] = unsortedPositions[e];
+            words[k] = optionWords[wordOptions[k]][wordPositions[k]];
+        }
+    }
+
+    public static String[] split(String text) {
+        return StringUtils.split(text.toLowerCase(), DefaultSelectionProvider.NON_WORD_CHARACTERS);
+    }
+
+    /**
+     * @return whether the index was built from the given options and they have not been added or removed since.
+     * Replacing or reordering options is not detected.
+     */
+    public boolean isSnapshotOf(List<OptionProvider.Option> options) {
+        return this.options == options && size == options.size();
+    }
+
+    public boolean containsValue(Object value) {
+        return values.contains(value);
+    }
+
+    /**
+     * @param labelSearch the text to search.
+     * @return the indices of the matching options, in ascending order, or null if the text contains no words, in
+     * which case every option with a label matches.
+     */
+    public int[] search(String labelSearch) {
+        String[] searchWords = split(labelSearch);
+        if (searchWords.length == 0) {
+            return null;
+        }
+        String first = searchWords[0];
+        int[] result = new int[16];
+        int count = 0;
+        for (int k = lowerBound(first); k < words.length && words[k].startsWith(first); k++) {
+            int option = wordOptions[k];
+            if (matches(optionWords[option], wordPositions[k], searchWords)) {
+                if (count == result.length) {
+                    result = Arrays.copyOf(result, count * 2);
+                }
+                result[count++] = option;
+            }
+        }
+        Arrays.sort(result, 0, count);
+        //Remove duplicates (options matching at more than one position)
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || result[distinct - 1] != result[i]) {
+                result[distinct++] = result[i];
+            }
+        }
+        return distinct == 0 ? ArrayUtils.EMPTY_INT_ARRAY : Arrays.copyOf(result, distinct);
+    }
+
+    protected int lowerBound(String word) {
+        int low = 0;
+        int high = words.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (words[mid].compareTo(word) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    protected static boolean matches(String[] labelWords, int position, String[] searchWords) {
+        if (position + searchWords.length > labelWords.length) {
+            return false;
+        }
+        //The first word has already been matched by the binary search
+        for (int i = 1; i < searchWords.length; i++) {
+            if (!labelWords[position + i].startsWith(searchWords[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2005-2020 ManyDesigns srl.  All rights reserved.
+ * http://www.manydesigns.com/
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package com.manydesigns.elements.options;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A modifiable copy of a shared snapshot of options, e.g. one kept in a cache. All the copies of the same snapshot
+ * share its {@link LabelIndex}es, so that they're built only once; a copy stops using them as soon as it's modified.
+ */
+public class OptionList extends ArrayList<OptionProvider.Option> {
+    public static final String copyright =
+            "Copyright (C) 2005-2020 ManyDesigns srl";
+
+    protected final List<OptionProvider.Option> snapshot;
+    protected final ConcurrentMap<Integer, LabelIndex> labelIndexes;
+    protected final int snapshotModCount;
+
+    public OptionList(Collection<OptionProvider.Option> options) {
+        this(Collections.unmodifiableList(new ArrayList<>(options)), new ConcurrentHashMap<>());
+    }
+
+    protected OptionList(
+            List<OptionProvider.Option> snapshot, ConcurrentMap<Integer, LabelIndex> labelIndexes) {
+        super(snapshot);
+        this.snapshot = snapshot;
+        this.labelIndexes = labelIndexes;
+        this.snapshotModCount = modCount;
+    }
+
+    /**
+     * @return a new copy of the snapshot this list was created from.
+     */
+    public OptionList copy() {
+        return new OptionList(snapshot, labelIndexes);
+    }
+
+    /**
+     * @param fieldIndex the index of the field whose labels are searched.
+     * @return the shared index of the labels, or null if options have been added, removed or sorted in this list.
+     */
+    public LabelIndex getLabelIndex(int fieldIndex) {
+        if(modCount != snapshotModCount) {
+            return null;
+        }
+        return labelIndexes.computeIfAbsent(fieldIndex, j -> new LabelIndex(snapshot, j));
+    }
+}
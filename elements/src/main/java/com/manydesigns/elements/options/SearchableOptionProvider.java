@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2005-2020 ManyDesigns srl.  All rights reserved.
+ * http://www.manydesigns.com/
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package com.manydesigns.elements.options;
+
+import java.util.List;
+
+/**
+ * An option provider that can search options by label by itself (e.g. in a database), so that autocomplete fields
+ * don't have to load all the options and filter them in memory.
+ */
+public interface SearchableOptionProvider extends OptionProvider {
+    public static final String copyright =
+            "Copyright (C) 2005-2020 ManyDesigns srl";
+
+    /**
+     * @param labelSearch the text entered by the user.
+     * @param maxResults the maximum number of options to return.
+     * @return at most maxResults options, including the first maxResults whose label matches labelSearch (see
+     * {@link DefaultSelectionProvider#matchesLabelSearch(String, String)}); they are filtered again in memory. Null
+     * if the search is not supported for the given text, in which case all the options are loaded with
+     * {@link #getOptions()}.
+     */
+    List<Option> searchOptions(String labelSearch, int maxResults);
+
+}
@@ -24,10 +24,7 @@ import com.manydesigns.elements.util.ReflectionUtil;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Modifier;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
 
 /**
  * @author Angelo Lupo          - angelo.lupo@manydesigns.com
@@ -45,6 +42,8 @@ public class AggregateClassAccessor implements ClassAccessor {
     protected Class<? extends List> collectionClass = ArrayList.class;
     protected PropertyAccessor[] properties;
     protected PropertyAccessor[] keyProperties;
+    protected List<PropertyAccessor> propertyList;
+    protected Map<String, PropertyAccessor> propertiesByName;
 
     public AggregateClassAccessor(List<ClassAccessor> accessors) {
         this.accessors = accessors;
@@ -109,6 +108,8 @@ public class AggregateClassAccessor implements ClassAccessor {
             index++;
         }
         properties = allProperties.toArray(new PropertyAccessor[allProperties.size()]);
+        propertyList = Collections.unmodifiableList(Arrays.asList(properties));
+        propertiesByName = JavaClassAccessor.indexProperties(properties);
         computeKeyProperties();
     }
 
@@ -129,12 +130,11 @@ public class AggregateClassAccessor implements ClassAccessor {
 
     @Override
     public PropertyAccessor getProperty(String propertyName) throws NoSuchFieldException {
-        for(PropertyAccessor propertyAccessor : properties) {
-            if(propertyAccessor.getName().equals(propertyName)) {
-                return propertyAccessor;
-            }
+        PropertyAccessor propertyAccessor = propertiesByName.get(propertyName);
+        if(propertyAccessor == null) {
+            throw new NoSuchFieldException(propertyName);
         }
-        throw new NoSuchFieldException(propertyName);
+        return propertyAccessor;
     }
 
     @Override
@@ -142,6 +142,11 @@ public class AggregateClassAccessor implements ClassAccessor {
         return properties;
     }
 
+    @Override
+    public List<PropertyAccessor> getPropertyList() {
+        return propertyList;
+    }
+
     @Override
     public PropertyAccessor[] getKeyProperties() {
         return keyProperties;
@@ -21,6 +21,9 @@
 package com.manydesigns.elements.reflection;
 
 import java.lang.reflect.AnnotatedElement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 /*
 * @author Paolo Predonzani     - paolo.predonzani@manydesigns.com
@@ -54,6 +57,16 @@ public interface ClassAccessor extends AnnotatedElement {
     public PropertyAccessor[] getProperties();
     public PropertyAccessor[] getKeyProperties();
 
+    /**
+     * The same properties as {@link #getProperties()}, as a read-only list. Implementations that don't need to copy
+     * their properties to protect them from modification return the same list every time, so this is the method to
+     * prefer when iterating over the properties of each object, e.g. of each row of a table.
+     * @return the properties.
+     */
+    default List<PropertyAccessor> getPropertyList() {
+        return Collections.unmodifiableList(Arrays.asList(getProperties()));
+    }
+
 
     //**************************************************************************
     // Instance management
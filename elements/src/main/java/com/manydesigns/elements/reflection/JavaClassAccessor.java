@@ -63,6 +63,8 @@ public class JavaClassAccessor implements ClassAccessor {
     protected final Class javaClass;
     protected final PropertyAccessor[] propertyAccessors;
     protected final PropertyAccessor[] keyPropertyAccessors;
+    protected final List<PropertyAccessor> propertyList;
+    protected final Map<String, PropertyAccessor> propertiesByName;
 
     //**************************************************************************
     // Static fields and methods
@@ -72,6 +74,21 @@ public class JavaClassAccessor implements ClassAccessor {
     public static final Logger logger =
                 LoggerFactory.getLogger(JavaClassAccessor.class);
 
+    /**
+     * Whether a class of accessors overrides {@link #getProperties()}, so that {@link #getPropertyList()} has to
+     * return what it returns rather than the properties found by this class.
+     */
+    protected static final ClassValue<Boolean> PROPERTIES_OVERRIDDEN = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("getProperties").getDeclaringClass() != JavaClassAccessor.class;
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+
     static {
         classAccessorCache = CacheBuilder.newBuilder().weakKeys().build();
     }
@@ -102,6 +119,8 @@ public class JavaClassAccessor implements ClassAccessor {
         List<PropertyAccessor> accessorList = setupPropertyAccessors();
         propertyAccessors = new PropertyAccessor[accessorList.size()];
         accessorList.toArray(propertyAccessors);
+        propertyList = Collections.unmodifiableList(Arrays.asList(propertyAccessors));
+        propertiesByName = indexProperties(propertyAccessors);
 
         List<PropertyAccessor> keyAccessors = setupKeyPropertyAccessors();
         keyPropertyAccessors = new PropertyAccessor[keyAccessors.size()];
@@ -201,6 +220,14 @@ public class JavaClassAccessor implements ClassAccessor {
         return keyAccessors;
     }
 
+    protected static Map<String, PropertyAccessor> indexProperties(PropertyAccessor[] propertyAccessors) {
+        Map<String, PropertyAccessor> index = new HashMap<>(propertyAccessors.length * 2);
+        for (PropertyAccessor current : propertyAccessors) {
+            index.putIfAbsent(current.getName(), current);
+        }
+        return index;
+    }
+
     private boolean isPropertyPresent(List<PropertyAccessor> accessorList,
                                       String name) {
         for (PropertyAccessor current : accessorList) {
@@ -227,18 +254,25 @@ public class JavaClassAccessor implements ClassAccessor {
 
     public PropertyAccessor getProperty(String propertyName)
             throws NoSuchFieldException {
-        for (PropertyAccessor current : propertyAccessors) {
-            if (current.getName().equals(propertyName)) {
-                return current;
-            }
+        PropertyAccessor propertyAccessor = propertiesByName.get(propertyName);
+        if (propertyAccessor == null) {
+            throw new NoSuchFieldException(propertyName);
         }
-        throw new NoSuchFieldException(propertyName);
+        return propertyAccessor;
     }
 
     public PropertyAccessor[] getProperties() {
         return propertyAccessors.clone();
     }
 
+    @Override
+    public List<PropertyAccessor> getPropertyList() {
+        if(PROPERTIES_OVERRIDDEN.get(getClass())) {
+            return Collections.unmodifiableList(Arrays.asList(getProperties()));
+        }
+        return propertyList;
+    }
+
     public PropertyAccessor[] getKeyProperties() {
         return keyPropertyAccessors.clone();
     }
@@ -20,17 +20,27 @@
 
 package com.manydesigns.elements.reflection;
 
+import com.manydesigns.elements.ElementsProperties;
+import org.apache.commons.lang.ClassUtils;
 import org.apache.commons.lang.builder.ToStringBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.beans.PropertyDescriptor;
 import java.lang.annotation.Annotation;
+import java.lang.invoke.*;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-
-/*
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * A {@link PropertyAccessor} for a JavaBeans property. Unless disabled with
+ * {@link ElementsProperties#REFLECTION_ACCESSORS_GENERATED}, the getter and the setter are bound to classes generated
+ * with {@link LambdaMetafactory}, that the JIT can inline like ordinary calls; when that's not possible (e.g. the
+ * bean class is not public or not visible from Elements' class loader), they're invoked through reflection.
+ *
 * @author Paolo Predonzani     - paolo.predonzani@manydesigns.com
 * @author Angelo Lupo          - angelo.lupo@manydesigns.com
 * @author Giampiero Granatella - giampiero.granatella@manydesigns.com
@@ -48,6 +58,14 @@ public class JavaPropertyAccessor extends AbstractAnnotatedAccessor implements P
     private final PropertyDescriptor propertyDescriptor;
     private final Method getter;
     private final Method setter;
+    private final Class<?> declaringClass;
+    private final Class<?> valueClass;
+    private final boolean primitiveValue;
+    private final Function<Object, Object> getterFunction;
+    private final BiConsumer<Object, Object> setterFunction;
+
+    public static final boolean GENERATED_ACCESSORS_DEFAULT =
+            ElementsProperties.getConfiguration().getBoolean(ElementsProperties.REFLECTION_ACCESSORS_GENERATED, true);
 
     public final static Logger logger =
             LoggerFactory.getLogger(JavaPropertyAccessor.class);
@@ -57,9 +75,24 @@ public class JavaPropertyAccessor extends AbstractAnnotatedAccessor implements P
     //**************************************************************************
 
     public JavaPropertyAccessor(PropertyDescriptor propertyDescriptor) {
+        this(propertyDescriptor, GENERATED_ACCESSORS_DEFAULT);
+    }
+
+    public JavaPropertyAccessor(PropertyDescriptor propertyDescriptor, boolean generateAccessors) {
         this.propertyDescriptor = propertyDescriptor;
         getter = propertyDescriptor.getReadMethod();
         setter = propertyDescriptor.getWriteMethod();
+        declaringClass = getter.getDeclaringClass();
+        Class<?> setterType = setter != null ? setter.getParameterTypes()[0] : null;
+        valueClass = ClassUtils.primitiveToWrapper(setterType);
+        primitiveValue = setterType != null && setterType.isPrimitive();
+        if(generateAccessors && isVisible(declaringClass) && (setter == null || isVisible(setter.getDeclaringClass()))) {
+            getterFunction = generateGetter(getter);
+            setterFunction = setter != null ? generateSetter(setter) : null;
+        } else {
+            getterFunction = null;
+            setterFunction = null;
+        }
         try {
             Field field = getter.getDeclaringClass().getDeclaredField(propertyDescriptor.getName());
             for(Annotation ann : field.getAnnotations()) {
@@ -80,6 +113,52 @@ public class JavaPropertyAccessor extends AbstractAnnotatedAccessor implements P
         }
     }
 
+    /**
+     * Classes generated by {@link LambdaMetafactory} link against the bean class from Elements' class loader, so they
+     * can only be used if the bean class is visible from there; e.g. classes compiled at runtime by Groovy are not.
+     */
+    protected static boolean isVisible(Class<?> beanClass) {
+        ClassLoader classLoader = JavaPropertyAccessor.class.getClassLoader();
+        try {
+            return Class.forName(beanClass.getName(), false, classLoader) == beanClass;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    protected static Function<Object, Object> generateGetter(Method getter) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle handle = lookup.unreflect(getter);
+            MethodType type = MethodType.methodType(
+                    ClassUtils.primitiveToWrapper(getter.getReturnType()), getter.getDeclaringClass());
+            CallSite callSite = LambdaMetafactory.metafactory(
+                    lookup, "apply", MethodType.methodType(Function.class),
+                    MethodType.methodType(Object.class, Object.class), handle, type);
+            return (Function<Object, Object>) callSite.getTarget().invokeExact();
+        } catch (Throwable e) {
+            logger.debug("Cannot generate getter for " + getter + ", using reflection", e);
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    protected static BiConsumer<Object, Object> generateSetter(Method setter) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle handle = lookup.unreflect(setter);
+            MethodType type = MethodType.methodType(void.class, setter.getDeclaringClass(),
+                    ClassUtils.primitiveToWrapper(setter.getParameterTypes()[0]));
+            CallSite callSite = LambdaMetafactory.metafactory(
+                    lookup, "accept", MethodType.methodType(BiConsumer.class),
+                    MethodType.methodType(void.class, Object.class, Object.class), handle, type);
+            return (BiConsumer<Object, Object>) callSite.getTarget().invokeExact();
+        } catch (Throwable e) {
+            logger.debug("Cannot generate setter for " + setter + ", using reflection", e);
+            return null;
+        }
+    }
 
     //**************************************************************************
     // PropertyAccessor implementation
@@ -98,6 +177,16 @@ public class JavaPropertyAccessor extends AbstractAnnotatedAccessor implements P
     }
 
     public Object get(Object obj) {
+        //Invalid arguments go through reflection, so they're reported the same way in both modes; exceptions thrown
+        //by the getter itself are wrapped in an InvocationTargetException, like Method.invoke does
+        if(getterFunction != null && declaringClass.isInstance(obj)) {
+            try {
+                return getterFunction.apply(obj);
+            } catch (Throwable e) { //Including checked exceptions, that the generated class doesn't declare
+                throw new ReflectionException(
+                        String.format("Cannot get property: %s", getName()), new InvocationTargetException(e));
+            }
+        }
         try {
             return getter.invoke(obj);
         } catch (IllegalAccessException e) {
@@ -113,6 +202,14 @@ public class JavaPropertyAccessor extends AbstractAnnotatedAccessor implements P
         if (setter == null) {
             throw new ReflectionException(String.format(
                     "Setter not available for property: %s", getName()));
+        } else if(setterFunction != null && setter.getDeclaringClass().isInstance(obj) &&
+                  (value == null ? !primitiveValue : valueClass.isInstance(value))) {
+            try {
+                setterFunction.accept(obj, value);
+            } catch (Throwable e) {
+                throw new ReflectionException(
+                        String.format("Cannot set property: %s", getName()), new InvocationTargetException(e));
+            }
         } else {
             try {
                 setter.invoke(obj, value);
@@ -132,6 +229,13 @@ public class JavaPropertyAccessor extends AbstractAnnotatedAccessor implements P
         return setter != null;
     }
 
+    /**
+     * @return whether the getter and the setter (if any) are called through generated classes rather than reflection.
+     */
+    public boolean isGenerated() {
+        return getterFunction != null && (setter == null || setterFunction != null);
+    }
+
     //**************************************************************************
     // Overrides
     //**************************************************************************
@@ -206,7 +206,7 @@ public class ReflectionUtil {
         }
         js.endArray();
         js.key("properties").array();
-        for(PropertyAccessor p : accessor.getProperties()) {
+        for(PropertyAccessor p : accessor.getPropertyList()) {
             propertyAccessorToJson(js, p);
         }
         js.endArray();
@@ -0,0 +1,41 @@
+package com.manydesigns.elements.export;
+
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.testng.Assert.*;
+
+public class CsvRowWriterTest {
+
+    protected String write(boolean escapeFormulas, String... values) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        CsvRowWriter writer = new CsvRowWriter(output, ',', escapeFormulas);
+        for (int i = 0; i < values.length; i++) {
+            if(i > 0) {
+                writer.writer.write(writer.separator);
+            }
+            writer.writeValue(values[i]);
+        }
+        writer.finish();
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testFormulasAreEscaped() throws IOException {
+        assertEquals(write(true, "=1+1", "+1", "-1", "@SUM(A1)", "\tx"), "'=1+1,'+1,'-1,'@SUM(A1),'\tx");
+        assertEquals(write(true, "\r=1"), "\"'\r=1\"");
+        assertEquals(
+                write(true, "=HYPERLINK(\"http://evil\",\"x\")"),
+                "\"'=HYPERLINK(\"\"http://evil\"\",\"\"x\"\")\"");
+        assertEquals(write(true, "a=1", "1", "", null), "a=1,1,,");
+    }
+
+    @Test
+    public void testFormulasAreNotEscapedIfDisabled() throws IOException {
+        assertEquals(write(false, "=1+1", "-1"), "=1+1,-1");
+    }
+
+}
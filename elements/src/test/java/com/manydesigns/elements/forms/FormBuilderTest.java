@@ -21,8 +21,16 @@
 package com.manydesigns.elements.forms;
 
 import com.manydesigns.elements.AbstractElementsTest;
+import com.manydesigns.elements.Mode;
+import com.manydesigns.elements.annotations.impl.EmailImpl;
 import com.manydesigns.elements.fields.*;
+import com.manydesigns.elements.fields.helpers.FieldHelper;
 import com.manydesigns.elements.fields.helpers.FieldsManager;
+import com.manydesigns.elements.fields.search.SearchField;
+import com.manydesigns.elements.reflection.ClassAccessor;
+import com.manydesigns.elements.reflection.JavaClassAccessor;
+import com.manydesigns.elements.reflection.MutablePropertyAccessor;
+import com.manydesigns.elements.reflection.PropertyAccessor;
 import com.manydesigns.elements.util.Util;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
@@ -286,6 +294,50 @@ public class FormBuilderTest extends AbstractElementsTest {
         assertEquals(TextField.class, field.getClass());
     }
 
+    public void testResolvedHelpers() throws Exception {
+        FieldsManager fieldsManager = new FieldsManager();
+        ClassAccessor classAccessor = JavaClassAccessor.getClassAccessor(AnnotatedBean1.class);
+        PropertyAccessor text = classAccessor.getProperty("text");
+
+        Field field = fieldsManager.tryToInstantiateField(classAccessor, text, Mode.EDIT, null);
+        assertEquals(TextField.class, field.getClass());
+        //The second time, the helper that was resolved is asked first
+        Field other = fieldsManager.tryToInstantiateField(classAccessor, text, Mode.EDIT, null);
+        assertEquals(TextField.class, other.getClass());
+        assertNotSame(field, other);
+
+        //A helper added with higher priority takes precedence over the resolved one
+        final Field customField = new TextField(text, Mode.EDIT, null);
+        fieldsManager.getHelperList().add(0, new FieldHelper() {
+            public Field tryToInstantiateField(
+                    ClassAccessor classAccessor, PropertyAccessor propertyAccessor, Mode mode, String prefix) {
+                return customField;
+            }
+
+            public SearchField tryToInstantiateSearchField(
+                    ClassAccessor classAccessor, PropertyAccessor propertyAccessor, String prefix) {
+                return null;
+            }
+        });
+        assertSame(fieldsManager.tryToInstantiateField(classAccessor, text, Mode.EDIT, null), customField);
+        fieldsManager.getHelperList().remove(0);
+        field = fieldsManager.tryToInstantiateField(classAccessor, text, Mode.EDIT, null);
+        assertNotSame(field, customField);
+        assertEquals(TextField.class, field.getClass());
+    }
+
+    public void testMutablePropertiesAreNotRemembered() {
+        FieldsManager fieldsManager = new FieldsManager();
+        ClassAccessor classAccessor = JavaClassAccessor.getClassAccessor(AnnotatedBean1.class);
+        MutablePropertyAccessor email = new MutablePropertyAccessor("email", String.class);
+        Field field = fieldsManager.tryToInstantiateField(classAccessor, email, Mode.EDIT, null);
+        assertEquals(TextField.class, field.getClass());
+        //The annotations of the property have changed, so the helper is resolved again
+        email.configureAnnotation(new EmailImpl());
+        field = fieldsManager.tryToInstantiateField(classAccessor, email, Mode.EDIT, null);
+        assertEquals(EmailField.class, field.getClass());
+    }
+
     public void testToString() {
         Form form = formBuilder2.build();
 
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2005-2020 ManyDesigns srl.  All rights reserved.
+ * http://www.manydesigns.com/
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package com.manydesigns.elements.options;
+
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+import static org.testng.Assert.*;
+
+@Test
+public class LabelIndexTest {
+    public static final String copyright =
+            "Copyright (C) 2005-2020 ManyDesigns srl";
+
+    private static final String[] LABELS = {
+            "Mario Rossi", "Maria Rossini", "Rossi Mario", "Giuseppe Verdi", "Verdi-Rossi S.p.A.", null,
+            "mario", "ROSSI GIUSEPPE", "Anna Maria Bianchi", "Maria"
+    };
+
+    public void testSearch() {
+        List<OptionProvider.Option> options = new ArrayList<>();
+        for (int i = 0; i < LABELS.length; i++) {
+            options.add(new OptionProvider.Option(new Object[] { i }, new String[] { LABELS[i] }, true));
+        }
+        LabelIndex index = new LabelIndex(options, 0);
+        assertEquals(index.search("mar"), new int[] { 0, 1, 2, 6, 8, 9 });
+        assertEquals(index.search("Mari Ros"), new int[] { 0, 1 });
+        assertEquals(index.search("rossi"), new int[] { 0, 1, 2, 4, 7 });
+        assertEquals(index.search("verdi rossi s"), new int[] { 4 });
+        assertEquals(index.search("rossi mario x"), new int[0]);
+        assertEquals(index.search("zzz"), new int[0]);
+        assertNull(index.search(" - "));
+        assertTrue(index.containsValue(3));
+        assertFalse(index.containsValue(42));
+        assertTrue(index.isSnapshotOf(options));
+        options.add(new OptionProvider.Option(new Object[] { 42 }, new String[] { "new" }, true));
+        assertFalse(index.isSnapshotOf(options));
+    }
+
+    public void testOptionListSharesIndex() {
+        List<OptionProvider.Option> options = new ArrayList<>();
+        for (int i = 0; i < LABELS.length; i++) {
+            options.add(new OptionProvider.Option(new Object[] { i }, new String[] { LABELS[i] }, true));
+        }
+        OptionList shared = new OptionList(options);
+        OptionList copy1 = shared.copy();
+        OptionList copy2 = shared.copy();
+        assertSame(copy1.getLabelIndex(0), copy2.getLabelIndex(0));
+        copy2.add(new OptionProvider.Option(new Object[] { 42 }, new String[] { "new" }, true));
+        assertNull(copy2.getLabelIndex(0));
+        assertNotNull(copy1.getLabelIndex(0));
+
+        DefaultSelectionProvider selectionProvider = new DefaultSelectionProvider("test", 1, copy2);
+        SelectionModel model = selectionProvider.createIndexedSelectionModel();
+        model.setLabelSearch(0, "ne");
+        assertEquals(model.getOptions(0).keySet(), Collections.singleton(42));
+    }
+
+    public void testIndexedSelectionModelMatchesDefault() {
+        DefaultSelectionProvider selectionProvider = new DefaultSelectionProvider("test");
+        for (int i = 0; i < LABELS.length; i++) {
+            selectionProvider.appendOption(i, LABELS[i], i % 3 != 0);
+        }
+        for (String search : new String[] { null, "", "m", "mario", "Mari Ros", "rossi", "s", "-", "x" }) {
+            for (Object value : new Object[] { null, 1, 42, new Object[] { 42, 2 } }) {
+                SelectionModel expected = selectionProvider.createSelectionModel();
+                SelectionModel actual = selectionProvider.createIndexedSelectionModel();
+                for (SelectionModel model : Arrays.asList(expected, actual)) {
+                    model.setValue(0, value);
+                    model.setLabelSearch(0, search);
+                }
+                assertEquals(actual.getOptions(0).keySet(), expected.getOptions(0).keySet(), search);
+                assertEquals(actual.getValue(0), expected.getValue(0), search);
+            }
+        }
+    }
+
+    public void testIndexedSelectionModelCascade() {
+        DefaultSelectionProvider selectionProvider = new DefaultSelectionProvider("test", 2);
+        selectionProvider.appendOption(new Object[] { 1, 1 }, new String[] { "paperino", "qui" }, true);
+        selectionProvider.appendOption(new Object[] { 1, 2 }, new String[] { "paperino", "quo" }, true);
+        selectionProvider.appendOption(new Object[] { 2, 3 }, new String[] { "cip", "ciop" }, true);
+        SelectionModel model = selectionProvider.createIndexedSelectionModel();
+        model.setValue(0, 1);
+        model.setLabelSearch(1, "qui");
+        assertEquals(model.getOptions(0).keySet(), new HashSet<>(Arrays.asList(1, 2)));
+        assertEquals(model.getOptions(1).keySet(), Collections.singleton(1));
+    }
+}
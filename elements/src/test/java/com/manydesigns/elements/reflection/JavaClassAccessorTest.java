@@ -26,7 +26,12 @@ import com.manydesigns.elements.util.ReflectionUtil;
 import org.json.JSONStringer;
 import org.testng.annotations.Test;
 
-import static org.testng.Assert.assertEquals;
+import java.beans.PropertyDescriptor;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+
+import static org.testng.Assert.*;
 
 /**
  * @author Paolo Predonzani     - paolo.predonzani@manydesigns.com
@@ -100,6 +105,111 @@ public class JavaClassAccessorTest extends AbstractElementsTest {
         public String p1, p2;
     }
 
+    public static class TestBeanProperties {
+        private int count;
+        private String description;
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public void setDescription(String description) {
+            if("invalid".equals(description)) {
+                throw new IllegalArgumentException(description);
+            }
+            this.description = description;
+        }
+
+        public String getChecked() throws IOException {
+            throw new IOException("Checked exception");
+        }
+    }
+
+    public void testPropertyListOfOverriddenProperties() throws Exception {
+        JavaClassAccessor javaClassAccessor = new JavaClassAccessor(TestBeanProperties.class) {
+            @Override
+            public PropertyAccessor[] getProperties() {
+                return Arrays.copyOf(super.getProperties(), 1);
+            }
+        };
+        assertEquals(javaClassAccessor.getProperties().length, 1);
+        assertEquals(javaClassAccessor.getPropertyList().size(), 1);
+        assertEquals(javaClassAccessor.getPropertyList().get(0), javaClassAccessor.getProperties()[0]);
+    }
+
+    public void testGeneratedPropertyAccessors() throws Exception {
+        JavaClassAccessor javaClassAccessor = new JavaClassAccessor(TestBeanProperties.class);
+        assertSame(javaClassAccessor.getPropertyList(), javaClassAccessor.getPropertyList());
+        assertEquals(javaClassAccessor.getPropertyList().size(), javaClassAccessor.getProperties().length);
+
+        JavaPropertyAccessor count = (JavaPropertyAccessor) javaClassAccessor.getProperty("count");
+        JavaPropertyAccessor description = (JavaPropertyAccessor) javaClassAccessor.getProperty("description");
+        assertTrue(count.isGenerated());
+        assertTrue(description.isGenerated());
+        try {
+            javaClassAccessor.getProperty("missing");
+            fail("The property should not exist");
+        } catch (NoSuchFieldException e) {
+            //Expected
+        }
+
+        checkPropertyAccessors(true);
+        checkPropertyAccessors(false);
+    }
+
+    protected void checkPropertyAccessors(boolean generateAccessors) throws Exception {
+        JavaPropertyAccessor count = new JavaPropertyAccessor(
+                new PropertyDescriptor("count", TestBeanProperties.class), generateAccessors);
+        JavaPropertyAccessor description = new JavaPropertyAccessor(
+                new PropertyDescriptor("description", TestBeanProperties.class), generateAccessors);
+        JavaPropertyAccessor checked = new JavaPropertyAccessor(
+                new PropertyDescriptor("checked", TestBeanProperties.class, "getChecked", null), generateAccessors);
+        assertEquals(count.isGenerated(), generateAccessors);
+        assertEquals(checked.isGenerated(), generateAccessors);
+
+        TestBeanProperties bean = new TestBeanProperties();
+        count.set(bean, 42);
+        description.set(bean, "test");
+        assertEquals(count.get(bean), 42);
+        assertEquals(description.get(bean), "test");
+        //Exceptions thrown by getters and setters are wrapped the same way in both modes
+        try {
+            description.set(bean, "invalid");
+            fail("The setter should have failed");
+        } catch (ReflectionException e) {
+            assertTrue(e.getCause() instanceof InvocationTargetException);
+            assertTrue(e.getCause().getCause() instanceof IllegalArgumentException);
+        }
+        try {
+            checked.get(bean);
+            fail("The getter should have failed");
+        } catch (ReflectionException e) {
+            assertTrue(e.getCause() instanceof InvocationTargetException);
+            assertTrue(e.getCause().getCause() instanceof IOException);
+        }
+        //Invalid arguments are handled like with reflection
+        try {
+            count.set(bean, null);
+            fail("Cannot set a primitive property to null");
+        } catch (IllegalArgumentException e) {
+            //Expected
+        }
+        try {
+            count.set(bean, "42");
+            fail("Cannot set a property to a value of the wrong type");
+        } catch (IllegalArgumentException e) {
+            //Expected
+        }
+    }
+
     public void testKeyPropertyAccessors() throws Exception {
         JavaClassAccessor javaClassAccessor;
 
@@ -60,6 +60,12 @@ public final class PortofinoProperties {
     public static final String PRELOAD_ACTIONS = "preload.actions";
     public static final String PRELOAD_CLASSES = "preload.classes";
 
+    //CRUD exports: how many rows are fetched from the database at a time
+    public static final String CRUD_EXPORT_FETCH_SIZE = "crud.export.fetch.size";
+    public static final int CRUD_EXPORT_FETCH_SIZE_DEFAULT = 1000;
+    //CRUD exports: whether CSV values that look like spreadsheet formulas are escaped
+    public static final String CRUD_EXPORT_CSV_ESCAPE_FORMULAS = "crud.export.csv.escape.formulas";
+
     private PortofinoProperties() {}
 
 }
@@ -28,6 +28,9 @@ import com.manydesigns.portofino.code.CodeBase;
 import com.manydesigns.portofino.dispatcher.ResourceResolver;
 import com.manydesigns.portofino.modules.Module;
 import com.manydesigns.portofino.modules.ModuleStatus;
+import com.manydesigns.portofino.operations.HandlerMetadata;
+import com.manydesigns.portofino.operations.Operation;
+import com.manydesigns.portofino.operations.Operations;
 import com.manydesigns.portofino.resourceactions.custom.CustomAction;
 import com.manydesigns.portofino.resourceactions.form.FormAction;
 import com.manydesigns.portofino.resourceactions.form.TableFormAction;
@@ -36,6 +39,7 @@ import com.manydesigns.portofino.rest.PortofinoApplicationRoot;
 import com.manydesigns.portofino.security.SecurityLogic;
 import com.manydesigns.portofino.security.noop.login.NoOpLoginAction;
 import com.manydesigns.portofino.spring.PortofinoSpringConfiguration;
+import io.reactivex.disposables.Disposable;
 import org.apache.commons.configuration2.Configuration;
 import org.apache.commons.configuration2.builder.FileBasedConfigurationBuilder;
 import org.apache.commons.lang3.StringUtils;
@@ -92,6 +96,7 @@ public class ResourceActionsModule implements Module {
     public CacheResetListenerRegistry cacheResetListenerRegistry;
 
     protected ModuleStatus status = ModuleStatus.CREATED;
+    protected Disposable codeReloads;
 
     //**************************************************************************
     // Logging
@@ -122,6 +127,7 @@ public class ResourceActionsModule implements Module {
 
         if(configuration.getBoolean(PortofinoProperties.PRELOAD_ACTIONS, false)) {
             logger.info("Preloading actions");
+            long start = System.currentTimeMillis();
             try {
                 ResourceResolver resourceResolver =
                         PortofinoApplicationRoot.getRootFactory().createRoot().getResourceResolver();
@@ -129,13 +135,17 @@ public class ResourceActionsModule implements Module {
             } catch (Exception e) {
                 logger.warn("Could not preload actions", e);
             }
+            logger.info("Actions preloaded in {} ms", System.currentTimeMillis() - start);
         }
         if(configuration.getBoolean(PortofinoProperties.PRELOAD_CLASSES, false)) {
             logger.info("Preloading Groovy classes");
+            long start = System.currentTimeMillis();
             preloadClasses(codeBase.getRoot());
+            logger.info("Groovy classes preloaded in {} ms", System.currentTimeMillis() - start);
         }
 
         cacheResetListenerRegistry.getCacheResetListeners().add(new ConfigurationCacheResetListener());
+        codeReloads = codeBase.getReloads().subscribe(c -> HandlerMetadata.clear());
 
         SecurityLogic.installLogin(actionsDirectory, configuration, NoOpLoginAction.class);
         status = ModuleStatus.STARTED;
@@ -165,7 +175,9 @@ public class ResourceActionsModule implements Module {
             if(child.getType() == FileType.FOLDER) {
                 if(!child.equals(directory) && !child.equals(directory.getParent())) {
                     try {
-                        resourceResolver.resolve(child, Class.class).getConstructor().newInstance();
+                        Class<?> actionClass = resourceResolver.resolve(child, Class.class);
+                        actionClass.getConstructor().newInstance();
+                        preloadActionMetadata(child, actionClass);
                     } catch(Throwable t) {
                         logger.warn("ResourceAction preload failed for actionDescriptor " + child.getName().getPath(), t);
                     }
@@ -175,6 +187,18 @@ public class ResourceActionsModule implements Module {
         }
     }
 
+    /**
+     * Fills the caches consulted on every request to an action: its descriptor, and the metadata of its operations.
+     */
+    protected void preloadActionMetadata(FileObject directory, Class<?> actionClass) throws FileSystemException {
+        if(directory.resolveFile("action.xml").exists()) {
+            ActionLogic.getActionDescriptor(directory);
+        }
+        for(Operation operation : Operations.getOperations(actionClass)) {
+            HandlerMetadata.get(actionClass, operation.getMethod());
+        }
+    }
+
     protected void preloadClasses(FileObject directory) {
         try {
             for(FileObject file : directory.getChildren()) {
@@ -204,6 +228,9 @@ public class ResourceActionsModule implements Module {
 
     @PreDestroy
     public void destroy() {
+        if(codeReloads != null) {
+            codeReloads.dispose();
+        }
         status = ModuleStatus.DESTROYED;
     }
 
@@ -41,6 +41,7 @@ public class ActionDescriptor {
 
     protected Permissions permissions;
     protected final List<AdditionalChild> additionalChildren = new ArrayList<>();
+    protected volatile EffectivePermissions effectivePermissions;
 
     public ActionDescriptor() {
         permissions = new Permissions();
@@ -50,6 +51,7 @@ public class ActionDescriptor {
         if(permissions != null) {
             permissions.init();
         }
+        effectivePermissions = null;
     }
 
     @XmlElement()
@@ -59,10 +61,43 @@ public class ActionDescriptor {
 
     public void setPermissions(Permissions permissions) {
         this.permissions = permissions;
+        effectivePermissions = null;
+    }
+
+    /**
+     * Returns the permissions in effect on this action, as previously computed from the given permissions in effect
+     * on its parent.
+     * @param parentPermissions the permissions in effect on the parent action, or null for the root.
+     * @return the permissions, or null if they were not computed or they were computed from different parent
+     * permissions (e.g. because an ancestor has changed).
+     * @see com.manydesigns.portofino.security.SecurityLogic#calculateActualPermissions(
+     * com.manydesigns.portofino.resourceactions.ActionInstance)
+     */
+    public Permissions getEffectivePermissions(Permissions parentPermissions) {
+        EffectivePermissions effectivePermissions = this.effectivePermissions;
+        if(effectivePermissions != null && effectivePermissions.parentPermissions == parentPermissions) {
+            return effectivePermissions.permissions;
+        } else {
+            return null;
+        }
+    }
+
+    public void setEffectivePermissions(Permissions parentPermissions, Permissions permissions) {
+        effectivePermissions = new EffectivePermissions(parentPermissions, permissions);
     }
 
     @XmlElement(name = "additional-child", type = AdditionalChild.class)
     public List<AdditionalChild> getAdditionalChildren() {
         return additionalChildren;
     }
+
+    protected static class EffectivePermissions {
+        protected final Permissions parentPermissions;
+        protected final Permissions permissions;
+
+        protected EffectivePermissions(Permissions parentPermissions, Permissions permissions) {
+            this.parentPermissions = parentPermissions;
+            this.permissions = permissions;
+        }
+    }
 }
@@ -27,6 +27,8 @@ import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.manydesigns.elements.ElementsThreadLocals;
 import com.manydesigns.portofino.resourceactions.*;
+import io.reactivex.subjects.PublishSubject;
+import io.reactivex.subjects.Subject;
 import org.apache.commons.configuration2.Configuration;
 import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.FileSystemException;
@@ -59,6 +61,13 @@ public class ActionLogic {
 
     protected static final JAXBContext JAXB_CONTEXT;
 
+    /**
+     * Emits the action.xml files saved with {@link #saveActionDescriptor(FileObject, ActionDescriptor)}, so that
+     * whatever caches their contents can be updated without waiting to be notified by the file system.
+     */
+    public static final Subject<FileObject> actionDescriptorChanges =
+            PublishSubject.<FileObject>create().toSerialized();
+
     static {
         try {
             JAXB_CONTEXT = JAXBContext.newInstance(ActionDescriptor.class.getPackage().getName());
@@ -95,6 +104,7 @@ public class ActionLogic {
             marshaller.marshal(actionDescriptor, outputStream);
             actionDescriptorCache.invalidate(file);
         }
+        actionDescriptorChanges.onNext(file);
         return file;
     }
 
@@ -335,6 +345,23 @@ public class ActionLogic {
         }
     }
 
+    /**
+     * Returns the last modified time of the action descriptor in the given directory, as it was when the
+     * descriptor was cached. It changes whenever the cached descriptor is reloaded, so it can be used as its version.
+     * @param directory the directory of the action.
+     * @return the last modified time, or 0 if the descriptor is not cached.
+     */
+    public static long getActionDescriptorLastModified(FileObject directory) {
+        try {
+            FileCacheEntry<ActionDescriptor> entry =
+                    actionDescriptorCache.getIfPresent(getActionDescriptorFile(directory));
+            return entry != null ? entry.lastModified : 0;
+        } catch (FileSystemException e) {
+            logger.debug("Could not resolve action descriptor in " + directory, e);
+            return 0;
+        }
+    }
+
     public static FileObject saveConfiguration(FileObject directory, Object configuration) throws Exception {
         String configurationPackage = configuration.getClass().getPackage().getName();
         JAXBContext jaxbContext = JAXBContext.newInstance(configurationPackage);
@@ -59,6 +59,13 @@ public class Permissions {
         actualPermissions = new HashMap<>();
     }
 
+    protected Permissions(
+            List<Group> groups, Map<String, AccessLevel> actualLevels, Map<String, Set<String>> actualPermissions) {
+        this.groups = groups;
+        this.actualLevels = actualLevels;
+        this.actualPermissions = actualPermissions;
+    }
+
     public void init() {
         for(Group group : groups) {
             group.init();
@@ -83,4 +90,24 @@ public class Permissions {
     public Map<String, AccessLevel> getActualLevels() {
         return actualLevels;
     }
+
+    //**************************************************************************
+    // Utility methods
+    //**************************************************************************
+
+    /**
+     * @return a read-only copy of the actual levels and permissions, that can be safely shared among threads.
+     */
+    public Permissions immutableCopy() {
+        Map<String, Set<String>> permissions = new HashMap<>();
+        for(Map.Entry<String, Set<String>> entry : actualPermissions.entrySet()) {
+            Set<String> groupPermissions = entry.getValue();
+            permissions.put(entry.getKey(), groupPermissions != null ?
+                    Collections.unmodifiableSet(new HashSet<>(groupPermissions)) : null);
+        }
+        return new Permissions(
+                Collections.emptyList(),
+                Collections.unmodifiableMap(new HashMap<>(actualLevels)),
+                Collections.unmodifiableMap(permissions));
+    }
 }
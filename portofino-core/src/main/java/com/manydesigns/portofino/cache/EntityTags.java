@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2005-2020 ManyDesigns srl.  All rights reserved.
+ * http://www.manydesigns.com/
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package com.manydesigns.portofino.cache;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.jetbrains.annotations.Nullable;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Opt-in support for HTTP validators. An operation computes an {@link EntityTag} for its result and calls
+ * {@link #checkNotModified(Request, HttpServletRequest, EntityTag)}: if the client already has the same
+ * representation, the request is answered with 304 Not Modified; otherwise, the tag is sent along with the response,
+ * which clients are allowed to store and must revalidate (see {@link com.manydesigns.portofino.rest.PortofinoFilter}).
+ * <p>Tags are best computed from versions (e.g. file timestamps) known before doing any expensive work; when that's
+ * not possible, a hash of the content still saves the transfer of the response.</p>
+ */
+public class EntityTags {
+    public static final String copyright =
+            "Copyright (C) 2005-2020 ManyDesigns srl";
+
+    /**
+     * The request attribute holding the entity tag of the response, if any.
+     */
+    public static final String ENTITY_TAG_ATTRIBUTE = EntityTags.class.getName() + ".entityTag";
+
+    /**
+     * Computes a strong entity tag from the given components, typically a kind of resource and its versions.
+     * @param components the components; they're converted to strings.
+     * @return the tag.
+     */
+    public static EntityTag of(Object... components) {
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        for(Object component : components) {
+            hasher.putString(String.valueOf(component), StandardCharsets.UTF_8);
+            hasher.putByte((byte) 0);
+        }
+        return new EntityTag(hasher.hash().toString());
+    }
+
+    /**
+     * Evaluates the preconditions of a request (e.g. <code>If-None-Match</code>) against an entity tag. If the
+     * client's representation is current, a {@link WebApplicationException} with status 304 is thrown; otherwise the
+     * tag is remembered for the response.
+     * @param request the JAX-RS request, which evaluates the preconditions. If null, they're not evaluated.
+     * @param servletRequest the servlet request, where the tag is remembered.
+     * @param entityTag the tag of the current representation of the resource.
+     * @throws WebApplicationException with a 304 response, if the client's representation is current.
+     */
+    public static void checkNotModified(
+            @Nullable Request request, HttpServletRequest servletRequest, EntityTag entityTag) {
+        servletRequest.setAttribute(ENTITY_TAG_ATTRIBUTE, entityTag);
+        Response.ResponseBuilder notModified = request != null ? request.evaluatePreconditions(entityTag) : null;
+        if(notModified != null) {
+            throw new WebApplicationException(notModified.build());
+        }
+    }
+}
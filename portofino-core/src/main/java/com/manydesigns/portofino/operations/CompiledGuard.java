@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2005-2020 ManyDesigns srl.  All rights reserved.
+ * http://www.manydesigns.com/
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package com.manydesigns.portofino.operations;
+
+import com.manydesigns.elements.ognl.OgnlUtils;
+import com.manydesigns.portofino.operations.annotations.Guard;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link Guard} whose test expression has been parsed once for a given class of action beans. Tests that just
+ * call a public, no-argument boolean method of the action (e.g. <code>isEditEnabled()</code>, optionally negated)
+ * are bound directly to the method and don't go through OGNL at all.
+ */
+public class CompiledGuard {
+    public static final String copyright =
+            "Copyright (C) 2005-2020 ManyDesigns srl";
+
+    protected static final Pattern METHOD_CALL = Pattern.compile("^\\s*(!)?\\s*([A-Za-z_$][A-Za-z0-9_$]*)\\(\\s*\\)\\s*$");
+    protected static final MethodType PREDICATE_TYPE = MethodType.methodType(boolean.class, Object.class);
+
+    public static final Logger logger = LoggerFactory.getLogger(CompiledGuard.class);
+
+    protected final Guard guard;
+    protected final Object parsedExpression;
+    protected final MethodHandle methodHandle;
+    protected final boolean negated;
+
+    public CompiledGuard(Guard guard, Class<?> actionClass) {
+        this.guard = guard;
+        Matcher matcher = METHOD_CALL.matcher(guard.test());
+        MethodHandle handle = null;
+        if(matcher.matches()) {
+            handle = findPredicate(actionClass, matcher.group(2));
+        }
+        methodHandle = handle;
+        negated = handle != null && matcher.group(1) != null;
+        parsedExpression = handle == null ? OgnlUtils.parseExpressionQuietly(guard.test()) : null;
+    }
+
+    @Nullable
+    protected static MethodHandle findPredicate(Class<?> actionClass, String methodName) {
+        try {
+            Method method = actionClass.getMethod(methodName);
+            Class<?> returnType = method.getReturnType();
+            if(returnType != boolean.class && returnType != Boolean.class) {
+                return null;
+            }
+            MethodHandle handle = MethodHandles.publicLookup().unreflect(method);
+            if(returnType == Boolean.class) {
+                //null is not a pass, like OGNL returning a non-Boolean value
+                handle = MethodHandles.filterReturnValue(handle, MethodHandles.lookup().findStatic(
+                        CompiledGuard.class, "isTrue", MethodType.methodType(boolean.class, Boolean.class)));
+            }
+            return handle.asType(PREDICATE_TYPE);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            logger.debug("Cannot bind guard method " + methodName + " of " + actionClass + ", using OGNL", e);
+            return null;
+        }
+    }
+
+    protected static boolean isTrue(Boolean value) {
+        return value != null && value;
+    }
+
+    /**
+     * Evaluates the test of the guard.
+     * @param actionBean the action bean, an instance of the class this guard was compiled for.
+     * @param ognlContext the OGNL context, used only if the test cannot be evaluated without OGNL.
+     * @return whether the guard passes, i.e. its test returns <code>true</code>.
+     */
+    public boolean test(Object actionBean, Map ognlContext) {
+        if(methodHandle != null) {
+            try {
+                return negated != (boolean) methodHandle.invokeExact(actionBean);
+            } catch (Throwable e) {
+                logger.debug("Error during evaluation of guard: " + guard.test(), e);
+                return false;
+            }
+        }
+        Object result = OgnlUtils.getValueQuietly(parsedExpression, ognlContext, actionBean);
+        return result instanceof Boolean && ((Boolean) result);
+    }
+
+    public Guard getGuard() {
+        return guard;
+    }
+
+    /**
+     * @return whether the test is evaluated calling a method directly rather than through OGNL.
+     */
+    public boolean isBound() {
+        return methodHandle != null;
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledGuard{" + guard.test() + (isBound() ? ", bound" : "") + "}";
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright (C) 2005-2020 ManyDesigns srl.  All rights reserved.
+ * http://www.manydesigns.com/
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package com.manydesigns.portofino.operations;
+
+import com.manydesigns.portofino.cache.ControlsCache;
+import com.manydesigns.portofino.operations.annotations.Guard;
+import com.manydesigns.portofino.resourceactions.log.LogAccesses;
+import com.manydesigns.portofino.security.RequiresAdministrator;
+import com.manydesigns.portofino.security.RequiresPermissions;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * What the framework needs to know about a method handling a web request, resolved once per resource class and
+ * method instead of reflecting on every request: annotations controlling access logging, caching and security, and
+ * the guards of the method.
+ * <p>The metadata is associated to the resource class with a {@link ClassValue}, so it doesn't prevent a reloaded
+ * class from being garbage collected, even though it references the class. Still, it's discarded with
+ * {@link #clear()} when classes are reloaded, because it may depend on other classes.</p>
+ */
+public class HandlerMetadata {
+    public static final String copyright =
+            "Copyright (C) 2005-2020 ManyDesigns srl";
+
+    protected static final Optional<Annotation> NO_ANNOTATION = Optional.empty();
+
+    protected static final AtomicLong generation = new AtomicLong();
+    protected static final ClassValue<Handlers> handlers = new ClassValue<Handlers>() {
+        @Override
+        protected Handlers computeValue(Class<?> type) {
+            return new Handlers(generation.get());
+        }
+    };
+
+    protected final Class<?> resourceClass;
+    protected final Method method;
+    protected final ConcurrentMap<Class<? extends Annotation>, Optional<Annotation>> annotations =
+            new ConcurrentHashMap<>();
+    protected final boolean accessToBeLogged;
+    protected final boolean controllingCache;
+    protected final boolean requiringAdministrator;
+    protected final RequiresPermissions requiresPermissions;
+    protected final List<CompiledGuard> guards;
+    protected final List<CompiledGuard> visibilityGuards;
+    protected final List<CompiledGuard> enablementGuards;
+
+    /**
+     * Returns the metadata of a method, computing it if necessary.
+     * @param resourceClass the class of the resource, which may declare annotations that apply to all its methods.
+     * @param method the method.
+     * @return the metadata.
+     */
+    public static HandlerMetadata get(Class<?> resourceClass, Method method) {
+        Handlers methods = handlers.get(resourceClass);
+        if(methods.generation != generation.get()) {
+            handlers.remove(resourceClass);
+            methods = handlers.get(resourceClass);
+        }
+        HandlerMetadata metadata = methods.get(method);
+        if(metadata == null) {
+            metadata = methods.computeIfAbsent(method, m -> new HandlerMetadata(resourceClass, m));
+        }
+        return metadata;
+    }
+
+    /**
+     * Discards the metadata of all the methods, e.g. because classes have been reloaded.
+     */
+    public static void clear() {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * The metadata of the methods of a resource class, computed since the given {@link #clear()} generation.
+     */
+    protected static class Handlers extends ConcurrentHashMap<Method, HandlerMetadata> {
+        protected final long generation;
+
+        protected Handlers(long generation) {
+            this.generation = generation;
+        }
+    }
+
+    protected HandlerMetadata(Class<?> resourceClass, Method method) {
+        this.resourceClass = resourceClass;
+        this.method = method;
+        LogAccesses logAccesses = getAnnotation(LogAccesses.class);
+        accessToBeLogged = logAccesses != null && logAccesses.value();
+        controllingCache = method.isAnnotationPresent(ControlsCache.class);
+        requiresPermissions = getAnnotation(RequiresPermissions.class);
+        requiringAdministrator = isRequiringAdministrator(resourceClass, method);
+        guards = compileGuards(resourceClass, Operations.getGuards(method, null));
+        visibilityGuards = compileGuards(resourceClass, Operations.getGuards(method, GuardType.VISIBLE));
+        enablementGuards = compileGuards(resourceClass, Operations.getGuards(method, GuardType.ENABLED));
+    }
+
+    protected static List<CompiledGuard> compileGuards(Class<?> resourceClass, List<Guard> guards) {
+        if(guards.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<CompiledGuard> compiled = new ArrayList<>(guards.size());
+        for(Guard guard : guards) {
+            compiled.add(new CompiledGuard(guard, resourceClass));
+        }
+        return Collections.unmodifiableList(compiled);
+    }
+
+    protected static boolean isRequiringAdministrator(Class<?> resourceClass, Method method) {
+        if(method.isAnnotationPresent(RequiresAdministrator.class)) {
+            return true;
+        }
+        Class<?> actionClass = resourceClass;
+        while (actionClass != null) {
+            if (actionClass.isAnnotationPresent(RequiresAdministrator.class)) {
+                return true;
+            }
+            actionClass = actionClass.getSuperclass();
+        }
+        return false;
+    }
+
+    public Class<?> getResourceClass() {
+        return resourceClass;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * Returns an annotation of the method or, if the method doesn't have it, of the resource class.
+     * @param annotationClass the type of the annotation.
+     * @param <T> the type of the annotation.
+     * @return the annotation, or null if neither the method nor the class have it.
+     */
+    @Nullable
+    public <T extends Annotation> T getAnnotation(Class<T> annotationClass) {
+        Optional<Annotation> annotation = annotations.get(annotationClass);
+        if(annotation == null) {
+            T found = method.getAnnotation(annotationClass);
+            if(found == null) {
+                found = resourceClass.getAnnotation(annotationClass);
+            }
+            annotation = found != null ? Optional.of(found) : NO_ANNOTATION;
+            annotations.put(annotationClass, annotation);
+        }
+        return annotationClass.cast(annotation.orElse(null));
+    }
+
+    /**
+     * @return whether the method or the resource class is annotated with {@link LogAccesses} (with value true).
+     */
+    public boolean isAccessToBeLogged() {
+        return accessToBeLogged;
+    }
+
+    /**
+     * @return whether the method is annotated with {@link ControlsCache}, i.e. it sets caching headers itself.
+     */
+    public boolean isControllingCache() {
+        return controllingCache;
+    }
+
+    /**
+     * @return whether the method or the resource class (or one of its superclasses) is annotated with
+     * {@link RequiresAdministrator}.
+     */
+    public boolean isRequiringAdministrator() {
+        return requiringAdministrator;
+    }
+
+    /**
+     * @return the permissions required by the method or, if not specified, by the resource class; null if
+     * neither specifies them.
+     */
+    @Nullable
+    public RequiresPermissions getRequiresPermissions() {
+        return requiresPermissions;
+    }
+
+    /**
+     * @param type the type of the guards to return, or null to return all the guards.
+     * @return the guards of the method, of the given type, compiled for the resource class.
+     */
+    public List<CompiledGuard> getGuards(@Nullable GuardType type) {
+        if(type == null) {
+            return guards;
+        } else if(type == GuardType.VISIBLE) {
+            return visibilityGuards;
+        } else {
+            return enablementGuards;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "HandlerMetadata{" + resourceClass.getName() + "#" + method.getName() + "}";
+    }
+}
@@ -116,10 +116,17 @@ public class Operations {
     }
 
     public static boolean doGuardsPass(Object actionBean, Method method, @Nullable GuardType type) {
-        List<Guard> guards = getGuards(method, type);
-        boolean pass = true;
         OgnlContext ognlContext = ElementsThreadLocals.getOgnlContext();
-        for(Guard guard : guards) {
+        if(actionBean != null) {
+            for(CompiledGuard guard : HandlerMetadata.get(actionBean.getClass(), method).getGuards(type)) {
+                if(!guard.test(actionBean, ognlContext)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        boolean pass = true;
+        for(Guard guard : getGuards(method, type)) {
             Object result = OgnlUtils.getValueQuietly(guard.test(), ognlContext, actionBean);
             pass &= result instanceof Boolean && ((Boolean) result);
         }
@@ -30,9 +30,12 @@ import com.manydesigns.elements.reflection.PropertyAccessor;
 import com.manydesigns.elements.util.MimeTypes;
 import com.manydesigns.elements.util.ReflectionUtil;
 import com.manydesigns.portofino.actions.*;
+import com.manydesigns.portofino.cache.EntityTags;
 import com.manydesigns.portofino.code.CodeBase;
+import com.manydesigns.portofino.dispatcher.AbstractResource;
 import com.manydesigns.portofino.dispatcher.AbstractResourceWithParameters;
 import com.manydesigns.portofino.dispatcher.Resource;
+import com.manydesigns.portofino.dispatcher.RouteTable;
 import com.manydesigns.portofino.operations.GuardType;
 import com.manydesigns.portofino.operations.Operation;
 import com.manydesigns.portofino.operations.Operations;
@@ -59,6 +62,9 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.*;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 import java.io.IOException;
@@ -100,6 +106,9 @@ public abstract class AbstractResourceAction extends AbstractResourceWithParamet
     protected SecurityFacade security = NoSecurity.AT_ALL;
     @Context
     protected UriInfo uriInfo;
+    /** The JAX-RS request, which evaluates conditional requests. Injected. */
+    @Context
+    protected Request jaxRsRequest;
 
     /**
      * The context object holds various elements of contextual information such
@@ -134,14 +143,7 @@ public abstract class AbstractResourceAction extends AbstractResourceWithParamet
     public static void initResourceAction(ResourceAction resourceAction, ActionInstance parentActionInstance, UriInfo uriInfo) {
         HttpServletRequest request = ElementsThreadLocals.getHttpServletRequest();
         HttpServletResponse response = ElementsThreadLocals.getHttpServletResponse();
-        ActionDescriptor action;
-        try {
-            action = ActionLogic.getActionDescriptor(resourceAction.getLocation());
-        } catch (ActionNotActiveException e) {
-            logger.debug("action.xml not found or not valid", e);
-            action = new ActionDescriptor();
-            action.init();
-        }
+        ActionDescriptor action = resolveActionDescriptor(resourceAction);
         ActionInstance actionInstance = new ActionInstance(
                 parentActionInstance, resourceAction.getLocation(), action, resourceAction.getClass());
         actionInstance.setActionBean(resourceAction);
@@ -160,6 +162,35 @@ public abstract class AbstractResourceAction extends AbstractResourceWithParamet
         resourceAction.setContext(context);
     }
 
+    /**
+     * Reads the action descriptor of a resource action, or reuses the one cached on its route.
+     * @param resourceAction the resource action.
+     * @return the action descriptor; an empty one if the action.xml file is missing or invalid.
+     */
+    protected static ActionDescriptor resolveActionDescriptor(ResourceAction resourceAction) {
+        RouteTable.Route route = null;
+        if(resourceAction instanceof AbstractResource) {
+            route = ((AbstractResource) resourceAction).getRoute();
+        }
+        if(route != null) {
+            return route.getAttribute(
+                    ActionDescriptor.class, () -> loadActionDescriptor(resourceAction.getLocation()));
+        } else {
+            return loadActionDescriptor(resourceAction.getLocation());
+        }
+    }
+
+    protected static ActionDescriptor loadActionDescriptor(FileObject location) {
+        try {
+            return ActionLogic.getActionDescriptor(location);
+        } catch (ActionNotActiveException e) {
+            logger.debug("action.xml not found or not valid", e);
+            ActionDescriptor action = new ActionDescriptor();
+            action.init();
+            return action;
+        }
+    }
+
     @Override
     public void prepareForExecution() {}
 
@@ -338,6 +369,8 @@ public abstract class AbstractResourceAction extends AbstractResourceWithParamet
             operationInfo.put("available", available);
             result.add(operationInfo);
         }
+        //Operations depend on the user and on guards, so we can only save the transfer of the result
+        checkNotModified(EntityTags.of(":operations", result));
         return result;
     }
 
@@ -353,6 +386,55 @@ public abstract class AbstractResourceAction extends AbstractResourceWithParamet
         return description;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>If the client already has the current description, as per {@link #getDescriptionEntityTag()}, the
+     * request is answered with 304 Not Modified without computing it.</p>
+     */
+    @Override
+    @Path(":description")
+    @Produces(MediaType.APPLICATION_JSON)
+    @GET
+    public Map<String, Object> getJSONDescription() {
+        EntityTag entityTag = getDescriptionEntityTag();
+        if(entityTag != null) {
+            checkNotModified(entityTag);
+        }
+        return describe();
+    }
+
+    /**
+     * Answers the request with 304 Not Modified if the client already has the representation with the given tag;
+     * otherwise, sends the tag with the response. See {@link EntityTags}.
+     * @param entityTag the tag of the current representation.
+     * @throws WebApplicationException with a 304 response, if the client's representation is current.
+     */
+    protected void checkNotModified(EntityTag entityTag) {
+        EntityTags.checkNotModified(jaxRsRequest, context.getRequest(), entityTag);
+    }
+
+    /**
+     * Computes the entity tag of the {@link #describe() description} of this action from the versions of what it's
+     * made of: the class of the action (which may be reloaded), its path and parameters, its children and detail
+     * children, and the timestamp of its action descriptor. Subclasses that add other information to the description
+     * must override this method, and return null if they cannot compute a version for it.
+     * @return the entity tag, or null if the description is not to be tagged.
+     */
+    @Nullable
+    protected EntityTag getDescriptionEntityTag() {
+        Object children = getSubResources();
+        Object detailChildren = null;
+        if(ResourceActionLogic.supportsDetail(getClass())) {
+            parameters.add("");
+            detailChildren = getSubResources();
+            parameters.remove(parameters.size() - 1);
+        }
+        return EntityTags.of(
+                ":description", getClass().getName(), System.identityHashCode(getClass()), getPath(), parameters,
+                children, detailChildren,
+                ActionLogic.getActionDescriptorLastModified(actionInstance.getDirectory()));
+    }
+
     @Override
     @io.swagger.v3.oas.annotations.Operation(
             operationId =
@@ -522,7 +604,9 @@ public abstract class AbstractResourceAction extends AbstractResourceWithParamet
         }
         JSONStringer jsonStringer = new JSONStringer();
         ReflectionUtil.classAccessorToJson(classAccessor, jsonStringer);
-        return jsonStringer.toString();
+        String json = jsonStringer.toString();
+        checkNotModified(EntityTags.of(":configuration/classAccessor", json));
+        return json;
     }
 
 
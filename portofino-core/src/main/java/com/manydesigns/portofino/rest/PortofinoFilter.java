@@ -23,8 +23,9 @@ package com.manydesigns.portofino.rest;
 import com.manydesigns.elements.ElementsThreadLocals;
 import com.manydesigns.elements.messages.RequestMessages;
 import com.manydesigns.elements.servlet.ServletConstants;
-import com.manydesigns.portofino.cache.ControlsCache;
+import com.manydesigns.portofino.cache.EntityTags;
 import com.manydesigns.portofino.operations.Guarded;
+import com.manydesigns.portofino.operations.HandlerMetadata;
 import com.manydesigns.portofino.operations.Operations;
 import com.manydesigns.portofino.resourceactions.ResourceAction;
 import com.manydesigns.portofino.resourceactions.log.LogAccesses;
@@ -44,6 +45,8 @@ import javax.ws.rs.ConstrainedTo;
 import javax.ws.rs.RuntimeType;
 import javax.ws.rs.container.*;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
@@ -81,6 +84,8 @@ public class PortofinoFilter implements ContainerRequestFilter, ContainerRespons
     @Context
     protected ServletContext servletContext;
 
+    protected volatile SecurityFacadeReference securityFacade;
+
     @Override
     public void filter(ContainerRequestContext requestContext) {
         UriInfo uriInfo = requestContext.getUriInfo();
@@ -113,16 +118,7 @@ public class PortofinoFilter implements ContainerRequestFilter, ContainerRespons
             ognlContext.put("securityUtils", resourceAction.getSecurity().getSecurityUtilsBean());
             resourceAction.prepareForExecution();
         }
-        WebApplicationContext context = WebApplicationContextUtils.getWebApplicationContext(servletContext);
-        SecurityFacade facade = NoSecurity.AT_ALL;
-        if(context != null) {
-            try {
-                facade = context.getBean(SecurityFacade.class);
-            } catch (NoSuchBeanDefinitionException e) {
-                //Not found, let's use default
-            }
-        }
-        facade.checkWebResourceIsAccessible(requestContext, resource, resourceInfo.getResourceMethod());
+        getSecurityFacade().checkWebResourceIsAccessible(requestContext, resource, resourceInfo.getResourceMethod());
         if(resource instanceof ResourceAction) {
             checkResourceActionInvocation(requestContext, (ResourceAction) resource);
         }
@@ -134,29 +130,59 @@ public class PortofinoFilter implements ContainerRequestFilter, ContainerRespons
         }
     }
 
+    /**
+     * Returns the security facade from the application context. The facade is looked up again only when the context
+     * changes (e.g. because it's been refreshed).
+     * @return the facade, or {@link NoSecurity#AT_ALL} if the application doesn't define one.
+     */
+    protected SecurityFacade getSecurityFacade() {
+        WebApplicationContext context = WebApplicationContextUtils.getWebApplicationContext(servletContext);
+        SecurityFacadeReference reference = securityFacade;
+        if(reference == null || reference.context != context) {
+            SecurityFacade facade = NoSecurity.AT_ALL;
+            if(context != null) {
+                try {
+                    facade = context.getBean(SecurityFacade.class);
+                } catch (NoSuchBeanDefinitionException e) {
+                    //Not found, let's use default
+                }
+            }
+            reference = new SecurityFacadeReference(context, facade);
+            securityFacade = reference;
+        }
+        return reference.facade;
+    }
+
     public static boolean isAccessToBeLogged(Object resource, Method handler) {
         if (resource != null) {
-            Boolean log = null;
-            Class<?> resourceClass = resource.getClass();
-
-            LogAccesses annotation;
             if(handler != null) {
-                annotation = handler.getAnnotation(LogAccesses.class);
-                if(annotation != null) {
-                    log = annotation.value();
-                }
-            }
-            if(log == null) {
-                annotation = resourceClass.getAnnotation(LogAccesses.class);
-                log = (annotation != null && annotation.value());
+                return HandlerMetadata.get(resource.getClass(), handler).isAccessToBeLogged();
             }
-            return log;
+            LogAccesses annotation = resource.getClass().getAnnotation(LogAccesses.class);
+            return annotation != null && annotation.value();
         }
         return false;
     }
 
     protected void addCacheHeaders(ContainerResponseContext responseContext) {
-        if(resourceInfo.getResourceMethod() != null && resourceInfo.getResourceMethod().isAnnotationPresent(ControlsCache.class)) {
+        Method resourceMethod = resourceInfo.getResourceMethod();
+        if(resourceMethod != null) {
+            Class<?> resourceClass = resourceInfo.getResourceClass();
+            if(resourceClass == null) {
+                resourceClass = resourceMethod.getDeclaringClass();
+            }
+            if(HandlerMetadata.get(resourceClass, resourceMethod).isControllingCache()) {
+                return;
+            }
+        }
+        Object entityTag = request != null ? request.getAttribute(EntityTags.ENTITY_TAG_ATTRIBUTE) : null;
+        int status = responseContext.getStatus();
+        if(entityTag instanceof EntityTag && (status == Response.Status.OK.getStatusCode() ||
+                                              status == Response.Status.NOT_MODIFIED.getStatusCode())) {
+            //The client may store the response, but it has to revalidate it using the tag
+            responseContext.getHeaders().putSingle(HttpHeaders.ETAG, entityTag);
+            responseContext.getHeaders().add(ServletConstants.HTTP_CACHE_CONTROL, ServletConstants.HTTP_CACHE_CONTROL_PRIVATE);
+            responseContext.getHeaders().add(ServletConstants.HTTP_CACHE_CONTROL, ServletConstants.HTTP_CACHE_CONTROL_NO_CACHE);
             return;
         }
         // Avoid caching of dynamic pages
@@ -213,4 +239,14 @@ public class PortofinoFilter implements ContainerRequestFilter, ContainerRespons
         }
     }
 
+    protected static class SecurityFacadeReference {
+        protected final WebApplicationContext context;
+        protected final SecurityFacade facade;
+
+        protected SecurityFacadeReference(WebApplicationContext context, SecurityFacade facade) {
+            this.context = context;
+            this.facade = facade;
+        }
+    }
+
 }
@@ -47,6 +47,7 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.net.URI;
@@ -97,7 +98,13 @@ public class PortofinoRoot extends AbstractResourceAction {
     @Override
     public PortofinoRoot init() {
         super.init();
-        ActionDescriptor rootActionDescriptor = ActionLogic.getActionDescriptor(location);
+        ActionDescriptor rootActionDescriptor;
+        if(route != null) {
+            rootActionDescriptor =
+                    route.getAttribute(ActionDescriptor.class, () -> ActionLogic.getActionDescriptor(location));
+        } else {
+            rootActionDescriptor = ActionLogic.getActionDescriptor(location);
+        }
         ActionInstance actionInstance = new ActionInstance(null, location, rootActionDescriptor, getClass());
         setActionInstance(actionInstance);
         ActionContext context = new ActionContext();
@@ -127,6 +134,10 @@ public class PortofinoRoot extends AbstractResourceAction {
     @GET
     @RequiresPermissions(level = AccessLevel.NONE)
     public Map<String, Object> getJSONDescription() {
+        EntityTag entityTag = getDescriptionEntityTag();
+        if(entityTag != null) {
+            checkNotModified(entityTag);
+        }
         Map<String, Object> description = new HashMap<>();
         description.put("superclass", getClass().getSuperclass().getName());
         description.put("class", getClass().getName());
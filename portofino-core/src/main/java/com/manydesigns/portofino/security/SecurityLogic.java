@@ -24,6 +24,7 @@ import com.manydesigns.portofino.PortofinoProperties;
 import com.manydesigns.portofino.actions.ActionDescriptor;
 import com.manydesigns.portofino.actions.ActionLogic;
 import com.manydesigns.portofino.actions.Permissions;
+import com.manydesigns.portofino.operations.HandlerMetadata;
 import com.manydesigns.portofino.resourceactions.ActionInstance;
 import com.manydesigns.portofino.resourceactions.ResourceAction;
 import org.apache.commons.configuration2.Configuration;
@@ -32,7 +33,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.Method;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -62,14 +63,28 @@ public class SecurityLogic {
 
     public static final Logger logger = LoggerFactory.getLogger(SecurityLogic.class);
 
+    /**
+     * Computes the permissions in effect on an action, merging the permissions of the action with those of its
+     * ancestors. The result is cached on the action descriptor, and it's computed again only when the descriptor or
+     * one of its ancestors change (e.g. because an action.xml file has been modified).
+     * @param instance the action.
+     * @return the permissions. They can't be modified.
+     */
     public static Permissions calculateActualPermissions(ActionInstance instance) {
-        List<ActionDescriptor> actionDescriptors = new ArrayList<>();
-        while (instance != null) {
-            actionDescriptors.add(0, instance.getActionDescriptor());
-            instance = instance.getParent();
+        if(instance == null) {
+            return new Permissions();
         }
-
-        return calculateActualPermissions(new Permissions(), actionDescriptors);
+        Permissions parentPermissions =
+                instance.getParent() != null ? calculateActualPermissions(instance.getParent()) : null;
+        ActionDescriptor actionDescriptor = instance.getActionDescriptor();
+        Permissions permissions = actionDescriptor.getEffectivePermissions(parentPermissions);
+        if(permissions == null) {
+            permissions = calculateActualPermissions(
+                    parentPermissions != null ? parentPermissions : new Permissions(),
+                    Collections.singletonList(actionDescriptor)).immutableCopy();
+            actionDescriptor.setEffectivePermissions(parentPermissions, permissions);
+        }
+        return permissions;
     }
 
     public static Permissions calculateActualPermissions(Permissions basePermissions, List<ActionDescriptor> actionDescriptors) {
@@ -104,15 +119,9 @@ public class SecurityLogic {
     }
 
     public static RequiresPermissions getRequiresPermissionsAnnotation(Method handler, Class<?> theClass) {
-        RequiresPermissions requiresPermissions = handler.getAnnotation(RequiresPermissions.class);
+        RequiresPermissions requiresPermissions = HandlerMetadata.get(theClass, handler).getRequiresPermissions();
         if (requiresPermissions != null) {
-            logger.debug("Action method requires specific permissions: {}", handler);
-        } else {
-            requiresPermissions = theClass.getAnnotation(RequiresPermissions.class);
-            if (requiresPermissions != null) {
-                logger.debug("Action class requires specific permissions: {}",
-                             theClass);
-            }
+            logger.debug("Action method or class requires specific permissions: {}", handler);
         }
         return requiresPermissions;
     }
@@ -120,22 +129,8 @@ public class SecurityLogic {
     public static boolean satisfiesRequiresAdministrator(
             Object actionBean, Method handler, boolean isAdmin) {
         logger.debug("Checking if action or method required administrator");
-        boolean requiresAdministrator = false;
-        if (handler.isAnnotationPresent(RequiresAdministrator.class)) {
-            logger.debug("Action method requires administrator: {}", handler);
-            requiresAdministrator = true;
-        } else {
-            Class actionClass = actionBean.getClass();
-            while (actionClass != null) {
-                if (actionClass.isAnnotationPresent(RequiresAdministrator.class)) {
-                    logger.debug("Action class requires administrator: {}", actionClass);
-                    requiresAdministrator = true;
-                    break;
-                }
-                actionClass = actionClass.getSuperclass();
-            }
-        }
-
+        boolean requiresAdministrator =
+                HandlerMetadata.get(actionBean.getClass(), handler).isRequiringAdministrator();
         boolean doesNotSatisfy = requiresAdministrator && !isAdmin;
         if (doesNotSatisfy) {
             logger.debug("User is not an administrator");
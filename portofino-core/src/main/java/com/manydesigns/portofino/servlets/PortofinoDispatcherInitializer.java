@@ -22,11 +22,14 @@ package com.manydesigns.portofino.servlets;
 
 import com.manydesigns.elements.configuration.BeanLookup;
 import com.manydesigns.elements.util.ElementsFileUtils;
+import com.manydesigns.portofino.actions.ActionLogic;
+import com.manydesigns.portofino.code.CodeBase;
 import com.manydesigns.portofino.dispatcher.resolvers.ResourceResolvers;
 import com.manydesigns.portofino.dispatcher.web.WebDispatcherInitializer;
 import com.manydesigns.portofino.rest.PortofinoApplicationRoot;
 import com.manydesigns.portofino.rest.PortofinoRoot;
 import com.manydesigns.portofino.spring.PortofinoSpringConfiguration;
+import io.reactivex.disposables.Disposable;
 import org.apache.commons.configuration2.BaseConfiguration;
 import org.apache.commons.configuration2.CompositeConfiguration;
 import org.apache.commons.configuration2.PropertiesConfiguration;
@@ -73,6 +76,7 @@ public class PortofinoDispatcherInitializer extends WebDispatcherInitializer {
 
     protected FileBasedConfigurationBuilder<PropertiesConfiguration> configurationFile;
     protected ServerInfo serverInfo;
+    protected Disposable actionDescriptorChanges;
 
     //**************************************************************************
     // Logging
@@ -128,7 +132,25 @@ public class PortofinoDispatcherInitializer extends WebDispatcherInitializer {
         return PortofinoRoot.get(actionsDirectory, resourceResolver);
     }
 
+    @Override
+    protected void initRouteTable(FileObject actionsDirectory, CodeBase codeBase) {
+        super.initRouteTable(actionsDirectory, codeBase);
+        //Descriptors saved by the application are cached on the routes, and the file system may notify the change
+        //late (watch mode) or never (none mode)
+        actionDescriptorChanges = ActionLogic.actionDescriptorChanges.subscribe(routeTable::invalidate);
+    }
+
+    @Override
+    public void destroy() {
+        if(actionDescriptorChanges != null) {
+            actionDescriptorChanges.dispose();
+            actionDescriptorChanges = null;
+        }
+        super.destroy();
+    }
+
     public void contextDestroyed(ServletContextEvent servletContextEvent) {
+        destroy();
         MDC.clear();
     }
 
@@ -110,6 +110,12 @@ public class PortofinoContextLoaderListener extends ContextLoaderListener {
         }
     }
 
+    @Override
+    public void contextDestroyed(ServletContextEvent event) {
+        super.contextDestroyed(event);
+        initializer.destroy();
+    }
+
     public static PortofinoContextLoaderListener get(ServletContext servletContext) {
         return (PortofinoContextLoaderListener) servletContext.getAttribute(PORTOFINO_CONTEXT_LOADER_LISTENER);
     }
@@ -0,0 +1,92 @@
+package com.manydesigns.portofino.cache;
+
+import com.manydesigns.elements.servlet.ServletConstants;
+import com.manydesigns.portofino.rest.PortofinoFilter;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.servlet.ServletContainer;
+import org.glassfish.jersey.test.DeploymentContext;
+import org.glassfish.jersey.test.JerseyTestNg;
+import org.glassfish.jersey.test.ServletDeploymentContext;
+import org.glassfish.jersey.test.grizzly.GrizzlyWebTestContainerFactory;
+import org.glassfish.jersey.test.spi.TestContainerFactory;
+import org.testng.annotations.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+
+public class EntityTagsRESTTest extends JerseyTestNg.ContainerPerClassTest {
+
+    public static final EntityTag TAG = EntityTags.of("test", 1);
+
+    @Override
+    protected DeploymentContext configureDeployment() {
+        //PortofinoFilter reads the tag from the servlet request, so we need a servlet container
+        ResourceConfig config = new ResourceConfig(TaggedResource.class).register(PortofinoFilter.class);
+        return ServletDeploymentContext.forServlet(new ServletContainer(config)).build();
+    }
+
+    @Override
+    protected TestContainerFactory getTestContainerFactory() {
+        return new GrizzlyWebTestContainerFactory();
+    }
+
+    @Path("tagged")
+    public static class TaggedResource {
+        static final AtomicInteger computations = new AtomicInteger();
+
+        @Context
+        protected Request request;
+
+        @Context
+        protected HttpServletRequest servletRequest;
+
+        @GET
+        @Produces(MediaType.TEXT_PLAIN)
+        public String get() {
+            EntityTags.checkNotModified(request, servletRequest, TAG);
+            computations.incrementAndGet();
+            return "content";
+        }
+    }
+
+    @Test
+    public void testNotModified() {
+        Response response = target("tagged").request().get();
+        assertEquals(response.getStatus(), Response.Status.OK.getStatusCode());
+        assertEquals(response.readEntity(String.class), "content");
+        assertEquals(response.getEntityTag(), TAG);
+        assertRevalidationRequired(response);
+        int computations = TaggedResource.computations.get();
+
+        response = target("tagged").request().header(HttpHeaders.IF_NONE_MATCH, TAG).get();
+        assertEquals(response.getStatus(), Response.Status.NOT_MODIFIED.getStatusCode());
+        assertFalse(response.hasEntity());
+        assertEquals(response.getEntityTag(), TAG);
+        assertRevalidationRequired(response);
+        //The content has not been computed again
+        assertEquals(TaggedResource.computations.get(), computations);
+
+        response = target("tagged").request().header(HttpHeaders.IF_NONE_MATCH, EntityTags.of("test", 0)).get();
+        assertEquals(response.getStatus(), Response.Status.OK.getStatusCode());
+        assertEquals(response.readEntity(String.class), "content");
+        assertEquals(response.getEntityTag(), TAG);
+        assertEquals(TaggedResource.computations.get(), computations + 1);
+    }
+
+    protected void assertRevalidationRequired(Response response) {
+        String cacheControl = response.getHeaderString(ServletConstants.HTTP_CACHE_CONTROL);
+        assertNotNull(cacheControl);
+        assertTrue(cacheControl.contains(ServletConstants.HTTP_CACHE_CONTROL_PRIVATE), cacheControl);
+        assertTrue(cacheControl.contains(ServletConstants.HTTP_CACHE_CONTROL_NO_CACHE), cacheControl);
+        //Unlike other dynamic responses, these may be stored by the client
+        assertFalse(cacheControl.contains(ServletConstants.HTTP_CACHE_CONTROL_NO_STORE), cacheControl);
+        assertNull(response.getHeaderString(ServletConstants.HTTP_PRAGMA));
+    }
+
+}
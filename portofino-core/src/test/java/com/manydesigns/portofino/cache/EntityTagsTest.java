@@ -0,0 +1,31 @@
+package com.manydesigns.portofino.cache;
+
+import com.manydesigns.elements.servlet.MutableHttpServletRequest;
+import org.testng.annotations.Test;
+
+import javax.ws.rs.core.EntityTag;
+
+import static org.testng.Assert.*;
+
+public class EntityTagsTest {
+
+    @Test
+    public void testTags() {
+        EntityTag tag = EntityTags.of("a", 1, null);
+        assertEquals(EntityTags.of("a", 1, null), tag);
+        assertFalse(tag.isWeak());
+        assertNotEquals(EntityTags.of("a", 2, null), tag);
+        //Components are separated, so they can't be shifted into each other
+        assertNotEquals(EntityTags.of("ab", "c"), EntityTags.of("a", "bc"));
+    }
+
+    @Test
+    public void testCheckNotModifiedWithoutRequest() {
+        //Without a JAX-RS request, the tag is only sent with the response. See EntityTagsRESTTest for a real request.
+        EntityTag tag = EntityTags.of("a");
+        MutableHttpServletRequest request = new MutableHttpServletRequest();
+        EntityTags.checkNotModified(null, request, tag);
+        assertEquals(request.getAttribute(EntityTags.ENTITY_TAG_ATTRIBUTE), tag);
+    }
+
+}
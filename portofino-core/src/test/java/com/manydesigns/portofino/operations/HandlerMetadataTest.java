@@ -0,0 +1,108 @@
+package com.manydesigns.portofino.operations;
+
+import com.manydesigns.portofino.cache.ControlsCache;
+import com.manydesigns.portofino.operations.annotations.Guard;
+import com.manydesigns.portofino.operations.annotations.Guards;
+import com.manydesigns.portofino.resourceactions.log.LogAccesses;
+import com.manydesigns.portofino.security.AccessLevel;
+import com.manydesigns.portofino.security.RequiresAdministrator;
+import com.manydesigns.portofino.security.RequiresPermissions;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Method;
+
+import static org.testng.Assert.*;
+
+public class HandlerMetadataTest {
+
+    @Test
+    public void testMetadataIsCached() throws NoSuchMethodException {
+        Method method = AnnotatedResource.class.getMethod("annotated");
+        HandlerMetadata metadata = HandlerMetadata.get(AnnotatedResource.class, method);
+        assertSame(HandlerMetadata.get(AnnotatedResource.class, method), metadata);
+        assertSame(metadata.getResourceClass(), AnnotatedResource.class);
+        assertSame(metadata.getMethod(), method);
+        //The same method inherited by another resource class has its own metadata
+        assertNotSame(HandlerMetadata.get(AdminResource.class, method), metadata);
+    }
+
+    @Test
+    public void testAnnotations() throws NoSuchMethodException {
+        HandlerMetadata annotated =
+                HandlerMetadata.get(AnnotatedResource.class, AnnotatedResource.class.getMethod("annotated"));
+        assertFalse(annotated.isAccessToBeLogged());
+        assertTrue(annotated.isControllingCache());
+        assertFalse(annotated.isRequiringAdministrator());
+        assertEquals(annotated.getRequiresPermissions().level(), AccessLevel.EDIT);
+        assertNotNull(annotated.getAnnotation(ControlsCache.class));
+        assertNull(annotated.getAnnotation(Deprecated.class));
+
+        HandlerMetadata plain =
+                HandlerMetadata.get(AnnotatedResource.class, AnnotatedResource.class.getMethod("plain"));
+        //Inherited from the class
+        assertTrue(plain.isAccessToBeLogged());
+        assertFalse(plain.isControllingCache());
+        assertEquals(plain.getRequiresPermissions().level(), AccessLevel.VIEW);
+        assertTrue(plain.getGuards(null).isEmpty());
+
+        HandlerMetadata admin = HandlerMetadata.get(AdminResource.class, AnnotatedResource.class.getMethod("plain"));
+        //From a superclass
+        assertTrue(admin.isRequiringAdministrator());
+    }
+
+    @Test
+    public void testGuards() throws NoSuchMethodException {
+        HandlerMetadata metadata =
+                HandlerMetadata.get(AnnotatedResource.class, AnnotatedResource.class.getMethod("annotated"));
+        assertEquals(metadata.getGuards(null).size(), 2);
+        assertEquals(metadata.getGuards(GuardType.VISIBLE).size(), 1);
+        assertEquals(metadata.getGuards(GuardType.VISIBLE).get(0).getGuard().test(), "isVisible()");
+        assertEquals(metadata.getGuards(GuardType.ENABLED).size(), 1);
+        assertEquals(metadata.getGuards(GuardType.ENABLED).get(0).getGuard().test(), "isEnabled()");
+        assertSame(
+                HandlerMetadata.get(AnnotatedResource.class, AnnotatedResource.class.getMethod("annotated"))
+                        .getGuards(null),
+                metadata.getGuards(null));
+    }
+
+    @Test
+    public void testClear() throws NoSuchMethodException {
+        Method method = AnnotatedResource.class.getMethod("annotated");
+        HandlerMetadata metadata = HandlerMetadata.get(AnnotatedResource.class, method);
+        HandlerMetadata.clear();
+        HandlerMetadata reloaded = HandlerMetadata.get(AnnotatedResource.class, method);
+        assertNotSame(reloaded, metadata);
+        assertSame(HandlerMetadata.get(AnnotatedResource.class, method), reloaded);
+        assertEquals(reloaded.getGuards(null).size(), 2);
+    }
+
+    @LogAccesses
+    @RequiresPermissions(level = AccessLevel.VIEW)
+    public static class AnnotatedResource {
+
+        @LogAccesses(false)
+        @ControlsCache
+        @RequiresPermissions(level = AccessLevel.EDIT)
+        @Guards({
+                @Guard(test = "isVisible()", type = GuardType.VISIBLE),
+                @Guard(test = "isEnabled()")
+        })
+        public void annotated() {}
+
+        public void plain() {}
+
+        public boolean isVisible() {
+            return true;
+        }
+
+        public boolean isEnabled() {
+            return true;
+        }
+    }
+
+    @RequiresAdministrator
+    public static class Base extends AnnotatedResource {}
+
+    public static class AdminResource extends Base {}
+
+}
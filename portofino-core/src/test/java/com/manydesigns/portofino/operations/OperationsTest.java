@@ -1,14 +1,17 @@
 package com.manydesigns.portofino.operations;
 
+import com.manydesigns.elements.ElementsThreadLocals;
+import com.manydesigns.portofino.operations.annotations.Guard;
+import com.manydesigns.portofino.operations.annotations.Guards;
 import org.testng.annotations.Test;
 
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
+import java.lang.reflect.Method;
 import java.util.List;
 
-import static org.testng.Assert.assertEquals;
-import static org.testng.Assert.fail;
+import static org.testng.Assert.*;
 
 public class OperationsTest {
 
@@ -34,6 +37,67 @@ public class OperationsTest {
         }
     }
 
+    @Test
+    public void testGuards() throws NoSuchMethodException {
+        ElementsThreadLocals.setupDefaultElementsContext();
+        try {
+            GuardedResource resource = new GuardedResource();
+            Method method = GuardedResource.class.getMethod("guarded");
+            List<CompiledGuard> guards = HandlerMetadata.get(GuardedResource.class, method).getGuards(null);
+            assertEquals(guards.size(), 4);
+            assertTrue(guards.get(0).isBound());
+            assertTrue(guards.get(1).isBound());
+            assertTrue(guards.get(2).isBound());
+            assertFalse(guards.get(3).isBound());
+
+            assertTrue(Operations.doGuardsPass(resource, method, GuardType.VISIBLE));
+            assertTrue(Operations.doGuardsPass(resource, method, GuardType.ENABLED));
+            resource.enabled = false;
+            assertTrue(Operations.doGuardsPass(resource, method, GuardType.VISIBLE));
+            assertFalse(Operations.doGuardsPass(resource, method, GuardType.ENABLED));
+            resource.enabled = true;
+            resource.readOnly = true;
+            assertFalse(Operations.doGuardsPass(resource, method, GuardType.ENABLED));
+            resource.readOnly = false;
+            resource.count = 0;
+            assertFalse(Operations.doGuardsPass(resource, method, GuardType.ENABLED));
+            assertFalse(Operations.doGuardsPass(resource, method));
+        } finally {
+            ElementsThreadLocals.removeElementsContext();
+        }
+    }
+
+    public static class GuardedResource {
+
+        boolean enabled = true;
+        Boolean readOnly = false;
+        int count = 1;
+
+        @Guards({
+                @Guard(test = "isVisible()", type = GuardType.VISIBLE),
+                @Guard(test = "isEnabled()"),
+                @Guard(test = "!isReadOnly()"),
+                @Guard(test = "count > 0")
+        })
+        public void guarded() {}
+
+        public boolean isVisible() {
+            return true;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public Boolean isReadOnly() {
+            return readOnly;
+        }
+
+        public int getCount() {
+            return count;
+        }
+    }
+
 }
 
 class SomeResource {
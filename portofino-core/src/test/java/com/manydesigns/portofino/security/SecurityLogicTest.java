@@ -0,0 +1,70 @@
+package com.manydesigns.portofino.security;
+
+import com.manydesigns.portofino.actions.ActionDescriptor;
+import com.manydesigns.portofino.actions.Group;
+import com.manydesigns.portofino.actions.Permissions;
+import com.manydesigns.portofino.resourceactions.ActionInstance;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.testng.Assert.*;
+
+public class SecurityLogicTest {
+
+    @Test
+    public void testEffectivePermissions() {
+        ActionDescriptor rootDescriptor = createDescriptor(
+                group("all", "VIEW"), group("guests", "DENY"), group("editors", "VIEW"));
+        ActionDescriptor childDescriptor = createDescriptor(
+                group("guests", "EDIT"), group("editors", "EDIT", "publish"));
+        ActionInstance root = new ActionInstance(null, null, rootDescriptor, null);
+        ActionInstance child = new ActionInstance(root, null, childDescriptor, null);
+
+        Permissions permissions = SecurityLogic.calculateActualPermissions(child);
+        assertEquals(permissions.getActualLevels().get("all"), AccessLevel.VIEW);
+        assertEquals(permissions.getActualLevels().get("guests"), AccessLevel.DENY);
+        assertEquals(permissions.getActualLevels().get("editors"), AccessLevel.EDIT);
+        assertEquals(permissions.getActualPermissions().get("editors"), Collections.singleton("publish"));
+        //Same as merging the whole chain
+        Permissions merged = SecurityLogic.calculateActualPermissions(
+                new Permissions(), Arrays.asList(rootDescriptor, childDescriptor));
+        assertEquals(permissions.getActualLevels(), merged.getActualLevels());
+        assertEquals(permissions.getActualPermissions(), merged.getActualPermissions());
+
+        //Computed only once, and shared
+        assertSame(SecurityLogic.calculateActualPermissions(new ActionInstance(
+                new ActionInstance(null, null, rootDescriptor, null), null, childDescriptor, null)), permissions);
+        try {
+            permissions.getActualLevels().put("all", AccessLevel.NONE);
+            fail("Effective permissions must not be modifiable");
+        } catch (UnsupportedOperationException e) {
+            //Expected
+        }
+
+        //A change to an ancestor is reflected by the descendants
+        ActionDescriptor changedRootDescriptor = createDescriptor(group("all", "VIEW"), group("editors", "DENY"));
+        root = new ActionInstance(null, null, changedRootDescriptor, null);
+        child = new ActionInstance(root, null, childDescriptor, null);
+        permissions = SecurityLogic.calculateActualPermissions(child);
+        assertEquals(permissions.getActualLevels().get("guests"), AccessLevel.EDIT);
+        assertEquals(permissions.getActualLevels().get("editors"), AccessLevel.DENY);
+    }
+
+    protected ActionDescriptor createDescriptor(Group... groups) {
+        ActionDescriptor descriptor = new ActionDescriptor();
+        descriptor.getPermissions().getGroups().addAll(Arrays.asList(groups));
+        descriptor.init();
+        return descriptor;
+    }
+
+    protected Group group(String name, String level, String... permissions) {
+        Group group = new Group();
+        group.setName(name);
+        group.setAccessLevel(level);
+        group.getPermissions().addAll(Arrays.asList(permissions));
+        return group;
+    }
+
+}
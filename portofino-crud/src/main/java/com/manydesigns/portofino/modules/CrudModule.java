@@ -20,7 +20,9 @@
 
 package com.manydesigns.portofino.modules;
 
+import com.manydesigns.portofino.cache.CacheResetListenerRegistry;
 import com.manydesigns.portofino.resourceactions.crud.CrudAction;
+import com.manydesigns.portofino.resourceactions.crud.SelectionProviderCache;
 import com.manydesigns.portofino.resourceactions.m2m.ManyToManyAction;
 import com.manydesigns.portofino.resourceactions.registry.ActionRegistry;
 import org.apache.commons.configuration2.Configuration;
@@ -51,6 +53,9 @@ public class CrudModule implements Module {
     @Autowired
     public ActionRegistry actionRegistry;
 
+    @Autowired
+    public CacheResetListenerRegistry cacheResetListenerRegistry;
+
     protected ModuleStatus status = ModuleStatus.CREATED;
 
     //**************************************************************************
@@ -74,6 +79,8 @@ public class CrudModule implements Module {
     public void init() {
         actionRegistry.register(CrudAction.class);
         actionRegistry.register(ManyToManyAction.class);
+        SelectionProviderCache.init(configuration);
+        cacheResetListenerRegistry.getCacheResetListeners().add(e -> SelectionProviderCache.clear());
         status = ModuleStatus.STARTED;
     }
 
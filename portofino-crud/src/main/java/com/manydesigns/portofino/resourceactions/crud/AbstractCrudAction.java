@@ -27,6 +27,9 @@ import com.manydesigns.elements.annotations.FileBlob;
 import com.manydesigns.elements.blobs.Blob;
 import com.manydesigns.elements.blobs.BlobManager;
 import com.manydesigns.elements.blobs.BlobUtils;
+import com.manydesigns.elements.export.CsvRowWriter;
+import com.manydesigns.elements.export.ExportFormat;
+import com.manydesigns.elements.export.TableFormRowWriter;
 import com.manydesigns.elements.fields.*;
 import com.manydesigns.elements.forms.*;
 import com.manydesigns.elements.messages.RequestMessages;
@@ -44,6 +47,7 @@ import com.manydesigns.elements.util.ReflectionUtil;
 import com.manydesigns.elements.util.Util;
 import com.manydesigns.elements.xml.XhtmlBuffer;
 import com.manydesigns.portofino.PortofinoProperties;
+import com.manydesigns.portofino.cache.EntityTags;
 import com.manydesigns.portofino.operations.GuardType;
 import com.manydesigns.portofino.operations.annotations.Guard;
 import com.manydesigns.portofino.persistence.IdStrategy;
@@ -75,6 +79,7 @@ import org.joda.time.DateTime;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.json.JSONStringer;
+import org.json.JSONWriter;
 import org.jsoup.Jsoup;
 import org.jsoup.safety.Whitelist;
 import org.slf4j.Logger;
@@ -84,18 +89,19 @@ import org.springframework.beans.factory.annotation.Qualifier;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.*;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.Serializable;
-import java.io.UnsupportedEncodingException;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.*;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -177,6 +183,12 @@ public abstract class AbstractCrudAction<T> extends AbstractResourceAction {
     public Integer maxResults;
     public String sortProperty;
     public String sortDirection;
+    public String cursor;
+
+    /**
+     * The decoded {@link #cursor}, if the search uses keyset pagination.
+     */
+    protected KeysetCursor keysetCursor;
 
     //--------------------------------------------------------------------------
     // UI forms
@@ -278,44 +290,69 @@ public abstract class AbstractCrudAction<T> extends AbstractResourceAction {
     // Search
     //**************************************************************************
 
+    /**
+     * Loads the search results. Called by {@link #jsonSearchData()}; the actual work is done by
+     * {@link #loadSearchResults()}.
+     * <p>Before search results were streamed, this method also built the table form with all of them, and
+     * subclasses may rely on that. So, if a subclass overrides this method, the table form is still built and the
+     * results are written from it, as they used to be.</p>
+     */
     protected void executeSearch() {
+        loadSearchResults();
+        if(isExecuteSearchOverridden()) {
+            setupTableForm(Mode.VIEW);
+            BlobUtils.loadBlobs(tableForm, getBlobManager(), false);
+        }
+    }
+
+    /**
+     * @return whether {@link #executeSearch()} is overridden by the class of this action or by one of its
+     * superclasses below AbstractCrudAction.
+     */
+    protected boolean isExecuteSearchOverridden() {
+        for(Class<?> c = getClass(); c != null && c != AbstractCrudAction.class; c = c.getSuperclass()) {
+            try {
+                c.getDeclaredMethod("executeSearch");
+                return true;
+            } catch (NoSuchMethodException e) {
+                //Look in the superclass
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the search form and loads the objects matching it, without building the table form.
+     */
+    protected void loadSearchResults() {
         setupSearchForm();
         if(maxResults == null) {
             //Load only the first actionDescriptor if the crud is paginated
             maxResults = getCrudConfiguration().getRowsPerPage();
         }
         loadObjects();
-        setupTableForm(Mode.VIEW);
-        BlobUtils.loadBlobs(tableForm, getBlobManager(), false);
     }
 
     public Response jsonSearchData() throws JSONException {
+        if(cursor != null && isKeysetPaginationSupported()) {
+            try {
+                keysetCursor = KeysetCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+            }
+            firstResult = keysetCursor.getOffset();
+        }
         executeSearch();
         final long totalRecords = getTotalSearchRecords();
-
-        JSONStringer js = new JSONStringer();
-        js.object()
-                .key("recordsReturned")
-                .value(objects.size())
-                .key("totalRecords")
-                .value(totalRecords)
-                .key("startIndex")
-                .value(firstResult == null ? 0 : firstResult)
-                .key("records")
-                .array();
-        for (TableForm.Row row : tableForm.getRows()) {
-            js.object()
-                    .key("__rowKey")
-                    .value(row.getKey());
-            FormUtil.fieldsToJson(js, row);
-            js.endObject();
-        }
-        js.endArray();
-        js.endObject();
-        String jsonText = js.toString();
-        Response.ResponseBuilder builder = Response.ok(jsonText).type(MediaType.APPLICATION_JSON_TYPE).encoding("UTF-8");
+        StreamingOutput jsonOutput = output -> writeSearchResultsToJson(output, totalRecords);
+        Response.ResponseBuilder builder = Response.ok(jsonOutput).type(MediaType.APPLICATION_JSON_TYPE).encoding("UTF-8");
         Integer rowsPerPage = getCrudConfiguration().getRowsPerPage();
-        if(rowsPerPage != null && totalRecords > rowsPerPage) {
+        if(keysetCursor != null) {
+            String links = getKeysetLinks(totalRecords);
+            if(!links.isEmpty()) {
+                builder.header("Link", links);
+            }
+        } else if(rowsPerPage != null && totalRecords > rowsPerPage) {
             int firstResult = getFirstResult() != null ? getFirstResult() : 1;
             int currentPage = firstResult / rowsPerPage;
             int lastPage = (int) (totalRecords / rowsPerPage);
@@ -339,6 +376,106 @@ public abstract class AbstractCrudAction<T> extends AbstractResourceAction {
         return builder.build();
     }
 
+    /**
+     * Writes the search results as JSON, streaming them to the output as they're read, rather than building the
+     * whole table form and document in memory. Only one row of fields is allocated and it's reused for every
+     * object. If the table form has already been built (see {@link #executeSearch()}), its rows are written instead.
+     * @param output the stream to write to.
+     * @param totalRecords the total number of records matching the search.
+     * @throws IOException if the output cannot be written.
+     */
+    protected void writeSearchResultsToJson(OutputStream output, long totalRecords) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        JSONWriter js = new JSONWriter(writer);
+        js.object()
+                .key("recordsReturned")
+                .value(objects.size())
+                .key("totalRecords")
+                .value(totalRecords);
+        if(isTotalSearchRecordsApproximate()) {
+            js.key("totalRecordsApproximate").value(true);
+        }
+        js.key("startIndex")
+                .value(firstResult == null ? 0 : firstResult)
+                .key("records")
+                .array();
+        if(tableForm != null) {
+            for (TableForm.Row row : tableForm.getRows()) {
+                writeRowToJson(js, row);
+            }
+        } else if(!objects.isEmpty()) {
+            TableFormBuilder tableFormBuilder = createTableFormBuilder();
+            configureTableFormBuilder(tableFormBuilder, Mode.VIEW, 1);
+            tableForm = buildTableForm(tableFormBuilder);
+            TableForm.Row row = tableForm.getRows()[0];
+            for (T object : objects) {
+                row.readFromObject(object);
+                refreshBlobDownloadHref(row, object);
+                BlobUtils.loadBlobs(row, getBlobManager(), false);
+                writeRowToJson(js, row);
+            }
+        }
+        js.endArray();
+        js.endObject();
+        writer.flush();
+    }
+
+    protected void writeRowToJson(JSONWriter js, TableForm.Row row) {
+        js.object()
+                .key("__rowKey")
+                .value(row.getKey());
+        FormUtil.fieldsToJson(js, row);
+        js.endObject();
+    }
+
+    /**
+     * Runs the search and passes every matching object to the given consumer, in order. Unlike
+     * {@link #loadObjects()}, it is meant for an arbitrary number of results, that are not all kept in memory.
+     * By default, it loads the results one page at a time; subclasses can use a database cursor instead.
+     * @param fetchSize how many objects are loaded at a time.
+     * @param consumer the consumer of the objects.
+     */
+    protected void forEachSearchResult(int fetchSize, Consumer<? super T> consumer) {
+        firstResult = 0;
+        maxResults = fetchSize;
+        List<T> page;
+        do {
+            page = loadObjects();
+            page.forEach(consumer);
+            firstResult += page.size();
+        } while (page.size() == fetchSize);
+    }
+
+    /**
+     * Streams all the search results to the output in the given format, reusing a single row of fields.
+     * @param output the stream to write to.
+     * @param format the format of the export.
+     * @throws IOException if the output cannot be written.
+     */
+    protected void writeSearchResults(OutputStream output, ExportFormat format) throws IOException {
+        int fetchSize = portofinoConfiguration.getInt(
+                PortofinoProperties.CRUD_EXPORT_FETCH_SIZE, PortofinoProperties.CRUD_EXPORT_FETCH_SIZE_DEFAULT);
+        TableFormBuilder tableFormBuilder = createTableFormBuilder();
+        configureTableFormBuilder(tableFormBuilder, Mode.VIEW, 1);
+        tableForm = buildTableForm(tableFormBuilder);
+        TableForm.Row row = tableForm.getRows()[0];
+        TableFormRowWriter writer = createRowWriter(output, format);
+        writer.writeHeader(tableForm.getColumns());
+        try {
+            forEachSearchResult(fetchSize, object -> {
+                row.readFromObject(object);
+                try {
+                    writer.writeRow(row);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.finish();
+    }
+
     /**
      * Returns the number of objects matching the current search criteria, not considering set limits
      * (first and max results).
@@ -346,6 +483,13 @@ public abstract class AbstractCrudAction<T> extends AbstractResourceAction {
      */
     public abstract long getTotalSearchRecords();
 
+    /**
+     * @return whether {@link #getTotalSearchRecords()} is an estimate rather than an exact count.
+     */
+    public boolean isTotalSearchRecordsApproximate() {
+        return false;
+    }
+
     //**************************************************************************
     // Read
     //**************************************************************************
@@ -377,6 +521,8 @@ public abstract class AbstractCrudAction<T> extends AbstractResourceAction {
         refreshBlobDownloadHref();
         String jsonText = FormUtil.writeToJson(form);
         String prettyName = safeGetPrettyName();
+        //The object has already been loaded, so the hash of the content only saves the transfer
+        checkNotModified(EntityTags.of(jsonText, prettyName));
         return Response.ok(jsonText)
                 .type(MediaType.APPLICATION_JSON_TYPE).encoding("UTF-8")
                 .header(PORTOFINO_PRETTY_NAME_HEADER, prettyName)
@@ -584,13 +730,22 @@ public abstract class AbstractCrudAction<T> extends AbstractResourceAction {
         if (innerAccessor == null) {
             return;
         }
-        classAccessor = filterAccordingToPermissions(new CrudAccessor(crudConfiguration, innerAccessor));
+        classAccessor = filterAccordingToPermissions(CrudAccessor.getCrudAccessor(crudConfiguration, innerAccessor));
         idStrategy = getIdStrategy(classAccessor, innerAccessor);
         maxParameters = classAccessor.getKeyProperties().length;
     }
 
     protected abstract IdStrategy getIdStrategy(ClassAccessor classAccessor, ClassAccessor innerAccessor);
 
+    @Override
+    protected boolean saveConfiguration(Object configuration) {
+        //The current configuration may have been modified in place, so its accessor must be built again
+        if(crudConfiguration != null) {
+            CrudAccessor.invalidate(crudConfiguration);
+        }
+        return super.saveConfiguration(configuration);
+    }
+
     @Override
     public String getParameterName(int index) {
         if(classAccessor == null) {
@@ -880,6 +1035,84 @@ public abstract class AbstractCrudAction<T> extends AbstractResourceAction {
         }
     }
 
+    /**
+     * Whether this action supports keyset (seek) pagination, requested by clients with the <code>cursor</code>
+     * parameter. With keyset pagination, results are sorted by the sort property and then by primary key, and a page
+     * is located by the last row of the previous one rather than by an offset, so that deep pages are as fast as
+     * the first one.
+     * @return false by default.
+     */
+    public boolean isKeysetPaginationSupported() {
+        return false;
+    }
+
+    /**
+     * Computes the <code>Link</code> header for keyset pagination: the first, previous, next and last pages, with
+     * cursors pointing to the first and last result of the current page. The last page is made of the last
+     * <code>maxResults</code> results, so it may overlap the previous one.
+     * @param totalRecords the total number of records.
+     * @return the contents of the header, possibly empty.
+     */
+    protected String getKeysetLinks(long totalRecords) {
+        int firstResult = this.firstResult != null ? this.firstResult : 0;
+        List<String> links = new ArrayList<>();
+        if(firstResult > 0) {
+            links.add("<" + getLinkWithCursor(KeysetCursor.FIRST) + ">; rel=\"first\"");
+            if(!objects.isEmpty()) {
+                int previousPage = maxResults != null ? Math.max(0, firstResult - maxResults) : 0;
+                KeysetCursor previous = getKeysetCursor(objects.get(0), previousPage, true);
+                links.add("<" + getLinkWithCursor(previous) + ">; rel=\"prev\"");
+            }
+        }
+        if(!objects.isEmpty() && maxResults != null && objects.size() >= maxResults &&
+           firstResult + objects.size() < totalRecords) {
+            KeysetCursor next = getKeysetCursor(objects.get(objects.size() - 1), firstResult + objects.size(), false);
+            links.add("<" + getLinkWithCursor(next) + ">; rel=\"next\"");
+            KeysetCursor last = KeysetCursor.last((int) Math.max(0, totalRecords - maxResults));
+            links.add("<" + getLinkWithCursor(last) + ">; rel=\"last\"");
+        }
+        return StringUtils.join(links, ", ");
+    }
+
+    /**
+     * @param object a search result.
+     * @param offset the index of the first result of the page that the cursor points to.
+     * @param backwards whether the page precedes the object or follows it.
+     * @return a cursor positioned at the given object.
+     */
+    protected KeysetCursor getKeysetCursor(T object, int offset, boolean backwards) {
+        String[] key = new String[classAccessor.getKeyProperties().length];
+        for(int i = 0; i < key.length; i++) {
+            key[i] = KeysetCursor.formatValue(classAccessor.getKeyProperties()[i].get(object));
+        }
+        String sortProperty = null;
+        String sortValue = null;
+        if(!StringUtils.isBlank(this.sortProperty) && !StringUtils.isBlank(sortDirection)) {
+            try {
+                sortValue = KeysetCursor.formatValue(classAccessor.getProperty(this.sortProperty).get(object));
+                sortProperty = this.sortProperty;
+            } catch (NoSuchFieldException e) {
+                logger.debug("Invalid sort property " + this.sortProperty, e);
+            }
+        }
+        return new KeysetCursor(offset, backwards, sortProperty, sortValue, key);
+    }
+
+    public String getLinkWithCursor(KeysetCursor cursor) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("sortProperty", getSortProperty());
+        parameters.put("sortDirection", getSortDirection());
+        parameters.put("maxResults", getMaxResults());
+        parameters.put("cursor", cursor.encode());
+        parameters.put(AbstractCrudAction.SEARCH_STRING_PARAM, getSearchString());
+
+        Charset charset = Charset.forName(context.getRequest().getCharacterEncoding());
+        UrlBuilder urlBuilder =
+                new UrlBuilder(charset, Util.getAbsoluteUrl(context.getActionPath()), false)
+                        .addParameters(parameters);
+        return urlBuilder.toString();
+    }
+
     public String getLinkToPage(int page) {
         int rowsPerPage = getCrudConfiguration().getRowsPerPage();
         Map<String, Object> parameters = new HashMap<>();
@@ -1031,21 +1264,21 @@ public abstract class AbstractCrudAction<T> extends AbstractResourceAction {
     protected void refreshTableBlobDownloadHref() {
         Iterator<?> objIterator = objects.iterator();
         for (TableForm.Row row : tableForm.getRows()) {
-            Iterator<Field> fieldIterator = row.iterator();
-            Object obj = objIterator.next();
-            String baseUrl = null;
-            while (fieldIterator.hasNext()) {
-                Field field = fieldIterator.next();
-                if (field instanceof AbstractBlobField) {
-                    if(baseUrl == null) {
-                        OgnlTextFormat hrefFormat = getReadURLFormat();
-                        baseUrl = hrefFormat.format(obj);
-                    }
-                    Blob blob = ((AbstractBlobField) field).getValue();
-                    if(blob != null) {
-                        field.setHref(getBlobDownloadUrl(field, baseUrl));
-                    }
+            refreshBlobDownloadHref(row, objIterator.next());
+        }
+    }
+
+    protected void refreshBlobDownloadHref(TableForm.Row row, Object obj) {
+        String baseUrl = null;
+        for (Field field : row) {
+            if (field instanceof AbstractBlobField) {
+                if(baseUrl == null) {
+                    OgnlTextFormat hrefFormat = getReadURLFormat();
+                    baseUrl = hrefFormat.format(obj);
                 }
+                Blob blob = ((AbstractBlobField) field).getValue();
+                //The row may be reused for several objects, so the link of the previous one must not be kept
+                field.setHref(blob != null ? getBlobDownloadUrl(field, baseUrl) : null);
             }
         }
     }
@@ -1379,6 +1612,7 @@ public abstract class AbstractCrudAction<T> extends AbstractResourceAction {
             description.put("searchDisplayMode", selectionProvider.getSearchDisplayMode());
             result.add(description);
         }
+        checkNotModified(EntityTags.of(":selectionProvider", result));
         return result;
     }
 
@@ -1527,6 +1761,8 @@ public abstract class AbstractCrudAction<T> extends AbstractResourceAction {
             @QueryParam("sortProperty") String sortProperty,
             @Parameter(description = "The direction of the sort (asc or desc). Only valid for search.")
             @QueryParam("sortDirection") String sortDirection,
+            @Parameter(description = "Keyset pagination: the position of the page, as found in the Link header of a previous search, or empty for the first page. If present, it replaces firstResult. Only valid for search.")
+            @QueryParam("cursor") String cursor,
             @Parameter(description = "The returned object is pre-populated for being edited (including computed fields). Only valid for create, read, edit.")
             @QueryParam("forEdit") boolean forEdit,
             @Parameter(description = "The returned object is a new instance pre-populated for being saved (including computed fields). Only valid for create, read, edit.")
@@ -1545,6 +1781,7 @@ public abstract class AbstractCrudAction<T> extends AbstractResourceAction {
             this.maxResults = maxResults;
             this.sortProperty = sortProperty;
             this.sortDirection = sortDirection;
+            this.cursor = cursor;
             return jsonSearchData();
         } else if(forEdit) {
             return jsonEditData();
@@ -1553,6 +1790,69 @@ public abstract class AbstractCrudAction<T> extends AbstractResourceAction {
         }
     }
 
+    /**
+     * Creates the writer used by {@link #writeSearchResults(OutputStream, ExportFormat)}. CSV values that look like
+     * spreadsheet formulas are escaped unless {@link PortofinoProperties#CRUD_EXPORT_CSV_ESCAPE_FORMULAS} is false.
+     * @param output the stream to write to.
+     * @param format the format of the export.
+     * @return the writer.
+     */
+    protected TableFormRowWriter createRowWriter(OutputStream output, ExportFormat format) {
+        if(format == ExportFormat.CSV) {
+            boolean escapeFormulas =
+                    portofinoConfiguration.getBoolean(PortofinoProperties.CRUD_EXPORT_CSV_ESCAPE_FORMULAS, true);
+            return new CsvRowWriter(output, ',', escapeFormulas);
+        }
+        return format.createWriter(output);
+    }
+
+    /**
+     * Exports all the results of a search, streaming them in constant memory. See
+     * {@link #writeSearchResults(OutputStream, ExportFormat)}.
+     * @param searchString the search string
+     * @param sortProperty the property according to which the results are sorted
+     * @param sortDirection the direction of the sort (asc or desc)
+     * @param format the format of the export: csv (the default), ndjson or xlsx.
+     * @since 5.3
+     * @return the search results as a file attachment.
+     */
+    @GET
+    @Path(":export")
+    @Operation(summary = "Exports all the search results as CSV, NDJSON or XLSX")
+    public Response exportSearchResults(
+            @Parameter(description = "The search string (see https://portofino.manydesigns.com/en/docs/reference/page-types/crud/rest for its format)")
+            @QueryParam("searchString") String searchString,
+            @Parameter(description = "The property according to which the search results are sorted.")
+            @QueryParam("sortProperty") String sortProperty,
+            @Parameter(description = "The direction of the sort (asc or desc).")
+            @QueryParam("sortDirection") String sortDirection,
+            @Parameter(description = "The format of the export: csv (the default), ndjson or xlsx.")
+            @QueryParam("format") @DefaultValue("csv") String format) {
+        if(object != null) {
+            return Response.status(Response.Status.BAD_REQUEST).
+                    entity("Only search results can be exported").build();
+        }
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity("Unsupported format: " + format).build();
+        }
+        this.searchString = searchString;
+        this.sortProperty = sortProperty;
+        this.sortDirection = sortDirection;
+        setupSearchForm();
+        String fileName = getCrudConfiguration().getName();
+        if(StringUtils.isBlank(fileName)) {
+            fileName = "export";
+        }
+        StreamingOutput output = out -> writeSearchResults(out, exportFormat);
+        return Response.ok(output, exportFormat.getMimeType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"" + fileName + "." + exportFormat.getExtension() + "\"")
+                .build();
+    }
+
     /**
      * Handles object creation via REST. See <a href="http://portofino.manydesigns.com/en/docs/reference/page-types/crud/rest">the CRUD action REST API documentation.</a>
      * @param jsonObject the object (in serialized JSON form)
@@ -1748,8 +2048,12 @@ public abstract class AbstractCrudAction<T> extends AbstractResourceAction {
         disableBlobFields();
         FormUtil.readFromJson(form, new JSONObject(jsonObject));
         if (form.validate()) {
+            Map<String, T> objects = loadObjectsById(ids);
             for (String id : ids) {
-                loadObject(id.split(PK_SEPARATOR));
+                object = objects.get(id);
+                if(object == null) {
+                    continue;
+                }
                 editSetup(object);
                 writeFormToObject();
                 if(editValidate(object)) {
@@ -1948,10 +2252,9 @@ public abstract class AbstractCrudAction<T> extends AbstractResourceAction {
     protected List<String> bulkDelete(List<String> ids) {
         List<T> objects = new ArrayList<>(ids.size());
         List<String> deleted = new ArrayList<>();
+        Map<String, T> objectsById = loadObjectsById(ids);
         for (String current : ids) {
-            String[] pkArr = current.split("/");
-            Object pkObject = idStrategy.getPrimaryKey(pkArr);
-            T obj = loadObjectByPrimaryKey(pkObject);
+            T obj = objectsById.get(current);
             if(obj != null && deleteValidate(obj)) {
                 doDelete(obj);
                 deletePostProcess(obj);
@@ -1966,6 +2269,24 @@ public abstract class AbstractCrudAction<T> extends AbstractResourceAction {
         return deleted;
     }
 
+    /**
+     * Loads the objects affected by a bulk operation. By default, it loads them one at a time with
+     * {@link #loadObjectByPrimaryKey(Object)}; subclasses can load them in bulk.
+     * @param ids the ids of the objects, i.e. the values of their primary key separated by {@link #PK_SEPARATOR}.
+     * @return the objects that have been found, by id.
+     */
+    protected Map<String, T> loadObjectsById(List<String> ids) {
+        Map<String, T> objects = new HashMap<>();
+        for (String id : ids) {
+            Object pkObject = idStrategy.getPrimaryKey(id.split(PK_SEPARATOR));
+            T obj = loadObjectByPrimaryKey(pkObject);
+            if(obj != null) {
+                objects.put(id, obj);
+            }
+        }
+        return objects;
+    }
+
     /**
      * Returns a description of this CRUD's ClassAccessor.
      * See <a href="http://portofino.manydesigns.com/en/docs/reference/page-types/crud/rest">the CRUD action REST API documentation.</a>
@@ -1979,7 +2300,9 @@ public abstract class AbstractCrudAction<T> extends AbstractResourceAction {
     public String describeClassAccessor() {
         JSONStringer jsonStringer = new JSONStringer();
         ReflectionUtil.classAccessorToJson(getClassAccessor(), jsonStringer);
-        return jsonStringer.toString();
+        String json = jsonStringer.toString();
+        checkNotModified(EntityTags.of(":classAccessor", json));
+        return json;
     }
 
     //--------------------------------------------------------------------------
@@ -2123,6 +2446,14 @@ public abstract class AbstractCrudAction<T> extends AbstractResourceAction {
         this.sortDirection = sortDirection;
     }
 
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
     public String getPropertyName() {
         return propertyName;
     }
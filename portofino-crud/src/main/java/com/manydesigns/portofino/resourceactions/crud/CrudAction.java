@@ -27,12 +27,14 @@ import com.manydesigns.elements.messages.RequestMessages;
 import com.manydesigns.elements.reflection.ClassAccessor;
 import com.manydesigns.elements.reflection.PropertyAccessor;
 import com.manydesigns.elements.text.QueryStringWithParameters;
+import com.manydesigns.portofino.model.database.ConnectionProvider;
 import com.manydesigns.portofino.model.database.Database;
 import com.manydesigns.portofino.model.database.DatabaseLogic;
 import com.manydesigns.portofino.model.database.ForeignKey;
 import com.manydesigns.portofino.model.database.Table;
 import com.manydesigns.portofino.persistence.IdStrategy;
 import com.manydesigns.portofino.persistence.Persistence;
+import com.manydesigns.portofino.persistence.QueryCache;
 import com.manydesigns.portofino.persistence.QueryUtils;
 import com.manydesigns.portofino.persistence.TableCriteria;
 import com.manydesigns.portofino.reflection.TableAccessor;
@@ -41,6 +43,7 @@ import com.manydesigns.portofino.resourceactions.ResourceActionName;
 import com.manydesigns.portofino.resourceactions.annotations.ConfigurationClass;
 import com.manydesigns.portofino.resourceactions.annotations.ScriptTemplate;
 import com.manydesigns.portofino.resourceactions.crud.configuration.CrudProperty;
+import com.manydesigns.portofino.resourceactions.crud.configuration.database.CountMode;
 import com.manydesigns.portofino.resourceactions.crud.configuration.database.CrudConfiguration;
 import com.manydesigns.portofino.resourceactions.crud.configuration.database.SelectionProviderReference;
 import com.manydesigns.portofino.security.AccessLevel;
@@ -56,6 +59,7 @@ import net.sf.jsqlparser.statement.select.Select;
 import net.sf.jsqlparser.statement.select.SelectExpressionItem;
 import net.sf.jsqlparser.statement.select.SelectItem;
 import org.apache.commons.lang.StringUtils;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 import org.hibernate.exception.ConstraintViolationException;
 import org.jetbrains.annotations.NotNull;
@@ -66,6 +70,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import java.io.Serializable;
 import java.io.StringReader;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -97,6 +102,20 @@ public class CrudAction<T> extends AbstractCrudAction<T> {
     public Persistence persistence;
 
     protected long totalSearchRecords = -1;
+    protected boolean totalSearchRecordsApproximate;
+    protected boolean totalSearchRecordsEstimateAttempted;
+
+    /**
+     * With {@link CountMode#ESTIMATE}, the estimated number of rows is only used if it's at least this big; smaller
+     * tables are counted exactly.
+     */
+    public static final long COUNT_ESTIMATE_THRESHOLD = 100000;
+
+    /**
+     * How many objects are loaded with a single query in bulk operations. Kept well below the limit on the number
+     * of elements of an in list that some databases impose (e.g. 1000 in Oracle).
+     */
+    public static final int BULK_LOAD_CHUNK_SIZE = 500;
 
     //**************************************************************************
     // Logging
@@ -113,26 +132,142 @@ public class CrudAction<T> extends AbstractCrudAction<T> {
         return totalSearchRecords;
     }
 
+    @Override
+    public boolean isTotalSearchRecordsApproximate() {
+        return totalSearchRecordsApproximate;
+    }
+
     protected long calculateTotalSearchRecords() {
         TableCriteria criteria = new TableCriteria(baseTable);
         if(searchForm != null) {
             searchForm.configureCriteria(criteria);
         }
+        if(!totalSearchRecordsEstimateAttempted && tryToEstimateTotalSearchRecords(criteria)) {
+            return totalSearchRecords;
+        }
         QueryStringWithParameters query =
                 QueryUtils.mergeQuery(getBaseQuery(), criteria, this);
 
         String queryString = query.getQueryString();
-        String totalRecordsQueryString;
-        try {
-            totalRecordsQueryString = generateCountQuery(queryString);
-        } catch (JSQLParserException e) {
-            throw new Error(e);
-        }
+        String totalRecordsQueryString =
+                QueryCache.getDerivedQuery(Arrays.asList("count", getClass(), queryString), () -> {
+                    try {
+                        return generateCountQuery(queryString);
+                    } catch (JSQLParserException e) {
+                        throw new Error(e);
+                    }
+                });
         //TODO gestire count non disponibile (totalRecordsQueryString == null)
         List<Object> result = QueryUtils.runHqlQuery(session, totalRecordsQueryString, query.getParameters());
         return totalSearchRecords = ((Number) result.get(0)).longValue();
     }
 
+    protected CountMode getCountMode() {
+        CountMode countMode = getCrudConfiguration().getActualCountMode();
+        return countMode != null ? countMode : CountMode.QUERY;
+    }
+
+    /**
+     * Whether the total number of records can be estimated from the statistics of the database rather than counted.
+     * That's only possible when the search returns the whole table, i.e. it has no filters.
+     * @param criteria the search criteria.
+     * @return true if the count mode is {@link CountMode#ESTIMATE}, the search has no filters and the database
+     * platform supports estimates.
+     */
+    protected boolean isCountEstimateApplicable(TableCriteria criteria) {
+        if(getCountMode() != CountMode.ESTIMATE || !criteria.isEmpty()) {
+            return false;
+        }
+        String estimateQuery = getCrudConfiguration().getActualDatabase().getConnectionProvider()
+                .getDatabasePlatform().getRowCountEstimateQuery();
+        if(estimateQuery == null) {
+            return false;
+        }
+        try {
+            return !QueryCache.getParsedQuery(getBaseQuery()).hasWhere();
+        } catch (JSQLParserException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Uses the statistics of the database as the total number of records, if the count can be estimated (see
+     * {@link #isCountEstimateApplicable(TableCriteria)}) and the table is at least {@link #COUNT_ESTIMATE_THRESHOLD}
+     * rows big. This is only attempted once per search: smaller tables are counted exactly.
+     * @param criteria the search criteria.
+     * @return true if the total number of records has been estimated.
+     */
+    protected boolean tryToEstimateTotalSearchRecords(TableCriteria criteria) {
+        totalSearchRecordsEstimateAttempted = true;
+        if(!isCountEstimateApplicable(criteria)) {
+            return false;
+        }
+        long estimate = estimateTotalSearchRecords();
+        if(estimate >= COUNT_ESTIMATE_THRESHOLD) {
+            totalSearchRecordsApproximate = true;
+            totalSearchRecords = estimate;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of rows of the base table according to the statistics of the database, or -1 if it's not
+     * available.
+     */
+    protected long estimateTotalSearchRecords() {
+        String estimateQuery = getCrudConfiguration().getActualDatabase().getConnectionProvider()
+                .getDatabasePlatform().getRowCountEstimateQuery();
+        List<Object[]> result = QueryUtils.runSql(
+                session, estimateQuery, new Object[] { baseTable.getSchemaName(), baseTable.getTableName() });
+        if(result.isEmpty() || !(result.get(0)[0] instanceof Number)) {
+            return -1;
+        }
+        long estimate = ((Number) result.get(0)[0]).longValue();
+        return estimate > 0 ? estimate : -1;
+    }
+
+    /**
+     * Whether the total number of records is computed together with the search results, in the same query.
+     * @param criteria the search criteria.
+     * @return true if the count mode is {@link CountMode#WINDOW} or {@link CountMode#ESTIMATE} and the database
+     * platform supports window functions. With {@link CountMode#ESTIMATE}, callers must first try to estimate the
+     * count (see {@link #tryToEstimateTotalSearchRecords(TableCriteria)}).
+     */
+    protected boolean isWindowedCountApplicable(TableCriteria criteria) {
+        if(getCountMode() == CountMode.QUERY) {
+            return false;
+        }
+        ConnectionProvider connectionProvider = getCrudConfiguration().getActualDatabase().getConnectionProvider();
+        return connectionProvider.getDatabasePlatform().isWindowedCountSupported(connectionProvider);
+    }
+
+    /**
+     * Loads a page of search results together with the total number of records, in a single query.
+     * @param criteria the search criteria.
+     * @return the search results, or null if the query can't be rewritten to include the total count.
+     */
+    @SuppressWarnings("unchecked")
+    protected List<T> loadObjectsWithTotalCount(TableCriteria criteria) {
+        QueryStringWithParameters query = QueryUtils.mergeQuery(getBaseQuery(), criteria, this);
+        String queryString = QueryUtils.addTotalCount(query.getQueryString());
+        if(queryString == null) {
+            logger.debug("Cannot compute the total count together with the results of {}", query.getQueryString());
+            return null;
+        }
+        List<Object> rows = QueryUtils.runHqlQuery(session, queryString, query.getParameters(), firstResult, maxResults);
+        List<T> objects = new ArrayList<>(rows.size());
+        for(Object row : rows) {
+            Object[] values = (Object[]) row;
+            objects.add((T) values[0]);
+            totalSearchRecords = ((Number) values[1]).longValue();
+        }
+        if(rows.isEmpty() && (firstResult == null || firstResult == 0)) {
+            totalSearchRecords = 0;
+        } //else, past the last page, the total count is computed with a separate query if needed
+        return objects;
+    }
+
     protected String generateCountQuery(String queryString) throws JSQLParserException {
         CCJSqlParserManager parserManager = new CCJSqlParserManager();
         try {
@@ -164,6 +299,8 @@ public class CrudAction<T> extends AbstractCrudAction<T> {
     @Override
     protected void commitTransaction() {
         session.getTransaction().commit();
+        SelectionProviderCache.invalidate(baseTable);
+        persistence.tableChanges.onNext(baseTable);
     }
 
     @Override
@@ -311,20 +448,30 @@ public class CrudAction<T> extends AbstractCrudAction<T> {
     @SuppressWarnings({"rawtypes", "unchecked"})
     public List<T> loadObjects() {
         try {
-            TableCriteria criteria = new TableCriteria(baseTable);
-            if(searchForm != null) {
-                searchForm.configureCriteria(criteria);
+            TableCriteria criteria = createSearchCriteria();
+            Object[] seekPosition = null;
+            boolean fromEnd = false;
+            boolean backwards = false;
+            if(keysetCursor != null) {
+                seekPosition = getSeekPosition(criteria);
+                //The last page is read backwards from the end of the results
+                fromEnd = seekPosition == null && keysetCursor.isLast();
+                backwards = fromEnd || (seekPosition != null && keysetCursor.isBackwards());
+                criteria.seek(classAccessor.getKeyProperties(), seekPosition, backwards);
+            }
+            objects = null;
+            boolean offset = seekPosition == null && !fromEnd;
+            //Estimate or window, decided before running the query, so that the count takes at most one more query
+            if(offset && !tryToEstimateTotalSearchRecords(criteria) && isWindowedCountApplicable(criteria)) {
+                objects = loadObjectsWithTotalCount(criteria);
             }
-            if(!StringUtils.isBlank(sortProperty) && !StringUtils.isBlank(sortDirection)) {
-                try {
-                    PropertyAccessor orderByProperty = getOrderByProperty(sortProperty);
-                    if(orderByProperty != null)
-                        criteria.orderBy(orderByProperty, sortDirection);
-                } catch (NoSuchFieldException e) {
-                    logger.error("Can't order by " + sortProperty + ", property accessor not found", e);
+            if(objects == null) {
+                Integer firstResult = offset ? this.firstResult : null;
+                objects = (List) QueryUtils.getObjects(session, getBaseQuery(), criteria, this, firstResult, maxResults);
+                if(backwards) {
+                    Collections.reverse(objects);
                 }
             }
-            objects = (List) QueryUtils.getObjects(session, getBaseQuery(), criteria, this, firstResult, maxResults);
         } catch (ClassCastException e) {
             objects = new ArrayList<>();
             logger.warn("Incorrect Field Type", e);
@@ -333,6 +480,91 @@ public class CrudAction<T> extends AbstractCrudAction<T> {
         return objects;
     }
 
+    /**
+     * @return the criteria of the current search, including the sort order.
+     */
+    protected TableCriteria createSearchCriteria() {
+        TableCriteria criteria = new TableCriteria(baseTable);
+        if(searchForm != null) {
+            searchForm.configureCriteria(criteria);
+        }
+        if(!StringUtils.isBlank(sortProperty) && !StringUtils.isBlank(sortDirection)) {
+            try {
+                PropertyAccessor orderByProperty = getOrderByProperty(sortProperty);
+                if(orderByProperty != null)
+                    criteria.orderBy(orderByProperty, sortDirection);
+            } catch (NoSuchFieldException e) {
+                logger.error("Can't order by " + sortProperty + ", property accessor not found", e);
+            }
+        }
+        return criteria;
+    }
+
+    /**
+     * Scrolls through the search results with a database cursor, clearing the session every
+     * <code>fetchSize</code> objects so that memory usage does not grow with the number of results.
+     * @param fetchSize how many objects are fetched from the database at a time.
+     * @param consumer the consumer of the objects.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void forEachSearchResult(int fetchSize, Consumer<? super T> consumer) {
+        TableCriteria criteria = createSearchCriteria();
+        try(ScrollableResults results =
+                    QueryUtils.scrollObjects(session, getBaseQuery(), criteria, this, fetchSize)) {
+            int count = 0;
+            while (results.next()) {
+                consumer.accept((T) results.get(0));
+                if(++count % fetchSize == 0) {
+                    session.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the position from which the page of results requested with {@link #keysetCursor} starts.
+     * @param criteria the search criteria, including the sort order.
+     * @return the values of the sort property (if any) and of the primary key at the position, or null if the cursor
+     * has no usable position and the page must be located by offset instead; for example, if the sort property has
+     * changed, or its value at the position is null (null values are sorted last, so such a page only contains nulls).
+     */
+    protected Object[] getSeekPosition(TableCriteria criteria) {
+        String[] key = keysetCursor.getKey();
+        PropertyAccessor[] keyProperties = classAccessor.getKeyProperties();
+        if(key == null || key.length != keyProperties.length) {
+            return null;
+        }
+        PropertyAccessor orderBy = criteria.getOrderBy() != null ? criteria.getOrderBy().getPropertyAccessor() : null;
+        if(!Objects.equals(orderBy != null ? sortProperty : null, keysetCursor.getSortProperty())) {
+            return null;
+        }
+        List<Object> position = new ArrayList<>();
+        try {
+            if(orderBy != null) {
+                if(keysetCursor.getSortValue() == null) {
+                    return null;
+                }
+                position.add(KeysetCursor.parseValue(keysetCursor.getSortValue(), orderBy.getType()));
+            }
+            for(int i = 0; i < key.length; i++) {
+                if(key[i] == null) {
+                    return null;
+                }
+                position.add(KeysetCursor.parseValue(key[i], keyProperties[i].getType()));
+            }
+        } catch (RuntimeException e) {
+            logger.debug("Invalid cursor position, falling back to offset", e);
+            return null;
+        }
+        return position.contains(null) ? null : position.toArray();
+    }
+
+    @Override
+    public boolean isKeysetPaginationSupported() {
+        return true;
+    }
+
     /**
      * @return an PropertyAccessor object
      */
@@ -359,6 +591,48 @@ public class CrudAction<T> extends AbstractCrudAction<T> {
                 getBaseQuery(), this);
     }
 
+    /**
+     * Loads the objects affected by a bulk operation in chunks of {@link #BULK_LOAD_CHUNK_SIZE}, with one query per
+     * chunk that restricts each primary key column to the values in the chunk. With composite keys the query can
+     * return more objects than requested, so only those whose whole key matches are kept.
+     * @param ids the ids of the objects, i.e. the values of their primary key separated by {@link #PK_SEPARATOR}.
+     * @return the objects that have been found, by id.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    protected Map<String, T> loadObjectsById(List<String> ids) {
+        PropertyAccessor[] keyProperties = classAccessor.getKeyProperties();
+        Map<String, String> idsByPk = new HashMap<>();
+        List<Object> pkObjects = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Object pkObject;
+            try {
+                pkObject = idStrategy.getPrimaryKey(id.split(PK_SEPARATOR));
+            } catch (RuntimeException e) {
+                logger.debug("Invalid id: " + id, e);
+                continue;
+            }
+            if(idsByPk.putIfAbsent(idStrategy.getPkString(pkObject), id) == null) {
+                pkObjects.add(pkObject);
+            }
+        }
+        Map<String, T> objects = new HashMap<>();
+        for (int i = 0; i < pkObjects.size(); i += BULK_LOAD_CHUNK_SIZE) {
+            List<Object> chunk = pkObjects.subList(i, Math.min(i + BULK_LOAD_CHUNK_SIZE, pkObjects.size()));
+            TableCriteria criteria = new TableCriteria(baseTable);
+            for (PropertyAccessor keyProperty : keyProperties) {
+                criteria.in(keyProperty, chunk.stream().map(keyProperty::get).distinct().toArray());
+            }
+            for (Object obj : QueryUtils.getObjects(session, getBaseQuery(), criteria, this, null, null)) {
+                String id = idsByPk.get(idStrategy.getPkString(obj));
+                if(id != null) {
+                    objects.put(id, (T) obj);
+                }
+            }
+        }
+        return objects;
+    }
+
     //--------------------------------------------------------------------------
     // Accessors
     //--------------------------------------------------------------------------
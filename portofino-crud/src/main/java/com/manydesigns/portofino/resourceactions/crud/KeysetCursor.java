@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2005-2020 ManyDesigns srl.  All rights reserved.
+ * http://www.manydesigns.com/
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package com.manydesigns.portofino.resourceactions.crud;
+
+import com.manydesigns.elements.ognl.OgnlUtils;
+import org.jetbrains.annotations.Nullable;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * A position in the results of a search, used for keyset (seek) pagination. Clients treat it as an opaque string
+ * obtained from the <code>Link</code> header of a previous search. It holds the value of the sort property and of
+ * the primary key of the row next to the requested page, so that the page can be found without scanning the
+ * preceding ones. It also holds the offset of the page, that is used when the position cannot be used (e.g. the
+ * sort property has changed or its value is null).
+ */
+public class KeysetCursor {
+    public static final String copyright =
+            "Copyright (C) 2005-2020 ManyDesigns srl";
+
+    /**
+     * The cursor that points to the first page.
+     */
+    public static final KeysetCursor FIRST = new KeysetCursor(0, false, null, null, null);
+
+    /**
+     * @param offset the index of the first result of the last page.
+     * @return a cursor that points to the last page, which is read backwards from the end of the results.
+     */
+    public static KeysetCursor last(int offset) {
+        return new KeysetCursor(offset, true, null, null, null);
+    }
+
+    protected final int offset;
+    protected final boolean backwards;
+    protected final String sortProperty;
+    protected final String sortValue;
+    protected final String[] key;
+
+    /**
+     * @param offset the index of the first result in the page.
+     * @param backwards whether the page is made of the results that precede the position, rather than follow it.
+     * @param sortProperty the property the results are sorted by, or null if they're only sorted by primary key.
+     * @param sortValue the value of the sort property at the position, in string form.
+     * @param key the primary key at the position, in string form, or null if there's no position.
+     */
+    public KeysetCursor(
+            int offset, boolean backwards, @Nullable String sortProperty, @Nullable String sortValue,
+            @Nullable String[] key) {
+        this.offset = offset;
+        this.backwards = backwards;
+        this.sortProperty = sortProperty;
+        this.sortValue = sortValue;
+        this.key = key;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public boolean isBackwards() {
+        return backwards;
+    }
+
+    /**
+     * @return whether this cursor points to the last page, i.e. it has no position and it's backwards.
+     */
+    public boolean isLast() {
+        return backwards && key == null;
+    }
+
+    @Nullable
+    public String getSortProperty() {
+        return sortProperty;
+    }
+
+    @Nullable
+    public String getSortValue() {
+        return sortValue;
+    }
+
+    @Nullable
+    public String[] getKey() {
+        return key;
+    }
+
+    /**
+     * Converts a value of the sort property or of the primary key to string form, so that it can be stored in a
+     * cursor.
+     * @param value the value.
+     * @return the value as a string.
+     */
+    @Nullable
+    public static String formatValue(@Nullable Object value) {
+        if(value instanceof Timestamp) {
+            return value.toString(); //Keeps the nanoseconds
+        } else if(value instanceof Date) {
+            return String.valueOf(((Date) value).getTime());
+        } else {
+            return OgnlUtils.convertValueToString(value);
+        }
+    }
+
+    /**
+     * Converts a value formatted with {@link #formatValue(Object)} back to its original type.
+     * @param value the value as a string.
+     * @param type the type of the property.
+     * @return the converted value.
+     * @throws RuntimeException if the value cannot be converted.
+     */
+    public static Object parseValue(String value, Class<?> type) {
+        if(Date.class.isAssignableFrom(type)) {
+            if(value.contains("-")) {
+                return Timestamp.valueOf(value);
+            }
+            long millis = Long.parseLong(value);
+            if(java.sql.Date.class.equals(type)) {
+                return new java.sql.Date(millis);
+            } else if(Time.class.equals(type)) {
+                return new Time(millis);
+            } else {
+                return new Timestamp(millis);
+            }
+        } else {
+            return OgnlUtils.convertValue(value, type);
+        }
+    }
+
+    public String encode() {
+        JSONObject json = new JSONObject();
+        json.put("o", offset);
+        if(backwards) {
+            json.put("b", true);
+        }
+        if(key != null) {
+            json.put("k", new JSONArray(key));
+            if(sortProperty != null) {
+                json.put("p", sortProperty);
+                json.put("v", sortValue != null ? sortValue : JSONObject.NULL);
+            }
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(
+                json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor encoded with {@link #encode()}.
+     * @param cursor the cursor. If it's empty, {@link #FIRST} is returned.
+     * @return the cursor.
+     * @throws IllegalArgumentException if the cursor is not valid.
+     */
+    public static KeysetCursor decode(String cursor) {
+        if(cursor.isEmpty()) {
+            return FIRST;
+        }
+        try {
+            JSONObject json = new JSONObject(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+            String[] key = null;
+            JSONArray keyArray = json.optJSONArray("k");
+            if(keyArray != null) {
+                key = new String[keyArray.length()];
+                for(int i = 0; i < key.length; i++) {
+                    key[i] = keyArray.getString(i);
+                }
+            }
+            int offset = json.getInt("o");
+            if(offset < 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            return new KeysetCursor(
+                    offset, json.optBoolean("b"), json.optString("p", null),
+                    json.isNull("v") ? null : json.getString("v"), key);
+        } catch (JSONException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+}
@@ -25,6 +25,8 @@ import com.google.common.collect.Multimap;
 import com.manydesigns.elements.ElementsThreadLocals;
 import com.manydesigns.elements.annotations.ShortName;
 import com.manydesigns.elements.options.*;
+import com.manydesigns.elements.reflection.PropertyAccessor;
+import com.manydesigns.elements.text.AbstractOgnlFormat;
 import com.manydesigns.elements.text.OgnlSqlFormat;
 import com.manydesigns.elements.text.OgnlTextFormat;
 import com.manydesigns.elements.text.QueryStringWithParameters;
@@ -32,11 +34,13 @@ import com.manydesigns.elements.text.TextFormat;
 import com.manydesigns.portofino.resourceactions.crud.configuration.database.SelectionProviderReference;
 import com.manydesigns.portofino.persistence.Persistence;
 import com.manydesigns.portofino.persistence.QueryUtils;
+import com.manydesigns.portofino.persistence.TableCriteria;
 import com.manydesigns.portofino.logic.SelectionProviderLogic;
 import com.manydesigns.portofino.model.database.*;
 import com.manydesigns.portofino.resourceactions.crud.configuration.CrudProperty;
 import com.manydesigns.portofino.reflection.TableAccessor;
 import org.apache.commons.lang.StringUtils;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -44,6 +48,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -59,6 +65,12 @@ public class ModelSelectionProviderSupport implements SelectionProviderSupport {
     public static final String copyright =
             "Copyright (C) 2005-2020 ManyDesigns srl";
 
+    /**
+     * When searching options in the database, how many rows are read at most for each requested option. Rows whose
+     * label has all the searched words, but not as consecutive words, are skipped.
+     */
+    public static final int MAX_SEARCHED_ROWS_PER_RESULT = 10;
+
     public static final Logger logger =
             LoggerFactory.getLogger(ModelSelectionProviderSupport.class);
 
@@ -290,6 +302,8 @@ public class ModelSelectionProviderSupport implements SelectionProviderSupport {
                 new DefaultSelectionProvider(name, fieldNames.length, optionProvider);
         selectionProvider.setDisplayMode(dm);
         selectionProvider.setSearchDisplayMode(sdm);
+        selectionProvider.setLabelIndexEnabled(
+                dm == DisplayMode.AUTOCOMPLETE || sdm == SearchDisplayMode.AUTOCOMPLETE);
         return selectionProvider;
     }
 
@@ -303,10 +317,16 @@ public class ModelSelectionProviderSupport implements SelectionProviderSupport {
                     "refers to an entity that does not exist ({})", name, hql);
             return null;
         }
-        return new MemoizingOptionProvider(() -> {
-            String entityName = table.getActualEntityName();
+        Set<String> entityNames = QueryUtils.getEntityNamesFromQueryString(database, hql);
+        OptionProvider optionProvider = () -> {
             Session session = persistence.getSession(databaseName);
             QueryStringWithParameters queryWithParameters = QueryUtils.mergeQuery(hql, null, this);
+            SelectionProviderCache.Key sharedCacheKey = new SelectionProviderCache.Key(
+                    selectionProvider, queryWithParameters, databaseName, entityNames, session.getTenantIdentifier());
+            List<OptionProvider.Option> cachedOptions = SelectionProviderCache.get(sharedCacheKey);
+            if (cachedOptions != null) {
+                return cachedOptions;
+            }
 
             Collection<Object> objects = getFromQueryCache(selectionProvider, queryWithParameters);
             if (objects == null) {
@@ -322,26 +342,118 @@ public class ModelSelectionProviderSupport implements SelectionProviderSupport {
                 putInQueryCache(selectionProvider, queryWithParameters, objects);
             }
 
-            TableAccessor tableAccessor =
-                    persistence.getTableAccessor(databaseName, entityName);
-            ShortName shortNameAnnotation =
-                    tableAccessor.getAnnotation(ShortName.class);
-            TextFormat[] textFormats = null;
-            //L'ordinamento e' usato solo in caso di chiave singola
-            if (shortNameAnnotation != null && tableAccessor.getKeyProperties().length == 1) {
-                textFormats = new TextFormat[]{
-                        OgnlTextFormat.create(shortNameAnnotation.value())
-                };
+            List<OptionProvider.Option> options = getHQLOptions(selectionProvider, name, databaseName, table, objects);
+            SelectionProviderCache.put(sharedCacheKey, options);
+            return options;
+        };
+        return new SearchableMemoizingOptionProvider(optionProvider, (labelSearch, maxResults) ->
+                searchHQLOptions(selectionProvider, name, databaseName, hql, table, labelSearch, maxResults));
+    }
+
+    protected List<OptionProvider.Option> getHQLOptions(
+            DatabaseSelectionProvider selectionProvider, String name, String databaseName, Table table,
+            Collection<Object> objects) {
+        Function<Object, OptionProvider.Option> optionFactory = getHQLOptionFactory(name, databaseName, table);
+        Stream<OptionProvider.Option> optionStream = objects.stream().map(optionFactory);
+        if (selectionProvider instanceof ForeignKey) {
+            optionStream = optionStream.sorted(DefaultSelectionProvider.OPTION_COMPARATOR_BY_LABEL);
+        }
+        return optionStream.collect(Collectors.toList());
+    }
+
+    /**
+     * @return a function that converts an object returned by the query of a HQL selection provider to an option.
+     */
+    protected Function<Object, OptionProvider.Option> getHQLOptionFactory(
+            String name, String databaseName, Table table) {
+        TableAccessor tableAccessor =
+                persistence.getTableAccessor(databaseName, table.getActualEntityName());
+        ShortName shortNameAnnotation =
+                tableAccessor.getAnnotation(ShortName.class);
+        TextFormat[] textFormats = null;
+        //L'ordinamento e' usato solo in caso di chiave singola
+        if (shortNameAnnotation != null && tableAccessor.getKeyProperties().length == 1) {
+            textFormats = new TextFormat[]{
+                    OgnlTextFormat.create(shortNameAnnotation.value())
+            };
+        }
+        final TextFormat[] actualTextFormats = textFormats;
+        return o -> SelectionProviderLogic.getOption(name, tableAccessor.getKeyProperties(), actualTextFormats, o);
+    }
+
+    /**
+     * Searches the options of a HQL selection provider in the database, for autocomplete fields. The search is
+     * only possible when the label is a single string property of the entity (its key, or the only property in the
+     * short name). The property must then have a word beginning with each word in the search text (at its start or
+     * after a space, see {@link TableCriteria#wordStartsWith(PropertyAccessor, String)}); of the matching rows, only
+     * those whose label matches the search like in {@link DefaultSelectionProvider} (i.e. the words are consecutive
+     * words of the label) are returned, up to maxResults. At most {@link #MAX_SEARCHED_ROWS_PER_RESULT} times
+     * maxResults rows are read.
+     * @return the matching options, or null if the search cannot be performed in the database.
+     */
+    @Nullable
+    protected List<OptionProvider.Option> searchHQLOptions(
+            DatabaseSelectionProvider selectionProvider, String name, String databaseName, String hql, Table table,
+            String labelSearch, int maxResults) {
+        TableAccessor tableAccessor =
+                persistence.getTableAccessor(databaseName, table.getActualEntityName());
+        if (tableAccessor.getKeyProperties().length != 1) {
+            return null;
+        }
+        PropertyAccessor labelProperty = tableAccessor.getKeyProperties()[0];
+        String labelText = "";
+        ShortName shortNameAnnotation = tableAccessor.getAnnotation(ShortName.class);
+        if (shortNameAnnotation != null) {
+            OgnlTextFormat format = OgnlTextFormat.create(shortNameAnnotation.value());
+            if (format.getOgnlExpressions().length != 1) {
+                return null;
             }
-            final TextFormat[] actualTextFormats = textFormats;
-            Stream<OptionProvider.Option> optionStream =
-                    objects.stream().map(o -> SelectionProviderLogic.getOption(
-                            name, tableAccessor.getKeyProperties(), actualTextFormats, o));
-            if (selectionProvider instanceof ForeignKey) {
-                optionStream = optionStream.sorted(DefaultSelectionProvider.OPTION_COMPARATOR_BY_LABEL);
+            try {
+                labelProperty = tableAccessor.getProperty(format.getOgnlExpressions()[0].trim());
+            } catch (NoSuchFieldException e) {
+                return null;
             }
-            return optionStream.collect(Collectors.toList());
-        });
+            labelText = AbstractOgnlFormat.pattern.matcher(shortNameAnnotation.value()).replaceAll(" ").toLowerCase();
+        }
+        if (labelProperty.getType() != String.class) {
+            return null;
+        }
+
+        TableCriteria criteria = new TableCriteria(table);
+        boolean searchable = false;
+        for (String word : StringUtils.split(labelSearch.toLowerCase(), DefaultSelectionProvider.NON_WORD_CHARACTERS)) {
+            //Words in the fixed text of the label match every row
+            if (!labelText.contains(word)) {
+                criteria.wordStartsWith(labelProperty, word);
+                searchable = true;
+            }
+        }
+        if (!searchable) {
+            return null;
+        }
+        if (selectionProvider instanceof ForeignKey) {
+            criteria.orderBy(labelProperty, "asc");
+        }
+        Function<Object, OptionProvider.Option> optionFactory = getHQLOptionFactory(name, databaseName, table);
+        List<OptionProvider.Option> options = new ArrayList<>();
+        int maxRows = maxResults * MAX_SEARCHED_ROWS_PER_RESULT;
+        try (ScrollableResults results = QueryUtils.scrollObjects(
+                persistence.getSession(databaseName), hql, criteria, this, maxResults, maxRows)) {
+            while (options.size() < maxResults && results.next()) {
+                OptionProvider.Option option = optionFactory.apply(results.get(0));
+                if (DefaultSelectionProvider.matchesLabelSearch(option.getLabels()[0], labelSearch)) {
+                    options.add(option);
+                }
+            }
+        } catch (Exception e) {
+            //Not null, that would make the caller load all the options
+            logger.error("Exception in searching selection provider " + name, e);
+            return new ArrayList<>();
+        }
+        if (selectionProvider instanceof ForeignKey) {
+            options.sort(DefaultSelectionProvider.OPTION_COMPARATOR_BY_LABEL);
+        }
+        return options;
     }
 
     @NotNull
@@ -353,6 +465,12 @@ public class ModelSelectionProviderSupport implements SelectionProviderSupport {
             String formatString = sqlFormat.getFormatString();
             Object[] parameters = sqlFormat.evaluateOgnlExpressions(this);
             QueryStringWithParameters cacheKey = new QueryStringWithParameters(formatString, parameters);
+            SelectionProviderCache.Key sharedCacheKey = new SelectionProviderCache.Key(
+                    selectionProvider, cacheKey, databaseName, null, session.getTenantIdentifier());
+            List<OptionProvider.Option> cachedOptions = SelectionProviderCache.get(sharedCacheKey);
+            if (cachedOptions != null) {
+                return cachedOptions;
+            }
             Collection<Object[]> objects = getFromQueryCache(selectionProvider, cacheKey);
             if (objects == null) {
                 logger.debug("Query not in cache: {}", formatString);
@@ -364,10 +482,32 @@ public class ModelSelectionProviderSupport implements SelectionProviderSupport {
                 }
                 putInQueryCache(selectionProvider, cacheKey, objects);
             }
-            return objects.stream().map(o -> SelectionProviderLogic.getOption(fieldTypes, o)).collect(Collectors.toList());
+            List<OptionProvider.Option> options =
+                    objects.stream().map(o -> SelectionProviderLogic.getOption(fieldTypes, o)).collect(Collectors.toList());
+            SelectionProviderCache.put(sharedCacheKey, options);
+            return options;
         });
     }
 
+    /**
+     * Memoizes all the options, like {@link MemoizingOptionProvider}, and delegates label searches to a function.
+     */
+    public static class SearchableMemoizingOptionProvider
+            extends MemoizingOptionProvider implements SearchableOptionProvider {
+        protected final BiFunction<String, Integer, List<Option>> search;
+
+        public SearchableMemoizingOptionProvider(
+                OptionProvider delegate, BiFunction<String, Integer, List<Option>> search) {
+            super(delegate);
+            this.search = search;
+        }
+
+        @Override
+        public List<Option> searchOptions(String labelSearch, int maxResults) {
+            return search.apply(labelSearch, maxResults);
+        }
+    }
+
     protected void putInQueryCache(
             DatabaseSelectionProvider sp, QueryStringWithParameters queryWithParameters, Collection objects) {}
 
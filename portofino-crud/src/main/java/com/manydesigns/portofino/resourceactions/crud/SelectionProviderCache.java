@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2005-2020 ManyDesigns srl.  All rights reserved.
+ * http://www.manydesigns.com/
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package com.manydesigns.portofino.resourceactions.crud;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.manydesigns.elements.options.OptionList;
+import com.manydesigns.elements.options.OptionProvider;
+import com.manydesigns.elements.text.QueryStringWithParameters;
+import com.manydesigns.portofino.model.database.DatabaseSelectionProvider;
+import com.manydesigns.portofino.model.database.Table;
+import org.apache.commons.configuration2.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Application-wide cache of the options computed by database selection providers, keyed by the selection provider
+ * and by the query (with its parameters) that populates it. Lookup tables are read much more often than they're
+ * written, so the query is only run again when the entry expires, when a CRUD commits changes to the table the
+ * options come from, or when the model or the configuration change.
+ */
+public class SelectionProviderCache {
+    public static final String copyright =
+            "Copyright (C) 2005-2020 ManyDesigns srl";
+
+    public static final String SELECTION_PROVIDER_CACHE_SIZE = "selection.provider.cache.size";
+    public static final String SELECTION_PROVIDER_CACHE_TTL = "selection.provider.cache.ttl";
+    public static final int DEFAULT_SELECTION_PROVIDER_CACHE_SIZE = 1000;
+    public static final int DEFAULT_SELECTION_PROVIDER_CACHE_TTL = 300;
+
+    protected static Cache<Key, OptionList> options;
+
+    private static final Logger logger = LoggerFactory.getLogger(SelectionProviderCache.class);
+
+    static {
+        init(DEFAULT_SELECTION_PROVIDER_CACHE_SIZE, DEFAULT_SELECTION_PROVIDER_CACHE_TTL);
+    }
+
+    public static void init(Configuration configuration) {
+        init(configuration.getInt(SELECTION_PROVIDER_CACHE_SIZE, DEFAULT_SELECTION_PROVIDER_CACHE_SIZE),
+             configuration.getInt(SELECTION_PROVIDER_CACHE_TTL, DEFAULT_SELECTION_PROVIDER_CACHE_TTL));
+    }
+
+    /**
+     * @param maxSize the maximum number of cached option lists. 0 disables the cache.
+     * @param ttl how long (in seconds) an option list is kept in the cache.
+     */
+    public static void init(int maxSize, int ttl) {
+        options = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the cached options of a selection provider.
+     * @param key identifies the selection provider and the query.
+     * @return a copy of the cached options, that the caller is free to modify, or null if they're not in the cache.
+     * Copies share the index used to search labels (see {@link OptionList}).
+     */
+    public static List<OptionProvider.Option> get(Key key) {
+        OptionList cached = options.getIfPresent(key);
+        return cached != null ? cached.copy() : null;
+    }
+
+    public static void put(Key key, List<OptionProvider.Option> optionList) {
+        options.put(key, new OptionList(optionList));
+    }
+
+    /**
+     * Evicts the options that may have been computed from the given table, i.e. the ones read with HQL queries that
+     * refer to the table, and all the ones read from the same database with queries whose entities are not known:
+     * SQL queries and HQL queries that navigate associations (see
+     * {@link com.manydesigns.portofino.persistence.QueryUtils#getEntityNamesFromQueryString(
+     * com.manydesigns.portofino.model.database.Database, String)}).
+     * @param table the table that has been modified.
+     */
+    public static void invalidate(Table table) {
+        invalidate(table.getDatabaseName(), table.getActualEntityName());
+    }
+
+    public static void invalidate(String databaseName, String entityName) {
+        logger.debug("Invalidating selection provider cache for {}.{}", databaseName, entityName);
+        options.asMap().keySet().removeIf(key ->
+                key.databaseName.equals(databaseName) &&
+                (key.entityNames == null || key.entityNames.contains(entityName)));
+    }
+
+    public static void clear() {
+        logger.debug("Clearing selection provider cache");
+        options.invalidateAll();
+    }
+
+    public static CacheStats getStats() {
+        return options.stats();
+    }
+
+    public static long size() {
+        return options.size();
+    }
+
+    /**
+     * Identifies the options of a selection provider.
+     */
+    public static class Key {
+        protected final DatabaseSelectionProvider selectionProvider;
+        protected final QueryStringWithParameters query;
+        protected final String databaseName;
+        protected final Set<String> entityNames;
+        protected final String tenant;
+
+        /**
+         * @param selectionProvider the selection provider.
+         * @param query the query that computes the options, with its actual parameters.
+         * @param databaseName the database that is queried.
+         * @param entityNames the entities the options are read from, or null if they're not known (e.g. SQL queries).
+         * @param tenant the tenant the query runs for, or null in a single-tenant application.
+         */
+        public Key(
+                DatabaseSelectionProvider selectionProvider, QueryStringWithParameters query,
+                String databaseName, Set<String> entityNames, String tenant) {
+            this.selectionProvider = selectionProvider;
+            this.query = query;
+            this.databaseName = databaseName;
+            this.entityNames = entityNames;
+            this.tenant = tenant;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return selectionProvider == key.selectionProvider &&
+                    query.equals(key.query) &&
+                    databaseName.equals(key.databaseName) &&
+                    Objects.equals(entityNames, key.entityNames) &&
+                    Objects.equals(tenant, key.tenant);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(selectionProvider), query, databaseName, entityNames, tenant);
+        }
+    }
+}
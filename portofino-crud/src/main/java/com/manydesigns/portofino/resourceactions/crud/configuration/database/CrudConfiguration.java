@@ -31,6 +31,9 @@ import com.manydesigns.portofino.persistence.Persistence;
 import com.manydesigns.portofino.persistence.QueryUtils;
 import com.manydesigns.portofino.security.AccessLevel;
 import com.manydesigns.portofino.security.RequiresPermissions;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import javax.xml.bind.annotation.*;
@@ -45,7 +48,7 @@ import java.util.List;
 */
 
 @XmlRootElement(name = "configuration")
-@XmlType(name = "databaseConfiguration",propOrder = {"database","query","selectionProviders"})
+@XmlType(name = "databaseConfiguration",propOrder = {"database","query","countMode","selectionProviders"})
 @XmlAccessorType(value = XmlAccessType.NONE)
 public class CrudConfiguration extends com.manydesigns.portofino.resourceactions.crud.configuration.CrudConfiguration {
     public static final String copyright =
@@ -59,11 +62,14 @@ public class CrudConfiguration extends com.manydesigns.portofino.resourceactions
 
     protected String database;
     protected String query;
+    protected String countMode;
 
     @Autowired
     @Enabled(false)
     public Persistence persistence;
 
+    public static final Logger logger = LoggerFactory.getLogger(CrudConfiguration.class);
+
     //**************************************************************************
     // Fields for wire-up
     //**************************************************************************
@@ -72,6 +78,8 @@ public class CrudConfiguration extends com.manydesigns.portofino.resourceactions
     protected Table actualTable;
     @Enabled(false)
     protected Database actualDatabase;
+    @Enabled(false)
+    protected CountMode actualCountMode;
 
     //**************************************************************************
     // Constructors
@@ -100,6 +108,14 @@ public class CrudConfiguration extends com.manydesigns.portofino.resourceactions
     //**************************************************************************
 
     public void init() {
+        actualCountMode = CountMode.QUERY;
+        if(!StringUtils.isEmpty(countMode)) {
+            try {
+                actualCountMode = CountMode.valueOf(countMode);
+            } catch (IllegalArgumentException e) {
+                logger.warn("Invalid countMode: " + countMode);
+            }
+        }
         actualDatabase = DatabaseLogic.findDatabaseByName(persistence.getModel(), database);
         if(actualDatabase != null && query != null) { //Query can be null if the user hasn't got permission to see it
             actualTable = QueryUtils.getTableFromQueryString(actualDatabase, query);
@@ -148,6 +164,19 @@ public class CrudConfiguration extends com.manydesigns.portofino.resourceactions
         this.query = query;
     }
 
+    @XmlAttribute(required = false)
+    public String getCountMode() {
+        return countMode;
+    }
+
+    public void setCountMode(String countMode) {
+        this.countMode = countMode;
+    }
+
+    public CountMode getActualCountMode() {
+        return actualCountMode;
+    }
+
     @XmlElementWrapper(name="selectionProviders")
     @XmlElements({
           @XmlElement(name="selectionProvider",type=SelectionProviderReference.class)
@@ -20,6 +20,8 @@
 
 package com.manydesigns.portofino.resourceactions.crud.reflection;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.manydesigns.elements.ElementsThreadLocals;
 import com.manydesigns.elements.annotations.impl.EnabledImpl;
 import com.manydesigns.elements.reflection.ClassAccessor;
@@ -60,10 +62,54 @@ public class CrudAccessor extends AbstractAnnotatedAccessor implements ClassAcce
     protected final ClassAccessor nestedAccessor;
     protected final CrudPropertyAccessor[] propertyAccessors;
     protected final CrudPropertyAccessor[] keyPropertyAccessors;
+    protected final boolean shareable;
 
     public final static Logger logger =
             LoggerFactory.getLogger(CrudAccessor.class);
 
+    //**************************************************************************
+    // Static fields and methods
+    //**************************************************************************
+
+    /**
+     * Accessors by configuration, compared by identity, so that the instances of the same action share the same
+     * property accessors and the fields helpers resolved for them
+     * (see {@link com.manydesigns.elements.fields.helpers.FieldsManager}). An accessor references its configuration
+     * (and, through it, the model), so weak keys alone would keep every entry alive; accessors are softly referenced
+     * instead, and the configurations that are no longer used (e.g. because they've been reloaded) are released
+     * together with their accessors.
+     */
+    protected static final Cache<CrudConfiguration, CrudAccessor> crudAccessorCache =
+            CacheBuilder.newBuilder().weakKeys().softValues().build();
+
+    /**
+     * Returns an accessor for the given configuration and nested accessor, reusing the last one built for the same
+     * configuration if it has the same nested accessor and it can be shared (see {@link #isShareable()}).
+     * @param crudConfiguration the configuration.
+     * @param nestedAccessor the accessor of the objects handled by the crud.
+     * @return the accessor.
+     */
+    public static CrudAccessor getCrudAccessor(
+            @NotNull CrudConfiguration crudConfiguration, @NotNull ClassAccessor nestedAccessor) {
+        CrudAccessor cachedResult = crudAccessorCache.getIfPresent(crudConfiguration);
+        if (cachedResult != null && cachedResult.nestedAccessor == nestedAccessor) {
+            return cachedResult;
+        }
+        CrudAccessor crudAccessor = new CrudAccessor(crudConfiguration, nestedAccessor);
+        if (crudAccessor.isShareable()) {
+            crudAccessorCache.put(crudConfiguration, crudAccessor);
+        }
+        return crudAccessor;
+    }
+
+    /**
+     * Discards the accessor cached for a configuration, that has been modified in place.
+     * @param crudConfiguration the configuration.
+     */
+    public static void invalidate(CrudConfiguration crudConfiguration) {
+        crudAccessorCache.invalidate(crudConfiguration);
+    }
+
     //**************************************************************************
     // Constructors
     //**************************************************************************
@@ -80,6 +126,8 @@ public class CrudAccessor extends AbstractAnnotatedAccessor implements ClassAcce
                 virtualCrudProperties.add((VirtualCrudProperty) crudProperty);
             }
         }
+        //Virtual properties evaluate their expressions in the OGNL context of the current request
+        shareable = virtualCrudProperties.isEmpty();
 
         propertyAccessors =
                 new CrudPropertyAccessor[columnAccessors.length + virtualCrudProperties.size()];
@@ -242,4 +290,16 @@ public class CrudAccessor extends AbstractAnnotatedAccessor implements ClassAcce
         return crudConfiguration;
     }
 
+    public ClassAccessor getNestedAccessor() {
+        return nestedAccessor;
+    }
+
+    /**
+     * @return whether this accessor can be used by other requests than the one that created it. It can't if it
+     * has virtual properties.
+     */
+    public boolean isShareable() {
+        return shareable;
+    }
+
 }
@@ -43,6 +43,7 @@ import com.manydesigns.portofino.resourceactions.AbstractResourceAction;
 import com.manydesigns.portofino.resourceactions.ResourceActionName;
 import com.manydesigns.portofino.resourceactions.annotations.ConfigurationClass;
 import com.manydesigns.portofino.resourceactions.annotations.ScriptTemplate;
+import com.manydesigns.portofino.resourceactions.crud.SelectionProviderCache;
 import com.manydesigns.portofino.resourceactions.m2m.configuration.ManyToManyConfiguration;
 import com.manydesigns.portofino.resourceactions.m2m.configuration.SelectionProviderReference;
 import com.manydesigns.portofino.resourceactions.m2m.configuration.ViewType;
@@ -142,8 +143,8 @@ public class ManyToManyAction extends AbstractResourceAction {
             return this; //TODO WebApplicationException instead?
         }
         Table table = m2mConfiguration.getActualRelationTable();
-        relationTableAccessor = new TableAccessor(table);
-        manyTableAccessor = new TableAccessor(m2mConfiguration.getActualManyTable());
+        relationTableAccessor = persistence.getTableAccessor(table);
+        manyTableAccessor = persistence.getTableAccessor(m2mConfiguration.getActualManyTable());
         if(StringUtils.isBlank(m2mConfiguration.getActualOnePropertyName())) {
             logger.error("One property name not set");
             return this;
@@ -166,7 +167,7 @@ public class ManyToManyAction extends AbstractResourceAction {
                     return this;
                 }
 
-                TableAccessor tableAccessor = new TableAccessor(m2mConfiguration.getActualRelationTable());
+                TableAccessor tableAccessor = persistence.getTableAccessor(m2mConfiguration.getActualRelationTable());
                 PropertyAccessor onePkAccessor = null;
                 try {
                     onePkAccessor = tableAccessor.getProperty(m2mConfiguration.getActualOnePropertyName());
@@ -518,7 +519,7 @@ public class ManyToManyAction extends AbstractResourceAction {
     }
 
     protected void loadOnePk(Object key) throws Exception{
-        TableAccessor tableAccessor = new TableAccessor(m2mConfiguration.getActualRelationTable());
+        TableAccessor tableAccessor = persistence.getTableAccessor(m2mConfiguration.getActualRelationTable());
         PropertyAccessor onePkAccessor = tableAccessor.getProperty(m2mConfiguration.getActualOnePropertyName());
 
         if(onePkAccessor == null) {
@@ -599,6 +600,8 @@ public class ManyToManyAction extends AbstractResourceAction {
             }
         }
         session.getTransaction().commit();
+        SelectionProviderCache.invalidate(relationTableAccessor.getTable());
+        persistence.tableChanges.onNext(relationTableAccessor.getTable());
         return objectCreated();
     }
 
@@ -29,6 +29,10 @@ import com.manydesigns.elements.blobs.HierarchicalBlobManager;
 import com.manydesigns.elements.fields.AbstractBlobField;
 import com.manydesigns.elements.fields.Field;
 import com.manydesigns.elements.fields.FileBlobField;
+import com.manydesigns.elements.options.DefaultSelectionProvider;
+import com.manydesigns.elements.options.OptionProvider;
+import com.manydesigns.elements.options.SearchableOptionProvider;
+import com.manydesigns.elements.options.SelectionModel;
 import com.manydesigns.elements.reflection.ClassAccessor;
 import com.manydesigns.elements.servlet.MutableHttpServletRequest;
 import com.manydesigns.portofino.PortofinoProperties;
@@ -45,7 +49,9 @@ import com.manydesigns.portofino.persistence.Persistence;
 import com.manydesigns.portofino.resourceactions.ActionContext;
 import com.manydesigns.portofino.resourceactions.ActionInstance;
 import com.manydesigns.portofino.resourceactions.crud.configuration.CrudProperty;
+import com.manydesigns.portofino.resourceactions.crud.configuration.database.CountMode;
 import com.manydesigns.portofino.resourceactions.crud.configuration.database.CrudConfiguration;
+import io.reactivex.disposables.Disposable;
 import org.apache.commons.configuration2.Configuration;
 import org.apache.commons.configuration2.PropertiesConfiguration;
 import org.apache.commons.fileupload.disk.DiskFileItem;
@@ -58,17 +64,32 @@ import org.h2.tools.RunScript;
 import org.hibernate.Session;
 import org.hibernate.jdbc.Work;
 import org.jetbrains.annotations.NotNull;
+import org.json.JSONArray;
+import org.json.JSONObject;
 import org.testng.annotations.*;
 
 import javax.ws.rs.core.Application;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import static org.testng.Assert.*;
 
@@ -343,4 +364,415 @@ public class CrudActionTest extends JerseyTest {
         }
     }
 
+    public void testSearchWithWindowedCount() throws Exception {
+        CrudConfiguration configuration = new CrudConfiguration();
+        configuration.setDatabase("jpetstore");
+        configuration.setQuery("from product p order by p.productid");
+        configuration.setCountMode(CountMode.WINDOW.name());
+        CrudAction crudAction = createSearchCrudAction(configuration);
+        assertEquals(CountMode.WINDOW, configuration.getActualCountMode());
+
+        crudAction.firstResult = 10;
+        crudAction.maxResults = 5;
+        assertEquals(5, crudAction.loadObjects().size());
+        //Computed by the search query itself
+        assertEquals(16, crudAction.totalSearchRecords);
+        assertEquals(16, crudAction.getTotalSearchRecords());
+        assertFalse(crudAction.isTotalSearchRecordsApproximate());
+
+        //Past the last page, the count falls back to a separate query
+        crudAction.totalSearchRecords = -1;
+        crudAction.firstResult = 20;
+        assertEquals(0, crudAction.loadObjects().size());
+        assertEquals(-1, crudAction.totalSearchRecords);
+        assertEquals(16, crudAction.getTotalSearchRecords());
+    }
+
+    public void testSearchWithEstimatedCountOnSmallTable() throws Exception {
+        CrudConfiguration configuration = new CrudConfiguration();
+        configuration.setDatabase("jpetstore");
+        configuration.setQuery("from product p order by p.productid");
+        configuration.setCountMode(CountMode.ESTIMATE.name());
+        CrudAction crudAction = createSearchCrudAction(configuration);
+        assertEquals(CountMode.ESTIMATE, configuration.getActualCountMode());
+
+        crudAction.firstResult = 0;
+        crudAction.maxResults = 5;
+        assertEquals(5, crudAction.loadObjects().size());
+        //The table is too small for the estimate, so the count is decided before the search and windowed
+        assertTrue(crudAction.totalSearchRecordsEstimateAttempted);
+        assertEquals(16, crudAction.totalSearchRecords);
+        assertEquals(16, crudAction.getTotalSearchRecords());
+        assertFalse(crudAction.isTotalSearchRecordsApproximate());
+    }
+
+    public void testDefaultCountMode() throws Exception {
+        CrudConfiguration configuration = new CrudConfiguration();
+        configuration.setDatabase("jpetstore");
+        configuration.setQuery("from product p order by p.productid");
+        createSearchCrudAction(configuration);
+        assertEquals(CountMode.QUERY, configuration.getActualCountMode());
+        configuration.setCountMode("invalid");
+        configuration.init();
+        assertEquals(CountMode.QUERY, configuration.getActualCountMode());
+    }
+
+    public void testKeysetPagination() throws Exception {
+        CrudConfiguration configuration = new CrudConfiguration();
+        configuration.setDatabase("jpetstore");
+        configuration.setQuery("from product p order by p.productid");
+        CrudAction crudAction = createSearchCrudAction(configuration);
+        assertTrue(crudAction.isKeysetPaginationSupported());
+        crudAction.sortProperty = "name";
+        crudAction.sortDirection = "desc";
+        crudAction.maxResults = 5;
+
+        crudAction.firstResult = 0;
+        List<Object> expected = new ArrayList<>();
+        for(Object product : crudAction.loadObjects()) {
+            expected.add(((Map) product).get("productid"));
+        }
+        crudAction.maxResults = null;
+        List<Object> all = new ArrayList<>();
+        for(Object product : crudAction.loadObjects()) {
+            all.add(((Map) product).get("productid"));
+        }
+        assertEquals(16, all.size());
+
+        crudAction.maxResults = 5;
+        crudAction.keysetCursor = KeysetCursor.decode("");
+        crudAction.firstResult = crudAction.keysetCursor.getOffset();
+        List<Object> pages = new ArrayList<>();
+        List<Object> secondPage = null;
+        while(true) {
+            List<?> page = crudAction.loadObjects();
+            for(Object product : page) {
+                pages.add(((Map) product).get("productid"));
+            }
+            if(crudAction.firstResult == 5) {
+                secondPage = new ArrayList<>(page);
+            }
+            if(page.size() < crudAction.maxResults) {
+                break;
+            }
+            KeysetCursor next = crudAction.getKeysetCursor(
+                    page.get(page.size() - 1), crudAction.firstResult + page.size(), false);
+            //Round trip, as clients do
+            crudAction.keysetCursor = KeysetCursor.decode(next.encode());
+            crudAction.firstResult = crudAction.keysetCursor.getOffset();
+        }
+        assertEquals(all, pages);
+
+        //Backwards from the second page we get the first one, in the same order
+        assertNotNull(secondPage);
+        crudAction.keysetCursor = crudAction.getKeysetCursor(secondPage.get(0), 0, true);
+        crudAction.firstResult = 0;
+        List<Object> previous = new ArrayList<>();
+        for(Object product : crudAction.loadObjects()) {
+            previous.add(((Map) product).get("productid"));
+        }
+        assertEquals(expected, previous);
+
+        //If the sort order changes, the cursor falls back to the offset
+        crudAction.keysetCursor = crudAction.getKeysetCursor(secondPage.get(0), 5, false);
+        crudAction.sortProperty = "productid";
+        crudAction.sortDirection = "asc";
+        crudAction.firstResult = 5;
+        List<?> page = crudAction.loadObjects();
+        assertEquals(5, page.size());
+        assertEquals("FI-SW-02", ((Map) page.get(0)).get("productid"));
+    }
+
+    public void testKeysetPaginationWithNulls() throws Exception {
+        Session session = persistence.getSession("jpetstore");
+        int updated = session.createSQLQuery(
+                "update product set name = null where productid in ('FI-SW-01', 'K9-BD-01', 'RP-SN-01')")
+                .executeUpdate();
+        assertEquals(3, updated);
+        session.getTransaction().commit();
+        session.beginTransaction();
+
+        CrudConfiguration configuration = new CrudConfiguration();
+        configuration.setDatabase("jpetstore");
+        configuration.setQuery("from product p order by p.productid");
+        CrudAction crudAction = createSearchCrudAction(configuration);
+        crudAction.sortProperty = "name";
+        crudAction.sortDirection = "asc";
+        crudAction.maxResults = 5;
+        crudAction.keysetCursor = KeysetCursor.FIRST;
+        crudAction.firstResult = 0;
+        List<Object> products = new ArrayList<>();
+        while(true) {
+            List<?> page = crudAction.loadObjects();
+            products.addAll(page);
+            if(page.size() < crudAction.maxResults) {
+                break;
+            }
+            KeysetCursor next = crudAction.getKeysetCursor(
+                    page.get(page.size() - 1), crudAction.firstResult + page.size(), false);
+            crudAction.keysetCursor = KeysetCursor.decode(next.encode());
+            crudAction.firstResult = crudAction.keysetCursor.getOffset();
+        }
+        //Nulls come last, and no page ends early
+        assertEquals(16, products.size());
+        Set<Object> ids = new HashSet<>();
+        for(int i = 0; i < products.size(); i++) {
+            Map product = (Map) products.get(i);
+            ids.add(product.get("productid"));
+            assertEquals(i >= 13, product.get("name") == null, "Product " + i);
+        }
+        assertEquals(16, ids.size());
+
+        //The last page is read backwards from the end
+        crudAction.keysetCursor = KeysetCursor.decode(KeysetCursor.last(11).encode());
+        assertTrue(crudAction.keysetCursor.isLast());
+        crudAction.firstResult = crudAction.keysetCursor.getOffset();
+        assertEquals(products.subList(11, 16), crudAction.loadObjects());
+    }
+
+    public void testJsonSearch() throws Exception {
+        CrudConfiguration configuration = new CrudConfiguration();
+        configuration.setDatabase("jpetstore");
+        configuration.setQuery("from product p order by p.productid");
+        CrudAction crudAction = createSearchCrudAction(configuration);
+        crudAction.firstResult = 2;
+        crudAction.maxResults = 10;
+        Response response = crudAction.jsonSearchData();
+        assertEquals(200, response.getStatus());
+        assertTrue(response.getEntity() instanceof StreamingOutput);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(output);
+        JSONObject json = new JSONObject(new String(output.toByteArray(), StandardCharsets.UTF_8));
+        assertEquals(10, json.getInt("recordsReturned"));
+        assertEquals(16, json.getInt("totalRecords"));
+        assertEquals(2, json.getInt("startIndex"));
+        assertFalse(json.has("totalRecordsApproximate"));
+        JSONArray records = json.getJSONArray("records");
+        assertEquals(10, records.length());
+        //Every record has its own values, even though the fields are reused
+        assertEquals("FI-FW-01", records.getJSONObject(0).getString("__rowKey"));
+        assertEquals("FI-FW-01", records.getJSONObject(0).getJSONObject("productid").getString("value"));
+        assertEquals("http://fake/FI-FW-01", records.getJSONObject(0).getJSONObject("productid").getString("href"));
+        assertEquals("FI-FW-02", records.getJSONObject(1).getString("__rowKey"));
+        assertEquals("FI-FW-02", records.getJSONObject(1).getJSONObject("productid").getString("value"));
+        assertEquals("http://fake/FI-FW-02", records.getJSONObject(1).getJSONObject("productid").getString("href"));
+        assertEquals("K9-PO-02", records.getJSONObject(9).getString("__rowKey"));
+    }
+
+    public void testJsonSearchWithOverriddenExecuteSearch() throws Exception {
+        CrudConfiguration configuration = new CrudConfiguration();
+        configuration.setDatabase("jpetstore");
+        configuration.setQuery("from product p order by p.productid");
+        MutableHttpServletRequest req = new MutableHttpServletRequest();
+        ElementsThreadLocals.setHttpServletRequest(req);
+        req.getServletContext().setInitParameter("portofino.api.root", "http://fake");
+        CrudAction crudAction = new CrudAction() {
+            @NotNull
+            @Override
+            protected ClassAccessor filterAccordingToPermissions(ClassAccessor classAccessor) {
+                return classAccessor; //Let's ignore Shiro
+            }
+
+            @Override
+            protected void executeSearch() {
+                super.executeSearch();
+                //Written before results were streamed: relies on the table form
+                for (Field field : tableForm.getRows()[0]) {
+                    field.setHref("http://custom");
+                }
+            }
+        };
+        setupSearchCrudAction(crudAction, configuration, req);
+        crudAction.maxResults = 3;
+        Response response = crudAction.jsonSearchData();
+        assertEquals(200, response.getStatus());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(output);
+        JSONObject json = new JSONObject(new String(output.toByteArray(), StandardCharsets.UTF_8));
+        JSONArray records = json.getJSONArray("records");
+        assertEquals(3, records.length());
+        assertEquals("http://custom", records.getJSONObject(0).getJSONObject("productid").getString("href"));
+        assertEquals("http://fake/AV-SB-02", records.getJSONObject(1).getJSONObject("productid").getString("href"));
+    }
+
+    public void testExport() throws Exception {
+        CrudConfiguration configuration = new CrudConfiguration();
+        configuration.setDatabase("jpetstore");
+        configuration.setQuery("from product p");
+        CrudAction crudAction = createSearchCrudAction(configuration);
+        //Smaller than the number of products, so that the session is cleared while scrolling
+        crudAction.portofinoConfiguration.setProperty(PortofinoProperties.CRUD_EXPORT_FETCH_SIZE, 5);
+
+        Response response = crudAction.exportSearchResults(null, "productid", "asc", "csv");
+        assertEquals(200, response.getStatus());
+        String[] lines = new String(export(response), StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(17, lines.length);
+        assertEquals("AV-CB-01", lines[1]);
+        assertEquals("RP-SN-01", lines[16]);
+
+        response = crudAction.exportSearchResults(null, "productid", "desc", "ndjson");
+        lines = new String(export(response), StandardCharsets.UTF_8).split("\n");
+        assertEquals(16, lines.length);
+        assertEquals("RP-SN-01", new JSONObject(lines[0]).getString("__rowKey"));
+        assertEquals("AV-CB-01", new JSONObject(lines[15]).getJSONObject("productid").getString("value"));
+
+        response = crudAction.exportSearchResults(null, null, null, "xlsx");
+        Map<String, String> entries = new HashMap<>();
+        try(ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(export(response)))) {
+            ZipEntry entry;
+            while((entry = zip.getNextEntry()) != null) {
+                entries.put(entry.getName(), IOUtils.toString(zip, StandardCharsets.UTF_8));
+            }
+        }
+        assertTrue(entries.containsKey("[Content_Types].xml"));
+        assertTrue(entries.containsKey("xl/workbook.xml"));
+        String sheet = entries.get("xl/worksheets/sheet1.xml");
+        assertNotNull(sheet);
+        assertEquals(17, sheet.split("<row ").length - 1);
+        assertTrue(sheet.contains("<t xml:space=\"preserve\">FI-SW-01</t>"));
+
+        assertEquals(400, crudAction.exportSearchResults(null, null, null, "doc").getStatus());
+    }
+
+    protected byte[] export(Response response) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(output);
+        return output.toByteArray();
+    }
+
+    public void testBulkDeleteWithCompositeKey() throws Exception {
+        Session session = persistence.getSession("jpetstore");
+        session.createSQLQuery("insert into lineitem values (1, 2, 'EST-2', 1, 10)").executeUpdate();
+        session.createSQLQuery("insert into lineitem values (2, 1, 'EST-1', 1, 10)").executeUpdate();
+        session.createSQLQuery("insert into lineitem values (2, 2, 'EST-2', 1, 10)").executeUpdate();
+
+        CrudConfiguration configuration = new CrudConfiguration();
+        configuration.setDatabase("jpetstore");
+        configuration.setQuery("from lineitem");
+        CrudAction crudAction = createSearchCrudAction(configuration);
+        Map objects = crudAction.loadObjectsById(Arrays.asList("1/2", "2/1", "9/9", "1"));
+        assertEquals(2, objects.size());
+        assertEquals(2, ((Number) ((Map) objects.get("1/2")).get("linenum")).intValue());
+        assertEquals(2, ((Number) ((Map) objects.get("2/1")).get("orderid")).intValue());
+
+        //(1, 1) and (2, 2) match the orderid and linenum lists, but they must not be deleted
+        List<String> deleted = crudAction.bulkDelete(Arrays.asList("1/2", "2/1", "9/9", "1"));
+        assertEquals(Arrays.asList("1/2", "2/1"), deleted);
+        session.beginTransaction();
+        List<?> remaining = session.createQuery("select orderid, linenum from lineitem order by orderid").list();
+        assertEquals(2, remaining.size());
+        assertEquals(1, ((Number) ((Object[]) remaining.get(0))[1]).intValue());
+        assertEquals(2, ((Number) ((Object[]) remaining.get(1))[1]).intValue());
+    }
+
+    public void testSelectionProviderCache() throws Exception {
+        SelectionProviderCache.clear();
+        long misses = SelectionProviderCache.getStats().missCount();
+        long hits = SelectionProviderCache.getStats().hitCount();
+
+        List<OptionProvider.Option> options = getCategoryOptions();
+        assertEquals(5, options.size());
+        assertEquals(misses + 1, SelectionProviderCache.getStats().missCount());
+        //Callers are free to modify the options they get
+        options.clear();
+
+        //Another request for the same CRUD hits the cache
+        options = getCategoryOptions();
+        assertEquals(5, options.size());
+        assertEquals(misses + 1, SelectionProviderCache.getStats().missCount());
+        assertEquals(hits + 1, SelectionProviderCache.getStats().hitCount());
+
+        //A CRUD on the category table commits: the options are read again
+        CrudConfiguration configuration = new CrudConfiguration();
+        configuration.setDatabase("jpetstore");
+        configuration.setQuery("from category");
+        CrudAction crudAction = createSearchCrudAction(configuration);
+        List<Table> changedTables = new ArrayList<>();
+        Disposable subscription = persistence.tableChanges.subscribe(changedTables::add);
+        crudAction.session.createSQLQuery("insert into category values ('NEW', 'New', null)").executeUpdate();
+        crudAction.commitTransaction();
+        subscription.dispose();
+        assertEquals(Collections.singletonList(crudAction.baseTable), changedTables);
+        options = getCategoryOptions();
+        assertEquals(6, options.size());
+        assertEquals(misses + 2, SelectionProviderCache.getStats().missCount());
+    }
+
+    public void testSelectionProviderSearch() throws Exception {
+        DefaultSelectionProvider selectionProvider = getCategorySelectionProvider();
+        SearchableOptionProvider optionProvider = (SearchableOptionProvider) selectionProvider.getOptionProvider();
+        //Labels containing the text elsewhere than at the beginning of a word are not returned
+        assertTrue(optionProvider.searchOptions("s", 2).isEmpty());
+        //...and they don't count towards the limit: BIRDS comes before DOGS and contains a d, but only DOGS matches
+        List<OptionProvider.Option> options = optionProvider.searchOptions("d", 1);
+        assertEquals(1, options.size());
+        assertEquals("DOGS", options.get(0).getLabels()[0]);
+        options = optionProvider.searchOptions("c", 2);
+        assertEquals(1, options.size());
+        assertEquals("CATS", options.get(0).getLabels()[0]);
+
+        //Only labels with a word starting with the text are kept
+        SelectionModel selectionModel = selectionProvider.createSelectionModel();
+        selectionModel.setLabelSearch(0, "s");
+        assertTrue(selectionModel.getOptions(0).isEmpty());
+        selectionModel.setLabelSearch(0, "Ca");
+        assertEquals(Collections.singleton("CATS"), selectionModel.getOptions(0).keySet());
+    }
+
+    protected List<OptionProvider.Option> getCategoryOptions() throws Exception {
+        return getCategorySelectionProvider().getOptions();
+    }
+
+    protected DefaultSelectionProvider getCategorySelectionProvider() throws Exception {
+        CrudConfiguration configuration = new CrudConfiguration();
+        configuration.setDatabase("jpetstore");
+        configuration.setQuery("from product");
+        CrudProperty property = new CrudProperty();
+        property.setName("category");
+        property.setEnabled(true);
+        configuration.getProperties().add(property);
+        CrudAction crudAction = createSearchCrudAction(configuration);
+        List<CrudSelectionProvider> selectionProviders = crudAction.getCrudSelectionProviders();
+        for(CrudSelectionProvider sp : selectionProviders) {
+            if(Arrays.asList(sp.getFieldNames()).contains("category")) {
+                return (DefaultSelectionProvider) sp.getSelectionProvider();
+            }
+        }
+        throw new AssertionError("No selection provider for category");
+    }
+
+    @NotNull
+    protected CrudAction createSearchCrudAction(CrudConfiguration configuration) throws Exception {
+        MutableHttpServletRequest req = new MutableHttpServletRequest();
+        ElementsThreadLocals.setHttpServletRequest(req);
+        req.getServletContext().setInitParameter("portofino.api.root", "http://fake");
+        CrudAction crudAction = new CrudAction() {
+            @NotNull
+            @Override
+            protected ClassAccessor filterAccordingToPermissions(ClassAccessor classAccessor) {
+                return classAccessor; //Let's ignore Shiro
+            }
+        };
+        return setupSearchCrudAction(crudAction, configuration, req);
+    }
+
+    protected CrudAction setupSearchCrudAction(
+            CrudAction crudAction, CrudConfiguration configuration, MutableHttpServletRequest req) throws Exception {
+        crudAction.portofinoConfiguration = new PropertiesConfiguration();
+        configuration.persistence = persistence;
+        configuration.init();
+
+        ActionInstance actionInstance = new ActionInstance(null, null, new ActionDescriptor(), CrudAction.class);
+        actionInstance.setConfiguration(configuration);
+        ActionContext actionContext = new ActionContext();
+        actionContext.setRequest(req);
+        actionContext.setActionPath("");
+        actionContext.setServletContext(req.getServletContext());
+        crudAction.persistence = persistence;
+        crudAction.setContext(actionContext);
+        crudAction.setActionInstance(actionInstance);
+        crudAction.init();
+        return crudAction;
+    }
+
 }
@@ -0,0 +1,93 @@
+package com.manydesigns.portofino.resourceactions.crud.reflection;
+
+import com.manydesigns.elements.annotations.Enabled;
+import com.manydesigns.elements.reflection.ClassAccessor;
+import com.manydesigns.elements.reflection.JavaClassAccessor;
+import com.manydesigns.portofino.resourceactions.crud.configuration.CrudConfiguration;
+import com.manydesigns.portofino.resourceactions.crud.configuration.CrudProperty;
+import com.manydesigns.portofino.resourceactions.crud.configuration.VirtualCrudProperty;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public class CrudAccessorTest {
+
+    protected static CrudConfiguration configuration() {
+        CrudConfiguration configuration = new CrudConfiguration();
+        CrudProperty property = new CrudProperty();
+        property.setName("name");
+        property.setEnabled(true);
+        configuration.getProperties().add(property);
+        return configuration;
+    }
+
+    @Test
+    public void testAccessorsAreSharedByConfiguration() throws Exception {
+        ClassAccessor nestedAccessor = JavaClassAccessor.getClassAccessor(Bean.class);
+        CrudConfiguration configuration = configuration();
+        CrudAccessor accessor = CrudAccessor.getCrudAccessor(configuration, nestedAccessor);
+        assertTrue(accessor.isShareable());
+        assertSame(CrudAccessor.getCrudAccessor(configuration, nestedAccessor), accessor);
+        assertSame(
+                CrudAccessor.getCrudAccessor(configuration, nestedAccessor).getProperty("name"),
+                accessor.getProperty("name"));
+
+        //A different nested accessor, e.g. after the model has been reloaded
+        ClassAccessor otherNestedAccessor = JavaClassAccessor.getClassAccessor(OtherBean.class);
+        CrudAccessor otherAccessor = CrudAccessor.getCrudAccessor(configuration, otherNestedAccessor);
+        assertNotSame(otherAccessor, accessor);
+        assertSame(otherAccessor.getNestedAccessor(), otherNestedAccessor);
+    }
+
+    @Test
+    public void testConfigurationChanges() throws Exception {
+        ClassAccessor nestedAccessor = JavaClassAccessor.getClassAccessor(Bean.class);
+        CrudConfiguration configuration = configuration();
+        CrudAccessor accessor = CrudAccessor.getCrudAccessor(configuration, nestedAccessor);
+        assertTrue(accessor.getProperty("name").getAnnotation(Enabled.class).value());
+
+        //A configuration loaded again from disk is a different object
+        CrudConfiguration reloaded = configuration();
+        reloaded.getProperties().get(0).setEnabled(false);
+        CrudAccessor reloadedAccessor = CrudAccessor.getCrudAccessor(reloaded, nestedAccessor);
+        assertNotSame(reloadedAccessor, accessor);
+        assertFalse(reloadedAccessor.getProperty("name").getAnnotation(Enabled.class).value());
+
+        //A configuration modified in place and saved (see AbstractCrudAction.saveConfiguration)
+        configuration.getProperties().get(0).setEnabled(false);
+        CrudAccessor.invalidate(configuration);
+        CrudAccessor newAccessor = CrudAccessor.getCrudAccessor(configuration, nestedAccessor);
+        assertNotSame(newAccessor, accessor);
+        assertFalse(newAccessor.getProperty("name").getAnnotation(Enabled.class).value());
+        assertSame(CrudAccessor.getCrudAccessor(configuration, nestedAccessor), newAccessor);
+    }
+
+    @Test
+    public void testVirtualPropertiesAreNotShared() {
+        ClassAccessor nestedAccessor = JavaClassAccessor.getClassAccessor(Bean.class);
+        CrudConfiguration configuration = configuration();
+        VirtualCrudProperty virtualProperty = new VirtualCrudProperty();
+        virtualProperty.setName("virtual");
+        virtualProperty.setLanguage("none");
+        virtualProperty.setType(String.class);
+        configuration.getProperties().add(virtualProperty);
+        CrudAccessor accessor = CrudAccessor.getCrudAccessor(configuration, nestedAccessor);
+        assertFalse(accessor.isShareable());
+        assertNotSame(CrudAccessor.getCrudAccessor(configuration, nestedAccessor), accessor);
+    }
+
+    public static class Bean {
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    public static class OtherBean extends Bean {}
+
+}
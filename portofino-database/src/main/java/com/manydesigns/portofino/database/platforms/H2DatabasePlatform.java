@@ -26,6 +26,8 @@ import org.hibernate.dialect.H2Dialect;
 
 import java.sql.Connection;
 import java.sql.Statement;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /*
 * @author Paolo Predonzani     - paolo.predonzani@manydesigns.com
@@ -40,6 +42,7 @@ public class H2DatabasePlatform extends AbstractDatabasePlatform {
     public final static String DESCRIPTION = "H2";
     public final static String STANDARD_DRIVER_CLASS_NAME =
             "org.h2.Driver";
+    protected static final Pattern VERSION_PATTERN = Pattern.compile("(\\d+)\\.(\\d+)\\.(\\d+).*");
 
     //**************************************************************************
     // Constructors
@@ -75,4 +78,26 @@ public class H2DatabasePlatform extends AbstractDatabasePlatform {
             logger.warn("Could not shutdown connection provider " + connectionProvider.getDatabase().getDatabaseName(), e);
         }
     }
+
+    @Override
+    public boolean isWindowedCountSupported(ConnectionProvider connectionProvider) {
+        //Window functions are available since H2 1.4.198
+        String version = connectionProvider.getDatabaseProductVersion();
+        if(version == null) {
+            return false;
+        }
+        Matcher matcher = VERSION_PATTERN.matcher(version);
+        if(!matcher.matches()) {
+            return false;
+        }
+        int major = Integer.parseInt(matcher.group(1));
+        int minor = Integer.parseInt(matcher.group(2));
+        int build = Integer.parseInt(matcher.group(3));
+        return major > 1 || (major == 1 && (minor > 4 || (minor == 4 && build >= 198)));
+    }
+
+    @Override
+    public String getRowCountEstimateQuery() {
+        return "select row_count_estimate from information_schema.tables where table_schema = ? and table_name = ?";
+    }
 }
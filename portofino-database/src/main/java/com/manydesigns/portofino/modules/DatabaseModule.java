@@ -25,6 +25,7 @@ import com.manydesigns.portofino.code.AggregateCodeBase;
 import com.manydesigns.portofino.code.CodeBase;
 import com.manydesigns.portofino.model.database.platforms.DatabasePlatformsRegistry;
 import com.manydesigns.portofino.persistence.Persistence;
+import com.manydesigns.portofino.persistence.QueryCache;
 import com.manydesigns.portofino.persistence.hibernate.multitenancy.MultiTenancyImplementationFactory;
 import com.manydesigns.portofino.spring.PortofinoSpringConfiguration;
 import io.reactivex.disposables.Disposable;
@@ -87,6 +88,7 @@ public class DatabaseModule implements Module, ApplicationContextAware, Applicat
 
     protected final AggregateCodeBase persistenceCodeBase = new AggregateCodeBase(null, getClass().getClassLoader());
     protected Disposable subscription;
+    protected Disposable codeReloads;
 
     //**************************************************************************
     // Constants
@@ -95,6 +97,12 @@ public class DatabaseModule implements Module, ApplicationContextAware, Applicat
     //Liquibase properties
     public static final String LIQUIBASE_ENABLED = "liquibase.enabled";
 
+    //Maximum number of threads used to load the model and set up databases at startup
+    public static final String STARTUP_THREADS = "persistence.startup.threads";
+
+    //Whether to load dynamic-map entities as compact, array-backed rows rather than hash maps
+    public static final String COMPACT_MAP_ENTITIES = "persistence.entities.map.compact";
+
     //**************************************************************************
     // Logging
     //**************************************************************************
@@ -142,13 +150,17 @@ public class DatabaseModule implements Module, ApplicationContextAware, Applicat
     @Bean
     public Persistence getPersistence(
             @Autowired DatabasePlatformsRegistry databasePlatformsRegistry,
-            @Autowired CacheResetListenerRegistry cacheResetListenerRegistry) throws FileSystemException {
+            @Autowired CacheResetListenerRegistry cacheResetListenerRegistry,
+            @Autowired CodeBase codeBase) throws FileSystemException {
         Persistence persistence = new Persistence(
                 applicationDirectory, configuration, configurationFile, databasePlatformsRegistry);
         persistence.cacheResetListenerRegistry = cacheResetListenerRegistry;
+        QueryCache.init(configuration);
+        cacheResetListenerRegistry.getCacheResetListeners().add(e -> QueryCache.clear());
         if(applicationContext != null) { //We may want it to be null when testing
             applicationContext.getAutowireCapableBeanFactory().autowireBean(persistence);
         }
+        codeReloads = codeBase.getReloads().subscribe(c -> persistence.resetTableAccessors());
 
         FileObject generatedClassesRoot = applicationDirectory.resolveFile(GENERATED_CLASSES_DIRECTORY_NAME);
         generatedClassesRoot.createFolder();
@@ -193,6 +205,10 @@ public class DatabaseModule implements Module, ApplicationContextAware, Applicat
             subscription.dispose();
             subscription = null;
         }
+        if(codeReloads != null) {
+            codeReloads.dispose();
+            codeReloads = null;
+        }
         logger.info("ManyDesigns Portofino database module stopped.");
         status = ModuleStatus.DESTROYED;
     }
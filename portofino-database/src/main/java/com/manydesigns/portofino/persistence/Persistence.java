@@ -35,10 +35,10 @@ import com.manydesigns.portofino.persistence.hibernate.SessionFactoryBuilder;
 import com.manydesigns.portofino.persistence.hibernate.multitenancy.MultiTenancyImplementation;
 import com.manydesigns.portofino.persistence.hibernate.multitenancy.MultiTenancyImplementationFactory;
 import com.manydesigns.portofino.reflection.TableAccessor;
-import com.manydesigns.portofino.reflection.ViewAccessor;
 import com.manydesigns.portofino.sync.DatabaseSyncer;
 import io.reactivex.subjects.BehaviorSubject;
 import io.reactivex.subjects.PublishSubject;
+import io.reactivex.subjects.Subject;
 import liquibase.Contexts;
 import liquibase.Liquibase;
 import liquibase.database.DatabaseFactory;
@@ -69,6 +69,8 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.sql.Connection;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author Paolo Predonzani     - paolo.predonzani@manydesigns.com
@@ -105,6 +107,11 @@ public class Persistence {
     protected MultiTenancyImplementationFactory multiTenancyImplementationFactory = MultiTenancyImplementationFactory.DEFAULT;
     public final BehaviorSubject<Status> status = BehaviorSubject.create();
     public final PublishSubject<DatabaseSetupEvent> databaseSetupEvents = PublishSubject.create();
+    /**
+     * Publishes the tables whose rows have been changed and committed by the application (e.g. by CRUD actions), so
+     * that data derived from them can be invalidated.
+     */
+    public final Subject<Table> tableChanges = PublishSubject.<Table>create().toSerialized();
 
     public enum Status {
         STARTING, STARTED, STOPPING, STOPPED
@@ -147,6 +154,7 @@ public class Persistence {
 
     public synchronized void loadXmlModel() {
         try {
+            long start = System.currentTimeMillis();
             JAXBContext jc = createModelJAXBContext();
             Unmarshaller um = jc.createUnmarshaller();
             FileObject appModelFile = getModelFile();
@@ -165,9 +173,10 @@ public class Persistence {
             FileObject modelDir = getModelDirectory();
             if(modelDir.exists()) {
                 for (FileObject databaseDir : modelDir.getChildren()) {
-                    loadXmlDatabase(um, model, databaseDir);
+                    loadXmlDatabase(jc, um, model, databaseDir);
                 }
             }
+            logger.info("Model loaded in {} ms", System.currentTimeMillis() - start);
             initModel();
         } catch (Exception e) {
             logger.error("Cannot load/parse model", e);
@@ -178,7 +187,8 @@ public class Persistence {
         return JAXBContext.newInstance(Model.class, View.class);
     }
 
-    protected void loadXmlDatabase(Unmarshaller um, Model model, FileObject databaseDir) throws IOException, JAXBException {
+    protected void loadXmlDatabase(JAXBContext jc, Unmarshaller um, Model model, FileObject databaseDir)
+            throws Exception {
         if(!databaseDir.getType().equals(FileType.FOLDER)) {
             logger.error("Not a directory: " + databaseDir.getName().getPath());
             return;
@@ -218,6 +228,21 @@ public class Persistence {
             }
         }
 
+        loadXmlTables(jc, um, database, databaseDir);
+    }
+
+    /**
+     * Loads the tables of a database from their XML files. Files are parsed concurrently (see
+     * {@link #runConcurrently(String, List)}), but tables are added to their schemas in a deterministic order.
+     */
+    protected void loadXmlTables(JAXBContext jc, Unmarshaller um, Database database, FileObject databaseDir)
+            throws Exception {
+        List<Schema> schemas = new ArrayList<>();
+        List<Callable<Table>> tasks = new ArrayList<>();
+        //Unmarshallers are not thread-safe, so each pool thread creates its own. The calling thread, which runs the
+        //tasks when there's no pool, reuses um instead, so it doesn't leave an unmarshaller in a thread local.
+        Thread caller = Thread.currentThread();
+        ThreadLocal<Unmarshaller> unmarshallers = new ThreadLocal<>();
         for(Schema schema : database.getSchemas()) {
             FileObject schemaDir = databaseDir.resolveFile(schema.getSchemaName());
             if(schemaDir.getType() == FileType.FOLDER) {
@@ -227,20 +252,86 @@ public class Persistence {
                     if(!tableFile.getName().getBaseName().endsWith(".table.xml")) {
                         continue;
                     }
-                    try(InputStream tableInputStream = tableFile.getContent().getInputStream()) {
-                        Table table = (Table) um.unmarshal(tableInputStream);
-                        if (!tableFile.getName().getBaseName().equalsIgnoreCase(table.getTableName() + ".table.xml")) {
-                            logger.error("Skipping table " + table.getTableName() + " defined in file " + tableFile);
-                            continue;
+                    schemas.add(schema);
+                    tasks.add(() -> {
+                        Unmarshaller tableUnmarshaller =
+                                Thread.currentThread() == caller ? um : unmarshallers.get();
+                        if(tableUnmarshaller == null) {
+                            tableUnmarshaller = jc.createUnmarshaller();
+                            unmarshallers.set(tableUnmarshaller);
                         }
-                        table.afterUnmarshal(um, schema);
-                        schema.getTables().add(table);
-                    }
+                        try(InputStream tableInputStream = tableFile.getContent().getInputStream()) {
+                            Table table = (Table) tableUnmarshaller.unmarshal(tableInputStream);
+                            if (!tableFile.getName().getBaseName().equalsIgnoreCase(table.getTableName() + ".table.xml")) {
+                                logger.error("Skipping table " + table.getTableName() + " defined in file " + tableFile);
+                                return null;
+                            }
+                            return table;
+                        }
+                    });
                 }
             } else {
                 logger.debug("Schema directory {} does not exist", schemaDir);
             }
         }
+        List<Table> tables = runConcurrently("Loading tables of " + database.getDatabaseName(), tasks);
+        for(int i = 0; i < tables.size(); i++) {
+            Table table = tables.get(i);
+            if(table != null) {
+                Schema schema = schemas.get(i);
+                table.afterUnmarshal(um, schema);
+                schema.getTables().add(table);
+            }
+        }
+    }
+
+    /**
+     * Runs startup tasks on a pool of at most {@link DatabaseModule#STARTUP_THREADS} threads, or on the current
+     * thread if there's only one task or one thread.
+     * @param phase the name of the phase, for logging.
+     * @param tasks the tasks.
+     * @param <T> the type of the results of the tasks.
+     * @return the results of the tasks, in the same order.
+     * @throws Exception the exception thrown by the first failed task, if any.
+     */
+    protected <T> List<T> runConcurrently(String phase, List<Callable<T>> tasks) throws Exception {
+        long start = System.currentTimeMillis();
+        int threads = Math.min(tasks.size(), configuration.getInt(
+                DatabaseModule.STARTUP_THREADS, Runtime.getRuntime().availableProcessors()));
+        List<T> results = new ArrayList<>(tasks.size());
+        if(threads <= 1) {
+            for(Callable<T> task : tasks) {
+                results.add(task.call());
+            }
+        } else {
+            ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+            AtomicInteger threadCount = new AtomicInteger();
+            ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "portofino-startup-" + threadCount.incrementAndGet());
+                thread.setContextClassLoader(classLoader);
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                for(Future<T> future : executor.invokeAll(tasks)) {
+                    try {
+                        results.add(future.get());
+                    } catch (ExecutionException e) {
+                        Throwable cause = e.getCause();
+                        if(cause instanceof Exception) {
+                            throw (Exception) cause;
+                        } else {
+                            throw e;
+                        }
+                    }
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+        logger.info("{}: {} tasks on {} threads in {} ms",
+                phase, tasks.size(), Math.max(threads, 1), System.currentTimeMillis() - start);
+        return results;
     }
 
     @Deprecated
@@ -399,21 +490,93 @@ public class Persistence {
             } catch (Throwable t) {
                 logger.warn("Cannot close session factory for: " + databaseName, t);
             }
+            releaseConnectionPoolIfUnused(setup.getDatabase());
             databaseSetupEvents.onNext(new DatabaseSetupEvent(DatabaseSetupEvent.REMOVED, setup));
         }
         //TODO it would perhaps be preferable if we generated REPLACED events here rather than REMOVED followed by ADDED
         setups.clear();
         model.init(configuration);
-        for (Database database : model.getDatabases()) {
-            initConnectionProvider(database);
-        }
+        initConnectionProviders(model.getDatabases());
         if(cacheResetListenerRegistry != null) {
             cacheResetListenerRegistry.fireReset(new CacheResetEvent(this));
         }
     }
 
+    /**
+     * Closes the connection pool of a database that has been replaced in the model, e.g. after reloading it from
+     * disk. Pools of databases that are still in the model are reused or reinitialized by their connection provider.
+     */
+    protected void releaseConnectionPoolIfUnused(Database database) {
+        ConnectionProvider connectionProvider = database.getConnectionProvider();
+        if(connectionProvider instanceof JdbcConnectionProvider &&
+           model.getDatabases().stream().noneMatch(d -> d == database)) {
+            ((JdbcConnectionProvider) connectionProvider).closeConnectionPool();
+        }
+    }
+
+    /**
+     * Initializes the connection providers of the given databases and builds their session factories. Databases
+     * are independent, so they're set up concurrently (see {@link #runConcurrently(String, List)}); the resulting
+     * setups are then registered, and the corresponding events published, sequentially in the given order.
+     * @param databases the databases.
+     */
+    protected void initConnectionProviders(List<Database> databases) {
+        List<Callable<HibernateDatabaseSetup>> tasks = new ArrayList<>();
+        for(Database database : databases) {
+            tasks.add(() -> buildDatabaseSetup(database));
+        }
+        List<HibernateDatabaseSetup> newSetups;
+        try {
+            newSetups = runConcurrently("Setting up databases", tasks);
+        } catch (Exception e) { //Not expected, buildDatabaseSetup handles its own exceptions
+            logger.error("Could not set up databases", e);
+            return;
+        }
+        for(int i = 0; i < newSetups.size(); i++) {
+            HibernateDatabaseSetup setup = newSetups.get(i);
+            if(setup != null) {
+                registerDatabaseSetup(setup);
+            } else {
+                releaseRetiredConnectionPoolsIfUnused(databases.get(i));
+            }
+        }
+    }
+
     protected void initConnectionProvider(Database database) {
+        HibernateDatabaseSetup setup = buildDatabaseSetup(database);
+        if(setup != null) {
+            registerDatabaseSetup(setup);
+        } else {
+            releaseRetiredConnectionPoolsIfUnused(database);
+        }
+    }
+
+    /**
+     * Closes the connection pools that the connection provider of a database has replaced, unless a SessionFactory
+     * built before may still be using them.
+     */
+    protected void releaseRetiredConnectionPoolsIfUnused(Database database) {
+        if(!setups.containsKey(database.getDatabaseName())) {
+            releaseRetiredConnectionPools(database);
+        }
+    }
+
+    protected void releaseRetiredConnectionPools(Database database) {
+        ConnectionProvider connectionProvider = database.getConnectionProvider();
+        if(connectionProvider instanceof JdbcConnectionProvider) {
+            ((JdbcConnectionProvider) connectionProvider).closeRetiredConnectionPools();
+        }
+    }
+
+    /**
+     * Initializes the connection provider of a database and, if it connects successfully, builds its session
+     * factory. This can be invoked concurrently for different databases.
+     * @param database the database.
+     * @return the new setup, or null if the database could not be set up.
+     */
+    protected HibernateDatabaseSetup buildDatabaseSetup(Database database) {
         logger.info("Initializing connection provider for database " + database.getDatabaseName());
+        long start = System.currentTimeMillis();
         try {
             ConnectionProvider connectionProvider = database.getConnectionProvider();
             connectionProvider.init(databasePlatformsRegistry);
@@ -421,24 +584,32 @@ public class Persistence {
                 MultiTenancyImplementation implementation = getMultiTenancyImplementation(database);
                 SessionFactoryBuilder builder = new SessionFactoryBuilder(database, configuration, implementation);
                 SessionFactoryAndCodeBase sessionFactoryAndCodeBase = builder.buildSessionFactory();
-                HibernateDatabaseSetup setup =
-                        new HibernateDatabaseSetup(
-                                database, sessionFactoryAndCodeBase.sessionFactory,
-                                sessionFactoryAndCodeBase.codeBase, builder.getEntityMode(), configuration,
-                                implementation);
-                String databaseName = database.getDatabaseName();
-                HibernateDatabaseSetup oldSetup = setups.get(databaseName);
-                setups.put(databaseName, setup);
-                if(oldSetup != null) {
-                    oldSetup.dispose();
-                    databaseSetupEvents.onNext(new DatabaseSetupEvent(oldSetup, setup));
-                } else {
-                    databaseSetupEvents.onNext(new DatabaseSetupEvent(DatabaseSetupEvent.ADDED, setup));
-                }
+                logger.info("Database {} set up in {} ms",
+                        database.getDatabaseName(), System.currentTimeMillis() - start);
+                return new HibernateDatabaseSetup(
+                        database, sessionFactoryAndCodeBase.sessionFactory,
+                        sessionFactoryAndCodeBase.codeBase, builder.getEntityMode(), configuration,
+                        implementation);
             }
         } catch (Exception e) {
             logger.error("Could not create connection provider for " + database, e);
         }
+        return null;
+    }
+
+    protected void registerDatabaseSetup(HibernateDatabaseSetup setup) {
+        String databaseName = setup.getDatabase().getDatabaseName();
+        HibernateDatabaseSetup oldSetup = setups.get(databaseName);
+        setups.put(databaseName, setup);
+        if(oldSetup != null) {
+            oldSetup.dispose();
+            //The old SessionFactory may have been using a pool that the connection provider has replaced since
+            releaseRetiredConnectionPools(oldSetup.getDatabase());
+            databaseSetupEvents.onNext(new DatabaseSetupEvent(oldSetup, setup));
+        } else {
+            databaseSetupEvents.onNext(new DatabaseSetupEvent(DatabaseSetupEvent.ADDED, setup));
+        }
+        releaseRetiredConnectionPools(setup.getDatabase());
     }
 
     protected MultiTenancyImplementation getMultiTenancyImplementation(Database database) {
@@ -480,12 +651,8 @@ public class Persistence {
     //**************************************************************************
 
     public ConnectionProvider getConnectionProvider(String databaseName) {
-        for (Database database : model.getDatabases()) {
-            if (database.getDatabaseName().equals(databaseName)) {
-                return database.getConnectionProvider();
-            }
-        }
-        return null;
+        Database database = DatabaseLogic.findDatabaseByName(model, databaseName);
+        return database != null ? database.getConnectionProvider() : null;
     }
 
     public Configuration getConfiguration() {
@@ -572,6 +739,13 @@ public class Persistence {
         if(database == null) {
             throw new IllegalArgumentException("Database " + databaseName + " does not exist");
         }
+        HibernateDatabaseSetup setup = setups.get(databaseName);
+        if(setup != null && setup.getDatabase() == database) {
+            TableAccessor accessor = setup.getTableAccessor(entityName);
+            if(accessor != null) {
+                return accessor;
+            }
+        }
         Table table = DatabaseLogic.findTableByEntityName(database, entityName);
         if(table == null) {
             throw new IllegalArgumentException("Table " + entityName + " not found in database " + databaseName);
@@ -579,9 +753,28 @@ public class Persistence {
         return getTableAccessor(table);
     }
 
+    /**
+     * Returns the accessor of a table. Accessors are shared, and owned by the {@link HibernateDatabaseSetup} of the
+     * database, so they're only built again when the model is reinitialized; tables that are not part of a setup
+     * (e.g. because they've been created after it) get a new accessor on each call.
+     * @param table the table.
+     * @return the accessor.
+     */
     @NotNull
     public TableAccessor getTableAccessor(Table table) {
-        return table instanceof View ? new ViewAccessor((View) table) : new TableAccessor(table);
+        Schema schema = table.getSchema();
+        HibernateDatabaseSetup setup = schema != null ? setups.get(schema.getDatabaseName()) : null;
+        TableAccessor accessor = setup != null ? setup.getTableAccessor(table) : null;
+        return accessor != null ? accessor : HibernateDatabaseSetup.createTableAccessor(table);
+    }
+
+    /**
+     * Builds the shared table accessors of all the databases again, without reinitializing the model. Called when
+     * application code is reloaded, as accessors may refer to reloaded classes.
+     * See {@link HibernateDatabaseSetup#resetTableAccessors()}.
+     */
+    public void resetTableAccessors() {
+        setups.values().forEach(HibernateDatabaseSetup::resetTableAccessors);
     }
 
     //**************************************************************************
@@ -589,6 +782,7 @@ public class Persistence {
     //**************************************************************************
 
     public void start() {
+        long start = System.currentTimeMillis();
         status.onNext(Status.STARTING);
         loadXmlModel();
         for(Database database : model.getDatabases()) {
@@ -596,6 +790,7 @@ public class Persistence {
                 runLiquibase(database);
             }
         }
+        logger.info("Persistence started in {} ms", System.currentTimeMillis() - start);
         status.onNext(Status.STARTED);
     }
 
@@ -613,6 +808,7 @@ public class Persistence {
         }
         status.onNext(Status.STOPPED);
         databaseSetupEvents.onComplete();
+        tableChanges.onComplete();
         status.onComplete();
     }
 
@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2005-2020 ManyDesigns srl.  All rights reserved.
+ * http://www.manydesigns.com/
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package com.manydesigns.portofino.persistence;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.manydesigns.elements.text.OgnlHqlFormat;
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.expression.Alias;
+import net.sf.jsqlparser.parser.CCJSqlParserManager;
+import net.sf.jsqlparser.statement.select.PlainSelect;
+import org.apache.commons.configuration2.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Cache of parsed HQL queries and of the queries derived from them (merged with search criteria, count queries,
+ * load by primary key). Queries configured in CRUDs and selection providers are the same on every request, so
+ * they're parsed with JSqlParser only once; on a hit, only the OGNL parameters are evaluated.
+ * The cache is cleared whenever the model or the configuration changes.
+ */
+public class QueryCache {
+    public static final String copyright =
+            "Copyright (C) 2005-2020 ManyDesigns srl";
+
+    public static final String QUERY_CACHE_SIZE = "query.cache.size";
+    public static final int DEFAULT_QUERY_CACHE_SIZE = 1000;
+
+    protected static Cache<String, ParsedQuery> parsedQueries;
+    protected static Cache<List<Object>, String> derivedQueries;
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryCache.class);
+
+    static {
+        init(DEFAULT_QUERY_CACHE_SIZE);
+    }
+
+    public static void init(Configuration configuration) {
+        init(configuration.getInt(QUERY_CACHE_SIZE, DEFAULT_QUERY_CACHE_SIZE));
+    }
+
+    public static void init(int maxSize) {
+        parsedQueries = CacheBuilder.newBuilder().maximumSize(maxSize).recordStats().build();
+        derivedQueries = CacheBuilder.newBuilder().maximumSize(maxSize).recordStats().build();
+    }
+
+    /**
+     * Returns the parsed form of a query, parsing it if it's not already in the cache.
+     * @param queryString the query, possibly containing OGNL expressions.
+     * @return the parsed query.
+     * @throws JSQLParserException if the query cannot be parsed.
+     */
+    public static ParsedQuery getParsedQuery(String queryString) throws JSQLParserException {
+        ParsedQuery parsedQuery = parsedQueries.getIfPresent(queryString);
+        if(parsedQuery == null) {
+            parsedQuery = new ParsedQuery(queryString);
+            parsedQueries.put(queryString, parsedQuery);
+        }
+        return parsedQuery;
+    }
+
+    /**
+     * Returns a query derived from another one, computing it if it's not already in the cache.
+     * @param key identifies the derived query. It must include the original query and everything that influences
+     *            the result, e.g. the shape of the search criteria.
+     * @param generator computes the derived query. If it returns null, nothing is cached.
+     * @return the derived query.
+     */
+    public static String getDerivedQuery(List<Object> key, Supplier<String> generator) {
+        String query = derivedQueries.getIfPresent(key);
+        if(query == null) {
+            query = generator.get();
+            if(query != null) {
+                derivedQueries.put(key, query);
+            }
+        }
+        return query;
+    }
+
+    public static void clear() {
+        logger.debug("Clearing query cache");
+        parsedQueries.invalidateAll();
+        derivedQueries.invalidateAll();
+    }
+
+    public static CacheStats getParsedQueryStats() {
+        return parsedQueries.stats();
+    }
+
+    public static CacheStats getDerivedQueryStats() {
+        return derivedQueries.stats();
+    }
+
+    /**
+     * A query whose OGNL expressions have been replaced with parameters and that has been parsed with JSqlParser.
+     * The parsed query is shared and must not be modified; use {@link #newSelect()} to obtain a modifiable copy.
+     */
+    public static class ParsedQuery {
+        protected final OgnlHqlFormat format;
+        protected final PlainSelect select;
+        protected final ConcurrentMap<String, Optional<Alias>> entityAliases = new ConcurrentHashMap<>();
+
+        public ParsedQuery(String queryString) throws JSQLParserException {
+            format = OgnlHqlFormat.create(queryString);
+            select = QueryUtils.parseQuery(new CCJSqlParserManager(), format.getFormatString());
+        }
+
+        public OgnlHqlFormat getFormat() {
+            return format;
+        }
+
+        public boolean hasWhere() {
+            return select.getWhere() != null;
+        }
+
+        /**
+         * @param entityName the name of an entity in the query.
+         * @return the alias of the entity in the query, or null if the entity has no alias.
+         */
+        public Alias getEntityAlias(String entityName) {
+            return entityAliases.computeIfAbsent(
+                    entityName, e -> Optional.ofNullable(QueryUtils.getEntityAlias(e, select))).orElse(null);
+        }
+
+        /**
+         * @return a shallow copy of the parsed query. Top-level clauses (e.g. where and order by) can be replaced
+         * in the copy, but their contents must not be modified. Only the clauses that HQL supports are copied.
+         */
+        public PlainSelect newSelect() {
+            PlainSelect copy = new PlainSelect();
+            copy.setDistinct(select.getDistinct());
+            copy.setSelectItems(copyOf(select.getSelectItems()));
+            copy.setFromItem(select.getFromItem());
+            copy.setJoins(copyOf(select.getJoins()));
+            copy.setWhere(select.getWhere());
+            copy.setGroupByColumnReferences(copyOf(select.getGroupByColumnReferences()));
+            copy.setHaving(select.getHaving());
+            copy.setOrderByElements(copyOf(select.getOrderByElements()));
+            return copy;
+        }
+
+        protected static <T> List<T> copyOf(List<T> list) {
+            return list != null ? new ArrayList<>(list) : null;
+        }
+    }
+}
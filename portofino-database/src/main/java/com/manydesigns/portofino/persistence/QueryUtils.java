@@ -24,6 +24,7 @@ import com.manydesigns.elements.fields.search.Criterion;
 import com.manydesigns.elements.fields.search.TextMatchMode;
 import com.manydesigns.elements.reflection.ClassAccessor;
 import com.manydesigns.elements.reflection.PropertyAccessor;
+import com.manydesigns.elements.text.AbstractOgnlFormat;
 import com.manydesigns.elements.text.OgnlHqlFormat;
 import com.manydesigns.elements.text.OgnlSqlFormat;
 import com.manydesigns.elements.text.QueryStringWithParameters;
@@ -33,6 +34,7 @@ import com.manydesigns.portofino.reflection.TableAccessor;
 import net.sf.jsqlparser.JSQLParserException;
 import net.sf.jsqlparser.expression.Alias;
 import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.Function;
 import net.sf.jsqlparser.expression.JdbcNamedParameter;
 import net.sf.jsqlparser.expression.Parenthesis;
 import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
@@ -40,7 +42,10 @@ import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
 import net.sf.jsqlparser.parser.CCJSqlParserManager;
 import net.sf.jsqlparser.statement.select.*;
 import org.apache.commons.lang.StringUtils;
+import org.hibernate.CacheMode;
 import org.hibernate.HibernateException;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 import org.hibernate.jdbc.Work;
 import org.hibernate.query.Query;
@@ -80,6 +85,10 @@ public class QueryUtils {
     protected static final Pattern FROM_PATTERN =
             Pattern.compile("(SELECT\\s+.*\\s+)?FROM\\s+([a-z_$\\u0080-\\ufffe]{1}[a-z_$0-9\\u0080-\\ufffe]*).*",
                             Pattern.CASE_INSENSITIVE | Pattern.DOTALL); //. (dot) matches newlines
+    protected static final Pattern HQL_STRING_LITERAL_PATTERN = Pattern.compile("'([^']|'')*'");
+    protected static final String HQL_IDENTIFIER = "[a-z_$\\u0080-\\ufffe][a-z_$0-9\\u0080-\\ufffe]*";
+    protected static final Pattern HQL_PATH_PATTERN = Pattern.compile(
+            HQL_IDENTIFIER + "(\\s*\\.\\s*" + HQL_IDENTIFIER + ")*", Pattern.CASE_INSENSITIVE);
 
     protected static final Logger logger = LoggerFactory.getLogger(QueryUtils.class);
 
@@ -315,6 +324,12 @@ public class QueryUtils {
                     hqlFormat = "lower({0}) like lower(:p" + (parametersList.size() + initialParameterIndex) + ")";
                     parametersList.add(pattern);
                 }
+            } else if (criterion instanceof TableCriteria.WordStartsWithCriterion) {
+                String prefix = ((TableCriteria.WordStartsWithCriterion) criterion).getPrefix().toLowerCase();
+                int index = parametersList.size() + initialParameterIndex;
+                hqlFormat = "(lower({0}) like :p" + index + " OR lower({0}) like :p" + (index + 1) + ")";
+                parametersList.add(prefix + "%");
+                parametersList.add("% " + prefix + "%");
             } else if (criterion instanceof TableCriteria.IsNullCriterion) {
                 hqlFormat = "{0} is null";
             } else if (criterion instanceof TableCriteria.IsNotNullCriterion) {
@@ -339,6 +354,17 @@ public class QueryUtils {
             }
             whereBuilder.append(hql);
         }
+        TableCriteria.Seek seek = criteria.getSeek();
+        if(seek != null && seek.getPosition() != null) {
+            if (whereBuilder.length() > 0) {
+                whereBuilder.append(" AND ");
+            }
+            //Null values of the order by property come last (see mergeQuery), so they follow any position
+            boolean nullsAfter = criteria.getOrderBy() != null && !seek.isBackwards();
+            appendSeekCondition(
+                    whereBuilder, getSeekProperties(criteria, alias), getSeekAscending(criteria), seek.getPosition(),
+                    0, parametersList, initialParameterIndex, nullsAfter);
+        }
         String whereClause = whereBuilder.toString();
         String queryString;
         String actualEntityName = table.getActualEntityName();
@@ -362,6 +388,69 @@ public class QueryUtils {
         return new QueryStringWithParameters(queryString, parameters);
     }
 
+    /**
+     * Appends the condition that selects the rows after a position, in keyset pagination. For the properties a, b, c
+     * in ascending order, it's (a > :pa OR (a = :pa AND (b > :pb OR (b = :pb AND c > :pc)))). If nullsAfter is true,
+     * the rows where the first property is null also follow the position: (a > :pa OR a IS NULL OR (a = :pa AND ...)).
+     */
+    protected static void appendSeekCondition(
+            StringBuilder whereBuilder, List<String> properties, List<Boolean> ascending, Object[] position, int index,
+            List<Object> parametersList, int initialParameterIndex, boolean nullsAfter) {
+        String property = properties.get(index);
+        String parameter = ":p" + (parametersList.size() + initialParameterIndex);
+        parametersList.add(position[index]);
+        String operator = ascending.get(index) ? " > " : " < ";
+        boolean last = index == properties.size() - 1;
+        if(last && !nullsAfter) {
+            whereBuilder.append(property).append(operator).append(parameter);
+            return;
+        }
+        whereBuilder.append("(").append(property).append(operator).append(parameter);
+        if(nullsAfter) {
+            whereBuilder.append(" OR ").append(property).append(" IS NULL");
+        }
+        if(!last) {
+            whereBuilder.append(" OR (").append(property).append(" = ").append(parameter).append(" AND ");
+            appendSeekCondition(
+                    whereBuilder, properties, ascending, position, index + 1, parametersList, initialParameterIndex,
+                    false);
+            whereBuilder.append(")");
+        }
+        whereBuilder.append(")");
+    }
+
+    /**
+     * @return the properties that results are sorted by in keyset pagination: the order by property, if any,
+     * followed by the key properties.
+     */
+    protected static List<String> getSeekProperties(TableCriteria criteria, @Nullable String alias) {
+        List<String> properties = new ArrayList<>();
+        String prefix = alias != null ? alias + "." : "";
+        if(criteria.getOrderBy() != null) {
+            properties.add(prefix + criteria.getOrderBy().getPropertyAccessor().getName());
+        }
+        for(PropertyAccessor keyProperty : criteria.getSeek().getKeyProperties()) {
+            properties.add(prefix + keyProperty.getName());
+        }
+        return properties;
+    }
+
+    /**
+     * @return for each of the {@link #getSeekProperties(TableCriteria, String)}, whether it is sorted in ascending
+     * order, taking the direction of the seek into account.
+     */
+    protected static List<Boolean> getSeekAscending(TableCriteria criteria) {
+        List<Boolean> ascending = new ArrayList<>();
+        boolean backwards = criteria.getSeek().isBackwards();
+        if(criteria.getOrderBy() != null) {
+            ascending.add(criteria.getOrderBy().isAsc() != backwards);
+        }
+        for(PropertyAccessor ignored : criteria.getSeek().getKeyProperties()) {
+            ascending.add(!backwards);
+        }
+        return ascending;
+    }
+
     protected static String processTextMatchMode(TextMatchMode textMatchMode,
                                           String value) {
         String pattern;
@@ -408,6 +497,36 @@ public class QueryUtils {
         return table;
     }
 
+    /**
+     * Extracts the names of all the entities that a HQL query string reads, if they can be determined from the
+     * query string alone, i.e. if the query names every entity it reads (in the from clause or in subqueries).
+     * A query that navigates associations, with joins or with paths like <code>a.b.c</code>, may read entities that
+     * it doesn't name.
+     * @param database the database containing the tables.
+     * @param queryString the query to analyze.
+     * @return the actual names of the entities read by the query, or null if it may read other entities too.
+     */
+    @Nullable
+    public static Set<String> getEntityNamesFromQueryString(Database database, String queryString) {
+        String hql = AbstractOgnlFormat.pattern.matcher(queryString).replaceAll("?");
+        hql = HQL_STRING_LITERAL_PATTERN.matcher(hql).replaceAll("''");
+        Set<String> entityNames = new HashSet<>();
+        Matcher matcher = HQL_PATH_PATTERN.matcher(hql);
+        while (matcher.find()) {
+            String path = matcher.group();
+            if (path.equalsIgnoreCase("join") || StringUtils.countMatches(path, ".") > 1) {
+                return null;
+            }
+            if (!path.contains(".")) {
+                Table table = DatabaseLogic.findTableByEntityName(database, path);
+                if (table != null) {
+                    entityNames.add(table.getActualEntityName());
+                }
+            }
+        }
+        return entityNames;
+    }
+
      /**
       * Runs a query against the database. The query is expressed as a {@link TableCriteria} object plus a
       * query string to be merged with it (the typical case of a search in a crud defined by a query).
@@ -433,6 +552,64 @@ public class QueryUtils {
         return runHqlQuery(session, result.getQueryString(), result.getParameters(), firstResult, maxResults);
     }
 
+    /**
+     * Runs a query merged with search criteria, like {@link #getObjects(Session, String, TableCriteria, Object,
+     * Integer, Integer)}, but returns a forward-only cursor over the results rather than loading them all in memory.
+     * The results are read-only and are fetched from the database <code>fetchSize</code> rows at a time. Callers
+     * must close the results and should periodically clear the session to release the objects already read.
+     * @param session the session
+     * @param queryString the query
+     * @param criteria the search criteria to merge with the query.
+     * @param rootObject the rootFactory object passed to the ognl evaluator (can be null).
+     * @param fetchSize the JDBC fetch size.
+     * @return the results of the query.
+     */
+    public static ScrollableResults scrollObjects(
+            Session session,
+            String queryString,
+            TableCriteria criteria,
+            @Nullable Object rootObject,
+            int fetchSize) {
+        return scrollObjects(session, queryString, criteria, rootObject, fetchSize, null);
+    }
+
+    /**
+     * Like {@link #scrollObjects(Session, String, TableCriteria, Object, int)}, but returns at most
+     * <code>maxResults</code> results.
+     * @param session the session
+     * @param queryString the query
+     * @param criteria the search criteria to merge with the query.
+     * @param rootObject the rootFactory object passed to the ognl evaluator (can be null).
+     * @param fetchSize the JDBC fetch size.
+     * @param maxResults the maximum number of results, or null for no limit.
+     * @return the results of the query.
+     */
+    public static ScrollableResults scrollObjects(
+            Session session,
+            String queryString,
+            TableCriteria criteria,
+            @Nullable Object rootObject,
+            int fetchSize,
+            @Nullable Integer maxResults) {
+        QueryStringWithParameters result = mergeQuery(queryString, criteria, rootObject);
+        Query query = session.createQuery(result.getQueryString());
+        setParameters(query, result.getParameters());
+        query.setFetchSize(fetchSize);
+        if(maxResults != null) {
+            query.setMaxResults(maxResults);
+        }
+        query.setReadOnly(true);
+        query.setCacheMode(CacheMode.IGNORE);
+        try {
+            return query.scroll(ScrollMode.FORWARD_ONLY);
+        } catch (HibernateException e) {
+            logger.error("Error running query", e);
+            session.getTransaction().rollback();
+            session.beginTransaction();
+            throw e;
+        }
+    }
+
     /**
      * Merges a HQL query string with a {@link TableCriteria} object representing a search. The query string
      * is processed with an {@link OgnlSqlFormat}, so it can access values from the OGNL context, as well as
@@ -444,23 +621,16 @@ public class QueryUtils {
      */
     public static QueryStringWithParameters mergeQuery
             (String queryString, @Nullable TableCriteria criteria, Object rootObject) {
-        OgnlHqlFormat hqlFormat = OgnlHqlFormat.create(queryString);
-        String formatString = hqlFormat.getFormatString();
-        Object[] parameters = hqlFormat.evaluateOgnlExpressions(rootObject);
-
-        CCJSqlParserManager parserManager = new CCJSqlParserManager();
-        PlainSelect parsedQueryString;
-        PlainSelect parsedCriteriaQuery;
+        QueryCache.ParsedQuery parsedQuery;
         try {
-            parsedQueryString = parseQuery(parserManager, formatString);
+            parsedQuery = QueryCache.getParsedQuery(queryString);
         } catch (JSQLParserException e) {
             throw new RuntimeException("Couldn't merge query", e);
         }
+        Object[] parameters = parsedQuery.getFormat().evaluateOgnlExpressions(rootObject);
 
-        Alias mainEntityAlias = null;
-        if(criteria != null) {
-            mainEntityAlias = getEntityAlias(criteria.getTable().getActualEntityName(), parsedQueryString);
-        }
+        Alias mainEntityAlias =
+                criteria != null ? parsedQuery.getEntityAlias(criteria.getTable().getActualEntityName()) : null;
 
         QueryStringWithParameters criteriaQuery =
                 getQueryStringWithParametersForCriteria(
@@ -468,11 +638,43 @@ public class QueryUtils {
         String criteriaQueryString = criteriaQuery.getQueryString();
         Object[] criteriaParameters = criteriaQuery.getParameters();
 
+        //The merged query only depends on the shape of the criteria, not on the values of the parameters
+        List<Object> key = new ArrayList<>();
+        key.add("merge");
+        key.add(queryString);
+        key.add(criteriaQueryString);
+        key.add(mainEntityAlias != null ? mainEntityAlias.getName() : null);
+        if(criteria != null && criteria.getOrderBy() != null) {
+            key.add(criteria.getOrderBy().getPropertyAccessor().getName());
+            key.add(criteria.getOrderBy().isAsc());
+        }
+        if(criteria != null && criteria.getSeek() != null) {
+            key.add(getSeekProperties(criteria, null));
+            key.add(criteria.getSeek().isBackwards());
+        }
+        String fullQueryString = QueryCache.getDerivedQuery(key, () ->
+                mergeQuery(parsedQuery, criteria, mainEntityAlias, criteriaQueryString));
+
+        // merge the parameters
+        ArrayList<Object> mergedParametersList = new ArrayList<Object>();
+        mergedParametersList.addAll(Arrays.asList(parameters));
+        mergedParametersList.addAll(Arrays.asList(criteriaParameters));
+        Object[] mergedParameters = new Object[mergedParametersList.size()];
+        mergedParametersList.toArray(mergedParameters);
+
+        return new QueryStringWithParameters(fullQueryString, mergedParameters);
+    }
+
+    protected static String mergeQuery(
+            QueryCache.ParsedQuery parsedQuery, @Nullable TableCriteria criteria, @Nullable Alias mainEntityAlias,
+            String criteriaQueryString) {
+        PlainSelect parsedQueryString = parsedQuery.newSelect();
+        PlainSelect parsedCriteriaQuery;
         try {
             if(StringUtils.isEmpty(criteriaQueryString)) {
                 parsedCriteriaQuery = new PlainSelect();
             } else {
-                parsedCriteriaQuery = parseQuery(parserManager, criteriaQueryString);
+                parsedCriteriaQuery = parseQuery(new CCJSqlParserManager(), criteriaQueryString);
             }
         } catch (JSQLParserException e) {
             throw new RuntimeException("Couldn't merge query", e);
@@ -493,7 +695,29 @@ public class QueryUtils {
             whereExpression = parsedCriteriaQuery.getWhere();
         }
         parsedQueryString.setWhere(whereExpression);
-        if(criteria != null && criteria.getOrderBy() != null) {
+        if(criteria != null && criteria.getSeek() != null) {
+            //Keyset pagination requires a total order, that replaces the one of the query.
+            //Databases disagree about where nulls are sorted, so they're explicitly put after the other values.
+            List<String> properties =
+                    getSeekProperties(criteria, mainEntityAlias != null ? mainEntityAlias.getName() : null);
+            List<Boolean> ascending = getSeekAscending(criteria);
+            List<OrderByElement> orderByElements = new ArrayList<>();
+            for(int i = 0; i < properties.size(); i++) {
+                OrderByElement orderByElement = new OrderByElement();
+                orderByElement.setAsc(ascending.get(i));
+                if(i == 0 && criteria.getOrderBy() != null) {
+                    orderByElement.setNullOrdering(
+                            criteria.getSeek().isBackwards() ?
+                                    OrderByElement.NullOrdering.NULLS_FIRST :
+                                    OrderByElement.NullOrdering.NULLS_LAST);
+                }
+                orderByElement.setExpression(
+                        new net.sf.jsqlparser.schema.Column(
+                                new net.sf.jsqlparser.schema.Table(), properties.get(i)));
+                orderByElements.add(orderByElement);
+            }
+            parsedQueryString.setOrderByElements(orderByElements);
+        } else if(criteria != null && criteria.getOrderBy() != null) {
             List orderByElements = new ArrayList();
             OrderByElement orderByElement = new OrderByElement();
             orderByElement.setAsc(criteria.getOrderBy().isAsc());
@@ -523,15 +747,68 @@ public class QueryUtils {
         if(fullQueryString.toLowerCase().startsWith(FAKE_SELECT_PREFIX)) {
             fullQueryString = fullQueryString.substring(FAKE_SELECT_PREFIX.length());
         }
+        return fullQueryString;
+    }
 
-        // merge the parameters
-        ArrayList<Object> mergedParametersList = new ArrayList<Object>();
-        mergedParametersList.addAll(Arrays.asList(parameters));
-        mergedParametersList.addAll(Arrays.asList(criteriaParameters));
-        Object[] mergedParameters = new Object[mergedParametersList.size()];
-        mergedParametersList.toArray(mergedParameters);
+    /**
+     * Name of the HQL function that computes the total number of results of a query, regardless of pagination,
+     * as a <code>count(*) over()</code> window function. It's only usable on database platforms that support
+     * window functions.
+     * @see com.manydesigns.portofino.model.database.platforms.DatabasePlatform#isWindowedCountSupported
+     */
+    public static final String TOTAL_COUNT_FUNCTION = "portofino_total_count";
 
-        return new QueryStringWithParameters(fullQueryString, mergedParameters);
+    /**
+     * Rewrites a query so that each result also includes the total number of results, computed with
+     * {@link #TOTAL_COUNT_FUNCTION}. This way, a page of results and the total count are fetched in a single round
+     * trip. Each row returned by the rewritten query is an array of two elements: the object and the total count.
+     * @param queryString the query, typically as returned by {@link #mergeQuery(String, TableCriteria, Object)}.
+     * @return the rewritten query, or null if the query cannot be rewritten, because it doesn't select a single
+     * entity, or because it uses distinct or group by.
+     */
+    @Nullable
+    public static String addTotalCount(String queryString) {
+        String result = QueryCache.getDerivedQuery(Arrays.asList("total-count", queryString), () -> {
+            try {
+                return generateTotalCountQuery(queryString);
+            } catch (JSQLParserException e) {
+                logger.debug("Could not parse query " + queryString, e);
+                return "";
+            }
+        });
+        //The empty string is cached as well, so that queries that cannot be rewritten are parsed only once
+        return StringUtils.isEmpty(result) ? null : result;
+    }
+
+    protected static String generateTotalCountQuery(String queryString) throws JSQLParserException {
+        PlainSelect plainSelect = parseQuery(new CCJSqlParserManager(), queryString);
+        if(plainSelect.getDistinct() != null ||
+           plainSelect.getGroupByColumnReferences() != null ||
+           plainSelect.getHaving() != null) {
+            return "";
+        }
+        List<SelectItem> selectItems = new ArrayList<>();
+        if(queryString.toLowerCase().trim().startsWith("select")) {
+            if(plainSelect.getSelectItems().size() != 1 ||
+               !(plainSelect.getSelectItems().get(0) instanceof SelectExpressionItem)) {
+                return "";
+            }
+            selectItems.add(plainSelect.getSelectItems().get(0));
+        } else {
+            //from Entity alias where...: select the entity explicitly
+            if(!(plainSelect.getFromItem() instanceof net.sf.jsqlparser.schema.Table) ||
+               plainSelect.getFromItem().getAlias() == null ||
+               (plainSelect.getJoins() != null && !plainSelect.getJoins().isEmpty())) {
+                return "";
+            }
+            selectItems.add(new SelectExpressionItem(
+                    new net.sf.jsqlparser.schema.Column(plainSelect.getFromItem().getAlias().getName())));
+        }
+        Function totalCount = new Function();
+        totalCount.setName(TOTAL_COUNT_FUNCTION);
+        selectItems.add(new SelectExpressionItem(totalCount));
+        plainSelect.setSelectItems(selectItems);
+        return plainSelect.toString();
     }
 
     public static final String FAKE_SELECT_PREFIX = "select __portofino_fake_select__ ";
@@ -580,14 +857,7 @@ public class QueryUtils {
             @Nullable Integer maxResults) {
 
         Query query = session.createQuery(queryString);
-        if (parameters != null) {
-            for (int i = 0; i < parameters.length; i++) {
-                if (parameters[i] instanceof Collection) {
-                    query.setParameterList("p" + (i + 1), (Collection) parameters[i]);
-                } else
-                    query.setParameter("p" + (i + 1), parameters[i]);
-            }
-        }
+        setParameters(query, parameters);
 
         if (firstResult != null) {
             query.setFirstResult(firstResult);
@@ -609,6 +879,17 @@ public class QueryUtils {
         }
     }
 
+    protected static void setParameters(Query query, @Nullable Object[] parameters) {
+        if (parameters != null) {
+            for (int i = 0; i < parameters.length; i++) {
+                if (parameters[i] instanceof Collection) {
+                    query.setParameterList("p" + (i + 1), (Collection) parameters[i]);
+                } else
+                    query.setParameter("p" + (i + 1), parameters[i]);
+            }
+        }
+    }
+
     /**
      * Loads an object by primary key.
      * @param persistence the persistence object
@@ -691,55 +972,68 @@ public class QueryUtils {
         TableAccessor table = persistence.getTableAccessor(database, entityName);
         List<Object> result;
         PropertyAccessor[] keyProperties = table.getKeyProperties();
-        OgnlHqlFormat hqlFormat = OgnlHqlFormat.create(hqlQueryString);
-        String formatString = hqlFormat.getFormatString();
-        Object[] ognlParameters = hqlFormat.evaluateOgnlExpressions(rootObject);
+        QueryCache.ParsedQuery parsedQuery;
+        try {
+            parsedQuery = QueryCache.getParsedQuery(hqlQueryString);
+        } catch (JSQLParserException e) {
+            throw new Error(e);
+        }
+        if(!parsedQuery.hasWhere()) {
+            return getObjectByPk(persistence, database, entityName, pk);
+        }
+        Object[] ognlParameters = parsedQuery.getFormat().evaluateOgnlExpressions(rootObject);
         int p = ognlParameters.length;
         Object[] parameters = new Object[p + keyProperties.length];
         System.arraycopy(ognlParameters, 0, parameters, 0, p);
-        try {
-            PlainSelect parsedQuery = parseQuery(new CCJSqlParserManager(), formatString);
-            if(parsedQuery.getWhere() == null) {
-                return getObjectByPk(persistence, database, entityName, pk);
-            }
+        List<Object> key = new ArrayList<>();
+        key.add("pk");
+        key.add(hqlQueryString);
+        key.add(entityName);
+        for(int i = 0; i < keyProperties.length; i++) {
+            key.add(keyProperties[i].getName());
+            parameters[p + i] = keyProperties[i].get(pk);
+        }
+        String fullQueryString = QueryCache.getDerivedQuery(key, () ->
+                getObjectByPkQuery(parsedQuery, entityName, keyProperties, p));
 
-            Alias mainEntityAlias = getEntityAlias(entityName, parsedQuery);
-            net.sf.jsqlparser.schema.Table mainEntityTable;
-            if(mainEntityAlias != null) {
-                mainEntityTable = new net.sf.jsqlparser.schema.Table(null, mainEntityAlias.getName());
-            } else {
-                mainEntityTable = new net.sf.jsqlparser.schema.Table();
-            }
+        Session session = persistence.getSession(database);
+        result = runHqlQuery(session, fullQueryString, parameters);
+        if(result != null && !result.isEmpty()) {
+            return result.get(0);
+        } else {
+            return null;
+        }
+    }
 
+    protected static String getObjectByPkQuery(
+            QueryCache.ParsedQuery query, String entityName, PropertyAccessor[] keyProperties, int p) {
+        PlainSelect parsedQuery = query.newSelect();
+        Alias mainEntityAlias = query.getEntityAlias(entityName);
+        net.sf.jsqlparser.schema.Table mainEntityTable;
+        if(mainEntityAlias != null) {
+            mainEntityTable = new net.sf.jsqlparser.schema.Table(null, mainEntityAlias.getName());
+        } else {
+            mainEntityTable = new net.sf.jsqlparser.schema.Table();
+        }
 
-            for(int i = 0; i < keyProperties.length; i++) {
-                PropertyAccessor propertyAccessor = keyProperties[i];
-                EqualsTo condition = new EqualsTo();
-                parsedQuery.setWhere(
-                        new AndExpression(condition, new Parenthesis(parsedQuery.getWhere())));
-                net.sf.jsqlparser.schema.Column column =
-                        new net.sf.jsqlparser.schema.Column(mainEntityTable, propertyAccessor.getName());
-                condition.setLeftExpression(column);
-                JdbcNamedParameter jdbcParameter = new JdbcNamedParameter();
-                jdbcParameter.setName("p" + (p + i + 1));
-                condition.setRightExpression(jdbcParameter);
-                parameters[p + i] = propertyAccessor.get(pk);
-            }
+        for(int i = 0; i < keyProperties.length; i++) {
+            PropertyAccessor propertyAccessor = keyProperties[i];
+            EqualsTo condition = new EqualsTo();
+            parsedQuery.setWhere(
+                    new AndExpression(condition, new Parenthesis(parsedQuery.getWhere())));
+            net.sf.jsqlparser.schema.Column column =
+                    new net.sf.jsqlparser.schema.Column(mainEntityTable, propertyAccessor.getName());
+            condition.setLeftExpression(column);
+            JdbcNamedParameter jdbcParameter = new JdbcNamedParameter();
+            jdbcParameter.setName("p" + (p + i + 1));
+            condition.setRightExpression(jdbcParameter);
+        }
 
-            String fullQueryString = parsedQuery.toString();
-            if(fullQueryString.toLowerCase().startsWith(FAKE_SELECT_PREFIX)) {
-                fullQueryString = fullQueryString.substring(FAKE_SELECT_PREFIX.length());
-            }
-            Session session = persistence.getSession(database);
-            result = runHqlQuery(session, fullQueryString, parameters);
-            if(result != null && !result.isEmpty()) {
-                return result.get(0);
-            } else {
-                return null;
-            }
-        } catch (JSQLParserException e) {
-            throw new Error(e);
+        String fullQueryString = parsedQuery.toString();
+        if(fullQueryString.toLowerCase().startsWith(FAKE_SELECT_PREFIX)) {
+            fullQueryString = fullQueryString.substring(FAKE_SELECT_PREFIX.length());
         }
+        return fullQueryString;
     }
 
     protected static Alias getEntityAlias(String entityName, PlainSelect query) {
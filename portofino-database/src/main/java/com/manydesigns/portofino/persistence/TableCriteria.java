@@ -24,6 +24,7 @@ import com.manydesigns.elements.fields.search.BaseCriteria;
 import com.manydesigns.elements.fields.search.TextMatchMode;
 import com.manydesigns.elements.reflection.PropertyAccessor;
 import com.manydesigns.portofino.model.database.Table;
+import org.jetbrains.annotations.Nullable;
 
 /*
 * @author Paolo Predonzani     - paolo.predonzani@manydesigns.com
@@ -40,6 +41,7 @@ public class TableCriteria extends BaseCriteria {
     //**************************************************************************
 
     protected final Table table;
+    protected Seek seek;
 
 
     //**************************************************************************
@@ -60,6 +62,88 @@ public class TableCriteria extends BaseCriteria {
         return table;
     }
 
+    public Seek getSeek() {
+        return seek;
+    }
+
+    //**************************************************************************
+    // Keyset pagination
+    //**************************************************************************
+
+    /**
+     * Configures keyset (seek) pagination: results are sorted by the order by property, if any, and then by the
+     * given key properties, which must identify a row uniquely. If a position is given, only the results that come
+     * after it (or before it, if backwards is true) are returned; unlike an offset, this is efficient regardless of
+     * how deep the page is.
+     * @param keyProperties the properties that make results unique, typically the primary key.
+     * @param position the values of the order by property (if any) and of the key properties of the last result of
+     *                 the previous page (or of the first result of the next page, if backwards is true). It can be
+     *                 null to return the first page (or the last one, if backwards is true).
+     * @param backwards whether to return the results before the position, in reverse order. Null values of the
+     *                  order by property come after the others, unless backwards is true.
+     * @return this criteria.
+     */
+    public TableCriteria seek(PropertyAccessor[] keyProperties, @Nullable Object[] position, boolean backwards) {
+        seek = new Seek(keyProperties, position, backwards);
+        return this;
+    }
+
+    public static class Seek {
+        protected final PropertyAccessor[] keyProperties;
+        protected final Object[] position;
+        protected final boolean backwards;
+
+        public Seek(PropertyAccessor[] keyProperties, @Nullable Object[] position, boolean backwards) {
+            this.keyProperties = keyProperties;
+            this.position = position;
+            this.backwards = backwards;
+        }
+
+        public PropertyAccessor[] getKeyProperties() {
+            return keyProperties;
+        }
+
+        @Nullable
+        public Object[] getPosition() {
+            return position;
+        }
+
+        public boolean isBackwards() {
+            return backwards;
+        }
+    }
+
+    //**************************************************************************
+    // Word search
+    //**************************************************************************
+
+    /**
+     * Matches the values of a text property that have a word beginning with the given prefix, i.e. that begin with
+     * the prefix or contain it after a space, ignoring case. Unlike a search with {@link TextMatchMode#CONTAINS},
+     * it doesn't match words that merely contain the prefix. The prefix is used as is in like patterns, so it
+     * should not contain wildcards.
+     * @param accessor the property.
+     * @param prefix the beginning of the word.
+     * @return this criteria.
+     */
+    public TableCriteria wordStartsWith(PropertyAccessor accessor, String prefix) {
+        add(new WordStartsWithCriterion(accessor, prefix));
+        return this;
+    }
+
+    public static class WordStartsWithCriterion extends AbstractCriterion {
+        protected final String prefix;
+
+        public WordStartsWithCriterion(PropertyAccessor accessor, String prefix) {
+            super(accessor);
+            this.prefix = prefix;
+        }
+
+        public String getPrefix() {
+            return prefix;
+        }
+    }
+
     //**************************************************************************
     // Overrides to simplify type casting
     //**************************************************************************
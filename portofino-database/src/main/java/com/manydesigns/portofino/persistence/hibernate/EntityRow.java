@@ -0,0 +1,314 @@
+/*
+ * Copyright (C) 2005-2020 ManyDesigns srl.  All rights reserved.
+ * http://www.manydesigns.com/
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package com.manydesigns.portofino.persistence.hibernate;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * A dynamic-map entity that stores the values of the properties of its entity in an array, with one slot per property
+ * as laid out by a {@link Layout} shared by all the rows of the same entity. It's still a {@link Map}, for Hibernate,
+ * Groovy scripts and OGNL expressions, but it doesn't allocate an entry per property like a {@link HashMap}, and
+ * {@link com.manydesigns.portofino.reflection.ColumnAccessor} reads and writes it by slot without hashing the
+ * property name. Keys that are not in the layout are kept in a separate map, created only when needed.
+ */
+public class EntityRow extends AbstractMap<String, Object> implements Serializable {
+    public static final String copyright =
+            "Copyright (C) 2005-2020 ManyDesigns srl";
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Marks the slots of properties that are not in the map, as opposed to properties with a null value.
+     */
+    protected static final Object ABSENT = new Absent();
+
+    protected final Layout layout;
+    protected final Object[] values;
+    protected Map<String, Object> extra;
+    protected int size;
+
+    public EntityRow(Layout layout) {
+        this.layout = layout;
+        this.values = new Object[layout.names.length];
+        Arrays.fill(values, ABSENT);
+    }
+
+    public Layout getLayout() {
+        return layout;
+    }
+
+    /**
+     * @param slot the slot of a property in the layout of this row.
+     * @return the value of the property, or null if it's not set.
+     */
+    public Object getSlot(int slot) {
+        Object value = values[slot];
+        return value == ABSENT ? null : value;
+    }
+
+    /**
+     * Sets the value of a property.
+     * @param slot the slot of the property in the layout of this row.
+     * @param value the new value.
+     * @return the previous value, or null if it was not set.
+     */
+    public Object setSlot(int slot, Object value) {
+        Object old = values[slot];
+        values[slot] = value;
+        if(old == ABSENT) {
+            size++;
+            return null;
+        }
+        return old;
+    }
+
+    //**************************************************************************
+    // Map implementation
+    //**************************************************************************
+
+    @Override
+    public int size() {
+        return size + (extra != null ? extra.size() : 0);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        int slot = layout.getSlot(key);
+        if(slot >= 0) {
+            return values[slot] != ABSENT;
+        }
+        return extra != null && extra.containsKey(key);
+    }
+
+    @Override
+    public Object get(Object key) {
+        int slot = layout.getSlot(key);
+        if(slot >= 0) {
+            return getSlot(slot);
+        }
+        return extra != null ? extra.get(key) : null;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        int slot = layout.getSlot(key);
+        if(slot >= 0) {
+            return setSlot(slot, value);
+        }
+        if(extra == null) {
+            extra = new HashMap<>();
+        }
+        return extra.put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        int slot = layout.getSlot(key);
+        if(slot >= 0) {
+            return removeSlot(slot);
+        }
+        return extra != null ? extra.remove(key) : null;
+    }
+
+    protected Object removeSlot(int slot) {
+        Object old = values[slot];
+        if(old == ABSENT) {
+            return null;
+        }
+        values[slot] = ABSENT;
+        size--;
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(values, ABSENT);
+        size = 0;
+        extra = null;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return EntityRow.this.size();
+            }
+        };
+    }
+
+    protected class EntryIterator implements Iterator<Entry<String, Object>> {
+        protected int next = -1;
+        protected int current = -1;
+        protected Iterator<Entry<String, Object>> extraIterator;
+
+        public EntryIterator() {
+            advance();
+        }
+
+        protected void advance() {
+            do {
+                next++;
+            } while (next < values.length && values[next] == ABSENT);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if(next < values.length) {
+                return true;
+            }
+            if(extraIterator == null) {
+                extraIterator = extra != null ? extra.entrySet().iterator() : Collections.emptyIterator();
+            }
+            return extraIterator.hasNext();
+        }
+
+        @Override
+        public Entry<String, Object> next() {
+            if(!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if(next < values.length) {
+                current = next;
+                advance();
+                return new SlotEntry(current);
+            }
+            current = -1;
+            return extraIterator.next();
+        }
+
+        @Override
+        public void remove() {
+            if(current >= 0) {
+                removeSlot(current);
+                current = -1;
+            } else if(extraIterator != null) {
+                extraIterator.remove();
+            } else {
+                throw new IllegalStateException();
+            }
+        }
+    }
+
+    protected class SlotEntry implements Entry<String, Object> {
+        protected final int slot;
+
+        public SlotEntry(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        public String getKey() {
+            return layout.names[slot];
+        }
+
+        @Override
+        public Object getValue() {
+            return getSlot(slot);
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            return setSlot(slot, value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(!(o instanceof Entry)) {
+                return false;
+            }
+            Entry<?, ?> other = (Entry<?, ?>) o;
+            return Objects.equals(getKey(), other.getKey()) && Objects.equals(getValue(), other.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+
+    protected static class Absent implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        protected Object readResolve() {
+            return ABSENT;
+        }
+    }
+
+    //**************************************************************************
+    // Layout
+    //**************************************************************************
+
+    /**
+     * The names of the properties of an entity, each with its slot. Layouts are immutable and built once per
+     * session factory, so they can be compared by identity.
+     */
+    public static class Layout implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        protected final String entityName;
+        protected final String[] names;
+        protected final Map<String, Integer> slots;
+
+        public Layout(String entityName, List<String> names) {
+            this.entityName = entityName;
+            this.names = names.toArray(new String[0]);
+            Map<String, Integer> slots = new HashMap<>(this.names.length * 2);
+            for(int i = 0; i < this.names.length; i++) {
+                slots.putIfAbsent(this.names[i], i);
+            }
+            this.slots = Collections.unmodifiableMap(slots);
+        }
+
+        public String getEntityName() {
+            return entityName;
+        }
+
+        /**
+         * @param name the name of a property.
+         * @return its slot, or -1 if the property is not part of the layout.
+         */
+        public int getSlot(Object name) {
+            Integer slot = slots.get(name);
+            return slot != null ? slot : -1;
+        }
+
+        public List<String> getNames() {
+            return Collections.unmodifiableList(Arrays.asList(names));
+        }
+
+        @Override
+        public String toString() {
+            return "EntityRow.Layout{" + entityName + ", " + Arrays.toString(names) + "}";
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2005-2020 ManyDesigns srl.  All rights reserved.
+ * http://www.manydesigns.com/
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package com.manydesigns.portofino.persistence.hibernate;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.EntityMode;
+import org.hibernate.mapping.PersistentClass;
+import org.hibernate.mapping.Property;
+import org.hibernate.tuple.DynamicMapInstantiator;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Makes Hibernate instantiate dynamic-map entities as {@link EntityRow}s rather than {@link HashMap}s. Only entities
+ * with a single identifier property are handled; for the others (i.e. with a composite key) Hibernate uses its
+ * default instantiator.
+ */
+public class EntityRowInterceptor extends EmptyInterceptor {
+    public static final String copyright =
+            "Copyright (C) 2005-2020 ManyDesigns srl";
+
+    protected final Map<String, EntityRow.Layout> layouts = new HashMap<>();
+    protected final Map<String, String> identifierNames = new HashMap<>();
+
+    /**
+     * Registers the layout of an entity, with the properties in the order of the mapping.
+     * @param persistentClass the mapping of the entity.
+     * @return whether the entity will be instantiated as {@link EntityRow}s.
+     */
+    public boolean addEntity(PersistentClass persistentClass) {
+        if(!persistentClass.hasIdentifierProperty()) {
+            return false;
+        }
+        List<String> names = new ArrayList<>();
+        names.add(DynamicMapInstantiator.KEY);
+        String identifierName = persistentClass.getIdentifierProperty().getName();
+        names.add(identifierName);
+        Iterator<?> properties = persistentClass.getPropertyIterator();
+        while (properties.hasNext()) {
+            names.add(((Property) properties.next()).getName());
+        }
+        String entityName = persistentClass.getEntityName();
+        layouts.put(entityName, new EntityRow.Layout(entityName, names));
+        identifierNames.put(entityName, identifierName);
+        return true;
+    }
+
+    public EntityRow.Layout getLayout(String entityName) {
+        return layouts.get(entityName);
+    }
+
+    @Override
+    public Object instantiate(String entityName, EntityMode entityMode, Serializable id) {
+        EntityRow.Layout layout = entityMode == EntityMode.MAP ? layouts.get(entityName) : null;
+        if(layout == null) {
+            return null;
+        }
+        //Like DynamicMapInstantiator, and the interceptor must also set the identifier
+        EntityRow row = new EntityRow(layout);
+        row.put(DynamicMapInstantiator.KEY, entityName);
+        row.put(identifierNames.get(entityName), id);
+        return row;
+    }
+}
@@ -22,12 +22,19 @@ package com.manydesigns.portofino.persistence.hibernate;
 
 import com.manydesigns.portofino.code.CodeBase;
 import com.manydesigns.portofino.model.database.Database;
+import com.manydesigns.portofino.model.database.Table;
+import com.manydesigns.portofino.model.database.View;
 import com.manydesigns.portofino.persistence.hibernate.multitenancy.MultiTenancyImplementation;
+import com.manydesigns.portofino.reflection.TableAccessor;
+import com.manydesigns.portofino.reflection.ViewAccessor;
 import org.apache.commons.configuration2.Configuration;
 import org.hibernate.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -49,6 +56,13 @@ public class HibernateDatabaseSetup {
     protected final Configuration configuration;
     protected final Map<String, String> jpaEntityNameToClassNameMap = new HashMap<>();
     protected final MultiTenancyImplementation multiTenancyImplementation;
+    /**
+     * Accessors of the tables of the database, built with the setup and never modified afterwards, so that they
+     * can be shared by all threads; they're replaced as a whole by {@link #resetTableAccessors()}. Keyed by table
+     * identity: tables loaded after this setup are not in the map.
+     */
+    protected volatile Map<Table, TableAccessor> tableAccessors;
+    protected volatile Map<String, TableAccessor> tableAccessorsByEntityName;
 
         public static final Logger logger =
             LoggerFactory.getLogger(HibernateDatabaseSetup.class);
@@ -66,6 +80,52 @@ public class HibernateDatabaseSetup {
         database.getAllTables().forEach(t -> {
             jpaEntityNameToClassNameMap.put(t.getActualEntityName(), SessionFactoryBuilder.getMappedClassName(t, entityMode));
         });
+        resetTableAccessors();
+    }
+
+    /**
+     * Builds the shared accessors of the tables again, so that they refer to the current Java classes of the
+     * tables, e.g. after application code has been reloaded. Concurrent readers keep using the old accessors until
+     * the new ones are ready.
+     */
+    public void resetTableAccessors() {
+        Map<Table, TableAccessor> accessors = new HashMap<>();
+        Map<String, TableAccessor> accessorsByEntityName = new HashMap<>();
+        for(Table table : database.getAllTables()) {
+            try {
+                TableAccessor accessor = createTableAccessor(table);
+                accessors.put(table, accessor);
+                accessorsByEntityName.putIfAbsent(table.getActualEntityName(), accessor);
+            } catch (RuntimeException e) {
+                logger.warn("Could not create accessor for table " + table.getQualifiedName(), e);
+            }
+        }
+        tableAccessorsByEntityName = Collections.unmodifiableMap(accessorsByEntityName);
+        tableAccessors = Collections.unmodifiableMap(accessors);
+    }
+
+    @NotNull
+    public static TableAccessor createTableAccessor(Table table) {
+        return table instanceof View ? new ViewAccessor((View) table) : new TableAccessor(table);
+    }
+
+    /**
+     * @param table a table of the database.
+     * @return the shared accessor of the table, or null if the table is not part of the database as it was when this
+     * setup was created.
+     */
+    @Nullable
+    public TableAccessor getTableAccessor(Table table) {
+        return tableAccessors.get(table);
+    }
+
+    /**
+     * @param entityName the entity name of a table of the database.
+     * @return the shared accessor of the table, or null if there's no such table.
+     */
+    @Nullable
+    public TableAccessor getTableAccessor(String entityName) {
+        return tableAccessorsByEntityName.get(entityName);
     }
 
     public SessionFactory getSessionFactory() {
@@ -10,6 +10,8 @@ import com.manydesigns.portofino.model.database.Table;
 import com.manydesigns.portofino.model.database.TableGenerator;
 import com.manydesigns.portofino.model.database.*;
 import com.manydesigns.portofino.model.database.platforms.DatabasePlatform;
+import com.manydesigns.portofino.modules.DatabaseModule;
+import com.manydesigns.portofino.persistence.QueryUtils;
 import com.manydesigns.portofino.persistence.hibernate.multitenancy.MultiTenancyImplementation;
 import javassist.*;
 import javassist.bytecode.AnnotationsAttribute;
@@ -37,9 +39,11 @@ import org.hibernate.boot.registry.StandardServiceRegistry;
 import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
 import org.hibernate.boot.registry.classloading.internal.ClassLoaderServiceImpl;
 import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.dialect.function.SQLFunctionTemplate;
 import org.hibernate.mapping.Component;
 import org.hibernate.mapping.PersistentClass;
 import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.LongType;
 import org.jadira.usertype.dateandtime.joda.PersistentDateTime;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -71,6 +75,7 @@ public class SessionFactoryBuilder {
     protected final MultiTenancyImplementation multiTenancyImplementation;
     protected EntityMode entityMode = EntityMode.MAP;
 
+    public static final int DEFAULT_BATCH_SIZE = 50;
     protected static final Set<String> JAVA_KEYWORDS = new HashSet<>();
 
     static {
@@ -226,7 +231,10 @@ public class SessionFactoryBuilder {
             throw new RuntimeException(e);
         }
         MetadataBuilder metadataBuilder = sources.getMetadataBuilder();
+        metadataBuilder.applySqlFunction(
+                QueryUtils.TOTAL_COUNT_FUNCTION, new SQLFunctionTemplate(LongType.INSTANCE, "count(*) over()"));
         Metadata metadata = metadataBuilder.build();
+        EntityRowInterceptor entityRowInterceptor = isUsingEntityRows() ? new EntityRowInterceptor() : null;
         if (entityMode == EntityMode.MAP) {
             metadata.getEntityBindings().forEach((PersistentClass c) -> {
                 if(!externallyMappedClasses.contains(c.getClassName())) {
@@ -236,13 +244,33 @@ public class SessionFactoryBuilder {
                         component.setComponentClassName(null);
                         component.setDynamic(true);
                     }
+                    if(entityRowInterceptor != null && !entityRowInterceptor.addEntity(c)) {
+                        logger.debug("Entity {} has a composite key, it will be loaded as a HashMap", c.getEntityName());
+                    }
                 }
             });
         }
         org.hibernate.boot.SessionFactoryBuilder sessionFactoryBuilder = metadata.getSessionFactoryBuilder();
+        if(entityRowInterceptor != null) {
+            sessionFactoryBuilder.applyInterceptor(entityRowInterceptor);
+        }
         return new SessionFactoryAndCodeBase(sessionFactoryBuilder.build(), codeBase);
     }
 
+    /**
+     * Whether dynamic-map entities are to be loaded as {@link EntityRow}s. That's the case unless disabled with
+     * {@link DatabaseModule#COMPACT_MAP_ENTITIES} or the database configures its own Hibernate interceptor.
+     */
+    protected boolean isUsingEntityRows() {
+        if(entityMode != EntityMode.MAP) {
+            return false;
+        }
+        if(database.getSettings() != null && database.getSettings().containsKey(AvailableSettings.INTERCEPTOR)) {
+            return false;
+        }
+        return configuration == null || configuration.getBoolean(DatabaseModule.COMPACT_MAP_ENTITIES, true);
+    }
+
     protected Map<String, Object> setupConnection() {
         Map<String, Object> settings = new HashMap<>();
         ConnectionProvider connectionProvider = database.getConnectionProvider();
@@ -252,6 +280,10 @@ public class SessionFactoryBuilder {
                     connectionProvider.getActualHibernateDialectName());
         }
         settings.put(AvailableSettings.JPA_METAMODEL_POPULATION, "enabled");
+        //Batch the statements issued when flushing many objects (e.g. bulk operations), unless configured otherwise
+        settings.put(AvailableSettings.STATEMENT_BATCH_SIZE, DEFAULT_BATCH_SIZE);
+        settings.put(AvailableSettings.ORDER_INSERTS, true);
+        settings.put(AvailableSettings.ORDER_UPDATES, true);
         if(multiTenancyImplementation != null) {
             MultiTenancyStrategy strategy = multiTenancyImplementation.getStrategy();
             if (strategy.requiresMultiTenantConnectionProvider()) {
@@ -294,6 +326,11 @@ public class SessionFactoryBuilder {
         if(connectionProvider instanceof JdbcConnectionProvider) {
             JdbcConnectionProvider jdbcConnectionProvider =
                     (JdbcConnectionProvider) connectionProvider;
+            if(jdbcConnectionProvider.getConnectionPool() != null) {
+                //Hibernate borrows connections from the same pool as the rest of the application
+                settings.put(AvailableSettings.DATASOURCE, jdbcConnectionProvider.getConnectionPool());
+                return;
+            }
             settings.put(AvailableSettings.URL, jdbcConnectionProvider.getActualUrl());
             String driver = jdbcConnectionProvider.getDriver();
             if(driver != null) {
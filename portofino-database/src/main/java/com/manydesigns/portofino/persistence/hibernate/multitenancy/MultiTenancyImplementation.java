@@ -2,6 +2,7 @@ package com.manydesigns.portofino.persistence.hibernate.multitenancy;
 
 import org.hibernate.MultiTenancyStrategy;
 import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.jdbc.connections.internal.DriverManagerConnectionProviderImpl;
 import org.hibernate.engine.jdbc.connections.spi.AbstractMultiTenantConnectionProvider;
 import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
 import org.hibernate.service.spi.*;
@@ -9,6 +10,7 @@ import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.sql.DataSource;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -68,17 +70,33 @@ public abstract class MultiTenancyImplementation extends AbstractMultiTenantConn
         return connectionProviders.computeIfAbsent(tenant, o -> createConnectionProvider(tenant, configuration));
     }
 
+    /**
+     * Creates the Hibernate connection provider of a tenant. Tenants with their own URL (see
+     * {@link #getConnectionURL(String)}) can't use the connection pool of the database, that points to the default
+     * URL: when the database is pooled, they get Hibernate's {@link DriverManagerConnectionProviderImpl} instead,
+     * that is only meant for development, so applications in production should provide a pooled provider by
+     * overriding this method.
+     */
     @NotNull
     protected ConnectionProvider createConnectionProvider(String tenant, Map configuration) {
-        ConnectionProvider connectionProvider;
-        try {
-            connectionProvider = connectionProviderClass.getConstructor().newInstance();
-        } catch (Exception e) {
-            throw new RuntimeException("Could not instantiate connection provider " + connectionProviderClass, e);
-        }
+        configuration = new HashMap(configuration);
+        Class<? extends ConnectionProvider> providerClass = connectionProviderClass;
         String url = getConnectionURL(tenant);
         if (url != null) {
             configuration.put(AvailableSettings.URL, url);
+            if (configuration.get(AvailableSettings.DATASOURCE) instanceof DataSource) {
+                //The shared connection pool points to the default database, this tenant needs its own connections
+                configuration.remove(AvailableSettings.DATASOURCE);
+                providerClass = DriverManagerConnectionProviderImpl.class;
+                logger.info("Tenant {} has its own URL, so it doesn't use the connection pool; using {}",
+                        tenant, providerClass.getName());
+            }
+        }
+        ConnectionProvider connectionProvider;
+        try {
+            connectionProvider = providerClass.getConstructor().newInstance();
+        } catch (Exception e) {
+            throw new RuntimeException("Could not instantiate connection provider " + providerClass, e);
         }
         String username = getUsername(tenant);
         if (username != null) {
@@ -86,7 +104,7 @@ public abstract class MultiTenancyImplementation extends AbstractMultiTenantConn
         }
         String password = getPassword(tenant);
         if (password != null) {
-            configuration.put(AvailableSettings.PASS, username);
+            configuration.put(AvailableSettings.PASS, password);
         }
         if (connectionProvider instanceof ServiceRegistryAwareService) {
             ((ServiceRegistryAwareService) connectionProvider).injectServices(serviceRegistry);
@@ -24,6 +24,7 @@ import com.manydesigns.elements.annotations.*;
 import com.manydesigns.elements.annotations.impl.*;
 import com.manydesigns.elements.reflection.PropertyAccessor;
 import com.manydesigns.portofino.model.database.Column;
+import com.manydesigns.portofino.persistence.hibernate.EntityRow;
 import org.apache.commons.lang.builder.ToStringBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -49,6 +50,10 @@ public class ColumnAccessor
 
     protected final Column column;
     protected final PropertyAccessor nestedPropertyAccessor;
+    /**
+     * The slot of the column in the last {@link EntityRow.Layout} seen; normally there's one per session factory.
+     */
+    protected RowSlot rowSlot;
 
     public static final Logger logger =
             LoggerFactory.getLogger(ColumnAccessor.class);
@@ -97,7 +102,11 @@ public class ColumnAccessor
     }
 
     public Object get(Object obj) {
-        if (nestedPropertyAccessor == null) {
+        if (obj instanceof EntityRow) {
+            EntityRow row = (EntityRow) obj;
+            int slot = getSlot(row.getLayout());
+            return slot >= 0 ? row.getSlot(slot) : row.get(column.getActualPropertyName());
+        } else if (nestedPropertyAccessor == null) {
             return ((Map)obj).get(column.getActualPropertyName());
         } else {
             return nestedPropertyAccessor.get(obj);
@@ -105,7 +114,15 @@ public class ColumnAccessor
     }
 
     public void set(Object obj, Object value) {
-        if (nestedPropertyAccessor == null) {
+        if (obj instanceof EntityRow) {
+            EntityRow row = (EntityRow) obj;
+            int slot = getSlot(row.getLayout());
+            if (slot >= 0) {
+                row.setSlot(slot, value);
+            } else {
+                row.put(column.getActualPropertyName(), value);
+            }
+        } else if (nestedPropertyAccessor == null) {
             //noinspection unchecked
             ((Map)obj).put(column.getActualPropertyName(), value);
         } else {
@@ -113,6 +130,25 @@ public class ColumnAccessor
         }
     }
 
+    protected int getSlot(EntityRow.Layout layout) {
+        RowSlot rowSlot = this.rowSlot;
+        if (rowSlot == null || rowSlot.layout != layout) {
+            rowSlot = new RowSlot(layout, layout.getSlot(column.getActualPropertyName()));
+            this.rowSlot = rowSlot;
+        }
+        return rowSlot.slot;
+    }
+
+    protected static final class RowSlot {
+        public final EntityRow.Layout layout;
+        public final int slot;
+
+        public RowSlot(EntityRow.Layout layout, int slot) {
+            this.layout = layout;
+            this.slot = slot;
+        }
+    }
+
     //**************************************************************************
     // Getters/setters
     //**************************************************************************
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2005-2020 ManyDesigns srl.  All rights reserved.
+ * http://www.manydesigns.com/
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package com.manydesigns.portofino.database;
+
+import com.manydesigns.portofino.persistence.hibernate.EntityRow;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.testng.Assert.*;
+
+@Test
+public class EntityRowTest {
+
+    public void testMapSemantics() {
+        EntityRow.Layout layout = new EntityRow.Layout("product", Arrays.asList("$type$", "id", "name", "price"));
+        EntityRow row = new EntityRow(layout);
+        Map<String, Object> map = new HashMap<>();
+        assertEquals(row, map);
+        assertTrue(row.isEmpty());
+
+        row.put("id", 1);
+        row.put("name", null);
+        row.put("notInLayout", "x");
+        map.put("id", 1);
+        map.put("name", null);
+        map.put("notInLayout", "x");
+        assertEquals(row, map);
+        assertEquals(map, row);
+        assertEquals(row.hashCode(), map.hashCode());
+        assertEquals(row.size(), 3);
+        //A null value is different from a missing one
+        assertTrue(row.containsKey("name"));
+        assertFalse(row.containsKey("price"));
+        assertNull(row.get("price"));
+        assertEquals(row.get("notInLayout"), "x");
+
+        int slot = layout.getSlot("id");
+        assertEquals(row.getSlot(slot), 1);
+        assertEquals(row.setSlot(slot, 2), 1);
+        assertEquals(row.get("id"), 2);
+        assertEquals(layout.getSlot("notInLayout"), -1);
+
+        assertEquals(row.remove("id"), 2);
+        assertFalse(row.containsKey("id"));
+        assertEquals(row.size(), 2);
+
+        for(Iterator<Map.Entry<String, Object>> it = row.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<String, Object> entry = it.next();
+            if(entry.getKey().equals("notInLayout")) {
+                it.remove();
+            } else {
+                entry.setValue("changed");
+            }
+        }
+        assertEquals(row.size(), 1);
+        assertEquals(row.get("name"), "changed");
+
+        row.clear();
+        assertTrue(row.isEmpty());
+        assertFalse(row.containsKey("name"));
+    }
+
+}
@@ -7,6 +7,8 @@ import com.manydesigns.elements.forms.Form;
 import com.manydesigns.elements.forms.FormBuilder;
 import com.manydesigns.elements.servlet.MutableHttpServletRequest;
 import com.manydesigns.portofino.cache.CacheResetListenerRegistry;
+import com.manydesigns.portofino.code.AggregateCodeBase;
+import com.manydesigns.portofino.code.CodeBase;
 import com.manydesigns.portofino.database.platforms.H2DatabasePlatform;
 import com.manydesigns.portofino.model.Annotation;
 import com.manydesigns.portofino.model.Property;
@@ -16,7 +18,9 @@ import com.manydesigns.portofino.modules.DatabaseModule;
 import com.manydesigns.portofino.persistence.Persistence;
 import com.manydesigns.portofino.persistence.QueryUtils;
 import com.manydesigns.portofino.persistence.TableCriteria;
+import com.manydesigns.portofino.persistence.hibernate.EntityRow;
 import com.manydesigns.portofino.reflection.TableAccessor;
+import com.manydesigns.portofino.reflection.ViewAccessor;
 import org.apache.commons.configuration2.Configuration;
 import org.apache.commons.configuration2.PropertiesConfiguration;
 import org.apache.commons.vfs2.AllFileSelector;
@@ -30,6 +34,7 @@ import org.testng.annotations.*;
 
 import javax.persistence.criteria.CriteriaQuery;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -57,6 +62,8 @@ public class PersistenceTest {
         ElementsThreadLocals.destroy();
     }*/
 
+    protected CodeBase codeBase;
+
     @BeforeMethod
     public void setup() throws Exception {
         FileObject appDir = VFS.getManager().resolveFile("res:com/manydesigns/portofino/database/model");
@@ -74,11 +81,17 @@ public class PersistenceTest {
                     subscription.dispose();
                     subscription = null;
                 }
+                if(codeReloads != null) {
+                    codeReloads.dispose();
+                    codeReloads = null;
+                }
             }
         };
         databaseModule.applicationDirectory = appDir;
         databaseModule.configuration = configuration;
-        persistence = databaseModule.getPersistence(databasePlatformsRegistry, new CacheResetListenerRegistry());
+        codeBase = new AggregateCodeBase(null, getClass().getClassLoader());
+        persistence = databaseModule.getPersistence(
+                databasePlatformsRegistry, new CacheResetListenerRegistry(), codeBase);
         databaseModule.init();
         persistence.start();
         setupJPetStore();
@@ -153,6 +166,73 @@ public class PersistenceTest {
         assertEquals("prodotti", 16, sizePrd);
     }
 
+    public void testWindowedTotalCount() {
+        ConnectionProvider connectionProvider = persistence.getConnectionProvider("jpetstore");
+        assertTrue(connectionProvider.getDatabasePlatform().isWindowedCountSupported(connectionProvider));
+        Session session = persistence.getSession("jpetstore");
+        String queryString = QueryUtils.addTotalCount("from product p where p.category = 'FISH' order by p.productid");
+        assertEquals(
+                "SELECT p, portofino_total_count() FROM product p WHERE p.category = 'FISH' ORDER BY p.productid",
+                queryString);
+        List<Object> page = QueryUtils.runHqlQuery(session, queryString, null, 1, 2);
+        assertEquals(2, page.size());
+        for(Object row : page) {
+            assertEquals("FISH", get(((Object[]) row)[0], "category"));
+            assertEquals(4L, ((Number) ((Object[]) row)[1]).longValue());
+        }
+        assertNull(QueryUtils.addTotalCount("select distinct p.category from product p"));
+        assertNull(QueryUtils.addTotalCount("from product, category"));
+    }
+
+    public void testPooledConnectionProvider() throws Exception {
+        JdbcConnectionProvider connectionProvider =
+                (JdbcConnectionProvider) persistence.getConnectionProvider("jpetstore");
+        assertNull(connectionProvider.getConnectionPool());
+        connectionProvider.setPooled(true);
+        connectionProvider.setMaxPoolSize(5);
+        persistence.initModel();
+        ConnectionPool pool = connectionProvider.getConnectionPool();
+        assertNotNull(pool);
+        assertEquals(5, pool.getMaxSize());
+
+        Session session = persistence.getSession("jpetstore");
+        CriteriaQuery criteria = QueryUtils.createCriteria(session,"product").query;
+        assertEquals(16, session.createQuery(criteria).list().size());
+        assertTrue(pool.getAcquiredConnections() > 0);
+        //c3p0 checks connections out and in asynchronously, so the counts are only eventually exact
+        assertTrue(pool.getActiveConnections() >= 1);
+        persistence.closeSession("jpetstore");
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pool.getActiveConnections() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(0, pool.getActiveConnections());
+
+        //Reinitializing with the same settings keeps the pool that Hibernate is using
+        persistence.initModel();
+        assertSame(pool, connectionProvider.getConnectionPool());
+
+        //Reinitializing only the connection provider (e.g. testing the connection upstairs) doesn't close the pool
+        //under the live SessionFactory
+        connectionProvider.setPooled(false);
+        connectionProvider.init(persistence.getDatabasePlatformsRegistry());
+        assertNull(connectionProvider.getConnectionPool());
+        session = persistence.getSession("jpetstore");
+        criteria = QueryUtils.createCriteria(session,"product").query;
+        assertEquals(16, session.createQuery(criteria).list().size());
+        persistence.closeSession("jpetstore");
+
+        //Once the SessionFactory has been replaced, the old pool is closed
+        persistence.initModel();
+        assertNull(connectionProvider.getConnectionPool());
+        try {
+            pool.getConnection().close();
+            fail("The pool should have been closed");
+        } catch (SQLException e) {
+            //Expected
+        }
+    }
+
     public void testSearchAndReadCategorieProdotti() {
         Session session = persistence.getSession("jpetstore");
         CriteriaQuery criteria = QueryUtils.createCriteria(session,"category").query;
@@ -294,6 +374,10 @@ public class PersistenceTest {
         Object bird =  QueryUtils.getObjectByPk
                 (persistence, "jpetstore", "category", makeEntity("jpetstore.public.Category", pk));
         assertEquals("Birds", get(bird, "name"));
+        if(bird instanceof Map) {
+            //Dynamic-map entities with a single key are compact rows
+            assertTrue(bird instanceof EntityRow);
+        }
 
         //Test Chiave composta
         pk = new HashMap<>();
@@ -557,6 +641,38 @@ public class PersistenceTest {
         assertEquals(2, list.size());
     }
 
+    public void testTableAccessorsAreShared() {
+        Table table = DatabaseLogic.findTableByName(persistence.getModel(), "jpetstore", "PUBLIC", "PRODUCT");
+        TableAccessor accessor = persistence.getTableAccessor("jpetstore", "product");
+        assertSame(persistence.getTableAccessor("jpetstore", "product"), accessor);
+        assertSame(persistence.getTableAccessor(table), accessor);
+
+        View view = (View) DatabaseLogic.findTableByName(
+                persistence.getModel(), "hibernatetest", "PUBLIC", "TEST_VIEW_1");
+        TableAccessor viewAccessor = persistence.getTableAccessor(view);
+        assertTrue(viewAccessor instanceof ViewAccessor);
+        assertSame(persistence.getTableAccessor(view), viewAccessor);
+
+        //Tables that are not part of the current setup get a new accessor on each call
+        Table newTable = new Table(table.getSchema());
+        newTable.setTableName("NEW_TABLE");
+        assertNotSame(persistence.getTableAccessor(newTable), persistence.getTableAccessor(newTable));
+
+        //Reloading application code replaces the accessors
+        codeBase.getReloads().onNext(TableAccessor.class);
+        TableAccessor reloadedAccessor = persistence.getTableAccessor("jpetstore", "product");
+        assertNotSame(reloadedAccessor, accessor);
+        assertSame(persistence.getTableAccessor("jpetstore", "product"), reloadedAccessor);
+        assertSame(persistence.getTableAccessor(table), reloadedAccessor);
+
+        //Reinitializing the model replaces the accessors
+        persistence.initModel();
+        TableAccessor newAccessor = persistence.getTableAccessor("jpetstore", "product");
+        assertNotSame(newAccessor, reloadedAccessor);
+        assertSame(persistence.getTableAccessor("jpetstore", "product"), newAccessor);
+        assertSame(persistence.getTableAccessor(table), newAccessor);
+    }
+
     public void testAnnotations() {
         Session session = persistence.getSession("hibernatetest");
         try {
@@ -613,4 +729,58 @@ public class PersistenceTest {
         }
     }
 
+    public void testConcurrentStartup() throws Exception {
+        persistence.stop();
+        FileObject modelSource = VFS.getManager().resolveFile("res:com/manydesigns/portofino/database/model");
+        FileObject appDir = VFS.getManager().resolveFile("ram:/portofino");
+        appDir.createFolder();
+        try {
+            appDir.copyFrom(modelSource, new AllFileSelector());
+            setup(appDir);
+            persistence.saveXmlModel();
+            databaseModule.configuration.setProperty(DatabaseModule.STARTUP_THREADS, 4);
+            List<String> events = new ArrayList<>();
+            persistence.databaseSetupEvents.subscribe(e -> {
+                if(e.type == Persistence.DatabaseSetupEvent.ADDED) {
+                    events.add(e.setup.getDatabase().getDatabaseName());
+                }
+            });
+            persistence.loadXmlModel();
+            //Setups are registered, and their events published, in model order
+            List<String> databaseNames = new ArrayList<>();
+            for(Database database : persistence.getModel().getDatabases()) {
+                databaseNames.add(database.getDatabaseName());
+                assertNotNull(persistence.getDatabaseSetup(database.getDatabaseName()));
+            }
+            assertEquals(databaseNames.size(), 2);
+            assertEquals(events, databaseNames);
+            //Tables are added in file order
+            Schema schema = DatabaseLogic.findSchemaByName(persistence.getModel(), "jpetstore", "PUBLIC");
+            List<String> tableFiles = new ArrayList<>();
+            for(FileObject tableFile : appDir.resolveFile("portofino-model/jpetstore/PUBLIC").getChildren()) {
+                tableFiles.add(tableFile.getName().getBaseName());
+            }
+            List<String> tables = new ArrayList<>();
+            for(Table table : schema.getTables()) {
+                tables.add(table.getTableName() + ".table.xml");
+            }
+            assertFalse(tables.isEmpty());
+            assertEquals(tables, tableFiles);
+            persistence.getSession("jpetstore").createQuery("from product").list();
+
+            //A malformed table file fails the whole load
+            events.clear();
+            FileObject tableFile = appDir.resolveFile("portofino-model/jpetstore/PUBLIC/" + tableFiles.get(0));
+            try(OutputStream outputStream = tableFile.getContent().getOutputStream()) {
+                outputStream.write("<table".getBytes());
+            }
+            persistence.loadXmlModel();
+            assertTrue(events.isEmpty());
+            schema = DatabaseLogic.findSchemaByName(persistence.getModel(), "jpetstore", "PUBLIC");
+            assertTrue(schema.getTables().isEmpty());
+        } finally {
+            appDir.deleteAll();
+        }
+    }
+
 }
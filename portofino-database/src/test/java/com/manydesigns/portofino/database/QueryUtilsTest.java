@@ -3,47 +3,26 @@ package com.manydesigns.portofino.database;
 import com.manydesigns.elements.text.QueryStringWithParameters;
 import com.manydesigns.portofino.model.Model;
 import com.manydesigns.portofino.model.database.*;
+import com.manydesigns.portofino.persistence.QueryCache;
 import com.manydesigns.portofino.persistence.QueryUtils;
 import com.manydesigns.portofino.persistence.TableCriteria;
 import com.manydesigns.portofino.reflection.TableAccessor;
+import net.sf.jsqlparser.statement.select.PlainSelect;
 import org.apache.commons.configuration2.PropertiesConfiguration;
 import org.testng.annotations.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
 import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
 
 @Test
 public class QueryUtilsTest {
 
     public void testMergeQueryWithAlias() throws NoSuchFieldException {
-        Model model = new Model();
-
-        Database database = new Database();
-        database.setDatabaseName("db");
-        model.getDatabases().add(database);
-
-        Schema schema = new Schema(database);
-        schema.setSchemaName("schema");
-        database.getSchemas().add(schema);
-
-        Table table = new Table(schema);
-        table.setTableName("test_table");
-        schema.getTables().add(table);
-
-        Column column = new Column(table);
-        column.setColumnName("column1");
-        column.setColumnType("varchar");
-        column.setLength(10);
-        column.setScale(0);
-        table.getColumns().add(column);
-
-        PrimaryKey primaryKey = new PrimaryKey(table);
-        PrimaryKeyColumn pkColumn = new PrimaryKeyColumn(primaryKey);
-        primaryKey.getPrimaryKeyColumns().add(pkColumn);
-        pkColumn.setColumnName("column1");
-        table.setPrimaryKey(primaryKey);
-
-        model.init(new PropertiesConfiguration());
-
+        Table table = createTestTable();
         TableAccessor tableAccessor = new TableAccessor(table);
 
         TableCriteria criteria = new TableCriteria(table);
@@ -101,4 +80,166 @@ public class QueryUtilsTest {
         assertEquals("SELECT t, u FROM test_table t, other x WHERE (t.foo = x.bar) AND t.column1 = :p1", queryStringWithParameters.getQueryString());
     }
 
+    public void testMergeQueryIsCached() throws NoSuchFieldException {
+        Table table = createTestTable();
+        TableAccessor tableAccessor = new TableAccessor(table);
+        QueryCache.clear();
+        long parsedMisses = QueryCache.getParsedQueryStats().missCount();
+        long derivedMisses = QueryCache.getDerivedQueryStats().missCount();
+
+        TableCriteria criteria = new TableCriteria(table);
+        criteria.eq(tableAccessor.getProperty("column1"), "123");
+        QueryStringWithParameters queryStringWithParameters =
+                QueryUtils.mergeQuery("from test_table t where t.foo = 1", criteria, null);
+        assertEquals("FROM test_table t WHERE (t.foo = 1) AND t.column1 = :p1", queryStringWithParameters.getQueryString());
+        assertEquals("123", queryStringWithParameters.getParameters()[0]);
+
+        criteria = new TableCriteria(table);
+        criteria.eq(tableAccessor.getProperty("column1"), "456");
+        queryStringWithParameters =
+                QueryUtils.mergeQuery("from test_table t where t.foo = 1", criteria, null);
+        assertEquals("FROM test_table t WHERE (t.foo = 1) AND t.column1 = :p1", queryStringWithParameters.getQueryString());
+        assertEquals("456", queryStringWithParameters.getParameters()[0]);
+        assertEquals(parsedMisses + 1, QueryCache.getParsedQueryStats().missCount());
+        assertEquals(derivedMisses + 1, QueryCache.getDerivedQueryStats().missCount());
+
+        //Same base query, different criteria: the parsed query is reused, the merged one is not
+        queryStringWithParameters =
+                QueryUtils.mergeQuery("from test_table t where t.foo = 1", new TableCriteria(table), null);
+        assertEquals("FROM test_table t WHERE t.foo = 1", queryStringWithParameters.getQueryString());
+        assertEquals(parsedMisses + 1, QueryCache.getParsedQueryStats().missCount());
+        assertEquals(derivedMisses + 2, QueryCache.getDerivedQueryStats().missCount());
+    }
+
+    public void testParsedQueryCopies() throws Exception {
+        String query = "select distinct t.a from test_table t join t.other o where t.foo = 1 " +
+                "group by t.a having count(t.b) > 1 order by t.a";
+        QueryCache.ParsedQuery parsedQuery = new QueryCache.ParsedQuery(query);
+        PlainSelect copy = parsedQuery.newSelect();
+        assertEquals(parsedQuery.newSelect().toString(), copy.toString());
+        assertEquals(
+                "SELECT DISTINCT t.a FROM test_table t JOIN t.other o WHERE t.foo = 1 " +
+                "GROUP BY t.a HAVING count(t.b) > 1 ORDER BY t.a",
+                copy.toString());
+        //Changing a copy leaves the parsed query alone
+        copy.setWhere(null);
+        copy.getOrderByElements().clear();
+        assertEquals(
+                "SELECT DISTINCT t.a FROM test_table t JOIN t.other o WHERE t.foo = 1 " +
+                "GROUP BY t.a HAVING count(t.b) > 1 ORDER BY t.a",
+                parsedQuery.newSelect().toString());
+    }
+
+    public void testMergeQueryWithSeek() throws NoSuchFieldException {
+        Table table = createTestTable();
+        TableAccessor tableAccessor = new TableAccessor(table);
+
+        TableCriteria criteria = new TableCriteria(table);
+        criteria.seek(tableAccessor.getKeyProperties(), null, false);
+        QueryStringWithParameters queryStringWithParameters =
+                QueryUtils.mergeQuery("from test_table t order by t.column2", criteria, null);
+        assertEquals("FROM test_table t ORDER BY t.column1", queryStringWithParameters.getQueryString());
+
+        criteria = new TableCriteria(table);
+        criteria.orderBy(tableAccessor.getProperty("column2"), "desc");
+        criteria.seek(tableAccessor.getKeyProperties(), new Object[] { "b", "a" }, false);
+        queryStringWithParameters =
+                QueryUtils.mergeQuery("from test_table t where t.foo = 1", criteria, null);
+        assertEquals(
+                "FROM test_table t WHERE (t.foo = 1) AND (t.column2 < :p1 OR (t.column2 = :p1 AND t.column1 > :p2)) " +
+                "ORDER BY t.column2 DESC, t.column1", queryStringWithParameters.getQueryString());
+        assertEquals(2, queryStringWithParameters.getParameters().length);
+        assertEquals("b", queryStringWithParameters.getParameters()[0]);
+        assertEquals("a", queryStringWithParameters.getParameters()[1]);
+
+        criteria = new TableCriteria(table);
+        criteria.orderBy(tableAccessor.getProperty("column2"), "desc");
+        criteria.seek(tableAccessor.getKeyProperties(), new Object[] { "b", "a" }, true);
+        queryStringWithParameters =
+                QueryUtils.mergeQuery("from test_table t where t.foo = 1", criteria, null);
+        assertEquals(
+                "FROM test_table t WHERE (t.foo = 1) AND (t.column2 > :p1 OR (t.column2 = :p1 AND t.column1 < :p2)) " +
+                "ORDER BY t.column2, t.column1 DESC", queryStringWithParameters.getQueryString());
+    }
+
+    public void testMergeQueryWithWordStartsWith() throws NoSuchFieldException {
+        Table table = createTestTable();
+        TableAccessor tableAccessor = new TableAccessor(table);
+        TableCriteria criteria = new TableCriteria(table);
+        criteria.wordStartsWith(tableAccessor.getProperty("column2"), "Foo");
+        QueryStringWithParameters queryStringWithParameters =
+                QueryUtils.mergeQuery("from test_table t", criteria, null);
+        assertEquals(
+                "FROM test_table t WHERE (lower(t.column2) LIKE :p1 OR lower(t.column2) LIKE :p2)",
+                queryStringWithParameters.getQueryString());
+        assertEquals("foo%", queryStringWithParameters.getParameters()[0]);
+        assertEquals("% foo%", queryStringWithParameters.getParameters()[1]);
+    }
+
+    public void testEntityNamesFromQueryString() {
+        Model model = new Model();
+        Database database = new Database();
+        database.setDatabaseName("db");
+        model.getDatabases().add(database);
+        Schema schema = new Schema(database);
+        schema.setSchemaName("schema");
+        database.getSchemas().add(schema);
+        for (String tableName : new String[] { "test_table", "other" }) {
+            Table table = new Table(schema);
+            table.setTableName(tableName);
+            schema.getTables().add(table);
+        }
+        model.init(new PropertiesConfiguration());
+
+        assertEquals(Collections.singleton("test_table"),
+                QueryUtils.getEntityNamesFromQueryString(database, "from test_table t where t.column1 = 'other'"));
+        assertEquals(new HashSet<>(Arrays.asList("test_table", "other")),
+                QueryUtils.getEntityNamesFromQueryString(database, "from test_table t, other o where t.foo = o.bar"));
+        assertEquals(new HashSet<>(Arrays.asList("test_table", "other")),
+                QueryUtils.getEntityNamesFromQueryString(
+                        database, "from test_table t where exists (from other o where o.x = %{#p.other})"));
+        //Associations may lead to entities that the query doesn't name
+        assertNull(QueryUtils.getEntityNamesFromQueryString(database, "from test_table t join t.other o"));
+        assertNull(QueryUtils.getEntityNamesFromQueryString(database, "from test_table t where t.other.x = 1"));
+    }
+
+    protected Table createTestTable() {
+        Model model = new Model();
+
+        Database database = new Database();
+        database.setDatabaseName("db");
+        model.getDatabases().add(database);
+
+        Schema schema = new Schema(database);
+        schema.setSchemaName("schema");
+        database.getSchemas().add(schema);
+
+        Table table = new Table(schema);
+        table.setTableName("test_table");
+        schema.getTables().add(table);
+
+        Column column = new Column(table);
+        column.setColumnName("column1");
+        column.setColumnType("varchar");
+        column.setLength(10);
+        column.setScale(0);
+        table.getColumns().add(column);
+
+        column = new Column(table);
+        column.setColumnName("column2");
+        column.setColumnType("varchar");
+        column.setLength(10);
+        column.setScale(0);
+        table.getColumns().add(column);
+
+        PrimaryKey primaryKey = new PrimaryKey(table);
+        PrimaryKeyColumn pkColumn = new PrimaryKeyColumn(primaryKey);
+        primaryKey.getPrimaryKeyColumns().add(pkColumn);
+        pkColumn.setColumnName("column1");
+        table.setPrimaryKey(primaryKey);
+
+        model.init(new PropertiesConfiguration());
+        return table;
+    }
+
 }
@@ -27,6 +27,7 @@ import org.apache.commons.lang.StringUtils;
 import org.testng.annotations.Test;
 
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
 import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.Assert.assertNotNull;
 
@@ -230,4 +231,68 @@ public class TableTest {
         assertFalse(StringUtils.equals(column.getActualPropertyName(), fk.getActualOnePropertyName()));
         assertFalse(StringUtils.equals(column3.getActualPropertyName(), fk.getActualManyPropertyName()));
     }
+
+    public void testNameIndexes() {
+        Model model = new Model();
+        Database db = new Database();
+        db.setDatabaseName("portofino");
+        db.setConnectionProvider(new JdbcConnectionProvider());
+        Schema schema = new Schema();
+        schema.setDatabase(db);
+        db.getSchemas().add(schema);
+        schema.setSchemaName("meta");
+        for(int i = 0; i < 10; i++) {
+            Table table = new Table();
+            table.setSchema(schema);
+            table.setTableName("Table_" + i);
+            schema.getTables().add(table);
+            Column column = new Column();
+            column.setTable(table);
+            column.setColumnName("Column_" + i);
+            column.setColumnType("varchar");
+            column.setLength(0);
+            column.setScale(0);
+            table.getColumns().add(column);
+        }
+        model.getDatabases().add(db);
+        model.init(new PropertiesConfiguration());
+
+        assertEquals(db, DatabaseLogic.findDatabaseByName(model, "portofino"));
+        assertEquals(schema, DatabaseLogic.findSchemaByNameIgnoreCase(db, "META"));
+        Table table = DatabaseLogic.findTableByName(schema, "Table_5");
+        assertEquals(schema.getTables().get(5), table);
+        assertEquals(table, DatabaseLogic.findTableByNameIgnoreCase(schema, "TABLE_5"));
+        assertEquals(table, DatabaseLogic.findTableByEntityName(db, table.getActualEntityName()));
+        Column column = table.getColumns().get(0);
+        assertEquals(column, DatabaseLogic.findColumnByName(table, "Column_5"));
+        assertEquals(column, DatabaseLogic.findColumnByNameIgnoreCase(table, "column_5"));
+        assertEquals(column, DatabaseLogic.findColumnByPropertyName(table, column.getActualPropertyName()));
+        assertNull(DatabaseLogic.findTableByName(schema, "TABLE_5"));
+
+        //Changes made after the model has been initialized are still seen
+        table.setTableName("Renamed");
+        assertNull(DatabaseLogic.findTableByName(schema, "Table_5"));
+        assertEquals(table, DatabaseLogic.findTableByName(schema, "Renamed"));
+        schema.getTables().remove(table);
+        assertNull(DatabaseLogic.findTableByName(schema, "Renamed"));
+        Table added = new Table();
+        added.setSchema(schema);
+        added.setTableName("Added");
+        schema.getTables().add(added);
+        assertEquals(added, DatabaseLogic.findTableByName(schema, "Added"));
+
+        //A table removed and replaced by another one with the same name, so the number of tables doesn't change
+        Table removed = DatabaseLogic.findTableByName(schema, "Table_7");
+        String entityName = removed.getActualEntityName();
+        assertEquals(removed, DatabaseLogic.findTableByEntityName(db, entityName));
+        schema.getTables().remove(removed);
+        Table replacement = new Table();
+        replacement.setSchema(schema);
+        replacement.setTableName("Table_7");
+        schema.getTables().add(replacement);
+        assertEquals(replacement, DatabaseLogic.findTableByName(schema, "Table_7"));
+        assertEquals(replacement, DatabaseLogic.findTableByNameIgnoreCase(schema, "TABLE_7"));
+        //The replacement has not been initialized, so it has no entity name yet
+        assertNull(DatabaseLogic.findTableByEntityName(db, entityName));
+    }
 }
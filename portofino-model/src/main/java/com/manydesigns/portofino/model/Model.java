@@ -20,7 +20,9 @@
 
 package com.manydesigns.portofino.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.manydesigns.portofino.model.database.Database;
+import com.manydesigns.portofino.model.database.NameIndex;
 import org.apache.commons.configuration2.Configuration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,6 +47,7 @@ public class Model {
     //**************************************************************************
 
     protected final LinkedList<Database> databases;
+    protected NameIndex<Database> databaseIndex;
 
     public static final Logger logger = LoggerFactory.getLogger(Model.class);
 
@@ -61,12 +64,16 @@ public class Model {
     //**************************************************************************
 
     public void init(Configuration configuration) {
+        databaseIndex = new NameIndex<>(databases, Database::getDatabaseName);
         for (Database database : databases) {
             init(database, configuration);
         }
     }
 
     public void init(ModelObject rootObject, Configuration configuration) {
+        if(databaseIndex == null || !databaseIndex.isCurrent(databases.size())) {
+            databaseIndex = new NameIndex<>(databases, Database::getDatabaseName);
+        }
         new ResetVisitor().visit(rootObject);
         new InitVisitor(this, configuration).visit(rootObject);
         new LinkVisitor(this, configuration).visit(rootObject);
@@ -83,4 +90,12 @@ public class Model {
         return databases;
     }
 
+    /**
+     * @return the index of the databases by name, built when the model is initialized, or null if it's never been.
+     */
+    @JsonIgnore
+    public NameIndex<Database> getDatabaseIndex() {
+        return databaseIndex;
+    }
+
 }
@@ -0,0 +1,267 @@
+/*
+ * Copyright (C) 2005-2020 ManyDesigns srl.  All rights reserved.
+ * http://www.manydesigns.com/
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package com.manydesigns.portofino.model.database;
+
+import com.mchange.v2.c3p0.ComboPooledDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.beans.PropertyVetoException;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of JDBC connections owned by a {@link JdbcConnectionProvider}. Every component that needs a connection
+ * to the database (Hibernate, the database syncer, the administration actions, multi-tenancy) borrows it from the
+ * same pool. The pool is backed by c3p0 and records the time spent waiting for a connection, so that it can be
+ * monitored together with the number of active and idle connections.
+ */
+public class ConnectionPool implements DataSource, AutoCloseable {
+    public static final String copyright =
+            "Copyright (C) 2005-2020 ManyDesigns srl";
+
+    public static final Logger logger = LoggerFactory.getLogger(ConnectionPool.class);
+
+    protected final ComboPooledDataSource dataSource;
+
+    protected final AtomicLong acquiredConnections = new AtomicLong();
+    protected final AtomicLong totalWaitTimeNanos = new AtomicLong();
+    protected final AtomicLong maxWaitTimeNanos = new AtomicLong();
+
+    public ConnectionPool(String name, String driver, String url, String username, String password) {
+        dataSource = new ComboPooledDataSource(name);
+        if(driver != null) {
+            try {
+                dataSource.setDriverClass(driver);
+            } catch (PropertyVetoException e) {
+                throw new IllegalArgumentException("Invalid JDBC driver: " + driver, e);
+            }
+        }
+        dataSource.setJdbcUrl(url);
+        dataSource.setUser(username);
+        dataSource.setPassword(password);
+    }
+
+    //**************************************************************************
+    // Configuration
+    //**************************************************************************
+
+    public void setMinSize(int minSize) {
+        dataSource.setMinPoolSize(minSize);
+        dataSource.setInitialPoolSize(minSize);
+    }
+
+    public void setMaxSize(int maxSize) {
+        dataSource.setMaxPoolSize(maxSize);
+    }
+
+    /**
+     * @param seconds how long a connection can stay unused in the pool before it's closed.
+     */
+    public void setIdleTimeout(int seconds) {
+        dataSource.setMaxIdleTime(seconds);
+    }
+
+    /**
+     * Validate connections with the given query when they're returned to the pool and periodically while idle.
+     * @param validationQuery the query to run.
+     * @param testPeriod how often (in seconds) idle connections are tested.
+     */
+    public void setValidationQuery(String validationQuery, int testPeriod) {
+        dataSource.setPreferredTestQuery(validationQuery);
+        dataSource.setTestConnectionOnCheckin(true);
+        dataSource.setIdleConnectionTestPeriod(testPeriod);
+    }
+
+    /**
+     * @param seconds after how long a borrowed connection is considered leaked. It's then forcibly closed and the
+     *                stack trace of the code that borrowed it is logged.
+     */
+    public void setLeakDetectionThreshold(int seconds) {
+        dataSource.setUnreturnedConnectionTimeout(seconds);
+        dataSource.setDebugUnreturnedConnectionStackTraces(seconds > 0);
+    }
+
+    /**
+     * @param size the number of prepared statements to cache for each connection.
+     */
+    public void setStatementCacheSize(int size) {
+        dataSource.setMaxStatementsPerConnection(size);
+    }
+
+    //**************************************************************************
+    // DataSource implementation
+    //**************************************************************************
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = dataSource.getConnection();
+        recordWaitTime(System.nanoTime() - start);
+        return connection;
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = dataSource.getConnection(username, password);
+        recordWaitTime(System.nanoTime() - start);
+        return connection;
+    }
+
+    protected void recordWaitTime(long nanos) {
+        acquiredConnections.incrementAndGet();
+        totalWaitTimeNanos.addAndGet(nanos);
+        maxWaitTimeNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return dataSource.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        dataSource.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        dataSource.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return dataSource.getLoginTimeout();
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return dataSource.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if(iface.isInstance(this)) {
+            return iface.cast(this);
+        } else if(iface.isInstance(dataSource)) {
+            return iface.cast(dataSource);
+        }
+        throw new SQLException("Not a wrapper for " + iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this) || iface.isInstance(dataSource);
+    }
+
+    @Override
+    public void close() {
+        logger.info("Closing connection pool {}", dataSource.getDataSourceName());
+        dataSource.close();
+    }
+
+    //**************************************************************************
+    // Metrics
+    //**************************************************************************
+
+    public int getActiveConnections() throws SQLException {
+        return dataSource.getNumBusyConnectionsAllUsers();
+    }
+
+    public int getIdleConnections() throws SQLException {
+        return dataSource.getNumIdleConnectionsAllUsers();
+    }
+
+    public int getThreadsAwaitingConnection() throws SQLException {
+        return dataSource.getNumThreadsAwaitingCheckoutDefaultUser();
+    }
+
+    public long getAcquiredConnections() {
+        return acquiredConnections.get();
+    }
+
+    public double getAverageWaitTimeMillis() {
+        long acquired = acquiredConnections.get();
+        if(acquired == 0) {
+            return 0;
+        }
+        return (double) totalWaitTimeNanos.get() / acquired / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public double getMaxWaitTimeMillis() {
+        return (double) maxWaitTimeNanos.get() / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public int getMinSize() {
+        return dataSource.getMinPoolSize();
+    }
+
+    public int getMaxSize() {
+        return dataSource.getMaxPoolSize();
+    }
+
+    //**************************************************************************
+    // Settings
+    //**************************************************************************
+
+    /**
+     * @return whether this pool connects to the given database with the given credentials.
+     */
+    public boolean connectsTo(String driver, String url, String username, String password) {
+        return (driver == null || driver.equals(dataSource.getDriverClass())) &&
+               Objects.equals(url, dataSource.getJdbcUrl()) &&
+               Objects.equals(username, dataSource.getUser()) &&
+               Objects.equals(password, dataSource.getPassword());
+    }
+
+    public int getIdleTimeout() {
+        return dataSource.getMaxIdleTime();
+    }
+
+    public String getValidationQuery() {
+        return dataSource.getPreferredTestQuery();
+    }
+
+    public int getLeakDetectionThreshold() {
+        return dataSource.getUnreturnedConnectionTimeout();
+    }
+
+    public int getStatementCacheSize() {
+        return dataSource.getMaxStatementsPerConnection();
+    }
+
+    @Override
+    public String toString() {
+        try {
+            return dataSource.getDataSourceName() + " (active: " + getActiveConnections() +
+                    ", idle: " + getIdleConnections() + ", average wait: " + getAverageWaitTimeMillis() + " ms)";
+        } catch (SQLException e) {
+            return dataSource.getDataSourceName();
+        }
+    }
+}
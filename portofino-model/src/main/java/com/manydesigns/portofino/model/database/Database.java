@@ -61,6 +61,10 @@ public class Database implements ModelObject, Annotated {
     protected ConnectionProvider connectionProvider;
     protected Properties settings;
     protected final List<Annotation> annotations = new ArrayList<>();
+
+    //Indexes for DatabaseLogic, built when the database is linked, i.e. after all its objects have been initialized
+    protected NameIndex<Schema> schemaIndex;
+    protected NameIndex<Table> entityIndex;
     
     //**************************************************************************
     // Logging
@@ -89,6 +93,8 @@ public class Database implements ModelObject, Annotated {
         for(Annotation a : annotations) {
             a.reset();
         }
+        schemaIndex = null;
+        entityIndex = null;
     }
 
     public void init(Model model, Configuration configuration) {
@@ -107,6 +113,17 @@ public class Database implements ModelObject, Annotated {
         for(Annotation a : annotations) {
             a.link(model, configuration);
         }
+        buildIndexes();
+    }
+
+    protected void buildIndexes() {
+        schemaIndex = new NameIndex<>(schemas, Schema::getSchemaName);
+        List<Table> tables = new ArrayList<>();
+        for (Schema schema : schemas) {
+            schema.buildIndexes();
+            tables.addAll(schema.getTables());
+        }
+        entityIndex = new NameIndex<>(tables, Table::getActualEntityName);
     }
 
     public void visitChildren(ModelObjectVisitor visitor) {
@@ -31,6 +31,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
 
 /**
  * @author Paolo Predonzani     - paolo.predonzani@manydesigns.com
@@ -104,22 +105,45 @@ public class DatabaseLogic {
     // Search objects of a certain kind
     //**************************************************************************
 
-    public static @Nullable Database findDatabaseByName(Model model, String databaseName) {
-        for (Database database : model.getDatabases()) {
-            if (database.getDatabaseName().equals(databaseName)) {
-                return database;
+    /**
+     * Finds an object by name using an index built when the model was initialized; if the index is missing or out
+     * of date, or the object is not in it (e.g. it's been added, replaced or renamed since), falls back to a linear
+     * search.
+     */
+    protected static @Nullable <T> T find(
+            @Nullable NameIndex<T> index, List<T> objects, Function<T, String> naming,
+            String name, boolean ignoreCase) {
+        if (index != null && index.isCurrent(objects.size())) {
+            T object = ignoreCase ? index.getIgnoreCase(name, objects) : index.get(name, objects);
+            if (object != null) {
+                return object;
             }
         }
+        for (T object : objects) {
+            String objectName = naming.apply(object);
+            if (ignoreCase ? objectName.equalsIgnoreCase(name) : objectName.equals(name)) {
+                return object;
+            }
+        }
+        return null;
+    }
+
+    public static @Nullable Database findDatabaseByName(Model model, String databaseName) {
+        Database database = find(
+                model.getDatabaseIndex(), model.getDatabases(), Database::getDatabaseName, databaseName, false);
+        if (database != null) {
+            return database;
+        }
         logger.debug("Database not found: {}", databaseName);
         return null;
     }
 
     public static @Nullable Schema findSchemaByName(
             Database database, String schemaName) {
-        for (Schema schema : database.getSchemas()) {
-            if (schema.getSchemaName().equals(schemaName)) {
-                return schema;
-            }
+        Schema schema = find(
+                database.schemaIndex, database.getSchemas(), Schema::getSchemaName, schemaName, false);
+        if (schema != null) {
+            return schema;
         }
         logger.debug("Schema not found: {}", schemaName);
         return null;
@@ -127,10 +151,10 @@ public class DatabaseLogic {
 
     public static @Nullable Schema findSchemaByNameIgnoreCase(
             Database database, String schemaName) {
-        for (Schema schema : database.getSchemas()) {
-            if (schema.getSchemaName().equalsIgnoreCase(schemaName)) {
-                return schema;
-            }
+        Schema schema = find(
+                database.schemaIndex, database.getSchemas(), Schema::getSchemaName, schemaName, true);
+        if (schema != null) {
+            return schema;
         }
         logger.debug("Schema not found: {}", schemaName);
         return null;
@@ -156,20 +180,18 @@ public class DatabaseLogic {
     }
 
     public static @Nullable Table findTableByName(Schema schema, String tableName) {
-        for (Table table : schema.getTables()) {
-            if (table.getTableName().equals(tableName)) {
-                return table;
-            }
+        Table table = find(schema.tableIndex, schema.getTables(), Table::getTableName, tableName, false);
+        if (table != null) {
+            return table;
         }
         logger.debug("Table {} not found in {}", tableName, schema);
         return null;
     }
 
     public static @Nullable Table findTableByNameIgnoreCase(Schema schema, String tableName) {
-        for (Table table : schema.getTables()) {
-            if (table.getTableName().equalsIgnoreCase(tableName)) {
-                return table;
-            }
+        Table table = find(schema.tableIndex, schema.getTables(), Table::getTableName, tableName, true);
+        if (table != null) {
+            return table;
         }
         logger.debug("Table {} not found in {}", tableName, schema);
         return null;
@@ -177,10 +199,9 @@ public class DatabaseLogic {
 
     public static @Nullable Column findColumnByName(
             Table table, String columnName) {
-        for (Column column : table.getColumns()) {
-            if (column.getColumnName().equals(columnName)) {
-                return column;
-            }
+        Column column = find(table.columnIndex, table.getColumns(), Column::getColumnName, columnName, false);
+        if (column != null) {
+            return column;
         }
         logger.debug("Column {} not found in {}", columnName, table);
         return null;
@@ -188,20 +209,19 @@ public class DatabaseLogic {
 
     public static @Nullable Column findColumnByNameIgnoreCase(
             Table table, String columnName) {
-        for (Column column : table.getColumns()) {
-            if (column.getColumnName().equalsIgnoreCase(columnName)) {
-                return column;
-            }
+        Column column = find(table.columnIndex, table.getColumns(), Column::getColumnName, columnName, true);
+        if (column != null) {
+            return column;
         }
         logger.debug("Column {} not found in {}", columnName, table);
         return null;
     }
 
     public static Column findColumnByPropertyName(Table table, String propertyName) {
-        for (Column column : table.getColumns()) {
-            if (column.getActualPropertyName().equals(propertyName)) {
-                return column;
-            }
+        Column column = find(
+                table.propertyIndex, table.getColumns(), Column::getActualPropertyName, propertyName, false);
+        if (column != null) {
+            return column;
         }
         logger.debug("Property {} not found in {}", propertyName, table);
         return null;
@@ -211,10 +231,9 @@ public class DatabaseLogic {
             Model model, String databaseName, String schemaName, String tableName, String columnName) {
         Table table = findTableByName(model, databaseName, schemaName, tableName);
         if (table != null) {
-            for (Column column : table.getColumns()) {
-                if (column.getColumnName().equals(columnName)) {
-                    return column;
-                }
+            Column column = find(table.columnIndex, table.getColumns(), Column::getColumnName, columnName, false);
+            if (column != null) {
+                return column;
             }
         }
         logger.debug("Column not found: {}", columnName);
@@ -236,6 +255,20 @@ public class DatabaseLogic {
     }
 
     public static Table findTableByEntityName(Database database, String entityName) {
+        NameIndex<Table> index = database.entityIndex;
+        if(index != null) {
+            int tableCount = 0;
+            for(Schema schema : database.getSchemas()) {
+                tableCount += schema.getTables().size();
+            }
+            if(index.isCurrent(tableCount)) {
+                Table table = index.get(entityName);
+                //The table may have been removed since, and replaced by another one with the same name
+                if(table != null && isPartOf(database, table)) {
+                    return table;
+                }
+            }
+        }
         for(Schema schema : database.getSchemas()) {
             for(Table table : schema.getTables()) {
                 if(entityName.equals(table.getActualEntityName())) {
@@ -246,21 +279,27 @@ public class DatabaseLogic {
         return null;
     }
 
+    protected static boolean isPartOf(Database database, Table table) {
+        Schema schema = table.getSchema();
+        return schema != null &&
+               find(database.schemaIndex, database.getSchemas(), Schema::getSchemaName, schema.getSchemaName(), false)
+                       == schema &&
+               find(schema.tableIndex, schema.getTables(), Table::getTableName, table.getTableName(), false) == table;
+    }
+
     public static ForeignKey findForeignKeyByName(Table table, String fkName) {
-        for (ForeignKey current : table.foreignKeys) {
-            if (current.getName().equals(fkName)) {
-                return current;
-            }
+        ForeignKey foreignKey = find(table.foreignKeyIndex, table.foreignKeys, ForeignKey::getName, fkName, false);
+        if (foreignKey != null) {
+            return foreignKey;
         }
         logger.debug("Foreign key not found: {}", fkName);
         return null;
     }
 
     public static ForeignKey findForeignKeyByNameIgnoreCase(Table table, String fkName) {
-        for (ForeignKey current : table.foreignKeys) {
-            if (current.getName().equalsIgnoreCase(fkName)) {
-                return current;
-            }
+        ForeignKey foreignKey = find(table.foreignKeyIndex, table.foreignKeys, ForeignKey::getName, fkName, true);
+        if (foreignKey != null) {
+            return foreignKey;
         }
         logger.debug("Foreign key not found: {}", fkName);
         return null;
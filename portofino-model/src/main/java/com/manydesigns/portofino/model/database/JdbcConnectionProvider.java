@@ -31,6 +31,9 @@ import javax.xml.bind.annotation.XmlType;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
 
 /*
 * @author Paolo Predonzani     - paolo.predonzani@manydesigns.com
@@ -39,11 +42,23 @@ import java.text.MessageFormat;
 * @author Alessio Stalla       - alessio.stalla@manydesigns.com
 */
 @XmlAccessorType(XmlAccessType.NONE)
-@XmlType(propOrder = {"driver", "url", "username", "password"})
+@XmlType(propOrder = {"driver", "url", "username", "password", "pooled", "minPoolSize", "maxPoolSize",
+        "idleTimeout", "validationQuery", "leakDetectionThreshold", "statementCacheSize"})
 public class JdbcConnectionProvider extends ConnectionProvider {
     public static final String copyright =
             "Copyright (C) 2005-2020 ManyDesigns srl";
 
+    //**************************************************************************
+    // Constants
+    //**************************************************************************
+
+    public static final String POOL_PREFIX = "pool.";
+    public static final int DEFAULT_MIN_POOL_SIZE = 1;
+    public static final int DEFAULT_MAX_POOL_SIZE = 20;
+    public static final int DEFAULT_IDLE_TIMEOUT = 600;
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 50;
+    public static final int VALIDATION_TEST_PERIOD = 60;
+
     //**************************************************************************
     // Fields (configured values)
     //**************************************************************************
@@ -53,6 +68,14 @@ public class JdbcConnectionProvider extends ConnectionProvider {
     protected String username;
     protected String password;
 
+    protected Boolean pooled;
+    protected Integer minPoolSize;
+    protected Integer maxPoolSize;
+    protected Integer idleTimeout;
+    protected String validationQuery;
+    protected Integer leakDetectionThreshold;
+    protected Integer statementCacheSize;
+
     protected String keyPrefix;
 
     //**************************************************************************
@@ -62,6 +85,12 @@ public class JdbcConnectionProvider extends ConnectionProvider {
     protected String actualUrl;
     protected String actualUsername;
     protected String actualPassword;
+    protected ConnectionPool connectionPool;
+    /**
+     * Pools that have been replaced, but that a SessionFactory built before may still be using. They're closed by
+     * {@link #closeRetiredConnectionPools()}.
+     */
+    protected final List<ConnectionPool> retiredConnectionPools = new ArrayList<>();
 
     //**************************************************************************
     // Constructors
@@ -103,7 +132,138 @@ public class JdbcConnectionProvider extends ConnectionProvider {
         } else {
             actualPassword = password;
         }
+        if(isActuallyPooled()) {
+            if(connectionPool == null || !isConnectionPoolUpToDate()) {
+                //Only replace the pool when its settings change, as Hibernate may be using it
+                retireConnectionPool();
+                connectionPool = createConnectionPool();
+            }
+        } else {
+            retireConnectionPool();
+        }
         super.init(databasePlatformsRegistry);
+        if(!STATUS_CONNECTED.equals(status)) {
+            retireConnectionPool();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        super.shutdown();
+        closeConnectionPool();
+    }
+
+    //**************************************************************************
+    // Connection pool
+    //**************************************************************************
+
+    /**
+     * Whether connections are pooled, as configured in the model (the <code>pooled</code> attribute) or,
+     * failing that, in the <code>portofino.database.&lt;name&gt;.pool.enabled</code> configuration property.
+     */
+    public boolean isActuallyPooled() {
+        if(pooled != null) {
+            return pooled;
+        }
+        return configuration.getBoolean(keyPrefix + POOL_PREFIX + "enabled", false);
+    }
+
+    protected ConnectionPool createConnectionPool() {
+        String poolName = "portofino-" + getDatabase().getDatabaseName();
+        ConnectionPool pool = new ConnectionPool(poolName, driver, actualUrl, actualUsername, actualPassword);
+        pool.setMinSize(getPoolSetting(minPoolSize, "minSize", DEFAULT_MIN_POOL_SIZE));
+        pool.setMaxSize(getPoolSetting(maxPoolSize, "maxSize", DEFAULT_MAX_POOL_SIZE));
+        pool.setIdleTimeout(getPoolSetting(idleTimeout, "idleTimeout", DEFAULT_IDLE_TIMEOUT));
+        pool.setLeakDetectionThreshold(getPoolSetting(leakDetectionThreshold, "leakDetectionThreshold", 0));
+        pool.setStatementCacheSize(
+                getPoolSetting(statementCacheSize, "statementCacheSize", DEFAULT_STATEMENT_CACHE_SIZE));
+        String actualValidationQuery = validationQuery;
+        if(actualValidationQuery == null) {
+            actualValidationQuery = configuration.getString(keyPrefix + POOL_PREFIX + "validationQuery");
+        }
+        if(actualValidationQuery != null) {
+            pool.setValidationQuery(actualValidationQuery, VALIDATION_TEST_PERIOD);
+        }
+        logger.info("Created connection pool {} for database {}", poolName, getDatabase().getDatabaseName());
+        return pool;
+    }
+
+    /**
+     * @return whether the current pool has been created with the current settings.
+     */
+    protected boolean isConnectionPoolUpToDate() {
+        String actualValidationQuery = validationQuery != null ?
+                validationQuery : configuration.getString(keyPrefix + POOL_PREFIX + "validationQuery");
+        return connectionPool.connectsTo(driver, actualUrl, actualUsername, actualPassword) &&
+               connectionPool.getMinSize() == getPoolSetting(minPoolSize, "minSize", DEFAULT_MIN_POOL_SIZE) &&
+               connectionPool.getMaxSize() == getPoolSetting(maxPoolSize, "maxSize", DEFAULT_MAX_POOL_SIZE) &&
+               connectionPool.getIdleTimeout() == getPoolSetting(idleTimeout, "idleTimeout", DEFAULT_IDLE_TIMEOUT) &&
+               connectionPool.getLeakDetectionThreshold() ==
+                       getPoolSetting(leakDetectionThreshold, "leakDetectionThreshold", 0) &&
+               connectionPool.getStatementCacheSize() ==
+                       getPoolSetting(statementCacheSize, "statementCacheSize", DEFAULT_STATEMENT_CACHE_SIZE) &&
+               Objects.equals(connectionPool.getValidationQuery(), actualValidationQuery);
+    }
+
+    protected int getPoolSetting(Integer value, String key, int defaultValue) {
+        if(value != null) {
+            return value;
+        }
+        return configuration.getInt(keyPrefix + POOL_PREFIX + key, defaultValue);
+    }
+
+    /**
+     * Stops using the current pool, if any, without closing it, because a SessionFactory may still be using it.
+     * It will be closed by {@link #closeRetiredConnectionPools()}.
+     */
+    protected void retireConnectionPool() {
+        if(connectionPool != null) {
+            synchronized (retiredConnectionPools) {
+                retiredConnectionPools.add(connectionPool);
+            }
+            connectionPool = null;
+        }
+    }
+
+    /**
+     * Closes the pools that have been replaced or abandoned by {@link #init(DatabasePlatformsRegistry)}. To be called
+     * when nothing uses them anymore, i.e. when the SessionFactory built before has been disposed.
+     */
+    public void closeRetiredConnectionPools() {
+        List<ConnectionPool> pools;
+        synchronized (retiredConnectionPools) {
+            pools = new ArrayList<>(retiredConnectionPools);
+            retiredConnectionPools.clear();
+        }
+        for(ConnectionPool pool : pools) {
+            closeConnectionPool(pool);
+        }
+    }
+
+    /**
+     * Closes the current pool and the retired ones.
+     */
+    public void closeConnectionPool() {
+        if(connectionPool != null) {
+            closeConnectionPool(connectionPool);
+            connectionPool = null;
+        }
+        closeRetiredConnectionPools();
+    }
+
+    protected void closeConnectionPool(ConnectionPool pool) {
+        try {
+            pool.close();
+        } catch (Exception e) {
+            logger.warn("Could not close connection pool for " + getDatabase().getDatabaseName(), e);
+        }
+    }
+
+    /**
+     * @return the connection pool, or null if connections are not pooled.
+     */
+    public ConnectionPool getConnectionPool() {
+        return connectionPool;
     }
 
     //**************************************************************************
@@ -111,11 +271,18 @@ public class JdbcConnectionProvider extends ConnectionProvider {
     //**************************************************************************
 
     public String getDescription() {
+        if(connectionPool != null) {
+            return MessageFormat.format(
+                    "Pooled JDBC connection to URL: {0}", actualUrl);
+        }
         return MessageFormat.format(
                 "JDBC connection to URL: {0}", actualUrl);
     }
 
     public Connection acquireConnection() throws Exception {
+        if(connectionPool != null) {
+            return connectionPool.getConnection();
+        }
         if(driver != null) {
             Class.forName(driver);
         }
@@ -162,6 +329,76 @@ public class JdbcConnectionProvider extends ConnectionProvider {
         this.password = password;
     }
 
+    @XmlAttribute(required = false)
+    public Boolean getPooled() {
+        return pooled;
+    }
+
+    public void setPooled(Boolean pooled) {
+        this.pooled = pooled;
+    }
+
+    @XmlAttribute(required = false)
+    public Integer getMinPoolSize() {
+        return minPoolSize;
+    }
+
+    public void setMinPoolSize(Integer minPoolSize) {
+        this.minPoolSize = minPoolSize;
+    }
+
+    @XmlAttribute(required = false)
+    public Integer getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    public void setMaxPoolSize(Integer maxPoolSize) {
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    /**
+     * @return how long (in seconds) an unused connection stays in the pool.
+     */
+    @XmlAttribute(required = false)
+    public Integer getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(Integer idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    @XmlAttribute(required = false)
+    public String getValidationQuery() {
+        return validationQuery;
+    }
+
+    public void setValidationQuery(String validationQuery) {
+        this.validationQuery = validationQuery;
+    }
+
+    /**
+     * @return after how long (in seconds) a connection that has not been returned to the pool is reported as
+     * leaked and closed. 0 disables leak detection.
+     */
+    @XmlAttribute(required = false)
+    public Integer getLeakDetectionThreshold() {
+        return leakDetectionThreshold;
+    }
+
+    public void setLeakDetectionThreshold(Integer leakDetectionThreshold) {
+        this.leakDetectionThreshold = leakDetectionThreshold;
+    }
+
+    @XmlAttribute(required = false)
+    public Integer getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    public void setStatementCacheSize(Integer statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+    }
+
     public String getActualUrl() {
         return actualUrl;
     }
@@ -212,6 +449,7 @@ public class JdbcConnectionProvider extends ConnectionProvider {
                 .append("url", actualUrl)
                 .append("username", actualUsername)
                 .append("password", actualPassword)
+                .append("pool", connectionPool)
                 .toString();
     }
 }
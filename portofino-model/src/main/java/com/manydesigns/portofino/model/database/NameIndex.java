@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2005-2020 ManyDesigns srl.  All rights reserved.
+ * http://www.manydesigns.com/
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package com.manydesigns.portofino.model.database;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * An immutable index of model objects by name, both exact and case-insensitive, built when the model is linked.
+ * Like a linear search, when several objects have the same name the first one wins.
+ * <p>The model can still be modified after it's been initialized, so the index is only a shortcut:
+ * {@link DatabaseLogic} checks that the objects it finds are still in the indexed list, at the same position, with the
+ * same name, and falls back to a linear search when the index is out of date (see {@link #isCurrent(int)}) or doesn't
+ * contain the name.</p>
+ */
+public class NameIndex<T> {
+    public static final String copyright =
+            "Copyright (C) 2005-2020 ManyDesigns srl";
+
+    protected final Function<T, String> naming;
+    protected final List<T> objects;
+    protected final Map<String, Integer> byName;
+    protected final Map<String, Integer> byFoldedName;
+
+    public NameIndex(Collection<? extends T> objects, Function<T, String> naming) {
+        this.naming = naming;
+        this.objects = new ArrayList<>(objects);
+        int count = this.objects.size();
+        Map<String, Integer> byName = new HashMap<>(count * 2);
+        Map<String, Integer> byFoldedName = new HashMap<>(count * 2);
+        for(int i = 0; i < count; i++) {
+            String name = naming.apply(this.objects.get(i));
+            if(name != null) {
+                byName.putIfAbsent(name, i);
+                byFoldedName.putIfAbsent(fold(name), i);
+            }
+        }
+        this.byName = byName;
+        this.byFoldedName = byFoldedName;
+    }
+
+    protected static String fold(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @param count the number of objects currently in the indexed collection.
+     * @return whether the index can be used; false if objects have been added or removed since it was built.
+     */
+    public boolean isCurrent(int count) {
+        return objects.size() == count;
+    }
+
+    public String getName(T object) {
+        return naming.apply(object);
+    }
+
+    /**
+     * Looks up an object without checking that it's still part of the model: an object that has been removed, and
+     * replaced by another one with the same name, is still returned. Callers must check it, e.g. by looking it up
+     * in its parent. When the index is built from a single list, prefer {@link #get(String, List)}.
+     * @param name the name.
+     * @return the object with the given name, if it's in the index and it has not been renamed since.
+     */
+    public @Nullable T get(String name) {
+        Integer position = byName.get(name);
+        if(position == null) {
+            return null;
+        }
+        T object = objects.get(position);
+        return name.equals(naming.apply(object)) ? object : null;
+    }
+
+    /**
+     * @param name the name.
+     * @param current the indexed list, as it is now.
+     * @return the object with the given name, if it's in the index, it's still in the list at the same position, and
+     * it has not been renamed since.
+     */
+    public @Nullable T get(String name, List<? extends T> current) {
+        T object = getAt(byName.get(name), current);
+        return object != null && name.equals(naming.apply(object)) ? object : null;
+    }
+
+    /**
+     * @param name the name.
+     * @param current the indexed list, as it is now.
+     * @return the object with the given name, ignoring case, if it's in the index, it's still in the list at the same
+     * position, and it has not been renamed since.
+     */
+    public @Nullable T getIgnoreCase(String name, List<? extends T> current) {
+        if(name == null) {
+            return null;
+        }
+        T object = getAt(byFoldedName.get(fold(name)), current);
+        return object != null && name.equalsIgnoreCase(naming.apply(object)) ? object : null;
+    }
+
+    protected @Nullable T getAt(@Nullable Integer position, List<? extends T> current) {
+        if(position == null || position >= current.size()) {
+            return null;
+        }
+        T object = objects.get(position);
+        return current.get(position) == object ? object : null;
+    }
+}
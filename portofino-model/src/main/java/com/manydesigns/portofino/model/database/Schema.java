@@ -61,6 +61,9 @@ public class Schema implements ModelObject, Annotated {
     protected Configuration configuration;
     protected String key;
     protected final List<Annotation> annotations = new ArrayList<>();
+
+    //Index for DatabaseLogic, built when the database is linked
+    protected NameIndex<Table> tableIndex;
     
     //**************************************************************************
     // Logging
@@ -100,7 +103,9 @@ public class Schema implements ModelObject, Annotated {
                 name);
     }
 
-    public void reset() {}
+    public void reset() {
+        tableIndex = null;
+    }
 
     public void init(Model model, Configuration configuration) {
         assert database != null;
@@ -117,6 +122,13 @@ public class Schema implements ModelObject, Annotated {
 
     public void link(Model model, Configuration configuration) {}
 
+    protected void buildIndexes() {
+        tableIndex = new NameIndex<>(tables, Table::getTableName);
+        for (Table table : tables) {
+            table.buildIndexes();
+        }
+    }
+
     public void visitChildren(ModelObjectVisitor visitor) {
         for (Table table : tables) {
             visitor.visit(table);
@@ -78,6 +78,11 @@ public class Table implements ModelObject, Annotated {
     protected Class actualIdStrategy;
     protected String actualEntityName;
 
+    //Indexes for DatabaseLogic, built when the database is linked
+    protected NameIndex<Column> columnIndex;
+    protected NameIndex<Column> propertyIndex;
+    protected NameIndex<ForeignKey> foreignKeyIndex;
+
     //**************************************************************************
     // Logging
     //**************************************************************************
@@ -121,6 +126,9 @@ public class Table implements ModelObject, Annotated {
         actualJavaClass = null;
         actualIdStrategy = null;
         oneToManyRelationships.clear();
+        columnIndex = null;
+        propertyIndex = null;
+        foreignKeyIndex = null;
     }
 
     public void init(Model model, Configuration configuration) {
@@ -154,6 +162,12 @@ public class Table implements ModelObject, Annotated {
 
     public void link(Model model, Configuration configuration) {}
 
+    protected void buildIndexes() {
+        columnIndex = new NameIndex<>(columns, Column::getColumnName);
+        propertyIndex = new NameIndex<>(columns, Column::getActualPropertyName);
+        foreignKeyIndex = new NameIndex<>(foreignKeys, ForeignKey::getName);
+    }
+
     public void visitChildren(ModelObjectVisitor visitor) {
         for (Column column : columns) {
             visitor.visit(column);
@@ -64,6 +64,27 @@ public interface DatabasePlatform {
     void shutdown(ConnectionProvider connectionProvider);
 
     List<String[]> getSchemaNames(DatabaseMetaData databaseMetaData) throws SQLException;
+
+    /**
+     * Can the total number of results of a query be computed together with a page of results, using a
+     * <code>count(*) over()</code> window function?
+     * @param connectionProvider the connection to the database, used to check its version.
+     * @return true if and only if the database supports window functions. By default, false.
+     */
+    default boolean isWindowedCountSupported(ConnectionProvider connectionProvider) {
+        return false;
+    }
+
+    /**
+     * Returns a SQL query that estimates the number of rows in a table using the statistics collected by the
+     * database, without scanning the table.
+     * @return the query, or null if the platform cannot estimate the number of rows. The query has two parameters,
+     * the schema and the table name, and returns a single number; if it returns no rows or a number that is not
+     * positive, no estimate is available. By default, null.
+     */
+    default String getRowCountEstimateQuery() {
+        return null;
+    }
     
     class TypeDescriptor {
         
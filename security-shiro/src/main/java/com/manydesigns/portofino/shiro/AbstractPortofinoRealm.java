@@ -20,6 +20,9 @@
 
 package com.manydesigns.portofino.shiro;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import com.manydesigns.elements.reflection.ClassAccessor;
 import com.manydesigns.elements.reflection.JavaClassAccessor;
 import com.manydesigns.portofino.code.CodeBase;
@@ -50,9 +53,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 
 import javax.crypto.spec.SecretKeySpec;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Default implementation of PortofinoRealm. Provides convenient implementations of the interface methods.
@@ -67,6 +75,33 @@ public abstract class AbstractPortofinoRealm extends AuthorizingRealm implements
 
     public static final String JWT_EXPIRATION_PROPERTY = "jwt.expiration";
     public static final String JWT_SECRET_PROPERTY = "jwt.secret";
+    /**
+     * The maximum number of verified web tokens to cache, so that repeated requests with the same token don't
+     * verify it again. 0 disables the cache.
+     */
+    public static final String JWT_CACHE_SIZE_PROPERTY = "jwt.cache.size";
+    public static final int DEFAULT_JWT_CACHE_SIZE = 1000;
+    /**
+     * How the principal is stored in web tokens: <code>serialized</code> (the default) using Java serialization,
+     * or <code>claims</code> as JSON only, avoiding Java serialization. In the latter case, the principal is
+     * rebuilt from the claims with {@link #getPrincipalFromClaims(Claims)}.
+     */
+    public static final String JWT_PRINCIPAL_FORMAT_PROPERTY = "jwt.principal.format";
+    public static final String JWT_PRINCIPAL_FORMAT_SERIALIZED = "serialized";
+    public static final String JWT_PRINCIPAL_FORMAT_CLAIMS = "claims";
+    /**
+     * The maximum number of users whose groups are cached, so that authorization doesn't query the groups of the
+     * user on every request. 0 disables the cache. By default, only realms that know when the groups change cache
+     * them (see {@link #isGroupCacheEnabledByDefault()}).
+     */
+    public static final String GROUP_CACHE_SIZE_PROPERTY = "group.cache.size";
+    public static final int DEFAULT_GROUP_CACHE_SIZE = 1000;
+    /**
+     * How long, in seconds, the groups of a user are cached. This bounds how long changes made outside of the
+     * application, which don't invalidate the cache, can go unnoticed.
+     */
+    public static final String GROUP_CACHE_TTL_PROPERTY = "group.cache.ttl";
+    public static final int DEFAULT_GROUP_CACHE_TTL = 300;
 
     @Autowired
     protected Configuration portofinoConfiguration;
@@ -78,6 +113,11 @@ public abstract class AbstractPortofinoRealm extends AuthorizingRealm implements
 
     protected boolean legacyHashing = false;
 
+    protected volatile JWTKey jwtKey;
+    protected volatile Optional<Cache<String, Jws<Claims>>> verifiedTokens;
+    protected volatile Optional<Cache<Object, Collection<String>>> userGroups;
+    protected final AtomicLong groupInvalidations = new AtomicLong();
+
     private static final Logger logger = LoggerFactory.getLogger(AbstractPortofinoRealm.class);
 
     protected AbstractPortofinoRealm() {
@@ -96,21 +136,68 @@ public abstract class AbstractPortofinoRealm extends AuthorizingRealm implements
     }
 
     public AuthenticationInfo loadAuthenticationInfo(JSONWebToken token) {
+        Jws<Claims> jwt = verifyWebToken(token.getPrincipal());
+        Object principal = extractPrincipalFromWebToken(jwt);
+        Date expiration = jwt.getBody().getExpiration();
+        return new JWTAuthenticationInfo(
+                principal, token.getCredentials(), getName(), expiration != null ? expiration.getTime() : null);
+    }
+
+    /**
+     * Verifies the signature and the expiration of a web token, unless it has already been verified and it's in the
+     * cache (see {@link #JWT_CACHE_SIZE_PROPERTY}). Only the verified claims are cached: the principal is extracted
+     * from them for every request, so that requests don't share it (it may be modified by the application).
+     * @param token the token.
+     * @return the verified token.
+     * @throws AuthenticationException if the token is not valid.
+     */
+    protected Jws<Claims> verifyWebToken(String token) {
         Key key = getJWTKey();
+        Cache<String, Jws<Claims>> cache = getVerifiedTokens();
+        String digest = null;
+        if(cache != null) {
+            digest = digest(token);
+            Jws<Claims> jwt = cache.getIfPresent(digest);
+            if(jwt != null) {
+                if(jwt.getBody().getExpiration().getTime() > System.currentTimeMillis()) {
+                    return jwt;
+                }
+                cache.invalidate(digest);
+            }
+        }
         Jws<Claims> jwt;
         try {
-            jwt = Jwts.parser().setSigningKey(key).parseClaimsJws(token.getPrincipal());
+            jwt = Jwts.parser().setSigningKey(key).parseClaimsJws(token);
         } catch (JwtException e) {
             throw new AuthenticationException(e);
         }
-        String credentials = legacyHashing ? token.getCredentials() : encryptPassword(token.getCredentials());
-        Object principal = extractPrincipalFromWebToken(jwt);
-        return new SimpleAuthenticationInfo(principal, credentials, getName());
+        //Tokens that don't expire aren't cached, so that the cache doesn't keep them forever
+        if(cache != null && jwt.getBody().getExpiration() != null) {
+            cache.put(digest, jwt);
+        }
+        return jwt;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The credentials of a JSON Web Token are the token itself, so they're not matched again once its signature
+     * has been verified.</p>
+     */
+    @Override
+    protected void assertCredentialsMatch(AuthenticationToken token, AuthenticationInfo info)
+            throws AuthenticationException {
+        if(token instanceof JSONWebToken && info instanceof JWTAuthenticationInfo) {
+            return;
+        }
+        super.assertCredentialsMatch(token, info);
     }
 
     protected Object extractPrincipalFromWebToken(Jws<Claims> jwt) {
         Map<String, Object> body = jwt.getBody();
         String base64Principal = (String) body.get("serialized-principal");
+        if(base64Principal == null || !isSerializedPrincipal()) {
+            return getPrincipalFromClaims(jwt.getBody());
+        }
         byte[] serializedPrincipal = Base64.decode(base64Principal);
         Object principal;
         ClassLoader loader = Thread.currentThread().getContextClassLoader();
@@ -132,20 +219,72 @@ public abstract class AbstractPortofinoRealm extends AuthorizingRealm implements
         return principal;
     }
 
+    /**
+     * Rebuilds the principal from the <code>principal</code> claim of a web token, i.e. the principal as returned by
+     * {@link #getPrincipalForWebToken(Object)} serialized as JSON. This is used when the principal is not serialized
+     * in the token (see {@link #JWT_PRINCIPAL_FORMAT_PROPERTY}).
+     * @param claims the claims of the token.
+     * @return the principal. By default, a map if the principal was an object, or the value of the claim.
+     */
+    protected Object getPrincipalFromClaims(Claims claims) {
+        Object principal = claims.get("principal");
+        if(principal instanceof Map) {
+            return new HashMap<>((Map<?, ?>) principal);
+        } else {
+            return principal;
+        }
+    }
+
+    /**
+     * @return whether principals are Java-serialized in web tokens, rather than being rebuilt from the claims.
+     */
+    protected boolean isSerializedPrincipal() {
+        return !JWT_PRINCIPAL_FORMAT_CLAIMS.equalsIgnoreCase(
+                portofinoConfiguration.getString(JWT_PRINCIPAL_FORMAT_PROPERTY, JWT_PRINCIPAL_FORMAT_SERIALIZED));
+    }
+
+    /**
+     * @return the cache of verified web tokens, or null if caching is disabled (<code>jwt.cache.size = 0</code>).
+     */
+    protected Cache<String, Jws<Claims>> getVerifiedTokens() {
+        if(verifiedTokens == null) {
+            synchronized (this) {
+                if(verifiedTokens == null) {
+                    int size = portofinoConfiguration.getInt(JWT_CACHE_SIZE_PROPERTY, DEFAULT_JWT_CACHE_SIZE);
+                    verifiedTokens = size > 0 ?
+                            Optional.of(CacheBuilder.newBuilder().maximumSize(size).build()) :
+                            Optional.empty();
+                }
+            }
+        }
+        return verifiedTokens.orElse(null);
+    }
+
+    protected static String digest(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return java.util.Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     public String generateWebToken(Object principal) {
         Key key = getJWTKey();
         Map<String, Object> claims = new HashMap<>();
         claims.put("principal", getPrincipalForWebToken(principal));
-        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
-        ObjectOutputStream objectOutputStream;
-        try {
-            objectOutputStream = new ObjectOutputStream(bytes);
-            objectOutputStream.writeObject(principal);
-            objectOutputStream.close();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+        if(isSerializedPrincipal()) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ObjectOutputStream objectOutputStream;
+            try {
+                objectOutputStream = new ObjectOutputStream(bytes);
+                objectOutputStream.writeObject(principal);
+                objectOutputStream.close();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            claims.put("serialized-principal", bytes.toByteArray());
         }
-        claims.put("serialized-principal", bytes.toByteArray());
         int expireAfterMinutes = portofinoConfiguration.getInt(JWT_EXPIRATION_PROPERTY, 30);
         return Jwts.builder().
                 setClaims(claims).
@@ -186,10 +325,53 @@ public abstract class AbstractPortofinoRealm extends AuthorizingRealm implements
         return principal;
     }
 
+    /**
+     * Returns the key used to sign and verify web tokens. The key is computed again only if the secret changes; in
+     * that case, the tokens verified with the old key are discarded.
+     * @return the key.
+     */
     @NotNull
     protected Key getJWTKey() {
         String secret = portofinoConfiguration.getString(JWT_SECRET_PROPERTY);
-        return new SecretKeySpec(Decoders.BASE64.decode(secret), SignatureAlgorithm.HS512.getJcaName());
+        JWTKey jwtKey = this.jwtKey;
+        if(jwtKey == null || !jwtKey.secret.equals(secret)) {
+            Key key = new SecretKeySpec(Decoders.BASE64.decode(secret), SignatureAlgorithm.HS512.getJcaName());
+            if(jwtKey != null) {
+                Cache<String, Jws<Claims>> cache = getVerifiedTokens();
+                if(cache != null) {
+                    cache.invalidateAll();
+                }
+            }
+            jwtKey = new JWTKey(secret, key);
+            this.jwtKey = jwtKey;
+        }
+        return jwtKey.key;
+    }
+
+    protected static class JWTKey {
+        public final String secret;
+        public final Key key;
+
+        public JWTKey(String secret, Key key) {
+            this.secret = secret;
+            this.key = key;
+        }
+    }
+
+    /**
+     * The authentication info obtained from a verified JSON Web Token.
+     */
+    public static class JWTAuthenticationInfo extends SimpleAuthenticationInfo {
+        protected final Long expiration;
+
+        public JWTAuthenticationInfo(Object principal, Object credentials, String realmName, Long expiration) {
+            super(principal, credentials, realmName);
+            this.expiration = expiration;
+        }
+
+        public boolean isExpired() {
+            return expiration != null && expiration <= System.currentTimeMillis();
+        }
     }
 
     // --------------------------------------------------------------------------
@@ -225,7 +407,7 @@ public abstract class AbstractPortofinoRealm extends AuthorizingRealm implements
             groups.add(SecurityLogic.getAnonymousGroup(portofinoConfiguration));
         } else if (principal instanceof Serializable) {
             groups.add(SecurityLogic.getRegisteredGroup(portofinoConfiguration));
-            groups.addAll(loadAuthorizationInfo((Serializable) principal));
+            groups.addAll(getUserGroups((Serializable) principal));
         } else {
             throw new AuthorizationException("Invalid principal: " + principal);
         }
@@ -241,6 +423,107 @@ public abstract class AbstractPortofinoRealm extends AuthorizingRealm implements
         return Collections.emptySet();
     }
 
+    /**
+     * Returns the groups associated to a given user, from the cache if possible, otherwise loading them with
+     * {@link #loadAuthorizationInfo(Serializable)}.
+     * @param principal the user object.
+     * @return the groups as a collection of strings.
+     */
+    protected Collection<String> getUserGroups(Serializable principal) {
+        Cache<Object, Collection<String>> cache = getUserGroupsCache();
+        if(cache == null) {
+            return loadAuthorizationInfo(principal);
+        }
+        Object key = getGroupsCacheKey(principal);
+        Collection<String> groups = cache.getIfPresent(key);
+        if(groups == null) {
+            long invalidationCount = groupInvalidations.get();
+            groups = Collections.unmodifiableSet(new HashSet<>(loadAuthorizationInfo(principal)));
+            if(groupInvalidations.get() == invalidationCount) {
+                //Otherwise the groups may have changed while loading them
+                cache.put(key, groups);
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * Returns the key of the cached groups of a user. By default, it's the principal itself; subclasses whose
+     * principals don't implement equals and hashCode by value should return something that does, e.g. the id of the
+     * user.
+     * @param principal the user object.
+     * @return the key.
+     */
+    protected Object getGroupsCacheKey(Serializable principal) {
+        return principal;
+    }
+
+    /**
+     * @return the cache of the groups of each user, or null if caching is disabled
+     * (<code>group.cache.size = 0</code>).
+     */
+    protected Cache<Object, Collection<String>> getUserGroupsCache() {
+        if(userGroups == null) {
+            synchronized (this) {
+                if(userGroups == null) {
+                    int size = portofinoConfiguration.getInt(
+                            GROUP_CACHE_SIZE_PROPERTY, isGroupCacheEnabledByDefault() ? DEFAULT_GROUP_CACHE_SIZE : 0);
+                    int ttl = portofinoConfiguration.getInt(GROUP_CACHE_TTL_PROPERTY, DEFAULT_GROUP_CACHE_TTL);
+                    userGroups = size > 0 && ttl > 0 ?
+                            Optional.of(CacheBuilder.newBuilder()
+                                    .maximumSize(size)
+                                    .expireAfterWrite(ttl, TimeUnit.SECONDS)
+                                    .recordStats()
+                                    .build()) :
+                            Optional.empty();
+                }
+            }
+        }
+        return userGroups.orElse(null);
+    }
+
+    /**
+     * Returns whether the groups of the users are cached when <code>group.cache.size</code> is not configured. It's
+     * false by default, because a realm that doesn't call {@link #invalidateGroups(Serializable)} when the groups
+     * change would keep authorizing users with their old groups until the cache expires.
+     * @return whether to cache the groups by default.
+     */
+    protected boolean isGroupCacheEnabledByDefault() {
+        return false;
+    }
+
+    /**
+     * Discards the cached groups of a user, e.g. because they have been changed.
+     * @param principal the user object.
+     */
+    public void invalidateGroups(Serializable principal) {
+        groupInvalidations.incrementAndGet();
+        Cache<Object, Collection<String>> cache = getUserGroupsCache();
+        if(cache != null && principal != null) {
+            cache.invalidate(getGroupsCacheKey(principal));
+        }
+    }
+
+    /**
+     * Discards the cached groups of all the users, e.g. because the groups or their members have been changed.
+     */
+    public void invalidateGroups() {
+        groupInvalidations.incrementAndGet();
+        Cache<Object, Collection<String>> cache = getUserGroupsCache();
+        if(cache != null) {
+            cache.invalidateAll();
+            logger.debug("Group cache cleared");
+        }
+    }
+
+    /**
+     * @return the statistics of the group cache (e.g. its hit rate), or null if caching is disabled.
+     */
+    public CacheStats getGroupsCacheStats() {
+        Cache<Object, Collection<String>> cache = getUserGroupsCache();
+        return cache != null ? cache.stats() : null;
+    }
+
     //--------------------------------------------------------------------------
     // Groups CRUD
     //--------------------------------------------------------------------------
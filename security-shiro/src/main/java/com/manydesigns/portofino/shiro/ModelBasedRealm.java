@@ -1,5 +1,6 @@
 package com.manydesigns.portofino.shiro;
 
+import com.manydesigns.elements.reflection.PropertyAccessor;
 import com.manydesigns.elements.util.RandomUtil;
 import com.manydesigns.portofino.model.database.Column;
 import com.manydesigns.portofino.model.database.DatabaseLogic;
@@ -9,10 +10,15 @@ import com.manydesigns.portofino.persistence.Persistence;
 import com.manydesigns.portofino.persistence.QueryUtils;
 import com.manydesigns.portofino.reflection.TableAccessor;
 import com.manydesigns.portofino.util.PkHelper;
+import io.jsonwebtoken.Claims;
+import io.reactivex.disposables.Disposable;
 import org.apache.commons.beanutils.BeanUtils;
+import org.apache.commons.beanutils.ConversionException;
+import org.apache.commons.beanutils.ConvertUtils;
 import org.apache.commons.beanutils.PropertyUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.shiro.authc.*;
+import org.apache.shiro.util.Destroyable;
 import org.hibernate.Session;
 import org.hibernate.exception.ConstraintViolationException;
 import org.hibernate.query.Query;
@@ -30,8 +36,9 @@ import java.beans.PropertyDescriptor;
 import java.io.Serializable;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-public abstract class ModelBasedRealm extends AbstractPortofinoRealm {
+public abstract class ModelBasedRealm extends AbstractPortofinoRealm implements Destroyable {
 
     protected Table usersTable;
     protected Table groupsTable;
@@ -54,6 +61,8 @@ public abstract class ModelBasedRealm extends AbstractPortofinoRealm {
     @Autowired
     Persistence persistence;
 
+    protected Disposable tableChanges;
+
     @PostConstruct
     public void configure() {
         if(persistence.status.getValue() != Persistence.Status.STARTED) {
@@ -113,6 +122,39 @@ public abstract class ModelBasedRealm extends AbstractPortofinoRealm {
         if(userLinkProperty == null || groupLinkProperty == null) {
             usersGroupsTable = null;
         }
+        if(tableChanges != null) {
+            tableChanges.dispose();
+        }
+        //The subscription ends when persistence stops, or when the realm is destroyed (e.g. Security.groovy reloaded)
+        tableChanges = persistence.tableChanges
+                .takeUntil(persistence.status.filter(s -> s == Persistence.Status.STOPPING))
+                .filter(this::isSecurityTable)
+                .subscribe(table -> invalidateGroups());
+    }
+
+    /**
+     * Returns whether a table holds users or groups, so that changes to it invalidate the cached groups. Tables are
+     * compared by name, because the model may have been reloaded since the realm was configured.
+     * @param table the table.
+     * @return true if it's the users, groups or users-groups table.
+     */
+    protected boolean isSecurityTable(Table table) {
+        String name = table.getQualifiedName();
+        return Stream.of(usersTable, groupsTable, usersGroupsTable)
+                .anyMatch(t -> t != null && t.getQualifiedName().equals(name));
+    }
+
+    @Override
+    protected boolean isGroupCacheEnabledByDefault() {
+        return true;
+    }
+
+    @Override
+    public void destroy() {
+        if(tableChanges != null) {
+            tableChanges.dispose();
+            tableChanges = null;
+        }
     }
 
     protected void setupUserTable(Table t) {
@@ -127,6 +169,12 @@ public abstract class ModelBasedRealm extends AbstractPortofinoRealm {
         userIdProperty = pkcols.get(0).getActualPropertyName();
     }
 
+    @Override
+    protected Object getGroupsCacheKey(Serializable principal) {
+        Object userId = getUserProperty(principal, userIdProperty);
+        return userId != null ? userId : principal;
+    }
+
     @Override
     protected Collection<String> loadAuthorizationInfo(Serializable principal) {
         List<String> groups = new ArrayList<>();
@@ -276,6 +324,52 @@ public abstract class ModelBasedRealm extends AbstractPortofinoRealm {
         return clean;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>This implementation rebuilds a user entity from the claims, converting the values of its properties
+     * (e.g. numeric ids) to the types of the columns of the users table.</p>
+     */
+    @Override
+    protected Object getPrincipalFromClaims(Claims claims) {
+        Object principal = super.getPrincipalFromClaims(claims);
+        if(!(principal instanceof Map)) {
+            return principal;
+        }
+        Map<?, ?> values = (Map<?, ?>) principal;
+        TableAccessor tableAccessor = persistence.getTableAccessor(usersTable);
+        Object user = tableAccessor.newInstance();
+        for(PropertyAccessor property : tableAccessor.getProperties()) {
+            Object value = convertClaim(values.get(property.getName()), property.getType());
+            if(value != null) {
+                property.set(user, value);
+            }
+        }
+        return user;
+    }
+
+    protected Object convertClaim(Object value, Class<?> type) {
+        if(value == null || type.isInstance(value)) {
+            return value;
+        }
+        //Dates are represented as milliseconds in JSON
+        if(value instanceof Number && Date.class.isAssignableFrom(type)) {
+            long millis = ((Number) value).longValue();
+            if(type == java.sql.Timestamp.class) {
+                return new java.sql.Timestamp(millis);
+            } else if(type == java.sql.Date.class) {
+                return new java.sql.Date(millis);
+            } else {
+                return new Date(millis);
+            }
+        }
+        try {
+            return ConvertUtils.convert(value, type);
+        } catch (ConversionException e) {
+            logger.debug("Could not convert claim " + value + " to " + type, e);
+            return null;
+        }
+    }
+
     @Override
     public boolean supports(AuthenticationToken token) {
         if(token instanceof PasswordResetToken || token instanceof SignUpToken) {
@@ -295,6 +389,7 @@ public abstract class ModelBasedRealm extends AbstractPortofinoRealm {
         } else {
             setUserProperty(savedUser, userPasswordProperty, encryptPassword(newPassword));
             session.getTransaction().commit();
+            invalidateGroups(user);
         }
     }
 
@@ -410,6 +505,7 @@ public abstract class ModelBasedRealm extends AbstractPortofinoRealm {
             throw new ExistingUserException(e);
         }
         session.getTransaction().commit();
+        invalidateGroups((Serializable) persistentUser);
         return new String[] { token, theUser.email };
     }
 
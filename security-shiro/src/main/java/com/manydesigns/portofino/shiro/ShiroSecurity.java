@@ -1,6 +1,7 @@
 package com.manydesigns.portofino.shiro;
 
 import com.manydesigns.portofino.actions.Permissions;
+import com.manydesigns.portofino.operations.HandlerMetadata;
 import com.manydesigns.portofino.security.AccessLevel;
 import com.manydesigns.portofino.security.SecurityFacade;
 import groovy.text.SimpleTemplateEngine;
@@ -15,6 +16,10 @@ import org.apache.shiro.SecurityUtils;
 import org.apache.shiro.aop.MethodInvocation;
 import org.apache.shiro.authz.AuthorizationException;
 import org.apache.shiro.authz.UnauthenticatedException;
+import org.apache.shiro.authz.annotation.RequiresAuthentication;
+import org.apache.shiro.authz.annotation.RequiresGuest;
+import org.apache.shiro.authz.annotation.RequiresRoles;
+import org.apache.shiro.authz.annotation.RequiresUser;
 import org.apache.shiro.authz.aop.AnnotationsAuthorizingMethodInterceptor;
 import org.apache.shiro.subject.Subject;
 import org.jetbrains.annotations.NotNull;
@@ -24,6 +29,7 @@ import javax.ws.rs.core.Response;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.util.*;
 
@@ -150,6 +156,10 @@ public class ShiroSecurity extends SecurityFacade {
 
     @Override
     public void checkWebResourceIsAccessible(ContainerRequestContext requestContext, Object resource, Method handler) {
+        if(resource != null && handler != null && !hasShiroAnnotations(resource, handler)) {
+            logger.debug("No Shiro annotations on the method or resource, skipping standard Shiro security check.");
+            return;
+        }
         try {
             AUTH_CHECKER.assertAuthorized(resource, handler);
             logger.debug("Standard Shiro security check passed.");
@@ -190,4 +200,21 @@ public class ShiroSecurity extends SecurityFacade {
     }
 
     protected static final AuthChecker AUTH_CHECKER = new AuthChecker();
+
+    /**
+     * The annotations checked by {@link AuthChecker}, on the method or on the class of the resource.
+     */
+    protected static final List<Class<? extends Annotation>> SHIRO_ANNOTATIONS = Arrays.asList(
+            RequiresAuthentication.class, RequiresGuest.class,
+            org.apache.shiro.authz.annotation.RequiresPermissions.class, RequiresRoles.class, RequiresUser.class);
+
+    protected static boolean hasShiroAnnotations(Object resource, Method handler) {
+        HandlerMetadata metadata = HandlerMetadata.get(resource.getClass(), handler);
+        for(Class<? extends Annotation> annotation : SHIRO_ANNOTATIONS) {
+            if(metadata.getAnnotation(annotation) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
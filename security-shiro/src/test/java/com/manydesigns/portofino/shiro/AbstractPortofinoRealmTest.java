@@ -0,0 +1,228 @@
+package com.manydesigns.portofino.shiro;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.apache.commons.configuration2.BaseConfiguration;
+import org.apache.shiro.authc.AuthenticationException;
+import org.apache.shiro.authc.AuthenticationInfo;
+import org.apache.shiro.authc.AuthenticationToken;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.Serializable;
+import java.util.*;
+
+import static org.testng.Assert.*;
+
+public class AbstractPortofinoRealmTest {
+
+    TestRealm realm;
+    BaseConfiguration configuration;
+
+    @BeforeMethod
+    public void setup() {
+        configuration = new BaseConfiguration();
+        configuration.setProperty(AbstractPortofinoRealm.JWT_SECRET_PROPERTY, secret('a'));
+        configuration.setProperty(
+                AbstractPortofinoRealm.JWT_PRINCIPAL_FORMAT_PROPERTY,
+                AbstractPortofinoRealm.JWT_PRINCIPAL_FORMAT_CLAIMS);
+        realm = new TestRealm();
+        realm.portofinoConfiguration = configuration;
+    }
+
+    protected static String secret(char c) {
+        char[] chars = new char[64];
+        Arrays.fill(chars, c);
+        return Base64.getEncoder().encodeToString(new String(chars).getBytes());
+    }
+
+    protected Map<String, Object> user(String email) {
+        Map<String, Object> user = new HashMap<>();
+        user.put("id", 1);
+        user.put("email", email);
+        return user;
+    }
+
+    @Test
+    public void testVerifiedTokensAreCached() {
+        String token = realm.generateWebToken(user("a@example.com"));
+        AuthenticationInfo info = realm.loadAuthenticationInfo(new JSONWebToken(token));
+        assertEquals(((Map) info.getPrincipals().getPrimaryPrincipal()).get("email"), "a@example.com");
+        realm.loadAuthenticationInfo(new JSONWebToken(token));
+        assertEquals(realm.getVerifiedTokens().size(), 1);
+    }
+
+    @Test
+    public void testPrincipalIsNotSharedByRequests() {
+        String token = realm.generateWebToken(user("a@example.com"));
+        AuthenticationInfo info1 = realm.loadAuthenticationInfo(new JSONWebToken(token));
+        AuthenticationInfo info2 = realm.loadAuthenticationInfo(new JSONWebToken(token));
+        assertEquals(realm.getVerifiedTokens().size(), 1);
+        assertNotSame(info2, info1);
+        Object principal1 = info1.getPrincipals().getPrimaryPrincipal();
+        Object principal2 = info2.getPrincipals().getPrimaryPrincipal();
+        assertNotSame(principal2, principal1);
+        assertEquals(principal2, principal1);
+        //Modifying the principal of a request doesn't affect the others
+        ((Map) principal1).put("email", "b@example.com");
+        AuthenticationInfo info3 = realm.loadAuthenticationInfo(new JSONWebToken(token));
+        assertEquals(((Map) info3.getPrincipals().getPrimaryPrincipal()).get("email"), "a@example.com");
+    }
+
+    @Test
+    public void testExpiredToken() throws Exception {
+        //Expiration dates are stored in seconds
+        Date expiration = new Date(System.currentTimeMillis() + 1500);
+        String token = Jwts.builder()
+                .claim("principal", user("a@example.com"))
+                .setExpiration(expiration)
+                .signWith(realm.getJWTKey(), SignatureAlgorithm.HS512)
+                .compact();
+        assertNotNull(realm.loadAuthenticationInfo(new JSONWebToken(token)));
+        Thread.sleep(expiration.getTime() - System.currentTimeMillis() + 1100);
+        //The cached token has expired, too
+        try {
+            realm.loadAuthenticationInfo(new JSONWebToken(token));
+            fail("The token has expired");
+        } catch (AuthenticationException e) {
+            //Ok
+        }
+        assertEquals(realm.getVerifiedTokens().size(), 0);
+
+        configuration.setProperty(AbstractPortofinoRealm.JWT_EXPIRATION_PROPERTY, -1);
+        try {
+            realm.loadAuthenticationInfo(new JSONWebToken(realm.generateWebToken(user("a@example.com"))));
+            fail("The token has expired");
+        } catch (AuthenticationException e) {
+            //Ok
+        }
+    }
+
+    @Test
+    public void testTamperedToken() {
+        String token = realm.generateWebToken(user("a@example.com"));
+        String other = realm.generateWebToken(user("admin@example.com"));
+        assertNotNull(realm.loadAuthenticationInfo(new JSONWebToken(token)));
+        String[] parts = token.split("\\.");
+        String[] otherParts = other.split("\\.");
+        String tampered = parts[0] + "." + otherParts[1] + "." + parts[2];
+        try {
+            realm.loadAuthenticationInfo(new JSONWebToken(tampered));
+            fail("The token has been tampered with");
+        } catch (AuthenticationException e) {
+            //Ok
+        }
+        assertEquals(realm.getVerifiedTokens().size(), 1);
+    }
+
+    @Test
+    public void testSecretRotation() {
+        String token = realm.generateWebToken(user("a@example.com"));
+        assertNotNull(realm.loadAuthenticationInfo(new JSONWebToken(token)));
+        assertEquals(realm.getVerifiedTokens().size(), 1);
+
+        configuration.setProperty(AbstractPortofinoRealm.JWT_SECRET_PROPERTY, secret('b'));
+        try {
+            realm.loadAuthenticationInfo(new JSONWebToken(token));
+            fail("The token was signed with the old secret");
+        } catch (AuthenticationException e) {
+            //Ok
+        }
+        assertEquals(realm.getVerifiedTokens().size(), 0);
+        String newToken = realm.generateWebToken(user("a@example.com"));
+        assertNotNull(realm.loadAuthenticationInfo(new JSONWebToken(newToken)));
+    }
+
+    @Test
+    public void testClaimsPrincipalFormat() {
+        String token = realm.generateWebToken(user("a@example.com"));
+        Claims claims = Jwts.parser().setSigningKey(realm.getJWTKey()).parseClaimsJws(token).getBody();
+        assertFalse(claims.containsKey("serialized-principal"));
+        AuthenticationInfo info = realm.loadAuthenticationInfo(new JSONWebToken(token));
+        assertEquals(info.getPrincipals().getPrimaryPrincipal(), user("a@example.com"));
+
+        configuration.setProperty(
+                AbstractPortofinoRealm.JWT_PRINCIPAL_FORMAT_PROPERTY,
+                AbstractPortofinoRealm.JWT_PRINCIPAL_FORMAT_SERIALIZED);
+        token = realm.generateWebToken(user("a@example.com"));
+        claims = Jwts.parser().setSigningKey(realm.getJWTKey()).parseClaimsJws(token).getBody();
+        assertTrue(claims.containsKey("serialized-principal"));
+    }
+
+    @Test
+    public void testGroupCacheIsOptIn() {
+        realm.groups.put("a", Collections.singleton("g1"));
+        assertTrue(realm.getGroups("a").contains("g1"));
+        assertTrue(realm.getGroups("a").contains("g1"));
+        assertEquals(realm.groupLoads, 2);
+        assertNull(realm.getGroupsCacheStats());
+    }
+
+    @Test
+    public void testGroupChangesEvictCachedGroups() {
+        configuration.setProperty(AbstractPortofinoRealm.GROUP_CACHE_SIZE_PROPERTY, 10);
+        realm.groups.put("a", Collections.singleton("g1"));
+        realm.groups.put("b", Collections.singleton("g1"));
+        assertTrue(realm.getGroups("a").contains("g1"));
+        assertTrue(realm.getGroups("b").contains("g1"));
+        assertTrue(realm.getGroups("a").contains("g1"));
+        assertEquals(realm.groupLoads, 2);
+
+        realm.groups.put("a", Collections.singleton("g2"));
+        realm.invalidateGroups("a");
+        Set<String> groups = realm.getGroups("a");
+        assertTrue(groups.contains("g2"));
+        assertFalse(groups.contains("g1"));
+        assertTrue(realm.getGroups("b").contains("g1"));
+        assertEquals(realm.groupLoads, 3);
+
+        realm.groups.put("b", Collections.singleton("g2"));
+        realm.invalidateGroups();
+        assertTrue(realm.getGroups("b").contains("g2"));
+        assertEquals(realm.groupLoads, 4);
+    }
+
+    public static class TestRealm extends AbstractPortofinoRealm {
+
+        final Map<Serializable, Collection<String>> groups = new HashMap<>();
+        int groupLoads;
+
+        @Override
+        protected AuthenticationInfo doGetAuthenticationInfo(AuthenticationToken token) {
+            return loadAuthenticationInfo((JSONWebToken) token);
+        }
+
+        @Override
+        protected Collection<String> loadAuthorizationInfo(Serializable principal) {
+            groupLoads++;
+            return groups.getOrDefault(principal, Collections.emptySet());
+        }
+
+        @Override
+        public String encryptPassword(String password) {
+            return password;
+        }
+
+        @Override
+        public Map<Serializable, String> getUsers() {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public Serializable getUserId(Serializable user) {
+            return user;
+        }
+
+        @Override
+        public String getUsername(Serializable user) {
+            return user.toString();
+        }
+
+        @Override
+        public String getEmail(Serializable user) {
+            return user.toString();
+        }
+    }
+
+}
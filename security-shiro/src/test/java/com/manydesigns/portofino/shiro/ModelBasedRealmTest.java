@@ -0,0 +1,53 @@
+package com.manydesigns.portofino.shiro;
+
+import com.manydesigns.portofino.model.database.Database;
+import com.manydesigns.portofino.model.database.Schema;
+import com.manydesigns.portofino.model.database.Table;
+import org.apache.shiro.authc.AuthenticationInfo;
+import org.apache.shiro.authc.AuthenticationToken;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public class ModelBasedRealmTest {
+
+    protected static Table table(String databaseName, String tableName) {
+        Database database = new Database();
+        database.setDatabaseName(databaseName);
+        Schema schema = new Schema(database);
+        schema.setSchemaName("public");
+        Table table = new Table(schema);
+        table.setTableName(tableName);
+        return table;
+    }
+
+    @Test
+    public void testSecurityTablesAreComparedByName() {
+        TestRealm realm = new TestRealm();
+        realm.usersTable = table("db", "users");
+        realm.groupsTable = table("db", "groups");
+        assertTrue(realm.isSecurityTable(realm.usersTable));
+        //The same tables after the model has been reloaded
+        assertTrue(realm.isSecurityTable(table("db", "users")));
+        assertTrue(realm.isSecurityTable(table("db", "groups")));
+        assertFalse(realm.isSecurityTable(table("db", "users_groups")));
+        assertFalse(realm.isSecurityTable(table("other", "users")));
+
+        realm.usersGroupsTable = table("db", "users_groups");
+        assertTrue(realm.isSecurityTable(table("db", "users_groups")));
+    }
+
+    @Test
+    public void testGroupCacheIsOnByDefault() {
+        TestRealm realm = new TestRealm();
+        assertTrue(realm.isGroupCacheEnabledByDefault());
+    }
+
+    public static class TestRealm extends ModelBasedRealm {
+        @Override
+        protected AuthenticationInfo doGetAuthenticationInfo(AuthenticationToken token) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+}
@@ -1,18 +1,33 @@
 package com.manydesigns.portofino.ui.support.pages;
 
 import com.manydesigns.elements.servlet.ServletConstants;
-import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.servlet.*;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URLDecoder;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.GZIPOutputStream;
 
+/**
+ * Serves config.json files from memory, reloading them when they change on disk. Responses carry a strong ETag, so
+ * that browsers can revalidate them cheaply with If-None-Match, and are gzipped when the client accepts it.
+ */
 public class ConfigJsonCacheFilter implements Filter {
 
+    private static final Logger logger = LoggerFactory.getLogger(ConfigJsonCacheFilter.class);
+
+    protected final ConcurrentMap<String, CachedFile> cache = new ConcurrentHashMap<>();
 
     @Override
     public void init(FilterConfig filterConfig) {}
@@ -24,26 +39,144 @@ public class ConfigJsonCacheFilter implements Filter {
         String path = request.getRequestURI().substring(request.getContextPath().length());
         path = URLDecoder.decode(path, "UTF-8"); //TODO read from portofino.properties
         if(path.endsWith("config.json")) {
-            //HTTP 1.0
-            response.setHeader(ServletConstants.HTTP_PRAGMA, ServletConstants.HTTP_PRAGMA_NO_CACHE);
-            response.setHeader(ServletConstants.HTTP_EXPIRES, "0");
-            //HTTP 1.1
-            response.addHeader(ServletConstants.HTTP_CACHE_CONTROL, ServletConstants.HTTP_CACHE_CONTROL_NO_CACHE);
-            response.addHeader(ServletConstants.HTTP_CACHE_CONTROL, ServletConstants.HTTP_CACHE_CONTROL_NO_STORE);
-
-            response.setHeader("Content-Type", "application/json");
-
-            File configJsonFile = new File(request.getServletContext().getRealPath(path));
-            try(FileReader reader = new FileReader(configJsonFile)) {
-                IOUtils.copy(reader, response.getWriter());
+            String realPath = request.getServletContext().getRealPath(path);
+            CachedFile cachedFile = realPath != null ? getCachedFile(new File(realPath)) : null;
+            if(cachedFile == null) {
+                chain.doFilter(req, resp);
+                return;
             }
+            serve(cachedFile, request, response);
         } else {
             chain.doFilter(req, resp);
         }
     }
 
+    /**
+     * Returns the contents of a file, loading them again if the file has been modified since it was cached.
+     * @param file the file.
+     * @return the cached file, or null if it doesn't exist.
+     * @throws IOException if the file cannot be read.
+     */
+    protected CachedFile getCachedFile(File file) throws IOException {
+        long lastModified = file.lastModified();
+        if(lastModified == 0) { //The file does not exist
+            cache.remove(file.getPath());
+            return null;
+        }
+        long length = file.length();
+        CachedFile cachedFile = cache.get(file.getPath());
+        if(cachedFile == null || cachedFile.lastModified != lastModified || cachedFile.length != length) {
+            logger.debug("Loading {}", file);
+            cachedFile = new CachedFile(FileUtils.readFileToByteArray(file), lastModified, length);
+            cache.put(file.getPath(), cachedFile);
+        }
+        return cachedFile;
+    }
+
+    protected void serve(CachedFile cachedFile, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        boolean gzip = cachedFile.gzipped != null && acceptsGzip(request);
+        String entityTag = gzip ? cachedFile.gzippedEntityTag : cachedFile.entityTag;
+        //HTTP 1.1: the client may store the file, but it has to revalidate it using the ETag
+        response.setHeader(ServletConstants.HTTP_CACHE_CONTROL, ServletConstants.HTTP_CACHE_CONTROL_NO_CACHE);
+        response.setHeader("ETag", entityTag);
+        response.setHeader("Vary", "Accept-Encoding");
+        if(matches(request.getHeader("If-None-Match"), entityTag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        byte[] content = gzip ? cachedFile.gzipped : cachedFile.content;
+        response.setContentType("application/json");
+        if(gzip) {
+            response.setHeader("Content-Encoding", "gzip");
+        }
+        response.setContentLength(content.length);
+        if(!"HEAD".equals(request.getMethod())) {
+            OutputStream outputStream = response.getOutputStream();
+            outputStream.write(content);
+            outputStream.flush();
+        }
+    }
+
+    protected static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader("Accept-Encoding");
+        if(acceptEncoding == null) {
+            return false;
+        }
+        for(String encoding : acceptEncoding.split(",")) {
+            String[] parts = encoding.trim().split(";");
+            if(parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param ifNoneMatch the value of an <code>If-None-Match</code> header.
+     * @param entityTag a quoted entity tag.
+     * @return whether the header matches the tag, with the weak comparison that RFC 7232 mandates for
+     * <code>If-None-Match</code>. JAX-RS resources use <code>Request#evaluatePreconditions</code> instead, but this
+     * filter runs before, and without, any JAX-RS implementation.
+     */
+    protected static boolean matches(String ifNoneMatch, String entityTag) {
+        if(ifNoneMatch == null) {
+            return false;
+        }
+        for(String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if(tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if(tag.equals("*") || tag.equals(entityTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public void destroy() {
+        cache.clear();
+    }
+
+    /**
+     * The contents of a file, with their gzipped version if it's smaller, and the respective entity tags.
+     */
+    protected static class CachedFile {
+        public final byte[] content;
+        public final byte[] gzipped;
+        public final String entityTag;
+        public final String gzippedEntityTag;
+        public final long lastModified;
+        public final long length;
 
+        public CachedFile(byte[] content, long lastModified, long length) throws IOException {
+            this.content = content;
+            this.lastModified = lastModified;
+            this.length = length;
+            String hash = hash(content);
+            entityTag = "\"" + hash + "\"";
+            gzippedEntityTag = "\"" + hash + "-gzip\"";
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.length);
+            try(GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+                gzip.write(content);
+            }
+            gzipped = bytes.size() < content.length ? bytes.toByteArray() : null;
+        }
+
+        protected static String hash(byte[] content) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+                StringBuilder sb = new StringBuilder();
+                for(int i = 0; i < 16; i++) {
+                    sb.append(String.format("%02x", digest[i]));
+                }
+                return sb.toString();
+            } catch (NoSuchAlgorithmException e) {
+                throw new Error(e); //SHA-256 is required to be supported by every JVM
+            }
+        }
     }
 }
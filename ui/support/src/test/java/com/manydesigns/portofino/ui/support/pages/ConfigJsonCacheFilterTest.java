@@ -0,0 +1,186 @@
+package com.manydesigns.portofino.ui.support.pages;
+
+import com.manydesigns.elements.servlet.ByteArrayServletOutputStream;
+import com.manydesigns.elements.servlet.MutableHttpServletRequest;
+import com.manydesigns.elements.servlet.MutableHttpServletResponse;
+import com.manydesigns.elements.servlet.MutableServletContext;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.testng.Assert.*;
+
+public class ConfigJsonCacheFilterTest {
+
+    File root;
+    File configFile;
+    ConfigJsonCacheFilter filter;
+    MutableServletContext servletContext;
+    boolean chained;
+
+    @BeforeMethod
+    public void setup() throws IOException {
+        root = Files.createTempDirectory("config-json").toFile();
+        configFile = new File(root, "pages/config.json");
+        write(configFile, 1);
+        filter = new ConfigJsonCacheFilter();
+        servletContext = new MutableServletContext() {
+            @Override
+            public String getRealPath(String path) {
+                return new File(root, path).getPath();
+            }
+        };
+        chained = false;
+    }
+
+    @AfterMethod
+    public void cleanup() throws IOException {
+        filter.destroy();
+        FileUtils.deleteDirectory(root);
+    }
+
+    protected static void write(File file, int version) throws IOException {
+        StringBuilder json = new StringBuilder("{\"version\": " + version + ", \"children\": [");
+        for(int i = 0; i < 100; i++) {
+            json.append(i > 0 ? ", " : "").append("{\"path\": \"child").append(i).append("\"}");
+        }
+        FileUtils.writeStringToFile(file, json.append("]}").toString(), StandardCharsets.UTF_8);
+    }
+
+    protected MutableHttpServletRequest request(String path, String... headers) {
+        MutableHttpServletRequest request = new MutableHttpServletRequest(servletContext);
+        request.setContextPath("");
+        request.setRequestURI(path);
+        request.setMethod("GET");
+        for(int i = 0; i < headers.length; i += 2) {
+            request.headerMap.put(headers[i], new String[] { headers[i + 1] });
+        }
+        return request;
+    }
+
+    protected TestResponse serve(MutableHttpServletRequest request) throws Exception {
+        TestResponse response = new TestResponse();
+        filter.doFilter(request, response, (req, resp) -> chained = true);
+        return response;
+    }
+
+    @Test
+    public void testServeAndRevalidate() throws Exception {
+        TestResponse response = serve(request("/pages/config.json"));
+        assertFalse(chained);
+        assertEquals(response.getStatus(), 0);
+        assertEquals(response.getContentType(), "application/json");
+        assertEquals(response.getContent(), FileUtils.readFileToByteArray(configFile));
+        String entityTag = response.headers.get("ETag");
+        assertNotNull(entityTag);
+
+        response = serve(request("/pages/config.json", "If-None-Match", entityTag));
+        assertEquals(response.getStatus(), HttpServletResponse.SC_NOT_MODIFIED);
+        assertEquals(response.getContent().length, 0);
+        assertEquals(response.headers.get("ETag"), entityTag);
+
+        response = serve(request("/pages/config.json", "If-None-Match", "\"other\", W/" + entityTag));
+        assertEquals(response.getStatus(), HttpServletResponse.SC_NOT_MODIFIED);
+
+        response = serve(request("/pages/config.json", "If-None-Match", "\"other\""));
+        assertEquals(response.getStatus(), 0);
+        assertEquals(response.getContent(), FileUtils.readFileToByteArray(configFile));
+    }
+
+    @Test
+    public void testGzip() throws Exception {
+        TestResponse response = serve(request("/pages/config.json", "Accept-Encoding", "deflate, gzip"));
+        assertEquals(response.headers.get("Content-Encoding"), "gzip");
+        assertEquals(response.headers.get("Vary"), "Accept-Encoding");
+        assertTrue(response.headers.get("ETag").endsWith("-gzip\""));
+        byte[] content = IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(response.getContent())));
+        assertEquals(content, FileUtils.readFileToByteArray(configFile));
+
+        response = serve(request("/pages/config.json", "Accept-Encoding", "gzip;q=0.5"));
+        assertEquals(response.headers.get("Content-Encoding"), "gzip");
+
+        //q=0 means "not acceptable"
+        response = serve(request("/pages/config.json", "Accept-Encoding", "gzip; q=0"));
+        assertNull(response.headers.get("Content-Encoding"));
+        assertFalse(response.headers.get("ETag").endsWith("-gzip\""));
+        assertEquals(response.getContent(), FileUtils.readFileToByteArray(configFile));
+
+        response = serve(request("/pages/config.json", "Accept-Encoding", "gzip;q=0.0"));
+        assertNull(response.headers.get("Content-Encoding"));
+    }
+
+    @Test
+    public void testReloadWhenModified() throws Exception {
+        TestResponse response = serve(request("/pages/config.json"));
+        String entityTag = response.headers.get("ETag");
+        long lastModified = configFile.lastModified();
+
+        write(configFile, 2);
+        configFile.setLastModified(lastModified + 2000);
+        response = serve(request("/pages/config.json", "If-None-Match", entityTag));
+        assertEquals(response.getStatus(), 0);
+        assertNotEquals(response.headers.get("ETag"), entityTag);
+        assertEquals(response.getContent(), FileUtils.readFileToByteArray(configFile));
+        assertTrue(new String(response.getContent(), StandardCharsets.UTF_8).contains("\"version\": 2"));
+    }
+
+    @Test
+    public void testFallThrough() throws Exception {
+        TestResponse response = serve(request("/pages/missing/config.json"));
+        assertTrue(chained);
+        assertEquals(response.getContent().length, 0);
+
+        chained = false;
+        serve(request("/pages/other.json"));
+        assertTrue(chained);
+
+        //A file that has been deleted is no longer served from memory
+        chained = false;
+        serve(request("/pages/config.json"));
+        assertFalse(chained);
+        assertTrue(configFile.delete());
+        serve(request("/pages/config.json"));
+        assertTrue(chained);
+    }
+
+    static class TestResponse extends MutableHttpServletResponse {
+        final Map<String, String> headers = new HashMap<>();
+        final ByteArrayServletOutputStream content;
+
+        TestResponse() {
+            this(new ByteArrayServletOutputStream());
+        }
+
+        TestResponse(ByteArrayServletOutputStream content) {
+            super(content);
+            this.content = content;
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            headers.put(name, value);
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return headers.get(name);
+        }
+
+        byte[] getContent() {
+            return content.getByteArrayOutputStream().toByteArray();
+        }
+    }
+
+}
@@ -7,6 +7,7 @@ import com.manydesigns.elements.util.ReflectionUtil;
 import com.manydesigns.portofino.actions.ActionDescriptor;
 import com.manydesigns.portofino.actions.ActionLogic;
 import com.manydesigns.portofino.dispatcher.Resource;
+import com.manydesigns.portofino.dispatcher.RouteTable;
 import com.manydesigns.portofino.dispatcher.WithParameters;
 import com.manydesigns.portofino.resourceactions.AbstractResourceAction;
 import com.manydesigns.portofino.resourceactions.ActionInstance;
@@ -28,6 +29,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import javax.ws.rs.*;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.io.OutputStreamWriter;
@@ -77,12 +79,39 @@ public class ActionsAction extends AbstractResourceAction {
         return result;
     }
 
+    /**
+     * Returns the routes compiled by the dispatcher so far.
+     * @since 5.3
+     * @return the route table as JSON, or <code>enabled: false</code> if the dispatcher doesn't use a route table.
+     */
+    @Path(":routes")
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public Map<String, Object> describeRoutes() {
+        Map<String, Object> result = new HashMap<>();
+        RouteTable.Route route = getRoute();
+        result.put("enabled", route != null);
+        if(route != null) {
+            result.put("routes", route.getTable().describe());
+        }
+        return result;
+    }
+
     @GET
     @Produces(MediaType.APPLICATION_JSON)
     public Map<String, Object> describe() {
         return getResourceAction().describe();
     }
 
+    /**
+     * The description is the one of another action, whose versions are not known here, so it's not tagged.
+     * @return null.
+     */
+    @Override
+    protected EntityTag getDescriptionEntityTag() {
+        return null;
+    }
+
     protected AbstractResourceAction getResourceAction() {
         String actionPath = StringUtils.join(parameters, "/");
         Resource resource = getResource(actionPath);
@@ -396,6 +396,33 @@ public class ConnectionsAction extends AbstractResourceAction {
         RequestMessages.addInfoMessage("Model synchronized");
     }
 
+    @GET
+    @Path("{databaseName}/:pool")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Map<String, Object> describeConnectionPool(@PathParam("databaseName") String databaseName) throws Exception {
+        ConnectionProvider connectionProvider = persistence.getConnectionProvider(databaseName);
+        if(connectionProvider == null) {
+            throw new WebApplicationException(Response.Status.NOT_FOUND);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        ConnectionPool pool = null;
+        if(connectionProvider instanceof JdbcConnectionProvider) {
+            pool = ((JdbcConnectionProvider) connectionProvider).getConnectionPool();
+        }
+        result.put("pooled", pool != null);
+        if(pool != null) {
+            result.put("minSize", pool.getMinSize());
+            result.put("maxSize", pool.getMaxSize());
+            result.put("active", pool.getActiveConnections());
+            result.put("idle", pool.getIdleConnections());
+            result.put("waiting", pool.getThreadsAwaitingConnection());
+            result.put("acquired", pool.getAcquiredConnections());
+            result.put("averageWaitTime", pool.getAverageWaitTimeMillis());
+            result.put("maxWaitTime", pool.getMaxWaitTimeMillis());
+        }
+        return result;
+    }
+
     @POST
     @Path("{databaseName}/:test")
     public String[] test(@PathParam("databaseName") String databaseName) {